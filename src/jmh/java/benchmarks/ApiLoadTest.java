@@ -0,0 +1,228 @@
+package benchmarks;
+
+import api.ApiServer;
+import api.SessionStore;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import security.CredentialCache;
+import security.impl.BoundedPasswordHasher;
+import security.impl.Pbkdf2PasswordHasher;
+import services.impl.ReadingsServiceImpl;
+import services.impl.UserServiceImpl;
+import validators.ReadingsValidator;
+import validators.UserValidator;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест HTTP API: множество одновременных сессий подают и читают показания,
+ * по итогам выводятся пропускная способность и процентили задержки по видам запросов.
+ * <p>
+ * Без параметра --url сервер запускается в том же процессе с репозиториями в памяти.
+ * Запуск после сборки профиля benchmark:
+ * <pre>
+ * java -cp target/benchmarks.jar benchmarks.ApiLoadTest --sessions 2000 --seconds 30 --threads 64
+ * </pre>
+ * Параметр --hash-iterations задает число итераций PBKDF2 при входе, по умолчанию 1000, чтобы вход тысяч сессий
+ * не занимал большую часть теста; стоимость входа с рабочими параметрами измеряет UserServiceBenchmark.
+ * Каждая сессия держит не более одного запроса в работе: 20% запросов - подача показаний за следующий месяц,
+ * 40% - актуальные показания, 40% - показания за случайный уже поданный месяц.
+ */
+public class ApiLoadTest {
+    private static final YearMonth FIRST_PERIOD = Fixtures.FIRST_PERIOD;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final long deadline;
+    private final ConcurrentMap<String, Latencies> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong errors = new AtomicLong();
+
+    private ApiLoadTest(String baseUrl, long deadline) {
+        this.baseUrl = baseUrl;
+        this.deadline = deadline;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = intOption(args, "--sessions", 2000);
+        int seconds = intOption(args, "--seconds", 30);
+        int threads = intOption(args, "--threads", 64);
+        String url = option(args, "--url", null);
+        int hashIterations = intOption(args, "--hash-iterations", 1000);
+
+        ApiServer server = null;
+        ConcurrentUserRepositoryImpl users = new ConcurrentUserRepositoryImpl();
+        if (url == null) {
+            Fixtures.silenceConsole();
+            UserServiceImpl userService = new UserServiceImpl(users, new UserValidator(),
+                    new BoundedPasswordHasher(new Pbkdf2PasswordHasher(hashIterations),
+                            Runtime.getRuntime().availableProcessors(), sessions),
+                    new CredentialCache(sessions, Duration.ofMinutes(30)));
+            server = new ApiServer(userService,
+                    new ReadingsServiceImpl(new ConcurrentReadingsRepositoryImpl(), new ReadingsValidator()),
+                    new SessionStore(Duration.ofMinutes(30)), new InetSocketAddress("127.0.0.1", 0),
+                    threads, sessions * 2);
+            server.start();
+            Fixtures.users(users, sessions);
+            url = "http://127.0.0.1:" + server.getPort();
+        }
+
+        long started = System.nanoTime();
+        ApiLoadTest test = new ApiLoadTest(url, started + Duration.ofSeconds(seconds).toNanos());
+        CompletableFuture<?>[] running = new CompletableFuture<?>[sessions];
+        for (int i = 0; i < sessions; i++) {
+            running[i] = test.session(i);
+        }
+        CompletableFuture.allOf(running).join();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        if (server != null) {
+            server.stop(Duration.ZERO);
+            Fixtures.restoreConsole();
+        }
+        test.report(sessions, elapsed);
+    }
+
+    /**
+     * Выполняет вход и цепочку запросов одной сессии до истечения времени теста.
+     */
+    private CompletableFuture<Void> session(int index) {
+        String body = "{\"login\":\"" + Fixtures.login(index) + "\",\"password\":\"password" + index + "\"}";
+        return send("login", request("/api/login").POST(HttpRequest.BodyPublishers.ofString(body)).build())
+                .thenCompose(response -> {
+                    String token = response == null ? null : token(response.body());
+                    return token == null ? CompletableFuture.completedFuture(null) : loop(token, new int[1]);
+                });
+    }
+
+    private CompletableFuture<Void> loop(String token, int[] submitted) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int choice = ThreadLocalRandom.current().nextInt(10);
+        CompletableFuture<HttpResponse<String>> response;
+        if (choice < 2 || submitted[0] == 0) {
+            YearMonth period = FIRST_PERIOD.plusMonths(submitted[0]++);
+            String body = "{\"period\":\"" + period + "\",\"readings\":{\"Отопление\":" + submitted[0] + "}}";
+            response = send("submit", authorized("/api/readings", token)
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build());
+        } else if (choice < 6) {
+            response = send("latest", authorized("/api/readings/latest", token).GET().build());
+        } else {
+            YearMonth period = FIRST_PERIOD.plusMonths(ThreadLocalRandom.current().nextInt(submitted[0]));
+            response = send("period", authorized("/api/readings?period=" + period, token).GET().build());
+        }
+        return response.thenCompose(ignored -> loop(token, submitted));
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(String operation, HttpRequest request) {
+        long started = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    latencies.computeIfAbsent(operation, k -> new Latencies()).add(System.nanoTime() - started);
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    }
+                    return response;
+                });
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path));
+    }
+
+    private HttpRequest.Builder authorized(String path, String token) {
+        return request(path).header("Authorization", "Bearer " + token);
+    }
+
+    private void report(int sessions, double elapsed) {
+        long total = latencies.values().stream().mapToLong(Latencies::size).sum();
+        System.out.printf("Сессий: %d, время: %.1f с, запросов: %d, ошибок: %d, запросов в секунду: %.0f%n",
+                sessions, elapsed, total, errors.get(), total / elapsed);
+        Latencies all = new Latencies();
+        latencies.forEach((operation, values) -> {
+            print(operation, values);
+            all.addAll(values);
+        });
+        print("all", all);
+    }
+
+    private static void print(String operation, Latencies values) {
+        long[] sorted = values.sorted();
+        System.out.printf("%-7s запросов: %8d  p50: %7.2f мс  p99: %7.2f мс  max: %7.2f мс%n", operation, sorted.length,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.max(1, Math.ceil(quantile * sorted.length));
+        return sorted[rank - 1] / 1e6;
+    }
+
+    private static String token(String body) {
+        int start = body.indexOf("\"token\":\"");
+        if (start < 0) {
+            return null;
+        }
+        start += "\"token\":\"".length();
+        return body.substring(start, body.indexOf('"', start));
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int intOption(String[] args, String name, int defaultValue) {
+        return Integer.parseInt(option(args, name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Растущий массив задержек в наносекундах.
+     */
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        private synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private synchronized void addAll(Latencies other) {
+            long[] copy = other.sorted();
+            values = Arrays.copyOf(values, Math.max(values.length, size + copy.length));
+            System.arraycopy(copy, 0, values, size, copy.length);
+            size += copy.length;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
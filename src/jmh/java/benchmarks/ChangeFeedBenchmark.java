@@ -0,0 +1,90 @@
+package benchmarks;
+
+import enums.ChangeEventType;
+import events.ChangeFeed;
+import models.ChangeEvent;
+import models.Readings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.YearMonth;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк пропускной способности ленты изменений: публикация события при заданном количестве
+ * подписчиков, получающих события в своих потоках, и чтение ленты пачками через poll.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChangeFeedBenchmark {
+    private static final YearMonth PERIOD = YearMonth.of(2024, 1);
+    private static final int BATCH = 256;
+
+    @Param({"0", "1", "2"})
+    public int subscribers;
+
+    private ChangeFeed feed;
+    private Readings readings;
+    private long readOffset;
+
+    @Setup
+    public void setUp() {
+        feed = new ChangeFeed();
+        readings = new Readings();
+        readings.add("heating", 1.0);
+        for (int i = 0; i < subscribers; i++) {
+            feed.subscribe(new Flow.Subscriber<ChangeEvent>() {
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                public void onNext(ChangeEvent event) {
+                }
+
+                public void onError(Throwable throwable) {
+                }
+
+                public void onComplete() {
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        feed.close();
+    }
+
+    @Benchmark
+    public long publish() {
+        return feed.publish(ChangeEventType.READINGS_ADDED, "user42", PERIOD, readings);
+    }
+
+    /**
+     * Публикует пачку событий и читает ее через poll; результат - количество событий в микросекунду, деленное на BATCH.
+     */
+    @Benchmark
+    public long publishAndPoll(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            feed.publish(ChangeEventType.READINGS_ADDED, "user42", PERIOD, readings);
+        }
+        readOffset = feed.poll(Math.max(readOffset, feed.getFirstOffset()), BATCH, blackhole::consume);
+        return readOffset;
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import enums.Role;
+import models.Readings;
+import models.User;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.YearMonth;
+
+/**
+ * Общие данные для бенчмарков: пользователи, показания и заглушка консольного вывода сервисов.
+ */
+final class Fixtures {
+    private static final PrintStream CONSOLE = System.out;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Отключает вывод сервисов в консоль, чтобы он не искажал замеры.
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static void restoreConsole() {
+        System.setOut(CONSOLE);
+    }
+
+    static String login(int index) {
+        return "user" + index;
+    }
+
+    static User[] users(UserRepository repository, int count) {
+        User[] users = new User[count];
+        for (int i = 0; i < count; i++) {
+            users[i] = new User(login(i), "password" + i, Role.USER);
+            repository.addUser(users[i]);
+        }
+        return users;
+    }
+
+    static Readings readings(double base) {
+        Readings readings = new Readings();
+        readings.add("Отопление", base);
+        readings.add("Горячая вода", base / 2);
+        readings.add("Холодная вода", base / 3);
+        return readings;
+    }
+
+    /**
+     * Первый период истории, которой заполняются репозитории.
+     */
+    static final YearMonth FIRST_PERIOD = YearMonth.of(2020, 1);
+
+    static void fillHistory(ReadingsRepository repository, User[] users, int historyLength) {
+        for (int i = 0; i < users.length; i++) {
+            for (int period = 0; period < historyLength; period++) {
+                repository.addReadings(users[i], FIRST_PERIOD.plusMonths(period), readings(i + period));
+            }
+        }
+    }
+}
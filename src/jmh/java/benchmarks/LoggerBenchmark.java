@@ -0,0 +1,61 @@
+package benchmarks;
+
+import enums.OverflowPolicy;
+import logger.impl.AsyncLoggerImpl;
+import logger.impl.LoggerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк стоимости вызова Logger.info для синхронного LoggerImpl и асинхронного AsyncLoggerImpl.
+ * LoggerImpl пишет в logs.log текущего каталога.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggerBenchmark {
+    private LoggerImpl logger;
+    private AsyncLoggerImpl asyncLogger;
+    private Path asyncFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        logger = new LoggerImpl();
+        asyncFile = Files.createTempFile("benchmark", ".log");
+        asyncLogger = new AsyncLoggerImpl(asyncFile, 1 << 16, OverflowPolicy.DROP, 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        logger.close();
+        asyncLogger.close();
+        Files.deleteIfExists(asyncFile);
+    }
+
+    @Benchmark
+    public void loggerImplInfo() {
+        logger.info("Пользователь user42 подал показания за JANUARY");
+    }
+
+    @Benchmark
+    public void asyncLoggerInfo() {
+        asyncLogger.info("Пользователь user42 подал показания за JANUARY");
+    }
+}
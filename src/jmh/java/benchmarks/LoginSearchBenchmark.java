@@ -0,0 +1,97 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.impl.LoginIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск логинов для панели администратора по упорядоченному множеству логинов, как в ConcurrentUserRepositoryImpl.
+ * Логины - случайные строки из строчных латинских букв длиной от 5 до 10 символов. Запросы строятся
+ * из существующих логинов: префикс из 3 символов и логин с одной замененной буквой.
+ * Множество из 10 миллионов логинов не помещается в кучу по умолчанию, поэтому форк запускается с увеличенной кучей:
+ * <pre>
+ * java -jar target/benchmarks.jar LoginSearchBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LoginSearchBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"1000000", "10000000"})
+    public int loginCount;
+
+    private LoginIndex index;
+    private String[] prefixes;
+    private String[] typos;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ConcurrentSkipListSet<String> logins = new ConcurrentSkipListSet<>();
+        while (logins.size() < loginCount) {
+            logins.add(randomLogin(random));
+        }
+        index = new LoginIndex(logins);
+        prefixes = new String[QUERIES];
+        typos = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String login = logins.ceiling(randomLogin(random));
+            if (login == null) {
+                login = logins.first();
+            }
+            prefixes[i] = login.substring(0, 3);
+            char[] typo = login.toCharArray();
+            typo[random.nextInt(typo.length)] = (char) ('a' + random.nextInt(26));
+            typos[i] = new String(typo);
+        }
+    }
+
+    @Benchmark
+    public List<String> prefix() {
+        return index.findByPrefix(prefixes[next++ & (QUERIES - 1)], 10);
+    }
+
+    @Benchmark
+    public List<String> similarWithinOne() {
+        return index.findSimilar(typos[next++ & (QUERIES - 1)], 1, 10);
+    }
+
+    @Benchmark
+    public List<String> similarWithinTwo() {
+        return index.findSimilar(typos[next++ & (QUERIES - 1)], 2, 10);
+    }
+
+    @Benchmark
+    public List<String> page() {
+        return index.page(prefixes[next++ & (QUERIES - 1)], 100);
+    }
+
+    private static String randomLogin(Random random) {
+        char[] login = new char[5 + random.nextInt(6)];
+        for (int i = 0; i < login.length; i++) {
+            login[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(login);
+    }
+}
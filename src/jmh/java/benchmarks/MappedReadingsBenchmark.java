@@ -0,0 +1,66 @@
+package benchmarks;
+
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import persistence.MappedReadingsRepository;
+import repositories.ReadingsRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк запуска хранилища из отображаемого в память снимка показаний.
+ * Время открытия не должно зависеть от количества показаний в снимке.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedReadingsBenchmark {
+    @Param({"10000", "100000"})
+    public int userCount;
+
+    @Param({"12"})
+    public int historyLength;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        ConcurrentUserRepositoryImpl users = new ConcurrentUserRepositoryImpl();
+        ReadingsRepository readings = new ConcurrentReadingsRepositoryImpl();
+        User[] created = Fixtures.users(users, userCount);
+        Fixtures.fillHistory(readings, created, historyLength);
+        file = Files.createTempFile("readings", ".snapshot");
+        MappedReadingsRepository.write(file, users, readings);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public MappedReadingsRepository open() throws IOException {
+        MappedReadingsRepository repository = MappedReadingsRepository.open(file, new ConcurrentReadingsRepositoryImpl());
+        repository.close();
+        return repository;
+    }
+}
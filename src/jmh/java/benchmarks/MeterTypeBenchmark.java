@@ -0,0 +1,88 @@
+package benchmarks;
+
+import models.Readings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.MeterTypeRegistry;
+import repositories.impl.MeterTypeRegistryImpl;
+import validators.ReadingsValidator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение показаний, хранящихся в массиве по идентификаторам типов, с прежним хранением в HashMap по названиям.
+ * Подача - это сборка показаний из названий типов и значений и их проверка, как при подаче через консоль или API;
+ * для HashMap проверка зарегистрированности типа - поиск названия в HashSet.
+ * Объем памяти на подачу показывает профилировщик gc (gc.alloc.rate.norm):
+ * <pre>
+ * java -jar target/benchmarks.jar MeterTypeBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeterTypeBenchmark {
+    @Param({"3", "10"})
+    public int meterCount;
+
+    private String[] names;
+    private double[] values;
+    private ReadingsValidator validator;
+    private Set<String> registeredNames;
+
+    @Setup
+    public void setUp() {
+        MeterTypeRegistry registry = new MeterTypeRegistryImpl();
+        names = new String[meterCount];
+        values = new double[meterCount];
+        for (int i = 0; i < meterCount; i++) {
+            names[i] = "meter" + i;
+            values[i] = 100.0 + i;
+            registry.register(names[i]);
+        }
+        validator = new ReadingsValidator(registry);
+        registeredNames = Set.copyOf(registry.getMeterTypes());
+    }
+
+    @Benchmark
+    public Readings submitArray() {
+        Readings readings = new Readings();
+        for (int i = 0; i < names.length; i++) {
+            readings.add(names[i], values[i]);
+        }
+        validator.validate(readings);
+        return readings;
+    }
+
+    @Benchmark
+    public Map<String, Double> submitHashMap() {
+        Map<String, Double> readings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            readings.put(names[i], values[i]);
+        }
+        if (readings.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        for (Map.Entry<String, Double> entry : readings.entrySet()) {
+            if (!registeredNames.contains(entry.getKey()) || entry.getValue() < 0) {
+                throw new IllegalStateException();
+            }
+        }
+        return readings;
+    }
+}
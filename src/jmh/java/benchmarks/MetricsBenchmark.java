@@ -0,0 +1,86 @@
+package benchmarks;
+
+import metrics.InstrumentedReadingsService;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import models.Readings;
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.ReadingsRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import services.ReadingsService;
+import services.impl.ReadingsServiceImpl;
+import validators.ReadingsValidator;
+
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы учета метрик: вызов ReadingsService без декоратора и через InstrumentedReadingsService,
+ * а также запись одного значения в LatencyHistogram. getReadingsPage не пишет в лог и показывает расходы учета
+ * в чистом виде, getLastReadings, как и большинство методов сервисов, пишет строку в лог. Отсутствие дополнительных
+ * выделений памяти
+ * показывает профилировщик gc (gc.alloc.rate.norm):
+ * <pre>
+ * java -jar target/benchmarks.jar MetricsBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private static final int USERS = 1000;
+    private static final int HISTORY = 12;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private User[] users;
+    private ReadingsService service;
+    private LatencyHistogram histogram;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        users = Fixtures.users(new ConcurrentUserRepositoryImpl(), USERS);
+        ReadingsRepository repository = new ConcurrentReadingsRepositoryImpl();
+        Fixtures.fillHistory(repository, users, HISTORY);
+        service = new ReadingsServiceImpl(repository, new ReadingsValidator());
+        MetricsRegistry metrics = new MetricsRegistry();
+        if (instrumented) {
+            service = new InstrumentedReadingsService(service, metrics);
+        }
+        histogram = metrics.histogram("benchmark_seconds", "", "");
+    }
+
+    @Benchmark
+    public SortedMap<YearMonth, Readings> getReadingsPage() {
+        return service.getReadings(users[cursor++ % USERS], Fixtures.FIRST_PERIOD, 3);
+    }
+
+    @Benchmark
+    public Optional<Readings> getLastReadings() {
+        return service.getLastReadings(users[cursor++ % USERS]);
+    }
+
+    @Benchmark
+    public void recordLatency() {
+        histogram.record(cursor++ & 0xFFFFF);
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import models.Readings;
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import services.HistoryCache;
+import validators.ReadingsValidator;
+
+import java.time.YearMonth;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки работы с одним объектом показаний: валидация и форматирование,
+ * а также форматирование истории из 12 таких показаний и ее получение из HistoryCache.
+ * От количества пользователей и длины истории не зависят, поэтому параметризованы числом типов показаний.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadingsBenchmark {
+    @Param({"3", "10"})
+    public int meterCount;
+
+    private Readings readings;
+    private ReadingsValidator validator;
+    private SortedMap<YearMonth, Readings> history;
+    private HistoryCache historyCache;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        readings = new Readings();
+        for (int i = 0; i < meterCount; i++) {
+            readings.add("meter" + i, 100.0 + i);
+        }
+        validator = new ReadingsValidator();
+        history = new TreeMap<>();
+        for (int i = 0; i < 12; i++) {
+            history.put(Fixtures.FIRST_PERIOD.plusMonths(i), readings);
+        }
+        user = Fixtures.users(new ConcurrentUserRepositoryImpl(), 1)[0];
+        historyCache = new HistoryCache(1 << 20);
+        historyCache.put(user, history.lastKey(), HistoryCache.render(history));
+    }
+
+    @Benchmark
+    public Readings validate() {
+        validator.validate(readings);
+        return readings;
+    }
+
+    @Benchmark
+    public String readingsToString() {
+        return readings.toString();
+    }
+
+    @Benchmark
+    public String renderHistory() {
+        return HistoryCache.render(history);
+    }
+
+    @Benchmark
+    public String cachedHistory() {
+        return historyCache.get(user);
+    }
+}
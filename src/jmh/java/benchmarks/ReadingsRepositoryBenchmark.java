@@ -0,0 +1,90 @@
+package benchmarks;
+
+import models.Readings;
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.ReadingsRepository;
+import repositories.impl.ColumnarReadingsRepositoryImpl;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import repositories.impl.ReadingsRepositoryImpl;
+
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки чтения из реализаций ReadingsRepository без накладных расходов сервиса и логгера.
+ * Время getLastReadings не должно расти с длиной истории, время запросов по диапазону
+ * должно зависеть от размера диапазона, а не от длины истории.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadingsRepositoryBenchmark {
+    @Param({"map", "concurrent", "columnar"})
+    public String implementation;
+
+    @Param({"10000"})
+    public int userCount;
+
+    @Param({"1", "12", "120"})
+    public int historyLength;
+
+    private User[] users;
+    private ReadingsRepository repository;
+    private YearMonth lastYearFrom;
+    private YearMonth lastYearTo;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        users = Fixtures.users(new ConcurrentUserRepositoryImpl(), userCount);
+        repository = switch (implementation) {
+            case "map" -> new ReadingsRepositoryImpl();
+            case "concurrent" -> new ConcurrentReadingsRepositoryImpl();
+            case "columnar" -> new ColumnarReadingsRepositoryImpl();
+            default -> throw new IllegalArgumentException(implementation);
+        };
+        Fixtures.fillHistory(repository, users, historyLength);
+        lastYearTo = Fixtures.FIRST_PERIOD.plusMonths(historyLength - 1);
+        lastYearFrom = lastYearTo.minusMonths(11);
+    }
+
+    /**
+     * Поиск показаний пользователя за месяц: стоимость определяется поиском пользователя по ключу.
+     */
+    @Benchmark
+    public Optional<Readings> getReadingsByMonth() {
+        return repository.getReadingsByMonth(users[cursor++ % userCount], lastYearTo);
+    }
+
+    @Benchmark
+    public Optional<Readings> getLastReadings() {
+        return repository.getLastReadings(users[cursor++ % userCount]);
+    }
+
+    @Benchmark
+    public SortedMap<YearMonth, Readings> getLatestYear() {
+        return repository.getLatestReadings(users[cursor++ % userCount], 12);
+    }
+
+    @Benchmark
+    public SortedMap<YearMonth, Readings> getReadingsBetween() {
+        return repository.getReadingsBetween(users[cursor++ % userCount], lastYearFrom, lastYearTo);
+    }
+}
@@ -0,0 +1,96 @@
+package benchmarks;
+
+import models.Readings;
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.ReadingsRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import services.ReadingsService;
+import services.impl.ReadingsServiceImpl;
+import validators.ReadingsValidator;
+
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки ReadingsServiceImpl: подача показаний и чтение актуальных показаний и истории.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadingsServiceBenchmark {
+    @Param({"1000", "100000"})
+    public int userCount;
+
+    @Param({"1", "12"})
+    public int historyLength;
+
+    private User[] users;
+    private ReadingsRepository repository;
+    private ReadingsService service;
+    private Readings submission;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.silenceConsole();
+        users = Fixtures.users(new ConcurrentUserRepositoryImpl(), userCount);
+        submission = Fixtures.readings(100);
+    }
+
+    /**
+     * Каждая итерация получает свежий репозиторий с историей заданной длины,
+     * чтобы подача показаний шла в свободные периоды после конца истории.
+     */
+    @Setup(Level.Iteration)
+    public void fillRepository() {
+        repository = new ConcurrentReadingsRepositoryImpl();
+        Fixtures.fillHistory(repository, users, historyLength);
+        service = new ReadingsServiceImpl(repository, new ReadingsValidator());
+        cursor = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.restoreConsole();
+    }
+
+    @Benchmark
+    public void addReadings() {
+        int index = cursor++;
+        User user = users[index % userCount];
+        YearMonth period = Fixtures.FIRST_PERIOD.plusMonths(historyLength + index / userCount);
+        service.addReadings(user, period, submission);
+    }
+
+    @Benchmark
+    public Optional<Readings> getLastReadings() {
+        return service.getLastReadings(nextUser());
+    }
+
+    @Benchmark
+    public String getAllReadings() {
+        return service.getAllReadings(nextUser());
+    }
+
+    private User nextUser() {
+        return users[cursor++ % userCount];
+    }
+}
@@ -0,0 +1,155 @@
+package benchmarks;
+
+import models.Readings;
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.ReadingsRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import repositories.impl.ShardedReadingsRepository;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стенд из нескольких шардов в одном процессе: пропускная способность маршрутизации запросов по пользователю,
+ * запроса по всем шардам и время добавления шарда с переносом пользователей.
+ * Значение shards = 0 - хранилище ConcurrentReadingsRepositoryImpl без маршрутизации, для оценки ее стоимости.
+ * Эффективность масштабирования - отношение пропускной способности при N шардах и N потоках
+ * к пропускной способности одного шарда, умноженной на N; запуск с другим числом потоков: -t N.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ShardedReadingsBenchmark {
+    @Param({"0", "1", "2", "4"})
+    public int shards;
+
+    @Param({"100000"})
+    public int userCount;
+
+    @Param({"12"})
+    public int historyLength;
+
+    private User[] users;
+    private ReadingsRepository repository;
+    private YearMonth lastPeriod;
+
+    @Setup
+    public void setUp() {
+        users = Fixtures.users(new ConcurrentUserRepositoryImpl(), userCount);
+        repository = shards == 0 ? new ConcurrentReadingsRepositoryImpl() : sharded(shards);
+        Fixtures.fillHistory(repository, users, historyLength);
+        lastPeriod = Fixtures.FIRST_PERIOD.plusMonths(historyLength - 1);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        private int next(int bound) {
+            next = next + 7919 < bound ? next + 7919 : (next + 7919) % bound;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Optional<Readings> getLastReadings(Cursor cursor) {
+        return repository.getLastReadings(users[cursor.next(userCount)]);
+    }
+
+    @Benchmark
+    public void addReadings(Cursor cursor) {
+        int index = cursor.next(userCount);
+        repository.addReadings(users[index], lastPeriod, Fixtures.readings(index));
+    }
+
+    /**
+     * Сумма показаний за последний период по всем пользователям: запрос выполняется на шардах параллельно.
+     */
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public double scatterTotal() {
+        if (!(repository instanceof ShardedReadingsRepository sharded)) {
+            double total = 0;
+            for (User user : users) {
+                total += repository.getReadingsByMonth(user, lastPeriod).map(Readings::size).orElse(0);
+            }
+            return total;
+        }
+        List<Double> totals = sharded.scatter((shard, shardUsers) -> {
+            double total = 0;
+            for (User user : shardUsers) {
+                total += shard.getReadingsByMonth(user, lastPeriod).map(Readings::size).orElse(0);
+            }
+            return total;
+        });
+        return totals.stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    static ShardedReadingsRepository sharded(int count) {
+        Map<String, ReadingsRepository> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            nodes.put("node-" + i, new ConcurrentReadingsRepositoryImpl());
+        }
+        return new ShardedReadingsRepository(nodes);
+    }
+
+    /**
+     * Время добавления шарда: перенос примерно 1/(N+1) пользователей с историей.
+     */
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    @Threads(1)
+    @State(Scope.Benchmark)
+    public static class Rebalance {
+        @Param({"1", "4"})
+        public int shards;
+
+        @Param({"100000"})
+        public int userCount;
+
+        private User[] users;
+        private ShardedReadingsRepository repository;
+
+        @Setup(Level.Trial)
+        public void createUsers() {
+            users = Fixtures.users(new ConcurrentUserRepositoryImpl(), userCount);
+        }
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            repository = sharded(shards);
+            Fixtures.fillHistory(repository, users, 12);
+        }
+
+        @Benchmark
+        public int addShard() {
+            return repository.addShard("node-" + shards, new ConcurrentReadingsRepositoryImpl());
+        }
+    }
+}
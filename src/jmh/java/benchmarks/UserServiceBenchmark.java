@@ -0,0 +1,81 @@
+package benchmarks;
+
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import security.CredentialCache;
+import security.impl.BoundedPasswordHasher;
+import security.impl.Pbkdf2PasswordHasher;
+import services.UserService;
+import services.impl.UserServiceImpl;
+import validators.UserValidator;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк аутентификации UserServiceImpl.getUser с хешированием паролей PBKDF2.
+ * Сравнивает пропускную способность входа с кешем проверенных учетных данных и без него:
+ * без кеша каждый вход пересчитывает хеш, с кешем хеш пересчитывается только при первом входе,
+ * который выполняется при подготовке.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+    @Param({"16"})
+    public int userCount;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private String[] logins;
+    private String[] passwords;
+    private UserService service;
+    private BoundedPasswordHasher hasher;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Fixtures.silenceConsole();
+        ConcurrentUserRepositoryImpl repository = new ConcurrentUserRepositoryImpl();
+        hasher = new BoundedPasswordHasher(new Pbkdf2PasswordHasher(), Runtime.getRuntime().availableProcessors(), 1024);
+        CredentialCache credentials = new CredentialCache(cached ? userCount : 0, Duration.ofHours(1));
+        service = new UserServiceImpl(repository, new UserValidator(), hasher, credentials);
+        logins = new String[userCount];
+        passwords = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            logins[i] = Fixtures.login(i);
+            passwords[i] = "password" + i;
+            service.registerUser(logins[i], passwords[i]);
+            service.getUser(logins[i], passwords[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.close();
+        Fixtures.restoreConsole();
+    }
+
+    @Benchmark
+    public Optional<User> getUser() {
+        int index = cursor++ % userCount;
+        return service.getUser(logins[index], passwords[index]);
+    }
+}
@@ -1,36 +1,253 @@
+import api.ApiServer;
+import api.SessionStore;
 import enums.Role;
+import events.ChangeFeed;
+import exceptions.ServiceUnavailableException;
 import exceptions.ValidationException;
-import logger.Logger;
+import importer.ImportReport;
+import importer.ReadingsImporter;
+import logger.impl.AsyncLoggerImpl;
+import logger.impl.AuditLoggerImpl;
+import metrics.InstrumentedReadingsService;
+import metrics.InstrumentedUserService;
+import metrics.MetricsDumper;
+import metrics.MetricsRegistry;
+import models.Anomaly;
+import models.AuditRecord;
+import models.MeterStatistics;
+import models.Periods;
 import models.Readings;
+import services.AggregationService;
+import services.AnomalyService;
+import services.HistoryCache;
 import services.ReadingsService;
 import services.UserService;
-import logger.impl.LoggerImpl;
 import models.User;
-import repositories.impl.ReadingsRepositoryImpl;
-import repositories.impl.UserRepositoryImpl;
+import persistence.PersistenceManager;
+import persistence.RecoveryReport;
+import persistence.Replica;
+import persistence.ReplicationSource;
+import repositories.MeterTypeRegistry;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConsumptionRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import services.impl.AggregationServiceImpl;
+import services.impl.AnomalyServiceImpl;
 import services.impl.ReadingsServiceImpl;
+import services.impl.ReplicaRoutingReadingsService;
 import services.impl.UserServiceImpl;
 import validators.ReadingsValidator;
 import validators.UserValidator;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.DateTimeException;
-import java.time.Month;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
 
 public class Main {
-    private static final UserService userService = new UserServiceImpl(new UserRepositoryImpl(), new UserValidator());
-    private static final ReadingsService readingsService = new ReadingsServiceImpl(new ReadingsRepositoryImpl(), new ReadingsValidator());
-    private static final Logger logger = LoggerImpl.getInstance();
+    private static final Path DATA_DIRECTORY = Path.of("data");
+    private static final Duration SNAPSHOT_PERIOD = Duration.ofMinutes(5);
+    private static final int DEFAULT_HTTP_PORT = 8080;
+    private static final int HTTP_THREADS = 64;
+    private static final int HTTP_QUEUE_CAPACITY = 4096;
+    private static final Duration SESSION_TTL = Duration.ofMinutes(30);
+    private static final Path METRICS_FILE = DATA_DIRECTORY.resolve("metrics.prom");
+    private static final Duration METRICS_PERIOD = Duration.ofMinutes(1);
+    private static final Duration MAX_REPLICA_STALENESS = Duration.ofSeconds(1);
+    private static final int ANOMALIES_LIMIT = 50;
+    private static final int AUDIT_LIMIT = 100;
+    private static final String INVALID_PERIOD = "Ошибка: введен некорректный период. Год должен быть от "
+            + Periods.MIN_YEAR + " до " + Periods.MAX_YEAR + ", номер месяца - от 1 до 12.";
+    private static final List<String> DEFAULT_METER_TYPES = List.of("Отопление", "Горячая вода", "Холодная вода");
+    private static final PersistenceManager persistence = new PersistenceManager(DATA_DIRECTORY,
+            new ConcurrentUserRepositoryImpl(), new ConcurrentReadingsRepositoryImpl());
+    private static final AsyncLoggerImpl logger = AsyncLoggerImpl.getInstance();
+    private static final MetricsRegistry metrics = new MetricsRegistry();
+    private static final ChangeFeed changeFeed = new ChangeFeed();
+    private static UserService userService;
+    private static ReadingsService readingsService;
+    private static AggregationService aggregationService;
+    private static AnomalyService anomalyService;
+    private static AuditLoggerImpl auditLog;
+    private static MeterTypeRegistry meterTypes;
 
+    /**
+     * Запускает приложение в консольном режиме или, с аргументом "--http [порт [реплики]]", в режиме HTTP API.
+     * В режиме HTTP API можно запустить реплики для чтения истории показаний.
+     */
     public static void main(String[] args) {
+        try {
+            RecoveryReport report = persistence.recover();
+            logger.info(report.toString());
+            persistence.scheduleSnapshots(SNAPSHOT_PERIOD);
+        } catch (IOException e) {
+            System.out.println("Не удалось восстановить данные: " + e.getMessage());
+            return;
+        }
+        meterTypes = persistence.getMeterTypeRegistry();
+        if (meterTypes.getMeterTypes().isEmpty()) {
+            DEFAULT_METER_TYPES.forEach(meterTypes::register);
+        }
+        UserServiceImpl users = new UserServiceImpl(persistence.getUserRepository(), new UserValidator());
+        auditLog = new AuditLoggerImpl(DATA_DIRECTORY.resolve("audit"));
+        users.addListener(changeFeed);
+        users.addListener(auditLog);
+        userService = new InstrumentedUserService(users, metrics);
+        AggregationServiceImpl aggregation = new AggregationServiceImpl(persistence.getUserRepository(),
+                persistence.getReadingsRepository());
+        aggregation.rebuild();
+        ReadingsServiceImpl readings = new ReadingsServiceImpl(persistence.getReadingsRepository(),
+                new ReadingsValidator(meterTypes));
+        readings.addListener(aggregation);
+        readings.addListener(changeFeed);
+        readings.addListener(auditLog);
+        readings.rebuildConsumption(allUsers());
+        AnomalyServiceImpl anomalies = new AnomalyServiceImpl(persistence.getUserRepository(),
+                persistence.getReadingsRepository());
+        anomalies.rebuild();
+        readings.addValidator(anomalies);
+        readings.addListener(anomalies);
+        aggregationService = aggregation;
+        anomalyService = anomalies;
+        boolean http = args.length > 0 && args[0].equals("--http");
+        int replicas = http && args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        try {
+            readingsService = new InstrumentedReadingsService(
+                    replicas > 0 ? startReplicas(readings, replicas) : readings, metrics);
+        } catch (IOException e) {
+            System.out.println("Не удалось запустить реплики: " + e.getMessage());
+            auditLog.close();
+            persistence.close();
+            return;
+        }
+        registerMetrics(readings.getHistoryCache());
+        metrics.counter("anomalies_flagged_total", "", "Значения потребления, отмеченные как подозрительные",
+                anomalies::getFlaggedCount);
+        MetricsDumper dumper = new MetricsDumper(metrics, METRICS_FILE);
+        dumper.start(METRICS_PERIOD);
+
+        if (http) {
+            runHttpServer(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HTTP_PORT);
+            return;
+        }
         try (Scanner scanner = new Scanner(System.in)) {
             runApplication(scanner);
         } catch (Exception e) {
             System.out.println(e.getMessage());
+        } finally {
+            dumper.close();
+            auditLog.close();
+            persistence.close();
+            logger.close();
         }
     }
 
+    /**
+     * Регистрирует метрики компонентов, которые ведут статистику сами: кеша истории показаний, логгера
+     * и ленты изменений.
+     *
+     * @param historyCache Кеш истории показаний.
+     */
+    private static void registerMetrics(HistoryCache historyCache) {
+        metrics.counter("history_cache_hits_total", "", "Запросы истории показаний, найденные в кеше",
+                historyCache::getHits);
+        metrics.counter("history_cache_misses_total", "", "Запросы истории показаний, не найденные в кеше",
+                historyCache::getMisses);
+        metrics.counter("history_cache_appends_total", "", "Показания, дописанные к истории в кеше",
+                historyCache::getAppends);
+        metrics.counter("history_cache_evictions_total", "", "Истории, вытесненные из кеша",
+                historyCache::getEvictions);
+        metrics.gauge("history_cache_entries", "", "Количество историй в кеше", historyCache::size);
+        metrics.gauge("history_cache_chars", "", "Суммарная длина историй в кеше в символах", historyCache::length);
+        metrics.gauge("logger_queue_depth", "", "Сообщения лога, ожидающие записи", logger::getQueueDepth);
+        metrics.counter("audit_log_dropped_total", "", "Записи аудита, отброшенные из-за ошибок записи",
+                auditLog::getDroppedCount);
+        metrics.counter("change_feed_events_total", "", "События, опубликованные в ленту изменений",
+                changeFeed::getNextOffset);
+        metrics.gauge("change_feed_subscribers", "", "Подписки на ленту изменений", changeFeed::getSubscriberCount);
+        metrics.gauge("change_feed_max_lag_events", "", "Наибольшее количество событий, не доставленных подписчику",
+                changeFeed::getMaxSubscriberLag);
+    }
+
+    /**
+     * Запускает в этом же процессе реплики для чтения, которые следуют за журналом через loopback,
+     * и регистрирует метрики их отставания.
+     *
+     * @param primary Сервис показаний основного узла.
+     * @param count   Количество реплик.
+     * @return Сервис, направляющий запросы на чтение истории на реплики.
+     * @throws IOException Если источник репликации не может быть запущен.
+     */
+    private static ReadingsService startReplicas(ReadingsService primary, int count) throws IOException {
+        ReplicationSource source = persistence.startReplication(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        List<ReplicaRoutingReadingsService.ReadReplica> replicas = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Replica replica = new Replica(source.getAddress(),
+                    new ConcurrentUserRepositoryImpl(), new ConcurrentReadingsRepositoryImpl());
+            replica.start();
+            ReadingsService service = new ReadingsServiceImpl(replica.getReadingsRepository(),
+                    new ReadingsValidator(meterTypes), new ConsumptionRepositoryImpl(), new HistoryCache(0));
+            replicas.add(new ReplicaRoutingReadingsService.ReadReplica(service, replica::getStalenessMillis));
+            String labels = "replica=\"" + i + "\"";
+            metrics.gauge("replication_lag_records", labels,
+                    "Записи журнала, зафиксированные на основном узле, но еще не примененные репликой",
+                    replica::getLagRecords);
+            metrics.gauge("replication_staleness_milliseconds", labels,
+                    "Время, прошедшее с момента, по состоянию на который реплика содержит все записи",
+                    replica::getStalenessMillis);
+        }
+        ReplicaRoutingReadingsService routing = new ReplicaRoutingReadingsService(primary, replicas,
+                MAX_REPLICA_STALENESS);
+        metrics.counter("replica_reads_total", "", "Запросы на чтение истории, выполненные репликами",
+                routing::getReplicaReads);
+        metrics.counter("replica_fallback_reads_total", "",
+                "Запросы на чтение истории, выполненные основным узлом из-за устаревания реплик",
+                routing::getPrimaryReads);
+        logger.info("Запущено реплик для чтения: " + count + ", источник репликации " + source.getAddress());
+        return routing;
+    }
+
+    /**
+     * Запускает HTTP API. Сервер работает до завершения процесса, при завершении
+     * останавливается, закрывает хранилище и дописывает лог.
+     *
+     * @param port Порт HTTP API.
+     */
+    private static void runHttpServer(int port) {
+        ApiServer server;
+        try {
+            server = new ApiServer(userService, readingsService, new SessionStore(SESSION_TTL), metrics,
+                    new InetSocketAddress(port), HTTP_THREADS, HTTP_QUEUE_CAPACITY);
+        } catch (IOException e) {
+            System.out.println("Не удалось запустить HTTP API: " + e.getMessage());
+            auditLog.close();
+            persistence.close();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(Duration.ofSeconds(5));
+            auditLog.close();
+            persistence.close();
+            logger.close();
+        }, "api-shutdown"));
+        server.start();
+        System.out.println("HTTP API доступен на порту " + server.getPort());
+    }
+
     /**
      * Запускает приложение и предоставляет пользователю возможность авторизации, регистрации или выхода.
      *
@@ -73,7 +290,12 @@ public class Main {
         String login = scanner.nextLine();
         System.out.print("Введите ваш пароль: ");
         String password = scanner.nextLine();
-        return userService.getUser(login, password);
+        try {
+            return userService.getUser(login, password);
+        } catch (ServiceUnavailableException e) {
+            System.out.println(e.getMessage());
+            return Optional.empty();
+        }
     }
 
     /**
@@ -110,20 +332,46 @@ public class Main {
 
     /**
      * Метод перенаправляет пользователя на панель администратора.
-     * Пользователь может выбрать действие: просмотреть данные пользователей или выйти.
+     * Пользователь может выбрать действие: просмотреть данные пользователей, сводную статистику за месяц,
+     * рейтинг пользователей по показаниям, импортировать показания из файла, зарегистрировать новый тип показаний,
+     * просмотреть подозрительные подачи и журнал аудита или выйти.
      *
      * @param scanner Объект Scanner для чтения ввода пользователя.
      */
     private static void redirectToAdminPanel(Scanner scanner, User admin) {
         while (true) {
             System.out.println("\nДля просмотра показаний пользователей нажмите 1.\n" +
-                    "Для выхода нажмите 2.");
+                    "Для просмотра сводной статистики за месяц нажмите 2.\n" +
+                    "Для просмотра пользователей с наибольшими показаниями нажмите 3.\n" +
+                    "Для импорта показаний из файла CSV или JSONL нажмите 4.\n" +
+                    "Для регистрации нового типа показаний нажмите 5.\n" +
+                    "Для просмотра подозрительных подач показаний нажмите 6.\n" +
+                    "Для просмотра журнала аудита нажмите 7.\n" +
+                    "Для выхода нажмите 8.");
             String action = scanner.nextLine();
             switch (action) {
                 case "1":
                     processAdminActions(scanner, admin);
                     break;
                 case "2":
+                    printStatistics(scanner);
+                    break;
+                case "3":
+                    printTopConsumers(scanner);
+                    break;
+                case "4":
+                    importReadings(scanner);
+                    break;
+                case "5":
+                    registerMeterType(scanner);
+                    break;
+                case "6":
+                    printAnomalies(scanner, admin);
+                    break;
+                case "7":
+                    printAuditLog(scanner);
+                    break;
+                case "8":
                     return;
                 default:
                     System.out.println("Вы ввели неправильное значение.\n");
@@ -133,14 +381,25 @@ public class Main {
 
     /**
      * Метод обрабатывает действия администратора.
-     * Администратор вводит логин пользователя, данные которого хочет просмотреть.
+     * Администратор вводит логин или его начало; если такого пользователя нет, выводятся до 10 логинов,
+     * начинающихся с введенной строки или похожих на нее, и администратор вводит логин еще раз.
      *
      * @param scanner Объект Scanner для чтения ввода администратора.
      */
     private static void processAdminActions(Scanner scanner, User admin) {
-        System.out.print("Введите логин интересующего вас пользователя: ");
-        System.out.println(userService.getAllLogins());
+        System.out.print("Введите логин или начало логина интересующего вас пользователя: ");
         String login = scanner.nextLine();
+        List<String> found = userService.searchLogins(login, 10);
+        if (!found.contains(login)) {
+            if (found.isEmpty()) {
+                System.out.println("Пользователи не найдены.");
+                return;
+            }
+            System.out.println("Найдены пользователи:");
+            found.forEach(System.out::println);
+            System.out.print("Введите логин интересующего вас пользователя: ");
+            login = scanner.nextLine();
+        }
         Optional<User> user = userService.getUserForAdmin(login, admin);
         user.ifPresent(value -> {
             logger.info("Админ выбрал пользователя: " + user.get().getLogin());
@@ -148,10 +407,163 @@ public class Main {
         });
     }
 
+    /**
+     * Выводит сводную статистику по всем типам показаний за месяц, запрашивая у администратора год и месяц.
+     *
+     * @param scanner Объект Scanner для чтения ввода администратора.
+     */
+    private static void printStatistics(Scanner scanner) {
+        try {
+            YearMonth period = readPeriod(scanner, "");
+            Map<String, MeterStatistics> statistics = aggregationService.getStatistics(period);
+            if (statistics.isEmpty()) {
+                System.out.println("За этот месяц показаний не подавали.");
+            }
+            statistics.forEach((type, value) -> System.out.println(type + ": " + value));
+        } catch (DateTimeException e) {
+            System.out.println(INVALID_PERIOD);
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка: введены некорректные данные. Пожалуйста, введите числа.");
+        }
+    }
+
+    /**
+     * Выводит пользователей с наибольшими показаниями указанного типа за месяц.
+     *
+     * @param scanner Объект Scanner для чтения ввода администратора.
+     */
+    private static void printTopConsumers(Scanner scanner) {
+        try {
+            YearMonth period = readPeriod(scanner, "");
+            System.out.print("Укажите тип показаний: ");
+            String meterType = scanner.nextLine();
+            System.out.print("Укажите количество пользователей: ");
+            int limit = Integer.parseInt(scanner.nextLine());
+            aggregationService.getTopConsumers(period, meterType, limit).forEach(System.out::println);
+        } catch (DateTimeException e) {
+            System.out.println(INVALID_PERIOD);
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка: введены некорректные данные. Пожалуйста, введите числа.");
+        }
+    }
+
+    /**
+     * Регистрирует новый тип показаний, запрашивая у администратора его название.
+     * После регистрации пользователи могут подавать показания этого типа.
+     *
+     * @param scanner Объект Scanner для чтения ввода администратора.
+     */
+    private static void registerMeterType(Scanner scanner) {
+        System.out.print("Введите название типа показаний: ");
+        String name = scanner.nextLine().trim();
+        if (name.isEmpty()) {
+            System.out.println("Название типа показаний не может быть пустым");
+            return;
+        }
+        if (meterTypes.getMeterTypes().contains(name)) {
+            System.out.println("Тип показаний уже зарегистрирован");
+            return;
+        }
+        meterTypes.register(name);
+        logger.info("Зарегистрирован тип показаний " + name);
+        System.out.println("Тип показаний зарегистрирован");
+    }
+
+    /**
+     * Выводит подозрительные подачи показаний: последние по всем пользователям или все хранимые для одного пользователя.
+     *
+     * @param scanner Объект Scanner для чтения ввода администратора.
+     */
+    private static void printAnomalies(Scanner scanner, User admin) {
+        System.out.print("Введите логин пользователя или оставьте строку пустой для всех пользователей: ");
+        String login = scanner.nextLine().trim();
+        List<Anomaly> anomalies;
+        if (login.isEmpty()) {
+            anomalies = anomalyService.getAnomalies(ANOMALIES_LIMIT);
+        } else {
+            Optional<User> user = userService.getUserForAdmin(login, admin);
+            if (user.isEmpty()) {
+                return;
+            }
+            anomalies = anomalyService.getAnomalies(user.get());
+        }
+        if (anomalies.isEmpty()) {
+            System.out.println("Подозрительных подач показаний нет.");
+        }
+        anomalies.forEach(System.out::println);
+    }
+
+    /**
+     * Выводит записи журнала аудита за последние дни: по одному пользователю или по всем.
+     *
+     * @param scanner Объект Scanner для чтения ввода администратора.
+     */
+    private static void printAuditLog(Scanner scanner) {
+        System.out.print("Введите логин пользователя или оставьте строку пустой для всех пользователей: ");
+        String login = scanner.nextLine().trim();
+        System.out.print("Укажите количество последних дней: ");
+        int days;
+        try {
+            days = Integer.parseInt(scanner.nextLine());
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка: введены некорректные данные. Пожалуйста, введите число.");
+            return;
+        }
+        Instant to = Instant.now().plusSeconds(1);
+        Instant from = to.minus(Duration.ofDays(Math.max(0, days)));
+        List<AuditRecord> records = login.isEmpty()
+                ? auditLog.query(from, to, AUDIT_LIMIT)
+                : auditLog.queryUser(login, from, to, AUDIT_LIMIT);
+        if (records.isEmpty()) {
+            System.out.println("Записей нет.");
+        }
+        records.forEach(System.out::println);
+    }
+
+    /**
+     * Импортирует показания из файла CSV или JSONL, запрашивая у администратора путь к файлу.
+     * Причины отклонения строк записываются в файл с суффиксом ".rejected" рядом с файлом импорта.
+     * Показания добавляются через сервис показаний, поэтому производные данные обновляются по ходу импорта.
+     *
+     * @param scanner Объект Scanner для чтения ввода администратора.
+     */
+    private static void importReadings(Scanner scanner) {
+        System.out.print("Укажите путь к файлу: ");
+        Path file = Path.of(scanner.nextLine().trim());
+        Path rejectedFile = file.resolveSibling(file.getFileName() + ".rejected");
+        ReadingsImporter importer = new ReadingsImporter(persistence.getUserRepository(), readingsService);
+        try (BufferedWriter rejected = Files.newBufferedWriter(rejectedFile)) {
+            ImportReport report = importer.importFile(file, ReadingsImporter.formatOf(file), rejection -> {
+                try {
+                    rejected.write(rejection.toString());
+                    rejected.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            System.out.println(report);
+            if (report.getRejected() > 0) {
+                System.out.println("Причины отклонения строк записаны в " + rejectedFile);
+            }
+        } catch (IOException | UncheckedIOException | ValidationException e) {
+            System.out.println("Не удалось импортировать показания: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Все зарегистрированные пользователи.
+     */
+    private static List<User> allUsers() {
+        return persistence.getUserRepository().logins()
+                .flatMap(login -> persistence.getUserRepository().getUser(login).stream())
+                .toList();
+    }
+
     /**
      * Обрабатывает действия пользователя, предоставляя ему возможность подачи показаний,
-     * просмотра актуальных показаний, просмотра показаний за определенный месяц,
-     * просмотра истории подачи показаний, смены пароля аккаунта или выхода.
+     * просмотра актуальных показаний, просмотра показаний за определенный месяц, за диапазон месяцев
+     * и за последние несколько месяцев, просмотра потребления за месяц, просмотра истории подачи показаний,
+     * смены пароля аккаунта или выхода.
      *
      * @param scanner Объект Scanner для чтения ввода пользователя.
      * @param user    Пользователь, действия которого должны быть обработаны.
@@ -163,8 +575,11 @@ public class Main {
                     "Для просмотра актуальных показаний нажмите 2\n" +
                     "Для просмотра показаний за определенный месяц нажмите 3\n" +
                     "Для просмотра истории подачи показаний нажмите 4.\n" +
-                    "Для смены пароля аккаунта, нажмите 5\n" +
-                    "Для того, чтобы выйти, нажмите 6");
+                    "Для просмотра показаний за диапазон месяцев нажмите 5\n" +
+                    "Для просмотра показаний за последние несколько месяцев нажмите 6\n" +
+                    "Для просмотра потребления за определенный месяц нажмите 7\n" +
+                    "Для смены пароля аккаунта, нажмите 8\n" +
+                    "Для того, чтобы выйти, нажмите 9");
 
             String action = scanner.nextLine();
             switch (action) {
@@ -181,9 +596,18 @@ public class Main {
                     printAllReadings(user);
                     break;
                 case "5":
-                    updateUserPassword(scanner, user);
+                    getReadingsBetween(scanner, user);
                     break;
                 case "6":
+                    getLatestReadings(scanner, user);
+                    break;
+                case "7":
+                    getConsumption(scanner, user);
+                    break;
+                case "8":
+                    updateUserPassword(scanner, user);
+                    break;
+                case "9":
                     logger.info("Пользователь " + user.getLogin() + " вышел.");
                     return;
                 default:
@@ -206,42 +630,32 @@ public class Main {
             String newPassword = scanner.nextLine();
 
             userService.changePassword(user, oldPassword, newPassword);
-        } catch (ValidationException e) {
+        } catch (ValidationException | ServiceUnavailableException e) {
             System.out.println(e.getMessage());
         }
     }
 
     /**
-     * Добавляет показания пользователя, запрашивая у него месяц и показания по отоплению, горячей и холодной воде.
+     * Добавляет показания пользователя, запрашивая у него год, месяц и показания по каждому зарегистрированному типу.
      *
      * @param scanner Объект Scanner для чтения ввода пользователя.
      * @param user    Пользователь, который хочет добавить показания.
      */
     private static void addReadings(Scanner scanner, User user) {
         try {
-            System.out.print("Укажите порядковый номер месяца: ");
-            Month month = Month.of(Integer.parseInt(scanner.nextLine()));
+            YearMonth period = readPeriod(scanner, "");
 
             Readings readings = new Readings();
+            for (String type : meterTypes.getMeterTypes()) {
+                System.out.print("Показания (" + type + "): ");
+                readings.add(type, Double.parseDouble(scanner.nextLine()));
+            }
 
-            System.out.print("Показания отопления: ");
-            double heating = Double.parseDouble(scanner.nextLine());
-            readings.add("Отопление", heating);
-
-            System.out.print("Показания горячей воды: ");
-            double hotWater = Double.parseDouble(scanner.nextLine());
-            readings.add("Горячая вода", hotWater);
-
-            System.out.print("Показания холодной воды: ");
-            double coldWater = Double.parseDouble(scanner.nextLine());
-            readings.add("Холодная вода", coldWater);
-
-            // Здесь мы сможем расширить перечень подаваемых показаний
-            readingsService.addReadings(user, month, readings);
+            readingsService.addReadings(user, period, readings);
         } catch (NumberFormatException e) {
             System.out.println("Введены некорректные данные. Пожалуйста, введите числа.");
         } catch (DateTimeException e) {
-            System.out.println("Введен некорректный номер месяца. Пожалуйста, введите число от 1 до 12.");
+            System.out.println(INVALID_PERIOD);
         } catch (Exception e) {
             System.out.println(e.getMessage());
         }
@@ -249,12 +663,18 @@ public class Main {
 
 
     /**
-     * Получает и выводит все показания пользователя.
+     * Получает и выводит все показания пользователя. История записывается в консоль без сборки в одну строку.
      *
      * @param user Пользователь, для которого нужно получить и вывести показания.
      */
     private static void printAllReadings(User user) {
-        System.out.print(readingsService.getAllReadings(user));
+        PrintWriter out = new PrintWriter(System.out);
+        try {
+            readingsService.writeAllReadings(user, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.flush();
     }
 
     /**
@@ -276,15 +696,91 @@ public class Main {
      */
     private static void getReadingsByMonth(Scanner scanner, User user) {
         try {
-            System.out.print("Напишите номер месяца, который вас интересует: ");
-            Month month = Month.of(Integer.parseInt(scanner.nextLine()));
-            readingsService.getReadingsByMonth(user, month).ifPresent(System.out::println);
+            YearMonth period = readPeriod(scanner, "");
+            readingsService.getReadingsByMonth(user, period).ifPresent(System.out::println);
+        } catch (DateTimeException e) {
+            System.out.println(INVALID_PERIOD);
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка: введены некорректные данные. Пожалуйста, введите числа.");
+        } catch (Exception e) {
+            System.out.println("Произошла ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Получает и выводит потребление пользователя за указанный месяц.
+     * Если потребление отсутствует, выводит сообщение об этом.
+     *
+     * @param scanner Объект Scanner для чтения ввода пользователя.
+     * @param user    Пользователь, для которого нужно получить и вывести потребление.
+     */
+    private static void getConsumption(Scanner scanner, User user) {
+        try {
+            YearMonth period = readPeriod(scanner, "");
+            readingsService.getConsumption(user, period).ifPresent(System.out::println);
+        } catch (DateTimeException e) {
+            System.out.println(INVALID_PERIOD);
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка: введены некорректные данные. Пожалуйста, введите числа.");
+        }
+    }
+
+    /**
+     * Получает и выводит показания пользователя за диапазон месяцев, запрашивая у него начало и конец диапазона.
+     * Если показания отсутствуют, выводит сообщение об этом.
+     *
+     * @param scanner Объект Scanner для чтения ввода пользователя.
+     * @param user    Пользователь, для которого нужно получить и вывести показания.
+     */
+    private static void getReadingsBetween(Scanner scanner, User user) {
+        try {
+            YearMonth from = readPeriod(scanner, " начала периода");
+            YearMonth to = readPeriod(scanner, " конца периода");
+            readingsService.getReadingsBetween(user, from, to)
+                    .forEach((period, readings) -> System.out.println(period + ":" + readings));
         } catch (DateTimeException e) {
-            System.out.println("Ошибка: введен некорректный номер месяца. Пожалуйста, введите число от 1 до 12.");
+            System.out.println(INVALID_PERIOD);
         } catch (NumberFormatException e) {
             System.out.println("Ошибка: введены некорректные данные. Пожалуйста, введите числа.");
         } catch (Exception e) {
             System.out.println("Произошла ошибка: " + e.getMessage());
         }
     }
+
+    /**
+     * Получает и выводит показания пользователя за последние несколько месяцев, запрашивая у него их количество.
+     * Если показания отсутствуют, выводит сообщение об этом.
+     *
+     * @param scanner Объект Scanner для чтения ввода пользователя.
+     * @param user    Пользователь, для которого нужно получить и вывести показания.
+     */
+    private static void getLatestReadings(Scanner scanner, User user) {
+        try {
+            System.out.print("Укажите количество месяцев: ");
+            int count = Integer.parseInt(scanner.nextLine());
+            readingsService.getLatestReadings(user, count)
+                    .forEach((period, readings) -> System.out.println(period + ":" + readings));
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка: введены некорректные данные. Пожалуйста, введите числа.");
+        } catch (Exception e) {
+            System.out.println("Произошла ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Запрашивает у пользователя год и порядковый номер месяца.
+     *
+     * @param scanner Объект Scanner для чтения ввода пользователя.
+     * @param suffix  Уточнение, которое добавляется в подсказку, например " начала периода".
+     * @return Период, введенный пользователем.
+     * @throws NumberFormatException Если введены не числа.
+     * @throws DateTimeException     Если введен год вне диапазона Periods или некорректный номер месяца.
+     */
+    private static YearMonth readPeriod(Scanner scanner, String suffix) {
+        System.out.print("Укажите год" + suffix + ": ");
+        int year = Integer.parseInt(scanner.nextLine());
+        System.out.print("Укажите порядковый номер месяца" + suffix + ": ");
+        int month = Integer.parseInt(scanner.nextLine());
+        return Periods.of(year, month);
+    }
 }
@@ -0,0 +1,432 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import enums.Role;
+import exceptions.ServiceUnavailableException;
+import exceptions.ValidationException;
+import logger.Logger;
+import logger.impl.AsyncLoggerImpl;
+import metrics.MetricsRegistry;
+import models.Periods;
+import models.Readings;
+import models.User;
+import services.ReadingsService;
+import services.UserService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP API поверх UserService и ReadingsService на встроенном сервере com.sun.net.httpserver.
+ * <p>
+ * Запросы обрабатываются в пуле потоков фиксированного размера с ограниченной очередью.
+ * Когда очередь заполнена, запрос выполняется в потоке приема соединений, и сервер перестает
+ * принимать новые соединения, пока не освободится место. Поэтому при перегрузке растет задержка,
+ * а не потребление памяти.
+ * <p>
+ * Аутентификация по токену сессии из ответа POST /api/login в заголовке "Authorization: Bearer &lt;токен&gt;".
+ * <ul>
+ *     <li>POST /api/login {"login": ..., "password": ...} - вход, возвращает токен и роль;</li>
+ *     <li>POST /api/logout - завершение сессии;</li>
+ *     <li>POST /api/readings {"period": "2024-01", "readings": {"тип": значение, ...}} - подача показаний;</li>
+ *     <li>GET /api/readings?period=2024-01 - показания за месяц;</li>
+ *     <li>GET /api/readings?from=2024-01&amp;to=2024-12 - показания за диапазон месяцев;</li>
+ *     <li>GET /api/readings?limit=N[&amp;from=2024-01] - страница истории не более чем из N периодов;</li>
+ *     <li>GET /api/readings/latest?count=N - показания за последние N периодов, по умолчанию за последний;</li>
+ *     <li>GET /api/admin/users[?limit=N[&amp;after=логин]] - логины пользователей, только для администратора;</li>
+ *     <li>GET /api/admin/users?search=строка[&amp;limit=N] - не более N (по умолчанию 10) логинов, начинающихся
+ *     со строки или похожих на нее, в виде {"logins": [...]}, только для администратора;</li>
+ *     <li>GET /api/admin/users/{login}/readings[?limit=N[&amp;from=2024-01]] - история показаний пользователя,
+ *     только для администратора.</li>
+ * </ul>
+ * С параметром limit ответ - страница {"logins" или "readings": ..., "next": курсор}, где next передается
+ * в after или from для получения следующей страницы и равен null на последней странице.
+ * Без limit списки пользователей и истории записываются в ответ по частям по мере чтения из хранилища.
+ * Ошибки возвращаются в виде {"error": "сообщение"}, при перегрузке проверки паролей - с кодом 503.
+ * Метрики приложения в текстовом формате Prometheus доступны без авторизации по адресу GET /metrics.
+ */
+public class ApiServer {
+    private static final String PREFIX = "/api/";
+    private static final String METRICS = "/metrics";
+    private static final String ADMIN_USERS = "admin/users";
+    private static final int SEARCH_LIMIT = 10;
+    private static final int MAX_BODY_SIZE = 64 * 1024;
+    private static final Logger logger = AsyncLoggerImpl.getInstance();
+
+    static {
+        // Без TCP_NODELAY заголовки и тело ответа, отправленные раздельно, задерживаются алгоритмом Нейгла
+        // до подтверждения клиента, что добавляет около 40 мс к каждому запросу на постоянном соединении.
+        // Настройка читается сервером один раз, поэтому задается до создания первого сервера.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final UserService userService;
+    private final ReadingsService readingsService;
+    private final SessionStore sessions;
+    private final MetricsRegistry metrics;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param userService     Сервис пользователей.
+     * @param readingsService Сервис показаний.
+     * @param sessions        Хранилище сессий.
+     * @param address         Адрес и порт сервера, порт 0 означает любой свободный.
+     * @param threads         Количество потоков обработки запросов.
+     * @param queueCapacity   Максимальное количество запросов, ожидающих обработки.
+     * @throws IOException Если не удалось открыть порт.
+     */
+    public ApiServer(UserService userService, ReadingsService readingsService, SessionStore sessions,
+                     InetSocketAddress address, int threads, int queueCapacity) throws IOException {
+        this(userService, readingsService, sessions, new MetricsRegistry(), address, threads, queueCapacity);
+    }
+
+    /**
+     * @param userService     Сервис пользователей.
+     * @param readingsService Сервис показаний.
+     * @param sessions        Хранилище сессий.
+     * @param metrics         Реестр метрик, выгружаемый по адресу /metrics.
+     * @param address         Адрес и порт сервера, порт 0 означает любой свободный.
+     * @param threads         Количество потоков обработки запросов.
+     * @param queueCapacity   Максимальное количество запросов, ожидающих обработки.
+     * @throws IOException Если не удалось открыть порт.
+     */
+    public ApiServer(UserService userService, ReadingsService readingsService, SessionStore sessions,
+                     MetricsRegistry metrics, InetSocketAddress address, int threads, int queueCapacity)
+            throws IOException {
+        this.userService = userService;
+        this.readingsService = readingsService;
+        this.sessions = sessions;
+        this.metrics = metrics;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "api-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.server = HttpServer.create(address, queueCapacity);
+        this.server.setExecutor(executor);
+        this.server.createContext(PREFIX, this::handle);
+        this.server.createContext(METRICS, this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+        logger.info("HTTP API запущен на порту " + getPort());
+    }
+
+    /**
+     * Останавливает сервер, давая выполняющимся запросам завершиться.
+     *
+     * @param delay Максимальное время ожидания завершения запросов.
+     */
+    public void stop(Duration delay) {
+        server.stop((int) Math.max(0, delay.toSeconds()));
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("HTTP API остановлен");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange, exchange.getRequestURI().getPath().substring(PREFIX.length()));
+        } catch (ApiException e) {
+            send(exchange, e.status, Json.error(e.getMessage()));
+        } catch (ValidationException e) {
+            send(exchange, 400, Json.error(e.getMessage()));
+        } catch (ServiceUnavailableException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, Json.error(e.getMessage()));
+        } catch (DateTimeException e) {
+            send(exchange, 400, Json.error("Некорректный период, ожидается ГГГГ-ММ"));
+        } catch (RuntimeException e) {
+            logger.info("Ошибка обработки запроса " + exchange.getRequestURI() + ": " + e);
+            send(exchange, 500, Json.error("Внутренняя ошибка сервера"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Отдает метрики в текстовом формате Prometheus. Адрес не требует авторизации,
+     * как принято для сборщиков метрик, и должен быть закрыт от внешней сети.
+     */
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") || !exchange.getRequestURI().getPath().equals(METRICS)) {
+                send(exchange, 404, Json.error("Ресурс не найден"));
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                metrics.writePrometheus(out);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, String path) throws IOException {
+        String method = exchange.getRequestMethod();
+        switch (path) {
+            case "login" -> {
+                requireMethod(method, "POST");
+                login(exchange);
+            }
+            case "logout" -> {
+                requireMethod(method, "POST");
+                token(exchange).ifPresent(sessions::invalidate);
+                send(exchange, 204, null);
+            }
+            case "readings" -> {
+                User user = authenticate(exchange);
+                if (method.equals("POST")) {
+                    addReadings(exchange, user);
+                } else {
+                    requireMethod(method, "GET");
+                    getReadings(exchange, user);
+                }
+            }
+            case "readings/latest" -> {
+                requireMethod(method, "GET");
+                User user = authenticate(exchange);
+                String count = query(exchange).getOrDefault("count", "1");
+                send(exchange, 200, Json.history(readingsService.getLatestReadings(user,
+                        parsePositive(count, "Количество периодов должно быть положительным числом"))));
+            }
+            case ADMIN_USERS -> {
+                requireMethod(method, "GET");
+                requireAdmin(authenticate(exchange));
+                getLogins(exchange);
+            }
+            default -> {
+                if (path.startsWith(ADMIN_USERS + "/") && path.endsWith("/readings")) {
+                    requireMethod(method, "GET");
+                    User admin = requireAdmin(authenticate(exchange));
+                    String login = path.substring(ADMIN_USERS.length() + 1, path.length() - "/readings".length());
+                    User user = userService.getUserForAdmin(login, admin)
+                            .orElseThrow(() -> new ApiException(404, "Пользователь не найден"));
+                    getHistory(exchange, user, query(exchange));
+                } else {
+                    throw new ApiException(404, "Ресурс не найден");
+                }
+            }
+        }
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = Json.parseObject(readBody(exchange));
+        User user = userService.getUser(Json.string(body, "login"), Json.string(body, "password"))
+                .orElseThrow(() -> new ApiException(401, "Неверный логин или пароль"));
+        String token = sessions.create(user);
+        send(exchange, 200, "{\"token\":" + Json.quote(token) + ",\"role\":" + Json.quote(user.getRole().name()) + "}");
+    }
+
+    private void addReadings(HttpExchange exchange, User user) throws IOException {
+        Map<String, Object> body = Json.parseObject(readBody(exchange));
+        YearMonth period = Periods.parse(Json.string(body, "period"));
+        if (!readingsService.addReadings(user, period, Json.readings(body, "readings"))) {
+            throw new ApiException(409, "За этот месяц уже были поданы показания");
+        }
+        send(exchange, 201, null);
+    }
+
+    private void getReadings(HttpExchange exchange, User user) throws IOException {
+        Map<String, String> query = query(exchange);
+        if (query.containsKey("period")) {
+            YearMonth period = Periods.parse(query.get("period"));
+            String readings = readingsService.getReadingsByMonth(user, period)
+                    .map(Json::readings)
+                    .orElseThrow(() -> new ApiException(404, "Показания за этот месяц не поданы"));
+            send(exchange, 200, readings);
+        } else if (query.containsKey("from") && query.containsKey("to")) {
+            SortedMap<YearMonth, Readings> history = readingsService.getReadingsBetween(user,
+                    Periods.parse(query.get("from")), Periods.parse(query.get("to")));
+            send(exchange, 200, Json.history(history));
+        } else if (query.containsKey("limit")) {
+            getHistory(exchange, user, query);
+        } else {
+            throw new ApiException(400, "Укажите period, from и to или limit");
+        }
+    }
+
+    /**
+     * Отправляет найденные логины, если задан search, страницу логинов, если задан limit,
+     * иначе записывает в ответ все логины по мере обхода.
+     */
+    private void getLogins(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        if (query.containsKey("search")) {
+            int limit = query.containsKey("limit")
+                    ? parsePositive(query.get("limit"), "Количество результатов должно быть положительным числом")
+                    : SEARCH_LIMIT;
+            List<String> logins = userService.searchLogins(query.get("search"), limit);
+            send(exchange, 200, "{\"logins\":" + Json.strings(logins) + "}");
+            return;
+        }
+        if (!query.containsKey("limit")) {
+            sendStream(exchange, out -> Json.writeStrings(out, userService.streamLogins().iterator()));
+            return;
+        }
+        int limit = parsePositive(query.get("limit"), "Размер страницы должен быть положительным числом");
+        List<String> logins = userService.getLogins(query.get("after"), limit);
+        String next = logins.size() == limit ? logins.get(logins.size() - 1) : null;
+        send(exchange, 200, Json.page("logins", Json.strings(logins), next));
+    }
+
+    /**
+     * Отправляет страницу истории показаний, если задан limit, иначе записывает в ответ всю историю
+     * по мере постраничного чтения из хранилища.
+     */
+    private void getHistory(HttpExchange exchange, User user, Map<String, String> query) throws IOException {
+        if (!query.containsKey("limit")) {
+            sendStream(exchange, out -> Json.writeHistory(out, readingsService.streamReadings(user).iterator()));
+            return;
+        }
+        int limit = parsePositive(query.get("limit"), "Размер страницы должен быть положительным числом");
+        YearMonth from = query.containsKey("from") ? Periods.parse(query.get("from")) : Periods.MIN;
+        SortedMap<YearMonth, Readings> page = readingsService.getReadings(user, from, limit);
+        String next = page.size() == limit && page.lastKey().isBefore(Periods.MAX)
+                ? page.lastKey().plusMonths(1).toString() : null;
+        send(exchange, 200, Json.page("readings", Json.history(page), next));
+    }
+
+    private User authenticate(HttpExchange exchange) {
+        return token(exchange).flatMap(sessions::get)
+                .orElseThrow(() -> new ApiException(401, "Требуется авторизация"));
+    }
+
+    private static User requireAdmin(User user) {
+        if (user.getRole() != Role.ADMIN) {
+            throw new ApiException(403, "Доступ запрещен");
+        }
+        return user;
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Метод не поддерживается");
+        }
+    }
+
+    private static Optional<String> token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return Optional.empty();
+        }
+        return Optional.of(header.substring("Bearer ".length()).trim());
+    }
+
+    private static int parsePositive(String value, String message) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ApiException(400, message);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> result = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                result.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+            if (body.length > MAX_BODY_SIZE) {
+                throw new ApiException(413, "Слишком большой запрос");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Отправляет ответ 200 с телом неизвестной заранее длины, которое записывается по частям.
+     * Ошибка во время записи обрывает ответ, так как код ответа уже отправлен.
+     */
+    private static void sendStream(HttpExchange exchange, Body body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            body.writeTo(out);
+        }
+    }
+
+    /**
+     * Тело ответа, записываемое по частям.
+     */
+    private interface Body {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    /**
+     * Ошибка запроса с кодом ответа HTTP.
+     */
+    private static final class ApiException extends RuntimeException {
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
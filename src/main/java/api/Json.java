@@ -0,0 +1,324 @@
+package api;
+
+import exceptions.ValidationException;
+import models.MeterTypes;
+import models.Readings;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Минимальная поддержка JSON для HTTP API.
+ * Разбирает объекты со строковыми, числовыми, логическими и вложенными объектными значениями
+ * и формирует ответы API. Массивы в запросах API не используются и не поддерживаются.
+ */
+final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Разбирает JSON-объект.
+     *
+     * @param text Текст JSON.
+     * @return Поля объекта в порядке следования. Вложенные объекты представлены как Map, числа как Double.
+     * @throws ValidationException Если текст не является JSON-объектом поддерживаемого вида.
+     */
+    static Map<String, Object> parseObject(String text) {
+        Json parser = new Json(text);
+        Map<String, Object> result = parser.object();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.syntaxError("Лишние символы после объекта");
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает строковое поле объекта.
+     *
+     * @throws ValidationException Если поле отсутствует или не является строкой.
+     */
+    static String string(Map<String, Object> object, String key) {
+        if (object.get(key) instanceof String value) {
+            return value;
+        }
+        throw new ValidationException("Не указано поле " + key);
+    }
+
+    /**
+     * Возвращает вложенный объект с числовыми значениями в виде показаний.
+     *
+     * @throws ValidationException Если поле отсутствует, не является объектом или содержит не числа.
+     */
+    static Readings readings(Map<String, Object> object, String key) {
+        if (!(object.get(key) instanceof Map<?, ?> values)) {
+            throw new ValidationException("Не указано поле " + key);
+        }
+        Readings readings = new Readings();
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            if (!(entry.getValue() instanceof Double value)) {
+                throw new ValidationException("Значение показаний должно быть числом: " + entry.getKey());
+            }
+            int meter = MeterTypes.find(entry.getKey());
+            if (meter < 0) throw new ValidationException("Неизвестный тип показаний " + entry.getKey());
+            readings.add(meter, value);
+        }
+        return readings;
+    }
+
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        appendQuoted(sb, value);
+        return sb.toString();
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    static String strings(Collection<String> values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (String value : values) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            appendQuoted(sb, value);
+        }
+        return sb.append(']').toString();
+    }
+
+    static String readings(Readings readings) {
+        StringBuilder sb = new StringBuilder();
+        appendReadings(sb, readings);
+        return sb.toString();
+    }
+
+    /**
+     * Формирует объект вида {"период": {показания}, ...}.
+     */
+    static String history(Map<YearMonth, Readings> history) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<YearMonth, Readings> entry : history.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            appendQuoted(sb, entry.getKey().toString());
+            sb.append(':');
+            appendReadings(sb, entry.getValue());
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Записывает массив строк по мере получения элементов, не собирая его в памяти.
+     */
+    static void writeStrings(Writer out, Iterator<String> values) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        out.write('[');
+        while (values.hasNext()) {
+            sb.setLength(0);
+            appendQuoted(sb, values.next());
+            out.append(sb);
+            if (values.hasNext()) {
+                out.write(',');
+            }
+        }
+        out.write(']');
+    }
+
+    /**
+     * Записывает объект вида {"период": {показания}, ...} по мере получения элементов, не собирая его в памяти.
+     */
+    static void writeHistory(Writer out, Iterator<Map.Entry<YearMonth, Readings>> entries) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        out.write('{');
+        while (entries.hasNext()) {
+            Map.Entry<YearMonth, Readings> entry = entries.next();
+            sb.setLength(0);
+            appendQuoted(sb, entry.getKey().toString());
+            sb.append(':');
+            appendReadings(sb, entry.getValue());
+            out.append(sb);
+            if (entries.hasNext()) {
+                out.write(',');
+            }
+        }
+        out.write('}');
+    }
+
+    /**
+     * Формирует страницу вида {"поле": элементы, "next": курсор следующей страницы или null}.
+     */
+    static String page(String field, String items, String next) {
+        return "{" + quote(field) + ":" + items + ",\"next\":" + (next == null ? "null" : quote(next)) + "}";
+    }
+
+    private static void appendReadings(StringBuilder sb, Readings readings) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Double> entry : readings.get().entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendQuoted(sb, entry.getKey());
+            sb.append(':').append(entry.getValue());
+        }
+        sb.append('}');
+    }
+
+    private static void appendQuoted(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private Map<String, Object> object() {
+        expect('{');
+        Map<String, Object> result = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return result;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = string();
+            expect(':');
+            result.put(key, value());
+            skipWhitespace();
+            char next = peek();
+            position++;
+            if (next == '}') {
+                return result;
+            }
+            if (next != ',') {
+                throw syntaxError("Ожидается ',' или '}'");
+            }
+        }
+    }
+
+    private Object value() {
+        skipWhitespace();
+        char c = peek();
+        if (c == '{') {
+            return object();
+        }
+        if (c == '"') {
+            return string();
+        }
+        if (text.startsWith("true", position)) {
+            position += 4;
+            return Boolean.TRUE;
+        }
+        if (text.startsWith("false", position)) {
+            position += 5;
+            return Boolean.FALSE;
+        }
+        if (text.startsWith("null", position)) {
+            position += 4;
+            return null;
+        }
+        return number();
+    }
+
+    private Double number() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        try {
+            return Double.valueOf(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw syntaxError("Некорректное значение");
+        }
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escaped = peek();
+            position++;
+            switch (escaped) {
+                case '"', '\\', '/' -> sb.append(escaped);
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw syntaxError("Некорректная escape-последовательность");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw syntaxError("Некорректная escape-последовательность");
+                    }
+                    position += 4;
+                }
+                default -> throw syntaxError("Некорректная escape-последовательность");
+            }
+        }
+        throw syntaxError("Незакрытая строка");
+    }
+
+    private void expect(char expected) {
+        skipWhitespace();
+        if (peek() != expected) {
+            throw syntaxError("Ожидается '" + expected + "'");
+        }
+        position++;
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw syntaxError("Неожиданный конец JSON");
+        }
+        return text.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private ValidationException syntaxError(String message) {
+        return new ValidationException(message + " в позиции " + (position + 1));
+    }
+}
@@ -0,0 +1,105 @@
+package api;
+
+import models.User;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Хранилище сессий HTTP API.
+ * Сессия идентифицируется случайным токеном и продлевается при каждом обращении.
+ * Просроченные сессии удаляются при обращении к ним и периодически при создании новых сессий.
+ */
+public class SessionStore {
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicInteger created = new AtomicInteger();
+    private final Duration ttl;
+    private final Clock clock;
+
+    public SessionStore(Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    public SessionStore(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Создает сессию для пользователя.
+     *
+     * @param user Аутентифицированный пользователь.
+     * @return Токен сессии.
+     */
+    public String create(User user) {
+        if (created.incrementAndGet() % PURGE_INTERVAL == 0) {
+            purgeExpired();
+        }
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, expiry()));
+        return token;
+    }
+
+    /**
+     * Возвращает пользователя сессии и продлевает ее.
+     *
+     * @param token Токен сессии.
+     * @return Optional с пользователем или пустой Optional, если сессия не найдена или просрочена.
+     */
+    public Optional<User> get(String token) {
+        Session session = sessions.get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        long now = clock.millis();
+        if (session.expiresAt < now) {
+            sessions.remove(token, session);
+            return Optional.empty();
+        }
+        session.expiresAt = now + ttl.toMillis();
+        return Optional.of(session.user);
+    }
+
+    /**
+     * Завершает сессию.
+     *
+     * @param token Токен сессии.
+     */
+    public void invalidate(String token) {
+        sessions.remove(token);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void purgeExpired() {
+        long now = clock.millis();
+        sessions.values().removeIf(session -> session.expiresAt < now);
+    }
+
+    private long expiry() {
+        return clock.millis() + ttl.toMillis();
+    }
+
+    private static final class Session {
+        private final User user;
+        private volatile long expiresAt;
+
+        private Session(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package enums;
+
+/**
+ * Перечисление AnomalyType определяет вид подозрительного потребления, найденного при подаче показаний.
+ */
+public enum AnomalyType {
+    /**
+     * Потребление намного выше обычного для пользователя, например из-за лишней цифры в показании.
+     */
+    SPIKE,
+    /**
+     * Потребление намного ниже обычного, но не нулевое.
+     */
+    DROP,
+    /**
+     * Показание не изменилось, хотя обычно потребление есть: счетчик мог остановиться или показание переписано.
+     */
+    STALL
+}
@@ -0,0 +1,23 @@
+package enums;
+
+/**
+ * Перечисление AuditAction определяет вид записи журнала аудита.
+ */
+public enum AuditAction {
+    /**
+     * Пользователь подал показания за период.
+     */
+    READINGS_SUBMITTED,
+    /**
+     * Зарегистрирован новый пользователь.
+     */
+    USER_REGISTERED,
+    /**
+     * Пользователь сменил пароль.
+     */
+    PASSWORD_CHANGED,
+    /**
+     * Произвольное текстовое сообщение, переданное через Logger.info.
+     */
+    MESSAGE
+}
@@ -0,0 +1,19 @@
+package enums;
+
+/**
+ * Перечисление ChangeEventType определяет вид изменения, публикуемого в ленту изменений.
+ */
+public enum ChangeEventType {
+    /**
+     * Пользователь подал показания за период.
+     */
+    READINGS_ADDED,
+    /**
+     * Зарегистрирован новый пользователь.
+     */
+    USER_REGISTERED,
+    /**
+     * Пользователь сменил пароль.
+     */
+    PASSWORD_CHANGED
+}
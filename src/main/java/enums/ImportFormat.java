@@ -0,0 +1,15 @@
+package enums;
+
+/**
+ * Перечисление ImportFormat определяет формат файла при пакетном импорте показаний.
+ */
+public enum ImportFormat {
+    /**
+     * Текст с разделителями-запятыми: заголовок "login,period,&lt;тип показаний&gt;,..." и по строке на подачу.
+     */
+    CSV,
+    /**
+     * По одному JSON-объекту на строку: {"login": ..., "period": "ГГГГ-ММ", "readings": {...}}.
+     */
+    JSONL
+}
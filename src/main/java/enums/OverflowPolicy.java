@@ -0,0 +1,19 @@
+package enums;
+
+/**
+ * Перечисление OverflowPolicy определяет поведение асинхронного логгера при переполнении очереди сообщений.
+ */
+public enum OverflowPolicy {
+    /**
+     * Вызывающий поток ожидает освобождения места в очереди. Сообщения не теряются.
+     */
+    BLOCK,
+    /**
+     * Сообщение отбрасывается, вызывающий поток никогда не ожидает.
+     */
+    DROP,
+    /**
+     * При переполнении в очередь попадает только каждое N-е сообщение (с ожиданием места), остальные отбрасываются.
+     */
+    SAMPLE
+}
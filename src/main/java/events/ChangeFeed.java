@@ -0,0 +1,328 @@
+package events;
+
+import enums.ChangeEventType;
+import models.ChangeEvent;
+import models.Readings;
+import models.User;
+import services.ReadingsListener;
+import services.UserListener;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Лента изменений внутри процесса: подачи показаний, регистрации пользователей и смены паролей
+ * публикуются в нее как события ChangeEvent, а потребители (биллинг, аналитика) читают их со своей скоростью.
+ * <p>
+ * События хранятся в кольцевом буфере фиксированной емкости и нумеруются смещениями. Публикация
+ * не блокируется и не ждет потребителей: производитель получает смещение атомарным инкрементом
+ * и записывает событие в ячейку, вытесняя событие, опубликованное capacity смещений назад.
+ * Поэтому в ленте всегда доступны последние capacity событий, и с любого из них можно перечитать ленту.
+ * Потребитель, отставший больше чем на capacity событий, получает ошибку и должен восстановить
+ * состояние по репозиториям, а затем продолжить с getNextOffset.
+ * <p>
+ * Читать ленту можно двумя способами: пачками через poll, сохраняя смещение у себя, или подпиской
+ * Flow.Subscriber. Подписчик получает события в своем потоке и не больше, чем запросил через request,
+ * так что медленный подписчик сдерживает только себя.
+ */
+public class ChangeFeed implements Flow.Publisher<ChangeEvent>, ReadingsListener, UserListener, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int mask;
+    private final AtomicReferenceArray<ChangeEvent> slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private final List<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Создает ленту на DEFAULT_CAPACITY событий.
+     */
+    public ChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Количество последних событий, доступных для чтения; округляется вверх до степени двойки.
+     */
+    public ChangeFeed(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Емкость ленты должна быть не меньше 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Публикует событие READINGS_ADDED.
+     */
+    public void onReadingsAdded(User user, YearMonth period, Readings readings) {
+        publish(ChangeEventType.READINGS_ADDED, user.getLogin(), period, readings);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Публикует событие USER_REGISTERED.
+     */
+    public void onUserRegistered(User user) {
+        publish(ChangeEventType.USER_REGISTERED, user.getLogin(), null, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Публикует событие PASSWORD_CHANGED.
+     */
+    public void onPasswordChanged(User user) {
+        publish(ChangeEventType.PASSWORD_CHANGED, user.getLogin(), null, null);
+    }
+
+    /**
+     * Публикует событие. Никогда не ожидает потребителей; после close ничего не делает.
+     *
+     * @param type     Вид изменения.
+     * @param login    Логин пользователя.
+     * @param period   Период показаний или null.
+     * @param readings Показания или null.
+     * @return Смещение опубликованного события или -1, если лента закрыта.
+     */
+    public long publish(ChangeEventType type, String login, YearMonth period, Readings readings) {
+        if (closed) {
+            return -1;
+        }
+        long offset = cursor.getAndIncrement();
+        ChangeEvent event = new ChangeEvent(offset, type, login, period, readings, System.currentTimeMillis());
+        int index = (int) offset & mask;
+        while (true) {
+            ChangeEvent current = slots.get(index);
+            // Производитель, задержавшийся дольше, чем лента успела обернуться, не затирает более новое событие
+            if (current != null && current.getOffset() > offset || slots.compareAndSet(index, current, event)) {
+                break;
+            }
+        }
+        for (FeedSubscription subscription : subscriptions) {
+            if (subscription.awaitingEvents) {
+                // Будит подписчика один раз, пока он не успел проснуться, а не на каждое событие
+                subscription.awaitingEvents = false;
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Читает пачку событий начиная с указанного смещения. Чтение останавливается на первом
+     * еще не опубликованном событии, поэтому события всегда передаются по порядку, без пропусков.
+     *
+     * @param offset   Смещение первого события.
+     * @param max      Максимальное количество событий.
+     * @param consumer Получатель событий.
+     * @return Смещение, с которого нужно продолжить чтение.
+     * @throws IllegalStateException Если событие с нужным смещением уже вытеснено из ленты.
+     */
+    public long poll(long offset, int max, Consumer<? super ChangeEvent> consumer) {
+        if (offset < 0 || max <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры чтения ленты");
+        }
+        long next = offset;
+        ChangeEvent event;
+        while (next - offset < max && (event = read(next)) != null) {
+            consumer.accept(event);
+            next++;
+        }
+        return next;
+    }
+
+    /**
+     * Подписывает на события, публикуемые после подписки.
+     */
+    public void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber) {
+        subscribe(subscriber, cursor.get());
+    }
+
+    /**
+     * Подписывает на события начиная с указанного смещения. Подписчику доставляются события
+     * в отдельном потоке в пределах запрошенного количества. Если нужные события вытеснены из ленты,
+     * подписка завершается onError с IllegalStateException; после close подписчик получает
+     * оставшиеся события и onComplete.
+     *
+     * @param subscriber Подписчик.
+     * @param fromOffset Смещение первого доставляемого события.
+     */
+    public void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber, long fromOffset) {
+        Objects.requireNonNull(subscriber);
+        if (fromOffset < 0) {
+            throw new IllegalArgumentException("Смещение не может быть отрицательным");
+        }
+        FeedSubscription subscription = new FeedSubscription(subscriber, fromOffset);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+    }
+
+    /**
+     * @return Смещение, которое получит следующее опубликованное событие.
+     */
+    public long getNextOffset() {
+        return cursor.get();
+    }
+
+    /**
+     * @return Смещение самого старого события, которое еще можно прочитать.
+     */
+    public long getFirstOffset() {
+        return Math.max(0, cursor.get() - mask - 1);
+    }
+
+    /**
+     * @return Количество активных подписок.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return Наибольшее по подпискам количество опубликованных, но еще не доставленных событий.
+     */
+    public long getMaxSubscriberLag() {
+        long next = cursor.get();
+        long lag = 0;
+        for (FeedSubscription subscription : subscriptions) {
+            lag = Math.max(lag, next - subscription.next);
+        }
+        return lag;
+    }
+
+    /**
+     * Прекращает прием событий. Подписчики получают оставшиеся события по мере запроса и затем onComplete.
+     * Метод не ожидает подписчиков. Повторный вызов ничего не делает.
+     */
+    public void close() {
+        closed = true;
+        for (FeedSubscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.thread);
+        }
+    }
+
+    /**
+     * @return Событие с указанным смещением или null, если оно еще не опубликовано.
+     * @throws IllegalStateException Если событие уже вытеснено из ленты.
+     */
+    private ChangeEvent read(long offset) {
+        ChangeEvent event = slots.get((int) offset & mask);
+        if (event == null || event.getOffset() < offset) {
+            return null;
+        }
+        if (event.getOffset() > offset) {
+            throw new IllegalStateException("Событие " + offset + " вытеснено из ленты, самое старое доступное - "
+                    + getFirstOffset());
+        }
+        return event;
+    }
+
+    /**
+     * Подписка Flow с собственным потоком доставки. Поток засыпает, когда подписчик ничего не запросил
+     * или новых событий нет; во втором случае его будит публикация.
+     */
+    private final class FeedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ChangeEvent> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final Thread thread;
+        private volatile long next;
+        private volatile boolean awaitingEvents;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        private FeedSubscription(Flow.Subscriber<? super ChangeEvent> subscriber, long fromOffset) {
+            this.subscriber = subscriber;
+            this.next = fromOffset;
+            this.thread = new Thread(this::deliverLoop, "change-feed-" + fromOffset);
+            this.thread.setDaemon(true);
+        }
+
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Запрошено неположительное количество событий: " + n);
+            } else {
+                requested.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            LockSupport.unpark(thread);
+        }
+
+        public void cancel() {
+            cancelled = true;
+            LockSupport.unpark(thread);
+        }
+
+        private void deliverLoop() {
+            try {
+                subscriber.onSubscribe(this);
+                while (!cancelled) {
+                    long demand = requested.get();
+                    long delivered = 0;
+                    ChangeEvent event;
+                    while (delivered < demand && !cancelled && error == null && (event = nextEvent()) != null) {
+                        subscriber.onNext(event);
+                        next = event.getOffset() + 1;
+                        delivered++;
+                    }
+                    if (delivered > 0 && demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-delivered);
+                    }
+                    if (cancelled) {
+                        break;
+                    }
+                    if (error != null) {
+                        cancelled = true;
+                        subscriber.onError(error);
+                        break;
+                    }
+                    if (closed && next >= cursor.get()) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        break;
+                    }
+                    if (delivered == 0) {
+                        park(demand);
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Change Feed Error " + e.getMessage());
+            } finally {
+                subscriptions.remove(this);
+            }
+        }
+
+        private ChangeEvent nextEvent() {
+            try {
+                return read(next);
+            } catch (IllegalStateException e) {
+                error = e;
+                return null;
+            }
+        }
+
+        /**
+         * Засыпает до публикации события, если подписчик ждет событий, или до request и cancel.
+         */
+        private void park(long demand) {
+            awaitingEvents = demand > 0;
+            if (!cancelled && error == null && requested.get() == demand) {
+                if (demand == 0) {
+                    LockSupport.park(this);
+                } else if (nextEvent() == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            awaitingEvents = false;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package exceptions;
+
+/**
+ * Класс ServiceUnavailableException представляет исключение, которое выбрасывается,
+ * когда операция отклонена из-за перегрузки и может быть повторена позже.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
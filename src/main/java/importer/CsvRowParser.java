@@ -0,0 +1,100 @@
+package importer;
+
+import models.MeterTypes;
+import models.Readings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор файла импорта в формате CSV.
+ * Первая строка - заголовок "login,period,&lt;тип показаний&gt;,...", каждая следующая строка - одна подача показаний.
+ * Период записывается как ГГГГ-ММ, пустое поле означает, что показание этого типа не подавалось.
+ * Кавычки и экранирование не поддерживаются: поля не должны содержать запятых.
+ */
+final class CsvRowParser extends RowParser {
+    private static final byte SEPARATOR = ',';
+
+    private String[] meterTypes;
+    private int[] meterIds;
+
+    CsvRowParser(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    protected ParsedRow parseLine(long lineNumber) throws ParseException {
+        if (meterTypes == null) {
+            throw new ParseException("Заголовок не прочитан");
+        }
+        int end = fieldEnd(0);
+        if (end == 0) {
+            throw new ParseException("Не указан логин");
+        }
+        String login = text(0, end);
+        int start = end + 1;
+        if (start > length) {
+            throw new ParseException("Не указан период");
+        }
+        end = fieldEnd(start);
+        var period = parsePeriod(start, end);
+        Readings readings = new Readings();
+        for (int i = 0; i < meterTypes.length; i++) {
+            start = end + 1;
+            if (start > length) {
+                break;
+            }
+            end = fieldEnd(start);
+            if (end > start) {
+                if (meterIds[i] < 0) {
+                    throw new ParseException("Неизвестный тип показаний " + meterTypes[i]);
+                }
+                readings.add(meterIds[i], parseDouble(start, end));
+            }
+        }
+        if (end < length) {
+            throw new ParseException("Лишние поля в строке");
+        }
+        return ParsedRow.of(lineNumber, login, period, readings);
+    }
+
+    /**
+     * Читает заголовок файла и запоминает порядок типов показаний.
+     *
+     * @throws IOException Если файл пуст или заголовок имеет неверный формат.
+     */
+    void readHeader() throws IOException {
+        if (!readLine()) {
+            throw new IOException("Файл импорта пуст");
+        }
+        if (length >= 3 && (line[0] & 0xFF) == 0xEF && (line[1] & 0xFF) == 0xBB && (line[2] & 0xFF) == 0xBF) {
+            System.arraycopy(line, 3, line, 0, length - 3);
+            length -= 3;
+        }
+        List<String> fields = new ArrayList<>();
+        int start = 0;
+        while (start <= length) {
+            int end = fieldEnd(start);
+            fields.add(text(start, end).trim());
+            start = end + 1;
+        }
+        if (fields.size() < 3 || !fields.get(0).equals("login") || !fields.get(1).equals("period")) {
+            throw new IOException("Заголовок CSV должен иметь вид login,period,<тип показаний>,...");
+        }
+        meterTypes = fields.subList(2, fields.size()).toArray(new String[0]);
+        meterIds = new int[meterTypes.length];
+        for (int i = 0; i < meterTypes.length; i++) {
+            meterIds[i] = MeterTypes.find(meterTypes[i]);
+        }
+    }
+
+    private int fieldEnd(int start) {
+        int position = start;
+        while (position < length && line[position] != SEPARATOR) {
+            position++;
+        }
+        return position;
+    }
+}
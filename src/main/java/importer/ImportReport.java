@@ -0,0 +1,90 @@
+package importer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Итоги пакетного импорта показаний: количество прочитанных, принятых и отклоненных строк,
+ * длительность, пропускная способность и причины отклонения первых строк.
+ */
+public class ImportReport {
+    private final long rows;
+    private final long accepted;
+    private final long rejected;
+    private final Duration elapsed;
+    private final List<Rejection> rejections;
+
+    ImportReport(long rows, long accepted, long rejected, Duration elapsed, List<Rejection> rejections) {
+        this.rows = rows;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.elapsed = elapsed;
+        this.rejections = List.copyOf(rejections);
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return Количество обработанных строк в секунду.
+     */
+    public double getRowsPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return rows * 1_000_000_000.0 / nanos;
+    }
+
+    /**
+     * Возвращает причины отклонения строк. Чтобы память не зависела от размера файла,
+     * в отчете хранятся только первые отклоненные строки, полный список передается обработчику отклонений.
+     *
+     * @return Отклоненные строки в порядке следования в файле.
+     */
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public String toString() {
+        return "Импорт завершен: строк " + rows + ", принято " + accepted + ", отклонено " + rejected
+                + ", время " + elapsed.toMillis() + " мс, " + Math.round(getRowsPerSecond()) + " строк/с";
+    }
+
+    /**
+     * Отклоненная строка файла импорта и причина отклонения.
+     */
+    public static class Rejection {
+        private final long line;
+        private final String reason;
+
+        public Rejection(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Строка " + line + ": " + reason;
+        }
+    }
+}
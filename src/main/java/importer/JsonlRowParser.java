@@ -0,0 +1,196 @@
+package importer;
+
+import models.MeterTypes;
+import models.Readings;
+
+import java.io.InputStream;
+import java.time.YearMonth;
+
+/**
+ * Разбор файла импорта в формате JSONL: по одному объекту на строку вида
+ * {"login": "user", "period": "2024-01", "readings": {"Отопление": 120.5, "Горячая вода": 30}}.
+ * Порядок полей произвольный. Поддерживается только это подмножество JSON: строковые login и period
+ * и плоский объект readings с числовыми значениями.
+ */
+final class JsonlRowParser extends RowParser {
+    private int position;
+
+    JsonlRowParser(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    protected ParsedRow parseLine(long lineNumber) throws ParseException {
+        position = 0;
+        String login = null;
+        YearMonth period = null;
+        Readings readings = null;
+        expect('{');
+        if (!consume('}')) {
+            do {
+                int keyStart = stringStart();
+                int keyEnd = stringEnd();
+                expect(':');
+                if (is(keyStart, keyEnd, "login")) {
+                    login = string();
+                } else if (is(keyStart, keyEnd, "period")) {
+                    int start = stringStart();
+                    period = parsePeriod(start, stringEnd());
+                } else if (is(keyStart, keyEnd, "readings")) {
+                    readings = readings();
+                } else {
+                    throw new ParseException("Неизвестное поле: " + text(keyStart, keyEnd));
+                }
+            } while (consume(','));
+            expect('}');
+        }
+        skipWhitespace();
+        if (position != length) {
+            throw new ParseException("Лишние символы после объекта");
+        }
+        if (login == null || login.isEmpty()) {
+            throw new ParseException("Не указан логин");
+        }
+        if (period == null) {
+            throw new ParseException("Не указан период");
+        }
+        return ParsedRow.of(lineNumber, login, period, readings == null ? new Readings() : readings);
+    }
+
+    private Readings readings() throws ParseException {
+        Readings readings = new Readings();
+        expect('{');
+        if (consume('}')) {
+            return readings;
+        }
+        do {
+            int start = stringStart();
+            int end = stringEnd();
+            String type = hasEscapes(start, end) ? unescape(start, end) : name(start, end);
+            expect(':');
+            skipWhitespace();
+            int valueStart = position;
+            while (position < length && line[position] != ',' && line[position] != '}'
+                    && line[position] != ' ' && line[position] != '\t') {
+                position++;
+            }
+            int meter = MeterTypes.find(type);
+            if (meter < 0) {
+                throw new ParseException("Неизвестный тип показаний " + type);
+            }
+            readings.add(meter, parseDouble(valueStart, position));
+        } while (consume(','));
+        expect('}');
+        return readings;
+    }
+
+    private String string() throws ParseException {
+        int start = stringStart();
+        int end = stringEnd();
+        return hasEscapes(start, end) ? unescape(start, end) : text(start, end);
+    }
+
+    /**
+     * Пропускает открывающую кавычку строки и возвращает позицию первого символа строки.
+     */
+    private int stringStart() throws ParseException {
+        expect('"');
+        return position;
+    }
+
+    /**
+     * Находит закрывающую кавычку строки, пропускает ее и возвращает позицию за последним символом строки.
+     */
+    private int stringEnd() throws ParseException {
+        while (position < length) {
+            byte b = line[position];
+            if (b == '\\') {
+                position += 2;
+            } else if (b == '"') {
+                return position++;
+            } else {
+                position++;
+            }
+        }
+        throw new ParseException("Незакрытая строка");
+    }
+
+    private boolean hasEscapes(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String unescape(int start, int end) throws ParseException {
+        StringBuilder sb = new StringBuilder(end - start);
+        int chunk = start;
+        for (int i = start; i < end; i++) {
+            if (line[i] != '\\') {
+                continue;
+            }
+            sb.append(text(chunk, i));
+            if (i + 1 >= end) {
+                throw new ParseException("Некорректная escape-последовательность");
+            }
+            byte escaped = line[++i];
+            switch (escaped) {
+                case '"', '\\', '/' -> sb.append((char) escaped);
+                case 'n' -> sb.append('\n');
+                case 't' -> sb.append('\t');
+                case 'r' -> sb.append('\r');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= end) {
+                        throw new ParseException("Некорректная escape-последовательность");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(text(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        throw new ParseException("Некорректная escape-последовательность");
+                    }
+                    i += 4;
+                }
+                default -> throw new ParseException("Некорректная escape-последовательность");
+            }
+            chunk = i + 1;
+        }
+        return sb.append(text(chunk, end)).toString();
+    }
+
+    private boolean is(int start, int end, String key) {
+        if (end - start != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (line[start + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(char expected) throws ParseException {
+        if (!consume(expected)) {
+            throw new ParseException("Ожидается '" + expected + "' в позиции " + (position + 1));
+        }
+    }
+
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (position < length && line[position] == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < length && (line[position] == ' ' || line[position] == '\t')) {
+            position++;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package importer;
+
+import models.Readings;
+
+import java.time.YearMonth;
+
+/**
+ * Строка файла импорта после разбора: номер строки, логин, период и показания
+ * или причина, по которой строку не удалось разобрать.
+ */
+final class ParsedRow {
+    final long line;
+    final String login;
+    final YearMonth period;
+    final Readings readings;
+    final String error;
+
+    private ParsedRow(long line, String login, YearMonth period, Readings readings, String error) {
+        this.line = line;
+        this.login = login;
+        this.period = period;
+        this.readings = readings;
+        this.error = error;
+    }
+
+    static ParsedRow of(long line, String login, YearMonth period, Readings readings) {
+        return new ParsedRow(line, login, period, readings, null);
+    }
+
+    static ParsedRow rejected(long line, String error) {
+        return new ParsedRow(line, null, null, null, error);
+    }
+}
@@ -0,0 +1,246 @@
+package importer;
+
+import enums.ImportFormat;
+import exceptions.ValidationException;
+import logger.Logger;
+import logger.impl.AsyncLoggerImpl;
+import models.ReadingsEntry;
+import models.User;
+import repositories.UserRepository;
+import services.ReadingsService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Пакетный импорт показаний из файлов CSV и JSONL.
+ * <p>
+ * Импорт устроен как конвейер: вызывающий поток читает и разбирает файл пакетами по 1024 строки,
+ * пользователи строк пакетов находятся параллельно в пуле потоков, а подготовленные пакеты
+ * в исходном порядке записываются через ReadingsService.addReadingsBatch.
+ * Количество пакетов в работе ограничено, поэтому память не зависит от размера файла.
+ * <p>
+ * Показания проходят те же проверки, что и при обычной подаче, а слушатели сервиса показаний
+ * (лента изменений, журнал аудита, сводная статистика) оповещаются о каждой импортированной записи,
+ * поэтому пересчитывать производные данные после импорта не нужно.
+ */
+public class ReadingsImporter {
+    private static final int BATCH_SIZE = 1024;
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+    private static final Logger logger = AsyncLoggerImpl.getInstance();
+
+    private final UserRepository userRepository;
+    private final ReadingsService readingsService;
+    private final int threads;
+
+    public ReadingsImporter(UserRepository userRepository, ReadingsService readingsService) {
+        this(userRepository, readingsService, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ReadingsImporter(UserRepository userRepository, ReadingsService readingsService, int threads) {
+        this.userRepository = userRepository;
+        this.readingsService = readingsService;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Определяет формат файла импорта по расширению.
+     *
+     * @param file Файл импорта.
+     * @return Формат файла.
+     * @throws ValidationException Если расширение файла не .csv и не .jsonl.
+     */
+    public static ImportFormat formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) {
+            return ImportFormat.CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return ImportFormat.JSONL;
+        }
+        throw new ValidationException("Неизвестный формат файла импорта: " + file.getFileName());
+    }
+
+    /**
+     * Импортирует показания из файла.
+     *
+     * @param file   Файл импорта.
+     * @param format Формат файла.
+     * @return Итоги импорта.
+     * @throws IOException Если файл не удалось прочитать.
+     */
+    public ImportReport importFile(Path file, ImportFormat format) throws IOException {
+        return importFile(file, format, rejection -> {
+        });
+    }
+
+    /**
+     * Импортирует показания из файла, передавая каждую отклоненную строку обработчику.
+     *
+     * @param file       Файл импорта.
+     * @param format     Формат файла.
+     * @param rejections Обработчик отклоненных строк, вызывается в порядке следования строк в файле.
+     * @return Итоги импорта.
+     * @throws IOException Если файл не удалось прочитать.
+     */
+    public ImportReport importFile(Path file, ImportFormat format, Consumer<ImportReport.Rejection> rejections)
+            throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            ImportReport report = importStream(in, format, rejections);
+            logger.info("Импорт показаний из " + file.getFileName() + ". " + report);
+            return report;
+        }
+    }
+
+    /**
+     * Импортирует показания из потока.
+     *
+     * @param in         Поток с содержимым файла импорта. Не закрывается.
+     * @param format     Формат содержимого.
+     * @param rejections Обработчик отклоненных строк, вызывается в порядке следования строк в файле.
+     * @return Итоги импорта.
+     * @throws IOException Если поток не удалось прочитать.
+     */
+    public ImportReport importStream(InputStream in, ImportFormat format, Consumer<ImportReport.Rejection> rejections)
+            throws IOException {
+        long started = System.nanoTime();
+        RowParser parser = switch (format) {
+            case CSV -> {
+                CsvRowParser csv = new CsvRowParser(in);
+                csv.readHeader();
+                yield csv;
+            }
+            case JSONL -> new JsonlRowParser(in);
+        };
+        Progress progress = new Progress(rejections);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<ValidatedBatch>> inFlight = new ArrayDeque<>();
+        try {
+            List<ParsedRow> batch = new ArrayList<>(BATCH_SIZE);
+            ParsedRow row;
+            while ((row = parser.next()) != null) {
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    List<ParsedRow> rows = batch;
+                    inFlight.add(executor.submit(() -> validate(rows)));
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    if (inFlight.size() >= threads * 2) {
+                        write(await(inFlight.poll()), progress);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                List<ParsedRow> rows = batch;
+                inFlight.add(executor.submit(() -> validate(rows)));
+            }
+            while (!inFlight.isEmpty()) {
+                write(await(inFlight.poll()), progress);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new ImportReport(progress.rows, progress.accepted, progress.rejected,
+                Duration.ofNanos(System.nanoTime() - started), progress.reported);
+    }
+
+    /**
+     * Проверяет строки пакета: формат и наличие пользователя. Выполняется в пуле потоков.
+     */
+    private ValidatedBatch validate(List<ParsedRow> rows) {
+        ValidatedBatch result = new ValidatedBatch(rows.size());
+        for (ParsedRow row : rows) {
+            if (row.error != null) {
+                result.rejections.add(new ImportReport.Rejection(row.line, row.error));
+                continue;
+            }
+            Optional<User> user = userRepository.getUser(row.login);
+            if (user.isEmpty()) {
+                result.rejections.add(new ImportReport.Rejection(row.line, "Пользователь не найден: " + row.login));
+                continue;
+            }
+            result.entries.add(new ReadingsEntry(user.get(), row.period, row.readings));
+            result.lines.add(row.line);
+        }
+        return result;
+    }
+
+    /**
+     * Записывает пакет через сервис показаний. Выполняется в вызывающем потоке в порядке следования пакетов.
+     */
+    private void write(ValidatedBatch batch, Progress progress) {
+        String[] rejections = readingsService.addReadingsBatch(batch.entries);
+        for (int i = 0; i < rejections.length; i++) {
+            if (rejections[i] == null) {
+                progress.accepted++;
+            } else {
+                batch.rejections.add(new ImportReport.Rejection(batch.lines.get(i), rejections[i]));
+            }
+        }
+        batch.rejections.sort(Comparator.comparingLong(ImportReport.Rejection::getLine));
+        batch.rejections.forEach(progress::reject);
+        progress.rows += batch.rows;
+    }
+
+    private static ValidatedBatch await(Future<ValidatedBatch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Импорт прерван", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Ошибка проверки строк", e.getCause());
+        }
+    }
+
+    /**
+     * Пакет после проверки строк: записи для сохранения с номерами строк и отклоненные строки.
+     */
+    private static final class ValidatedBatch {
+        private final List<ReadingsEntry> entries;
+        private final List<Long> lines;
+        private final List<ImportReport.Rejection> rejections = new ArrayList<>();
+        private final int rows;
+
+        private ValidatedBatch(int rows) {
+            this.rows = rows;
+            entries = new ArrayList<>(rows);
+            lines = new ArrayList<>(rows);
+        }
+    }
+
+    /**
+     * Счетчики импорта и первые отклоненные строки для отчета.
+     */
+    private static final class Progress {
+        private final Consumer<ImportReport.Rejection> sink;
+        private final List<ImportReport.Rejection> reported = new ArrayList<>();
+        private long rows;
+        private long accepted;
+        private long rejected;
+
+        private Progress(Consumer<ImportReport.Rejection> sink) {
+            this.sink = sink;
+        }
+
+        private void reject(ImportReport.Rejection rejection) {
+            rejected++;
+            if (reported.size() < MAX_REPORTED_REJECTIONS) {
+                reported.add(rejection);
+            }
+            sink.accept(rejection);
+        }
+    }
+}
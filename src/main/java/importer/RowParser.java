@@ -0,0 +1,228 @@
+package importer;
+
+import models.Periods;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * Основа потокового разбора файла импорта.
+ * Читает файл блоками в собственный буфер и выделяет строки в переиспользуемый массив байт,
+ * поэтому на строку не создаются промежуточные объекты String. Числа и периоды разбираются прямо из байт,
+ * строки создаются только для логинов, а названия типов показаний берутся из небольшого кэша.
+ */
+abstract class RowParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition;
+    private int bufferLimit;
+    private long lineNumber;
+
+    protected byte[] line = new byte[256];
+    protected int length;
+
+    private byte[][] nameKeys = new byte[0][];
+    private String[] names = new String[0];
+
+    protected RowParser(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Разбирает следующую непустую строку файла.
+     *
+     * @return Разобранная строка или null, если файл закончился.
+     * @throws IOException Если чтение файла не удалось.
+     */
+    final ParsedRow next() throws IOException {
+        while (readLine()) {
+            if (length == 0) {
+                continue;
+            }
+            try {
+                return parseLine(lineNumber);
+            } catch (ParseException e) {
+                return ParsedRow.rejected(lineNumber, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Разбирает строку, лежащую в line[0, length).
+     *
+     * @throws ParseException Если строка имеет неверный формат.
+     */
+    protected abstract ParsedRow parseLine(long lineNumber) throws ParseException;
+
+    /**
+     * Читает следующую строку в line, отбрасывая завершающие \r и \n.
+     *
+     * @return false, если файл закончился.
+     */
+    protected final boolean readLine() throws IOException {
+        length = 0;
+        boolean read = false;
+        while (true) {
+            if (bufferPosition == bufferLimit) {
+                bufferLimit = in.read(buffer, 0, buffer.length);
+                bufferPosition = 0;
+                if (bufferLimit <= 0) {
+                    bufferLimit = 0;
+                    if (read) {
+                        lineNumber++;
+                    }
+                    return read;
+                }
+            }
+            read = true;
+            int start = bufferPosition;
+            while (bufferPosition < bufferLimit && buffer[bufferPosition] != '\n') {
+                bufferPosition++;
+            }
+            append(start, bufferPosition - start);
+            if (bufferPosition < bufferLimit) {
+                bufferPosition++;
+                lineNumber++;
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                return true;
+            }
+        }
+    }
+
+    private void append(int start, int count) throws IOException {
+        if (length + count > line.length) {
+            if (length + count > MAX_LINE_LENGTH) {
+                throw new IOException("Строка " + (lineNumber + 1) + " длиннее " + MAX_LINE_LENGTH + " байт");
+            }
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+        }
+        System.arraycopy(buffer, start, line, length, count);
+        length += count;
+    }
+
+    /**
+     * Разбирает десятичное число из line[start, end) без создания строки.
+     * Числа с экспонентой или более чем 18 значащими цифрами разбираются через Double.parseDouble.
+     */
+    protected final double parseDouble(int start, int end) throws ParseException {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (line[position] == '-' || line[position] == '+')) {
+            negative = line[position] == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            byte b = line[position];
+            if (b >= '0' && b <= '9') {
+                if (significant == 18) {
+                    return slowParseDouble(start, end);
+                }
+                anyDigit = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) {
+                    significant++;
+                }
+                if (fraction) {
+                    scale++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b == 'e' || b == 'E') {
+                return slowParseDouble(start, end);
+            } else {
+                throw new ParseException("Некорректное число: " + text(start, end));
+            }
+        }
+        if (!anyDigit) {
+            throw new ParseException("Некорректное число: " + text(start, end));
+        }
+        if (scale >= POWERS_OF_TEN.length) {
+            return slowParseDouble(start, end);
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(int start, int end) throws ParseException {
+        try {
+            return Double.parseDouble(text(start, end));
+        } catch (NumberFormatException e) {
+            throw new ParseException("Некорректное число: " + text(start, end));
+        }
+    }
+
+    /**
+     * Разбирает период в формате ГГГГ-ММ из line[start, end).
+     */
+    protected final YearMonth parsePeriod(int start, int end) throws ParseException {
+        if (end - start != 7 || line[start + 4] != '-') {
+            throw new ParseException("Некорректный период, ожидается ГГГГ-ММ: " + text(start, end));
+        }
+        int year = digits(start, start + 4);
+        int month = digits(start + 5, end);
+        if (year < Periods.MIN_YEAR || month < 1 || month > 12) {
+            throw new ParseException("Некорректный период, ожидается ГГГГ-ММ: " + text(start, end));
+        }
+        return YearMonth.of(year, month);
+    }
+
+    private int digits(int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Возвращает название типа показаний для байт line[start, end), переиспользуя ранее созданные строки.
+     */
+    protected final String name(int start, int end) {
+        for (int i = 0; i < nameKeys.length; i++) {
+            if (Arrays.equals(nameKeys[i], 0, nameKeys[i].length, line, start, end)) {
+                return names[i];
+            }
+        }
+        String name = text(start, end);
+        nameKeys = Arrays.copyOf(nameKeys, nameKeys.length + 1);
+        nameKeys[nameKeys.length - 1] = Arrays.copyOfRange(line, start, end);
+        names = Arrays.copyOf(names, names.length + 1);
+        names[names.length - 1] = name;
+        return name;
+    }
+
+    protected final String text(int start, int end) {
+        return new String(line, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ошибка формата строки. Не заполняет стек вызовов, так как служит только для передачи причины отклонения.
+     */
+    static final class ParseException extends Exception {
+        ParseException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
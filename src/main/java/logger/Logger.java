@@ -10,4 +10,14 @@ public interface Logger {
      * @param message Сообщение, которое необходимо залогировать.
      */
     void info(String message);
+
+    /**
+     * Возвращает количество сообщений, принятых, но еще не записанных. Синхронный логгер записывает
+     * сообщение до возврата из info, поэтому очередь у него всегда пуста.
+     *
+     * @return Глубина очереди.
+     */
+    default long getQueueDepth() {
+        return 0;
+    }
 }
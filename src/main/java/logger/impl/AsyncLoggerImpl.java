@@ -0,0 +1,379 @@
+package logger.impl;
+
+import enums.OverflowPolicy;
+import logger.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная реализация интерфейса Logger.
+ * Вызывающий поток только кладет сообщение и время в ограниченный кольцевой буфер без блокировок,
+ * а фоновый поток забирает сообщения пачками, форматирует их и пишет в файл через буферизованный FileChannel.
+ * Формат строк совпадает с LoggerImpl. Поведение при переполнении буфера задается OverflowPolicy.
+ * Вместо файла логгер может писать пачки строк через LoggerImpl, который выполняет ротацию файла;
+ * так устроен логгер приложения, возвращаемый getInstance.
+ * При закрытии и при завершении JVM оставшиеся сообщения дописываются в файл: поток записи завершается
+ * только после того, как закончат работу все производители, успевшие начать вставку до закрытия.
+ */
+public class AsyncLoggerImpl implements Logger, AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM);
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("HH.mm.ss");
+
+    private final int mask;
+    private final String[] messages;
+    private final long[] timestamps;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final AtomicLong overflowCounter = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicInteger activeProducers = new AtomicInteger();
+
+    private final FileChannel channel;
+    private final LoggerImpl target;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(256);
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedPrefix;
+
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    private static AsyncLoggerImpl instance;
+
+    /**
+     * Создает асинхронный логгер с политикой BLOCK и буфером на 8192 сообщения.
+     *
+     * @param file Файл, в который дописываются сообщения.
+     */
+    public AsyncLoggerImpl(Path file) {
+        this(file, DEFAULT_CAPACITY, OverflowPolicy.BLOCK, 1);
+    }
+
+    /**
+     * Создает асинхронный логгер и запускает фоновый поток записи.
+     *
+     * @param file       Файл, в который дописываются сообщения.
+     * @param capacity   Емкость кольцевого буфера, округляется вверх до степени двойки.
+     * @param policy     Поведение при переполнении буфера.
+     * @param sampleRate Для политики SAMPLE - при переполнении сохраняется каждое sampleRate-е сообщение.
+     * @throws UncheckedIOException Если файл не может быть открыт.
+     */
+    public AsyncLoggerImpl(Path file, int capacity, OverflowPolicy policy, int sampleRate) {
+        this(open(file), null, capacity, policy, sampleRate);
+    }
+
+    /**
+     * Создает асинхронный логгер, который передает отформатированные пачки строк в LoggerImpl.
+     * Ротация и архивирование файла выполняются LoggerImpl в потоке записи; при закрытии логгера
+     * закрывается и target.
+     *
+     * @param target     Логгер, в файл которого дописываются сообщения.
+     * @param capacity   Емкость кольцевого буфера, округляется вверх до степени двойки.
+     * @param policy     Поведение при переполнении буфера.
+     * @param sampleRate Для политики SAMPLE - при переполнении сохраняется каждое sampleRate-е сообщение.
+     */
+    public AsyncLoggerImpl(LoggerImpl target, int capacity, OverflowPolicy policy, int sampleRate) {
+        this(null, target, capacity, policy, sampleRate);
+    }
+
+    private AsyncLoggerImpl(FileChannel channel, LoggerImpl target, int capacity, OverflowPolicy policy,
+                            int sampleRate) {
+        if (capacity < 2 || sampleRate < 1) {
+            throw new IllegalArgumentException("Некорректные параметры логгера");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.messages = new String[size];
+        this.timestamps = new long[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        this.channel = channel;
+        this.target = target;
+        this.buffer = channel != null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : ByteBuffer.allocate(BUFFER_SIZE);
+        this.writer = new Thread(this::drainLoop, "async-logger-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        this.shutdownHook = new Thread(this::close, "async-logger-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Возвращает логгер приложения: асинхронную запись в "logs.log" текущего каталога через LoggerImpl
+     * с параметрами ротации по умолчанию. Логгер создается при первом вызове и закрывается при завершении JVM.
+     *
+     * @return Единственный экземпляр логгера приложения.
+     */
+    public static synchronized AsyncLoggerImpl getInstance() {
+        if (instance == null) {
+            instance = new AsyncLoggerImpl(new LoggerImpl(), DEFAULT_CAPACITY, OverflowPolicy.BLOCK, 1);
+        }
+        return instance;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Не выполняет форматирование и ввод-вывод в вызывающем потоке.
+     */
+    public void info(String message) {
+        log("INFO : " + message);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getQueueDepth() {
+        return tail.get() - written.get();
+    }
+
+    /**
+     * Возвращает количество сообщений, отброшенных из-за переполнения буфера.
+     *
+     * @return Количество отброшенных сообщений.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Ожидает, пока все сообщения, поставленные в очередь до вызова, будут записаны в файл.
+     */
+    public void flush() {
+        long target = tail.get();
+        while (written.get() < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Прекращает прием сообщений, дописывает оставшиеся сообщения и закрывает файл.
+     * Повторный вызов ничего не делает.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // JVM уже завершается
+            }
+        }
+    }
+
+    /**
+     * Производитель отмечается в activeProducers до проверки closed, поэтому поток записи, увидевший
+     * closed и ноль активных производителей, не пропустит сообщение, вставка которого уже началась.
+     */
+    private void log(String msg) {
+        activeProducers.incrementAndGet();
+        try {
+            if (closed) {
+                return;
+            }
+            long time = System.currentTimeMillis();
+            if (offer(msg, time)) {
+                return;
+            }
+            switch (policy) {
+                case BLOCK -> blockingOffer(msg, time);
+                case DROP -> dropped.incrementAndGet();
+                case SAMPLE -> {
+                    if (overflowCounter.getAndIncrement() % sampleRate == 0) {
+                        blockingOffer(msg, time);
+                    } else {
+                        dropped.incrementAndGet();
+                    }
+                }
+            }
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    private void blockingOffer(String msg, long time) {
+        while (!offer(msg, time)) {
+            if (!writer.isAlive()) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Неблокирующая вставка в кольцевой буфер с несколькими производителями (схема Вьюкова):
+     * у каждой ячейки есть порядковый номер, по которому производитель понимает, свободна ли она.
+     */
+    private boolean offer(String msg, long time) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    messages[index] = msg;
+                    timestamps[index] = time;
+                    sequences.lazySet(index, position + 1);
+                    if (writerParked) {
+                        LockSupport.unpark(writer);
+                    }
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            int drained = drainBatch();
+            if (drained == 0) {
+                if (closed) {
+                    if (activeProducers.get() == 0 && head == tail.get()) {
+                        break;
+                    }
+                    Thread.onSpinWait();
+                    continue;
+                }
+                writerParked = true;
+                if (head == tail.get() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+            }
+        }
+        writeBuffer();
+        if (target != null) {
+            target.close();
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Log Error " + e.getMessage());
+        }
+    }
+
+    private int drainBatch() {
+        int drained = 0;
+        while (drained <= mask) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            String msg = messages[index];
+            long time = timestamps[index];
+            messages[index] = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            append(msg, time);
+            drained++;
+        }
+        if (drained > 0) {
+            writeBuffer();
+            written.addAndGet(drained);
+        }
+        return drained;
+    }
+
+    private void append(String msg, long time) {
+        line.setLength(0);
+        line.append(prefix(time));
+        int nanos = (int) Math.floorMod(time, 1000L) * 1_000_000;
+        line.append(nanos == 0 ? "000" : Integer.toString(nanos));
+        line.append("] ").append(msg).append('\n');
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (chars.hasRemaining()) {
+            if (encoder.encode(chars, buffer, true).isOverflow()) {
+                writeBuffer();
+            }
+        }
+        encoder.reset();
+    }
+
+    /**
+     * Возвращает начало строки лога до наносекунд включительно ("[дата:ЧЧ.мм.сс.").
+     * Форматирование даты выполняется не чаще раза в секунду.
+     */
+    private String prefix(long time) {
+        long second = Math.floorDiv(time, 1000L);
+        if (second != cachedSecond) {
+            LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone);
+            cachedPrefix = "[" + DATE_FORMAT.format(dateTime) + ":" + SECOND_FORMAT.format(dateTime) + ".";
+            cachedSecond = second;
+        }
+        return cachedPrefix;
+    }
+
+    private static FileChannel open(Path file) {
+        try {
+            return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            if (target != null && buffer.hasRemaining()) {
+                target.write(buffer.array(), buffer.limit());
+            }
+            while (channel != null && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("Log Error " + e.getMessage());
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,170 @@
+package logger.impl;
+
+import enums.AuditAction;
+import models.AuditRecord;
+import models.Periods;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.YearMonth;
+
+/**
+ * Формат файлов журнала аудита, общий для AuditLoggerImpl и AuditLogReader.
+ * <p>
+ * Журнал состоит из сегментов audit-NNNNNN.log, каждый из которых дополняется индексом audit-NNNNNN.idx.
+ * Сегмент - последовательность блоков, блок - последовательность записей:
+ * длина записи без этого поля (int), время в наносекундах от начала эпохи (long), вид записи (byte),
+ * период как год * 12 + месяц - 1 или -1 (int), длина логина (short), логин и текст сообщения в UTF-8.
+ * На каждый блок в индекс дописывается запись фиксированной длины: наименьшее и наибольшее время записей
+ * блока, смещение и длина блока в сегменте, количество записей и фильтр Блума по логинам блока.
+ * Запись индекса дописывается после блока, поэтому блок без записи индекса (после сбоя) просто не читается.
+ */
+final class AuditFormat {
+    static final int BLOOM_LONGS = 16;
+    static final int BLOOM_BITS = BLOOM_LONGS * Long.SIZE;
+    static final int INDEX_ENTRY_BYTES = 3 * Long.BYTES + 2 * Integer.BYTES + BLOOM_LONGS * Long.BYTES;
+    static final int MAX_MESSAGE_BYTES = 4096;
+    private static final int HEADER_BYTES = Long.BYTES + 1 + Integer.BYTES + Short.BYTES;
+    private static final AuditAction[] ACTIONS = AuditAction.values();
+
+    private AuditFormat() {
+    }
+
+    static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(String.format("audit-%06d.log", segment));
+    }
+
+    static Path indexFile(Path directory, long segment) {
+        return directory.resolve(String.format("audit-%06d.idx", segment));
+    }
+
+    /**
+     * @return Номер сегмента по имени файла сегмента или индекса или -1, если файл не относится к журналу.
+     */
+    static long segmentOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("audit-") || !name.endsWith(".log") && !name.endsWith(".idx")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(6, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return Количество байт, которое займет запись.
+     */
+    static int recordBytes(byte[] login, byte[] message) {
+        return Integer.BYTES + HEADER_BYTES + login.length + message.length;
+    }
+
+    static byte[] messageBytes(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_MESSAGE_BYTES) {
+            return bytes;
+        }
+        // Обрезает по границе символа UTF-8
+        int length = MAX_MESSAGE_BYTES;
+        while ((bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] truncated = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+
+    static void writeRecord(ByteBuffer out, long epochNanos, AuditAction action, byte[] login,
+                            YearMonth period, byte[] message) {
+        out.putInt(HEADER_BYTES + login.length + message.length);
+        out.putLong(epochNanos);
+        out.put((byte) action.ordinal());
+        out.putInt(period == null ? -1 : Periods.toKey(period));
+        out.putShort((short) login.length);
+        out.put(login);
+        out.put(message);
+    }
+
+    /**
+     * Читает запись, если ее время и логин подходят, иначе пропускает ее.
+     *
+     * @param in         Блок, позиция которого указывает на начало записи.
+     * @param fromNanos  Начало интервала времени включительно.
+     * @param toNanos    Конец интервала времени не включительно.
+     * @param login      Логин в UTF-8 или null для всех пользователей.
+     * @return Запись или null, если запись не подходит.
+     */
+    static AuditRecord readRecord(ByteBuffer in, long fromNanos, long toNanos, byte[] login) {
+        int length = in.getInt();
+        int end = in.position() + length;
+        long epochNanos = in.getLong();
+        if (epochNanos < fromNanos || epochNanos >= toNanos) {
+            in.position(end);
+            return null;
+        }
+        AuditAction action = ACTIONS[in.get()];
+        int period = in.getInt();
+        int loginLength = in.getShort() & 0xFFFF;
+        if (login != null && !loginEquals(in, loginLength, login)) {
+            in.position(end);
+            return null;
+        }
+        String recordLogin = new String(in.array(), in.arrayOffset() + in.position(), loginLength, StandardCharsets.UTF_8);
+        in.position(in.position() + loginLength);
+        String message = new String(in.array(), in.arrayOffset() + in.position(), end - in.position(), StandardCharsets.UTF_8);
+        in.position(end);
+        return new AuditRecord(epochNanos, action, recordLogin,
+                period < 0 ? null : Periods.fromKey(period), message);
+    }
+
+    private static boolean loginEquals(ByteBuffer in, int length, byte[] login) {
+        if (length != login.length) {
+            return false;
+        }
+        int position = in.position();
+        for (int i = 0; i < length; i++) {
+            if (in.get(position + i) != login[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Отмечает логин в фильтре Блума блока тремя битами.
+     */
+    static void addToBloom(long[] bloom, byte[] login) {
+        long hash = hash(login);
+        for (int i = 0; i < 3; i++) {
+            int bit = (int) (hash >>> (i * 20)) & (BLOOM_BITS - 1);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false, если логина в блоке точно нет.
+     */
+    static boolean mightContain(long[] bloom, byte[] login) {
+        long hash = hash(login);
+        for (int i = 0; i < 3; i++) {
+            int bit = (int) (hash >>> (i * 20)) & (BLOOM_BITS - 1);
+            if ((bloom[bit >>> 6] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(byte[] login) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : login) {
+            hash = (hash ^ b) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
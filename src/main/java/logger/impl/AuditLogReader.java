@@ -0,0 +1,222 @@
+package logger.impl;
+
+import models.AuditRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Чтение журнала аудита, записанного AuditLoggerImpl, в том числе во время записи.
+ * <p>
+ * Индексы сегментов кешируются в памяти и дочитываются по мере роста. Запрос проверяет по индексу
+ * каждый блок: блок читается с диска, только если интервал времени его записей пересекается
+ * с запрошенным, а для запроса по пользователю - еще и если фильтр Блума блока допускает этот логин.
+ * Поэтому запрос по пользователю за короткий интервал читает малую часть журнала.
+ */
+public class AuditLogReader {
+    private final Path directory;
+    private final Map<Long, SegmentIndex> indexes = new ConcurrentHashMap<>();
+    private final LongAdder blocksRead = new LongAdder();
+
+    /**
+     * @param directory Каталог журнала аудита.
+     */
+    public AuditLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Возвращает записи всех пользователей за интервал времени.
+     *
+     * @param from  Начало интервала включительно.
+     * @param to    Конец интервала не включительно.
+     * @param limit Максимальное количество записей.
+     * @return Записи в порядке записи в журнал.
+     * @throws UncheckedIOException Если журнал не может быть прочитан.
+     */
+    public List<AuditRecord> query(Instant from, Instant to, int limit) {
+        return search(null, from, to, limit);
+    }
+
+    /**
+     * Возвращает записи пользователя за интервал времени.
+     *
+     * @param login Логин пользователя.
+     * @param from  Начало интервала включительно.
+     * @param to    Конец интервала не включительно.
+     * @param limit Максимальное количество записей.
+     * @return Записи в порядке записи в журнал.
+     * @throws UncheckedIOException Если журнал не может быть прочитан.
+     */
+    public List<AuditRecord> queryUser(String login, Instant from, Instant to, int limit) {
+        return search(login.getBytes(StandardCharsets.UTF_8), from, to, limit);
+    }
+
+    /**
+     * @return Количество блоков, прочитанных с диска всеми запросами.
+     */
+    public long getBlocksRead() {
+        return blocksRead.sum();
+    }
+
+    private List<AuditRecord> search(byte[] login, Instant from, Instant to, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество записей должно быть положительным");
+        }
+        long fromNanos = toNanos(from);
+        long toNanos = toNanos(to);
+        List<AuditRecord> result = new ArrayList<>();
+        try {
+            for (long segment : segments()) {
+                SegmentIndex index = indexes.computeIfAbsent(segment, SegmentIndex::new);
+                List<Block> blocks = index.refresh();
+                if (!index.overlaps(fromNanos, toNanos)) {
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(AuditFormat.segmentFile(directory, segment),
+                        StandardOpenOption.READ)) {
+                    for (Block block : blocks) {
+                        if (block.lastNanos < fromNanos || block.firstNanos >= toNanos
+                                || login != null && !AuditFormat.mightContain(block.bloom, login)) {
+                            continue;
+                        }
+                        ByteBuffer data = ByteBuffer.allocate(block.length);
+                        while (data.hasRemaining()) {
+                            if (channel.read(data, block.offset + data.position()) < 0) {
+                                throw new IOException("Сегмент журнала аудита " + segment + " обрезан");
+                            }
+                        }
+                        blocksRead.increment();
+                        data.flip();
+                        while (data.hasRemaining()) {
+                            AuditRecord record = AuditFormat.readRecord(data, fromNanos, toNanos, login);
+                            if (record != null) {
+                                result.add(record);
+                                if (result.size() == limit) {
+                                    return result;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".idx"))
+                    .map(AuditFormat::segmentOf)
+                    .filter(segment -> segment >= 0)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * @return Наносекунды от начала эпохи; моменты за пределами диапазона long (после 2262 года) насыщаются.
+     */
+    private static long toNanos(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+        } catch (ArithmeticException e) {
+            return instant.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Прочитанная часть индекса сегмента и наименьшее и наибольшее время его записей.
+     */
+    private final class SegmentIndex {
+        private final long segment;
+        private volatile List<Block> blocks = List.of();
+        private long bytesRead;
+        private long firstNanos = Long.MAX_VALUE;
+        private long lastNanos = Long.MIN_VALUE;
+
+        private SegmentIndex(long segment) {
+            this.segment = segment;
+        }
+
+        /**
+         * Дочитывает записи индекса, дописанные с прошлого раза. Неполная последняя запись не читается.
+         */
+        private synchronized List<Block> refresh() throws IOException {
+            Path file = AuditFormat.indexFile(directory, segment);
+            long size;
+            try {
+                size = Files.size(file);
+            } catch (NoSuchFileException e) {
+                return blocks;
+            }
+            long complete = size - size % AuditFormat.INDEX_ENTRY_BYTES;
+            if (complete <= bytesRead) {
+                return blocks;
+            }
+            ByteBuffer entries = ByteBuffer.allocate((int) (complete - bytesRead));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (entries.hasRemaining()) {
+                    if (channel.read(entries, bytesRead + entries.position()) < 0) {
+                        throw new IOException("Индекс журнала аудита " + segment + " обрезан");
+                    }
+                }
+            }
+            entries.flip();
+            List<Block> updated = new ArrayList<>(blocks);
+            while (entries.hasRemaining()) {
+                long[] bloom = new long[AuditFormat.BLOOM_LONGS];
+                Block block = new Block(entries.getLong(), entries.getLong(), entries.getLong(), entries.getInt(), bloom);
+                entries.getInt(); // количество записей блока при чтении не нужно
+                for (int i = 0; i < bloom.length; i++) {
+                    bloom[i] = entries.getLong();
+                }
+                firstNanos = Math.min(firstNanos, block.firstNanos);
+                lastNanos = Math.max(lastNanos, block.lastNanos);
+                updated.add(block);
+            }
+            bytesRead = complete;
+            blocks = List.copyOf(updated);
+            return blocks;
+        }
+
+        private synchronized boolean overlaps(long fromNanos, long toNanos) {
+            return lastNanos >= fromNanos && firstNanos < toNanos;
+        }
+    }
+
+    /**
+     * Запись индекса об одном блоке сегмента.
+     */
+    private static final class Block {
+        private final long firstNanos;
+        private final long lastNanos;
+        private final long offset;
+        private final int length;
+        private final long[] bloom;
+
+        private Block(long firstNanos, long lastNanos, long offset, int length, long[] bloom) {
+            this.firstNanos = firstNanos;
+            this.lastNanos = lastNanos;
+            this.offset = offset;
+            this.length = length;
+            this.bloom = bloom;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package logger.impl;
+
+import enums.AuditAction;
+import logger.Logger;
+import models.AuditRecord;
+import models.Readings;
+import models.User;
+import services.ReadingsListener;
+import services.UserListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Реализация интерфейса Logger, которая ведет структурированный журнал аудита в двоичном формате AuditFormat.
+ * Кроме текстовых сообщений info записывает подачи показаний, регистрации и смены паролей
+ * как записи с видом действия, логином и периодом: для этого регистрируется слушателем сервисов.
+ * <p>
+ * Записи накапливаются в блоке в памяти и дописываются в текущий сегмент, когда блок заполнен,
+ * а также фоновым потоком раз в FLUSH_MILLIS, поэтому вызывающий поток обычно не выполняет ввод-вывод.
+ * Когда сегмент превышает segmentBytes, начинается следующий. Запросы по интервалу времени и пользователю
+ * читают только блоки, которые по индексу могут содержать подходящие записи.
+ * <p>
+ * Если блок не удалось дописать, он остается в памяти и дописывается при следующей попытке целиком,
+ * уже в новый сегмент: в прежнем могла остаться часть блока или записи индекса. Записи, которые не поместились
+ * в блок, пока запись не удается, отбрасываются и учитываются в getDroppedCount.
+ */
+public class AuditLoggerImpl implements Logger, ReadingsListener, UserListener, AutoCloseable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    static final int BLOCK_RECORDS = 128;
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final long FLUSH_MILLIS = 1000;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final AuditLogReader reader;
+    private final ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES);
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(AuditFormat.INDEX_ENTRY_BYTES);
+    private final long[] bloom = new long[AuditFormat.BLOOM_LONGS];
+    private int blockRecords;
+    private long blockFirstNanos;
+    private long blockLastNanos;
+    private long segment;
+    private FileChannel segmentChannel;
+    private FileChannel indexChannel;
+    private long segmentSize;
+    private boolean segmentBroken;
+    private long dropped;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    /**
+     * Создает журнал аудита с сегментами по DEFAULT_SEGMENT_BYTES байт.
+     *
+     * @param directory Каталог журнала.
+     */
+    public AuditLoggerImpl(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Открывает журнал аудита в каталоге и начинает новый сегмент после уже существующих.
+     *
+     * @param directory    Каталог журнала, создается при необходимости.
+     * @param segmentBytes Размер сегмента, после которого начинается следующий.
+     * @throws UncheckedIOException Если каталог или сегмент не может быть создан.
+     */
+    public AuditLoggerImpl(Path directory, long segmentBytes) {
+        if (segmentBytes < BLOCK_BYTES) {
+            throw new IllegalArgumentException("Размер сегмента должен быть не меньше " + BLOCK_BYTES + " байт");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                segment = files.mapToLong(AuditFormat::segmentOf).max().orElse(0);
+            }
+            openSegment(segment + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.reader = new AuditLogReader(directory);
+        this.flusher = new Thread(this::flushLoop, "audit-log-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Записывает сообщение как запись MESSAGE без пользователя.
+     */
+    public void info(String message) {
+        append(AuditAction.MESSAGE, "", null, message);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Записи, накопленные в блоке и еще не дописанные в сегмент.
+     */
+    public synchronized long getQueueDepth() {
+        return blockRecords;
+    }
+
+    /**
+     * Возвращает количество записей, отброшенных из-за ошибок записи в сегмент.
+     *
+     * @return Количество отброшенных записей.
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onReadingsAdded(User user, YearMonth period, Readings readings) {
+        audit(AuditAction.READINGS_SUBMITTED, user.getLogin(), period);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onUserRegistered(User user) {
+        audit(AuditAction.USER_REGISTERED, user.getLogin(), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onPasswordChanged(User user) {
+        audit(AuditAction.PASSWORD_CHANGED, user.getLogin(), null);
+    }
+
+    /**
+     * Записывает структурированную запись аудита с текущим временем.
+     *
+     * @param action Вид действия.
+     * @param login  Логин пользователя.
+     * @param period Период показаний или null.
+     */
+    public void audit(AuditAction action, String login, YearMonth period) {
+        append(action, login, period, "");
+    }
+
+    /**
+     * Возвращает записи всех пользователей за интервал времени, дописывая перед этим накопленный блок.
+     *
+     * @param from  Начало интервала включительно.
+     * @param to    Конец интервала не включительно.
+     * @param limit Максимальное количество записей.
+     * @return Записи в порядке записи в журнал.
+     */
+    public List<AuditRecord> query(Instant from, Instant to, int limit) {
+        flush();
+        return reader.query(from, to, limit);
+    }
+
+    /**
+     * Возвращает записи пользователя за интервал времени, дописывая перед этим накопленный блок.
+     *
+     * @param login Логин пользователя.
+     * @param from  Начало интервала включительно.
+     * @param to    Конец интервала не включительно.
+     * @param limit Максимальное количество записей.
+     * @return Записи в порядке записи в журнал.
+     */
+    public List<AuditRecord> queryUser(String login, Instant from, Instant to, int limit) {
+        flush();
+        return reader.queryUser(login, from, to, limit);
+    }
+
+    /**
+     * @return Читатель журнала, видящий записи, уже дописанные в сегменты.
+     */
+    public AuditLogReader getReader() {
+        return reader;
+    }
+
+    /**
+     * Дописывает накопленный блок в сегмент.
+     */
+    public synchronized void flush() {
+        try {
+            writeBlock();
+        } catch (IOException e) {
+            System.err.println("Audit Log Error " + e.getMessage());
+        }
+    }
+
+    /**
+     * Дописывает накопленный блок, останавливает фоновый поток и закрывает файлы. Повторный вызов ничего не делает.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flush();
+            closeSegment();
+        }
+        flusher.interrupt();
+    }
+
+    private void append(AuditAction action, String login, YearMonth period, String message) {
+        Instant now = Instant.now();
+        long epochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        byte[] loginBytes = login.isEmpty() ? NO_BYTES : login.getBytes(StandardCharsets.UTF_8);
+        byte[] messageBytes = message.isEmpty() ? NO_BYTES : AuditFormat.messageBytes(message);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (block.remaining() < AuditFormat.recordBytes(loginBytes, messageBytes)) {
+                    writeBlock();
+                }
+            } catch (IOException e) {
+                dropped++;
+                System.err.println("Audit Log Error " + e.getMessage());
+                return;
+            }
+            try {
+                AuditFormat.writeRecord(block, epochNanos, action, loginBytes, period, messageBytes);
+                if (blockRecords == 0) {
+                    blockFirstNanos = epochNanos;
+                    blockLastNanos = epochNanos;
+                } else {
+                    blockFirstNanos = Math.min(blockFirstNanos, epochNanos);
+                    blockLastNanos = Math.max(blockLastNanos, epochNanos);
+                }
+                AuditFormat.addToBloom(bloom, loginBytes);
+                if (++blockRecords >= BLOCK_RECORDS) {
+                    writeBlock();
+                }
+            } catch (IOException e) {
+                System.err.println("Audit Log Error " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Дописывает блок в сегмент, а затем запись о нем в индекс. Начинает новый сегмент,
+     * если блок не помещается в текущий или предыдущая запись в текущий не удалась
+     * (пустой сегмент после неудачной записи вместо этого очищается).
+     * Блок очищается только после успешной записи, поэтому при ошибке он остается прежним.
+     */
+    private void writeBlock() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+        if (segmentBroken && segmentSize == 0) {
+            // В сегменте нет целых блоков, поэтому его можно очистить, а не создавать новый на каждую попытку
+            segmentChannel.truncate(0);
+            indexChannel.truncate(0);
+            segmentBroken = false;
+        } else if (segmentBroken || segmentSize > 0 && segmentSize + block.position() > segmentBytes) {
+            closeSegment();
+            openSegment(segment + 1);
+        }
+        int length = block.position();
+        ByteBuffer data = block.duplicate().flip();
+        indexEntry.clear();
+        indexEntry.putLong(blockFirstNanos).putLong(blockLastNanos).putLong(segmentSize)
+                .putInt(length).putInt(blockRecords);
+        for (long word : bloom) {
+            indexEntry.putLong(word);
+        }
+        indexEntry.flip();
+        try {
+            while (data.hasRemaining()) {
+                segmentChannel.write(data);
+            }
+            while (indexEntry.hasRemaining()) {
+                indexChannel.write(indexEntry);
+            }
+        } catch (IOException e) {
+            segmentBroken = true;
+            throw e;
+        }
+        segmentSize += length;
+        block.clear();
+        Arrays.fill(bloom, 0);
+        blockRecords = 0;
+    }
+
+    /**
+     * Открывает файлы сегмента. Номер сегмента запоминается до открытия, поэтому после неудачной попытки
+     * следующая открывает сегмент со следующим номером.
+     */
+    private void openSegment(long number) throws IOException {
+        segment = number;
+        segmentBroken = true;
+        segmentChannel = FileChannel.open(AuditFormat.segmentFile(directory, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            indexChannel = FileChannel.open(AuditFormat.indexFile(directory, number),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            segmentChannel.close();
+            throw e;
+        }
+        segmentSize = 0;
+        segmentBroken = false;
+    }
+
+    private void closeSegment() {
+        try {
+            segmentChannel.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            System.err.println("Audit Log Error " + e.getMessage());
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(FLUSH_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+}
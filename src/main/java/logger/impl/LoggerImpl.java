@@ -2,73 +2,276 @@ package logger.impl;
 
 import logger.Logger;
 
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.LocalTime;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Реализация интерфейса Logger.
- * Использует шаблон проектирования Singleton для обеспечения единственного экземпляра Logger в приложении.
- * Логирует сообщения в файл "logs.log".
+ * Синхронная реализация интерфейса Logger: сообщение записывается в файл в вызывающем потоке.
+ * В приложении используется как файл назначения AsyncLoggerImpl.getInstance(), который форматирует
+ * сообщения в своем потоке записи и передает их сюда пачками.
+ * <p>
+ * Когда файл превышает maxBytes или с его открытия прошло rotationPeriod, он переименовывается в архив
+ * "logs-дата-время.log" и запись продолжается в новый "logs.log". Вызывающий поток выполняет только
+ * переименование, а сжатие архива в gzip и удаление старых архивов выполняет фоновый поток:
+ * хранятся не больше maxArchives последних архивов и не старше maxArchiveAge.
+ * Архивы, не сжатые до остановки приложения, сжимаются при следующем запуске, а недописанные
+ * при сжатии файлы удаляются.
  */
-public class LoggerImpl implements Logger {
+public class LoggerImpl implements Logger, AutoCloseable {
+    public static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024;
+    public static final Duration DEFAULT_ROTATION_PERIOD = Duration.ofDays(1);
+    public static final int DEFAULT_MAX_ARCHIVES = 30;
+    public static final Duration DEFAULT_MAX_ARCHIVE_AGE = Duration.ofDays(30);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH.mm.ss.nnn");
+    private static final DateTimeFormatter ARCHIVE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String ARCHIVE_SUFFIX = ".gz";
+    private static final String PARTIAL_SUFFIX = ".tmp";
 
-    private static Logger instance = null;
-    private FileWriter writer;
+    private final Path file;
+    private final String archivePrefix;
+    private final long maxBytes;
+    private final long rotationPeriodNanos;
+    private final int maxArchives;
+    private final Duration maxArchiveAge;
+    private final ExecutorService archiver;
+    private OutputStream out;
+    private long size;
+    private long openedAt;
+    private LocalDateTime lastArchiveTime;
 
     /**
-     * Создает экземпляр LoggerImpl и открывает файл "logs.log" для записи.
-     * Если файл не может быть открыт, выводит трассировку стека исключения.
+     * Создает экземпляр LoggerImpl и открывает файл "logs.log" текущего каталога для записи
+     * с параметрами ротации по умолчанию.
      */
-    private LoggerImpl() {
-        try {
-            writer = new FileWriter("logs.log", true);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public LoggerImpl() {
+        this(Path.of("logs.log"), DEFAULT_MAX_BYTES, DEFAULT_ROTATION_PERIOD, DEFAULT_MAX_ARCHIVES,
+                DEFAULT_MAX_ARCHIVE_AGE);
     }
 
     /**
-     * Возвращает единственный экземпляр LoggerImpl.
-     * Если экземпляр еще не был создан, создает его.
+     * Создает логгер, дописывающий в файл. Если файл не может быть открыт, выводит трассировку стека исключения.
      *
-     * @return Единственный экземпляр LoggerImpl.
+     * @param file           Файл лога; архивы создаются рядом с ним.
+     * @param maxBytes       Размер файла, после которого он архивируется.
+     * @param rotationPeriod Время, после которого файл архивируется независимо от размера.
+     * @param maxArchives    Количество хранимых архивов.
+     * @param maxArchiveAge  Время хранения архива.
      */
-    public static Logger getInstance() {
-        if (instance == null) {
-            instance = new LoggerImpl();
+    public LoggerImpl(Path file, long maxBytes, Duration rotationPeriod, int maxArchives, Duration maxArchiveAge) {
+        if (maxBytes <= 0 || rotationPeriod.isNegative() || rotationPeriod.isZero() || maxArchives < 0) {
+            throw new IllegalArgumentException("Некорректные параметры ротации лога");
+        }
+        this.file = file.toAbsolutePath();
+        String name = this.file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.archivePrefix = (dot > 0 ? name.substring(0, dot) : name) + "-";
+        this.maxBytes = maxBytes;
+        this.rotationPeriodNanos = rotationPeriod.toNanos();
+        this.maxArchives = maxArchives;
+        this.maxArchiveAge = maxArchiveAge;
+        this.archiver = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "log-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            open();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        archiver.execute(this::deletePartial);
+        for (Path archive : archives(false)) {
+            archiver.execute(() -> compress(archive));
         }
-        return instance;
+        archiver.execute(this::applyRetention);
     }
 
     /**
-     * Записывает сообщение в файл "logs.log" с текущей датой и временем.
-     * Если сообщение не может быть записано, выводит сообщение об ошибке.
+     * Записывает сообщение в файл "logs.log" с текущей датой и временем, предварительно архивируя файл,
+     * если он превысил размер или срок. Если сообщение не может быть записано, выводит сообщение об ошибке.
      *
      * @param msg Сообщение, которое нужно записать.
      */
     private void log(String msg) {
+        LocalDateTime now = LocalDateTime.now();
+        byte[] line = ("[" + now.toLocalDate().format(DATE_FORMAT) + ":" + now.toLocalTime().format(TIME_FORMAT)
+                + "] " + msg + "\n").getBytes(StandardCharsets.UTF_8);
         try {
-            writer.append("[")
-                    .append(LocalDate.now().format(DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM)))
-                    .append(":")
-                    .append(LocalTime.now().format(DateTimeFormatter.ofPattern("HH.mm.ss.nnn")))
-                    .append("] ")
-                    .append(msg)
-                    .append("\n");
-            writer.flush();
+            write(line, line.length);
         } catch (IOException e) {
             System.err.println("Log Error " + msg);
         }
     }
 
+    /**
+     * Дописывает в файл готовые строки лога, предварительно архивируя файл, если он превысил размер или срок.
+     *
+     * @param lines  Строки лога в UTF-8.
+     * @param length Количество байт, которые нужно записать.
+     * @throws IOException Если файл не открыт или запись не удалась.
+     */
+    synchronized void write(byte[] lines, int length) throws IOException {
+        if (out == null) {
+            throw new IOException("Файл лога не открыт");
+        }
+        if (size > 0 && (size + length > maxBytes || System.nanoTime() - openedAt >= rotationPeriodNanos)) {
+            rotate(LocalDateTime.now());
+        }
+        out.write(lines, 0, length);
+        size += length;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void info(String message) {
         log("INFO : " + message);
     }
+
+    /**
+     * Закрывает файл лога и ожидает завершения сжатия архивов.
+     */
+    public void close() {
+        synchronized (this) {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    System.err.println("Log Error " + e.getMessage());
+                }
+                out = null;
+            }
+        }
+        archiver.shutdown();
+        try {
+            archiver.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void open() throws IOException {
+        out = new FileOutputStream(file.toFile(), true);
+        size = Files.size(file);
+        openedAt = System.nanoTime();
+    }
+
+    /**
+     * Переименовывает текущий файл в архив, открывает новый и передает архив на сжатие.
+     */
+    private void rotate(LocalDateTime now) throws IOException {
+        out.close();
+        out = null;
+        // Время в имени архива строго возрастает, чтобы имена архивов сортировались в порядке ротации
+        LocalDateTime time = lastArchiveTime != null && !now.isAfter(lastArchiveTime)
+                ? lastArchiveTime.plusNanos(1_000_000) : now;
+        Path archive = file.resolveSibling(archivePrefix + time.format(ARCHIVE_FORMAT) + ".log");
+        while (Files.exists(archive) || Files.exists(gzipOf(archive))) {
+            time = time.plusNanos(1_000_000);
+            archive = file.resolveSibling(archivePrefix + time.format(ARCHIVE_FORMAT) + ".log");
+        }
+        try {
+            Files.move(file, archive, StandardCopyOption.ATOMIC_MOVE);
+            lastArchiveTime = time;
+        } finally {
+            open();
+        }
+        Path rotated = archive;
+        archiver.execute(() -> {
+            compress(rotated);
+            applyRetention();
+        });
+    }
+
+    private void compress(Path archive) {
+        Path gzip = gzipOf(archive);
+        Path partial = gzip.resolveSibling(gzip.getFileName() + PARTIAL_SUFFIX);
+        try {
+            try (InputStream in = Files.newInputStream(archive);
+                 OutputStream compressed = new GZIPOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+                in.transferTo(compressed);
+            }
+            Files.move(partial, gzip, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(archive);
+        } catch (IOException e) {
+            System.err.println("Log Error " + e.getMessage());
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException deleteError) {
+                System.err.println("Log Error " + deleteError.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Удаляет файлы, недописанные при сжатии до остановки приложения; их архивы сжимаются заново.
+     */
+    private void deletePartial() {
+        String pattern = archivePrefix + "*.log" + ARCHIVE_SUFFIX + PARTIAL_SUFFIX;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(file.getParent(), pattern)) {
+            for (Path partial : files) {
+                Files.deleteIfExists(partial);
+            }
+        } catch (IOException e) {
+            System.err.println("Log Error " + e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет сжатые архивы сверх maxArchives последних и старше maxArchiveAge.
+     */
+    private void applyRetention() {
+        List<Path> archives = archives(true);
+        Instant expiry = Instant.now().minus(maxArchiveAge);
+        for (int i = 0; i < archives.size(); i++) {
+            Path archive = archives.get(i);
+            try {
+                if (i < archives.size() - maxArchives
+                        || Files.getLastModifiedTime(archive).toInstant().isBefore(expiry)) {
+                    Files.deleteIfExists(archive);
+                }
+            } catch (IOException e) {
+                System.err.println("Log Error " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Архивы этого лога, сжатые или несжатые, от старых к новым.
+     */
+    private List<Path> archives(boolean compressed) {
+        List<Path> archives = new ArrayList<>();
+        String suffix = compressed ? ".log" + ARCHIVE_SUFFIX : ".log";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(file.getParent(), archivePrefix + "*" + suffix)) {
+            files.forEach(archives::add);
+        } catch (IOException e) {
+            System.err.println("Log Error " + e.getMessage());
+        }
+        Collections.sort(archives);
+        return archives;
+    }
+
+    private static Path gzipOf(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + ARCHIVE_SUFFIX);
+    }
 }
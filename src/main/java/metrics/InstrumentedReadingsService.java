@@ -0,0 +1,238 @@
+package metrics;
+
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import services.ReadingsService;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор ReadingsService, учитывающий длительность и исход каждого вызова в MetricsRegistry.
+ * Устроен так же, как InstrumentedUserService. Для writeAllReadings учитывается и время записи истории в ответ.
+ */
+public class InstrumentedReadingsService implements ReadingsService {
+    private static final String SERVICE = "readings";
+
+    private final ReadingsService delegate;
+    private final MethodMetrics addReadings;
+    private final MethodMetrics addReadingsBatch;
+    private final MethodMetrics getAllReadings;
+    private final MethodMetrics writeAllReadings;
+    private final MethodMetrics getReadings;
+    private final MethodMetrics streamReadings;
+    private final MethodMetrics getLastReadings;
+    private final MethodMetrics getReadingsByMonth;
+    private final MethodMetrics getLatestReadings;
+    private final MethodMetrics getReadingsBetween;
+    private final MethodMetrics getConsumption;
+    private final MethodMetrics rebuildConsumption;
+
+    /**
+     * @param delegate Сервис, вызовы которого учитываются.
+     * @param metrics  Реестр, в котором регистрируются метрики.
+     */
+    public InstrumentedReadingsService(ReadingsService delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        addReadings = new MethodMetrics(metrics, SERVICE, "addReadings");
+        addReadingsBatch = new MethodMetrics(metrics, SERVICE, "addReadingsBatch");
+        getAllReadings = new MethodMetrics(metrics, SERVICE, "getAllReadings");
+        writeAllReadings = new MethodMetrics(metrics, SERVICE, "writeAllReadings");
+        getReadings = new MethodMetrics(metrics, SERVICE, "getReadings");
+        streamReadings = new MethodMetrics(metrics, SERVICE, "streamReadings");
+        getLastReadings = new MethodMetrics(metrics, SERVICE, "getLastReadings");
+        getReadingsByMonth = new MethodMetrics(metrics, SERVICE, "getReadingsByMonth");
+        getLatestReadings = new MethodMetrics(metrics, SERVICE, "getLatestReadings");
+        getReadingsBetween = new MethodMetrics(metrics, SERVICE, "getReadingsBetween");
+        getConsumption = new MethodMetrics(metrics, SERVICE, "getConsumption");
+        rebuildConsumption = new MethodMetrics(metrics, SERVICE, "rebuildConsumption");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean addReadings(User user, YearMonth period, Readings readings) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addReadings(user, period, readings);
+        } catch (RuntimeException e) {
+            addReadings.fail(e);
+            throw e;
+        } finally {
+            addReadings.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String[] addReadingsBatch(List<ReadingsEntry> entries) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addReadingsBatch(entries);
+        } catch (RuntimeException e) {
+            addReadingsBatch.fail(e);
+            throw e;
+        } finally {
+            addReadingsBatch.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getAllReadings(User user) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllReadings(user);
+        } catch (RuntimeException e) {
+            getAllReadings.fail(e);
+            throw e;
+        } finally {
+            getAllReadings.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void writeAllReadings(User user, Writer out) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.writeAllReadings(user, out);
+        } catch (IOException | RuntimeException e) {
+            writeAllReadings.fail(e);
+            throw e;
+        } finally {
+            writeAllReadings.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getReadings(user, from, limit);
+        } catch (RuntimeException e) {
+            getReadings.fail(e);
+            throw e;
+        } finally {
+            getReadings.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<Map.Entry<YearMonth, Readings>> streamReadings(User user) {
+        long start = System.nanoTime();
+        try {
+            return delegate.streamReadings(user);
+        } catch (RuntimeException e) {
+            streamReadings.fail(e);
+            throw e;
+        } finally {
+            streamReadings.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLastReadings(user);
+        } catch (RuntimeException e) {
+            getLastReadings.fail(e);
+            throw e;
+        } finally {
+            getLastReadings.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getReadingsByMonth(user, period);
+        } catch (RuntimeException e) {
+            getReadingsByMonth.fail(e);
+            throw e;
+        } finally {
+            getReadingsByMonth.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLatestReadings(user, count);
+        } catch (RuntimeException e) {
+            getLatestReadings.fail(e);
+            throw e;
+        } finally {
+            getLatestReadings.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getReadingsBetween(user, from, to);
+        } catch (RuntimeException e) {
+            getReadingsBetween.fail(e);
+            throw e;
+        } finally {
+            getReadingsBetween.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getConsumption(User user, YearMonth period) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getConsumption(user, period);
+        } catch (RuntimeException e) {
+            getConsumption.fail(e);
+            throw e;
+        } finally {
+            getConsumption.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rebuildConsumption(Collection<User> users) {
+        long start = System.nanoTime();
+        try {
+            delegate.rebuildConsumption(users);
+        } catch (RuntimeException e) {
+            rebuildConsumption.fail(e);
+            throw e;
+        } finally {
+            rebuildConsumption.record(start);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package metrics;
+
+import models.User;
+import services.UserService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор UserService, учитывающий длительность и исход каждого вызова в MetricsRegistry.
+ * Метрики методов создаются один раз в конструкторе, поэтому учет вызова - это два вызова System.nanoTime()
+ * и увеличение счетчиков без создания объектов. Для методов, возвращающих поток, учитывается только создание потока.
+ */
+public class InstrumentedUserService implements UserService {
+    private static final String SERVICE = "user";
+
+    private final UserService delegate;
+    private final MethodMetrics changePassword;
+    private final MethodMetrics registerUser;
+    private final MethodMetrics getUserForAdmin;
+    private final MethodMetrics getUser;
+    private final MethodMetrics getAllLogins;
+    private final MethodMetrics getLogins;
+    private final MethodMetrics streamLogins;
+    private final MethodMetrics searchLogins;
+
+    /**
+     * @param delegate Сервис, вызовы которого учитываются.
+     * @param metrics  Реестр, в котором регистрируются метрики.
+     */
+    public InstrumentedUserService(UserService delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        changePassword = new MethodMetrics(metrics, SERVICE, "changePassword");
+        registerUser = new MethodMetrics(metrics, SERVICE, "registerUser");
+        getUserForAdmin = new MethodMetrics(metrics, SERVICE, "getUserForAdmin");
+        getUser = new MethodMetrics(metrics, SERVICE, "getUser");
+        getAllLogins = new MethodMetrics(metrics, SERVICE, "getAllLogins");
+        getLogins = new MethodMetrics(metrics, SERVICE, "getLogins");
+        streamLogins = new MethodMetrics(metrics, SERVICE, "streamLogins");
+        searchLogins = new MethodMetrics(metrics, SERVICE, "searchLogins");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void changePassword(User user, String oldPassword, String newPassword) {
+        long start = System.nanoTime();
+        try {
+            delegate.changePassword(user, oldPassword, newPassword);
+        } catch (RuntimeException e) {
+            changePassword.fail(e);
+            throw e;
+        } finally {
+            changePassword.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void registerUser(String login, String password) {
+        long start = System.nanoTime();
+        try {
+            delegate.registerUser(login, password);
+        } catch (RuntimeException e) {
+            registerUser.fail(e);
+            throw e;
+        } finally {
+            registerUser.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<User> getUserForAdmin(String login, User admin) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUserForAdmin(login, admin);
+        } catch (RuntimeException e) {
+            getUserForAdmin.fail(e);
+            throw e;
+        } finally {
+            getUserForAdmin.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<User> getUser(String login, String password) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUser(login, password);
+        } catch (RuntimeException e) {
+            getUser.fail(e);
+            throw e;
+        } finally {
+            getUser.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getAllLogins() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllLogins();
+        } catch (RuntimeException e) {
+            getAllLogins.fail(e);
+            throw e;
+        } finally {
+            getAllLogins.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getLogins(String afterLogin, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLogins(afterLogin, limit);
+        } catch (RuntimeException e) {
+            getLogins.fail(e);
+            throw e;
+        } finally {
+            getLogins.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<String> streamLogins() {
+        long start = System.nanoTime();
+        try {
+            return delegate.streamLogins();
+        } catch (RuntimeException e) {
+            streamLogins.fail(e);
+            throw e;
+        } finally {
+            streamLogins.record(start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> searchLogins(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchLogins(query, limit);
+        } catch (RuntimeException e) {
+            searchLogins.fail(e);
+            throw e;
+        } finally {
+            searchLogins.record(start);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей в наносекундах с логарифмически-линейными корзинами, как в HdrHistogram.
+ * Каждая степень двойки делится на 32 равные корзины, поэтому относительная погрешность квантилей не превышает 1/32,
+ * а вся гистограмма - массив из чуть более тысячи счетчиков фиксированного размера.
+ * Запись значения не создает объектов и не берет блокировок: индекс корзины вычисляется
+ * по числу ведущих нулей значения, после чего увеличивается один счетчик массива.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 42;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Учитывает одно значение. Отрицательные значения считаются нулем, значения больше 2^43 нс (около двух часов)
+     * попадают в последнюю корзину.
+     *
+     * @param nanos Длительность в наносекундах.
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(bucket(value));
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return Количество учтенных значений, вычисляется суммированием корзин.
+     */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return Сумма учтенных значений в наносекундах.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return Наибольшее учтенное значение в наносекундах.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Оценивает квантиль по корзинам.
+     *
+     * @param quantile Квантиль от 0 до 1.
+     * @return Верхняя граница корзины, в которую попадает квантиль, в наносекундах, или 0, если значений нет.
+     */
+    public long getQuantile(double quantile) {
+        return getQuantiles(quantile)[0];
+    }
+
+    /**
+     * Оценивает несколько квантилей по одному снимку корзин. Значения, записываемые во время вычисления,
+     * могут учитываться частично.
+     *
+     * @param quantiles Квантили от 0 до 1 в порядке возрастания.
+     * @return Верхние границы корзин, в которые попадают квантили, в наносекундах, или нули, если значений нет.
+     */
+    public long[] getQuantiles(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] result = new long[quantiles.length];
+        if (total == 0) {
+            return result;
+        }
+        long max = getMax();
+        int bucket = 0;
+        long seen = snapshot[0];
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            while (seen < rank && bucket < BUCKETS - 1) {
+                seen += snapshot[++bucket];
+            }
+            result[q] = Math.min(upperBound(bucket), max);
+        }
+        return result;
+    }
+
+    /**
+     * Значения меньше 32 попадают каждое в свою корзину, значения из [2^e, 2^(e+1)) - в одну из 32 корзин
+     * шириной 2^(e-5).
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return Наибольшее значение, попадающее в корзину.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (1L << exponent) + (bucket % SUB_BUCKETS) * width;
+        return lower + width - 1;
+    }
+}
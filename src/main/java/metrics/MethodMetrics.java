@@ -0,0 +1,40 @@
+package metrics;
+
+import exceptions.ValidationException;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики одного метода сервиса: гистограмма длительности вызовов, счетчик вызовов, не прошедших проверку данных,
+ * и счетчик вызовов, завершившихся другим исключением.
+ */
+final class MethodMetrics {
+    private final LatencyHistogram latency;
+    private final LongAdder validationFailures;
+    private final LongAdder errors;
+
+    MethodMetrics(MetricsRegistry registry, String service, String method) {
+        String labels = "service=\"" + service + "\",method=\"" + method + "\"";
+        latency = registry.histogram("service_call_duration_seconds", labels,
+                "Длительность вызовов методов сервисов");
+        validationFailures = registry.counter("service_validation_failures_total", labels,
+                "Вызовы методов сервисов, отклоненные проверкой данных");
+        errors = registry.counter("service_errors_total", labels,
+                "Вызовы методов сервисов, завершившиеся исключением, кроме ошибок проверки данных");
+    }
+
+    /**
+     * @param start Значение System.nanoTime() в начале вызова.
+     */
+    void record(long start) {
+        latency.record(System.nanoTime() - start);
+    }
+
+    void fail(Exception e) {
+        if (e instanceof ValidationException) {
+            validationFailures.increment();
+        } else {
+            errors.increment();
+        }
+    }
+}
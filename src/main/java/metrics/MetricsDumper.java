@@ -0,0 +1,84 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически записывает метрики в файл в текстовом формате Prometheus, например для сборщика node_exporter
+ * или для просмотра в консольном режиме, где HTTP API не запущен. Файл заменяется атомарно,
+ * поэтому читатель всегда видит полную выгрузку.
+ */
+public class MetricsDumper implements AutoCloseable {
+    private final MetricsRegistry metrics;
+    private final Path file;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param metrics Реестр метрик.
+     * @param file    Файл, в который записываются метрики.
+     */
+    public MetricsDumper(MetricsRegistry metrics, Path file) {
+        this.metrics = metrics;
+        this.file = file;
+    }
+
+    /**
+     * Записывает метрики в файл.
+     *
+     * @throws IOException Если запись не удалась.
+     */
+    public void dump() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            metrics.writePrometheus(out);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Запускает фоновую запись метрик с заданным периодом. Повторный вызов ничего не делает.
+     *
+     * @param period Период записи.
+     */
+    public synchronized void start(Duration period) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dumper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                dump();
+            } catch (IOException e) {
+                System.err.println("Metrics Error " + e.getMessage());
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает фоновую запись и записывает метрики в последний раз.
+     */
+    public synchronized void close() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        try {
+            dump();
+        } catch (IOException e) {
+            System.err.println("Metrics Error " + e.getMessage());
+        }
+    }
+}
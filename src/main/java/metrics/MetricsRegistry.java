@@ -0,0 +1,171 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Реестр метрик приложения: счетчики на LongAdder, гистограммы длительностей и значения,
+ * вычисляемые при выгрузке (например, глубина очереди логгера или статистика кеша).
+ * <p>
+ * Метрика задается именем и строкой меток в формате Prometheus, например {@code method="addReadings"},
+ * или пустой строкой, если меток нет. Регистрация выполняется при создании компонентов, а на горячем пути
+ * используются только полученные при регистрации LongAdder и LatencyHistogram, поэтому учет значения
+ * не обращается к реестру и не создает объектов.
+ * Выгрузка выполняется в текстовом формате Prometheus: гистограммы выводятся как summary
+ * с квантилями 0.5, 0.9, 0.99 и 0.999 в секундах.
+ */
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Map<String, Family> families = new TreeMap<>();
+
+    /**
+     * Возвращает счетчик, создавая его при первом обращении.
+     *
+     * @param name   Имя метрики.
+     * @param labels Метки в формате Prometheus или пустая строка.
+     * @param help   Описание метрики.
+     * @return Счетчик.
+     */
+    public LongAdder counter(String name, String labels, String help) {
+        return (LongAdder) series(name, "counter", help, labels, LongAdder::new);
+    }
+
+    /**
+     * Регистрирует счетчик, значение которого ведется вне реестра.
+     *
+     * @param name   Имя метрики.
+     * @param labels Метки в формате Prometheus или пустая строка.
+     * @param help   Описание метрики.
+     * @param value  Источник текущего значения.
+     */
+    public void counter(String name, String labels, String help, LongSupplier value) {
+        series(name, "counter", help, labels, () -> value);
+    }
+
+    /**
+     * Регистрирует значение, которое может как расти, так и уменьшаться.
+     *
+     * @param name   Имя метрики.
+     * @param labels Метки в формате Prometheus или пустая строка.
+     * @param help   Описание метрики.
+     * @param value  Источник текущего значения.
+     */
+    public void gauge(String name, String labels, String help, LongSupplier value) {
+        series(name, "gauge", help, labels, () -> value);
+    }
+
+    /**
+     * Возвращает гистограмму длительностей, создавая ее при первом обращении.
+     *
+     * @param name   Имя метрики, по соглашению Prometheus оканчивающееся на _seconds.
+     * @param labels Метки в формате Prometheus или пустая строка.
+     * @param help   Описание метрики.
+     * @return Гистограмма.
+     */
+    public LatencyHistogram histogram(String name, String labels, String help) {
+        return (LatencyHistogram) series(name, "summary", help, labels, LatencyHistogram::new);
+    }
+
+    /**
+     * Записывает все метрики в текстовом формате Prometheus.
+     *
+     * @param out Получатель текста.
+     * @throws IOException Если запись не удалась.
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        Map<String, Family> copy;
+        synchronized (families) {
+            copy = new TreeMap<>();
+            families.forEach((name, family) -> copy.put(name, family.copy()));
+        }
+        StringBuilder sb = new StringBuilder(256);
+        for (Family family : copy.values()) {
+            sb.setLength(0);
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            family.series.forEach((labels, value) -> appendSeries(sb, family.name, labels, value));
+            out.append(sb);
+        }
+    }
+
+    /**
+     * @return Все метрики в текстовом формате Prometheus.
+     */
+    public String toPrometheus() {
+        StringWriter out = new StringWriter();
+        try {
+            writePrometheus(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private Object series(String name, String type, String help, String labels, Supplier<Object> factory) {
+        synchronized (families) {
+            Family family = families.computeIfAbsent(name, key -> new Family(name, type, help));
+            if (!family.type.equals(type)) {
+                throw new IllegalArgumentException("Метрика " + name + " уже зарегистрирована с типом " + family.type);
+            }
+            return family.series.computeIfAbsent(labels, key -> factory.get());
+        }
+    }
+
+    private static void appendSeries(StringBuilder sb, String name, String labels, Object value) {
+        if (value instanceof LatencyHistogram histogram) {
+            long[] quantiles = histogram.getQuantiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                String quantile = "quantile=\"" + QUANTILES[i] + "\"";
+                appendName(sb, name, labels.isEmpty() ? quantile : labels + "," + quantile);
+                sb.append(quantiles[i] / NANOS_PER_SECOND).append('\n');
+            }
+            appendName(sb, name + "_sum", labels);
+            sb.append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+            appendName(sb, name + "_count", labels);
+            sb.append(histogram.getCount()).append('\n');
+        } else if (value instanceof LongAdder adder) {
+            appendName(sb, name, labels);
+            sb.append(adder.sum()).append('\n');
+        } else {
+            appendName(sb, name, labels);
+            sb.append(((LongSupplier) value).getAsLong()).append('\n');
+        }
+    }
+
+    private static void appendName(StringBuilder sb, String name, String labels) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ');
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String type;
+        private final String help;
+        private final Map<String, Object> series = new LinkedHashMap<>();
+
+        private Family(String name, String type, String help) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+        }
+
+        private Family copy() {
+            Family copy = new Family(name, type, help);
+            copy.series.putAll(series);
+            return copy;
+        }
+    }
+}
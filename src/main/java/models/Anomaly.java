@@ -0,0 +1,73 @@
+package models;
+
+import enums.AnomalyType;
+
+import java.time.YearMonth;
+
+/**
+ * Класс Anomaly представляет подозрительную подачу показаний: потребление одного типа за период,
+ * сильно отличающееся от обычного для пользователя.
+ */
+public class Anomaly {
+    private final String login;
+    private final YearMonth period;
+    private final String meterType;
+    private final AnomalyType type;
+    private final double consumption;
+    private final double expected;
+    private final double score;
+
+    /**
+     * @param login       Логин пользователя.
+     * @param period      Период подачи.
+     * @param meterType   Тип показаний.
+     * @param type        Вид отклонения.
+     * @param consumption Потребление за месяц по этой подаче.
+     * @param expected    Среднее месячное потребление пользователя до этой подачи.
+     * @param score       Отклонение от среднего в стандартных отклонениях.
+     */
+    public Anomaly(String login, YearMonth period, String meterType, AnomalyType type,
+                   double consumption, double expected, double score) {
+        this.login = login;
+        this.period = period;
+        this.meterType = meterType;
+        this.type = type;
+        this.consumption = consumption;
+        this.expected = expected;
+        this.score = score;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public YearMonth getPeriod() {
+        return period;
+    }
+
+    public String getMeterType() {
+        return meterType;
+    }
+
+    public AnomalyType getType() {
+        return type;
+    }
+
+    public double getConsumption() {
+        return consumption;
+    }
+
+    public double getExpected() {
+        return expected;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return login + " " + period + " " + meterType + ": " + type + ", потребление " + consumption
+                + " при среднем " + String.format("%.2f", expected) + " (отклонение " + String.format("%.1f", score) + ")";
+    }
+}
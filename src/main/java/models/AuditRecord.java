@@ -0,0 +1,62 @@
+package models;
+
+import enums.AuditAction;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+/**
+ * Класс AuditRecord представляет одну запись журнала аудита: кто, когда и что сделал.
+ */
+public class AuditRecord {
+    private final long epochNanos;
+    private final AuditAction action;
+    private final String login;
+    private final YearMonth period;
+    private final String message;
+
+    /**
+     * @param epochNanos Время записи в наносекундах от начала эпохи.
+     * @param action     Вид записи.
+     * @param login      Логин пользователя или пустая строка для сообщений без пользователя.
+     * @param period     Период показаний или null.
+     * @param message    Текст сообщения; пустая строка для структурированных записей.
+     */
+    public AuditRecord(long epochNanos, AuditAction action, String login, YearMonth period, String message) {
+        this.epochNanos = epochNanos;
+        this.action = action;
+        this.login = login;
+        this.period = period;
+        this.message = message;
+    }
+
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochSecond(0, epochNanos);
+    }
+
+    public AuditAction getAction() {
+        return action;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public YearMonth getPeriod() {
+        return period;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return getTimestamp() + " " + action + (login.isEmpty() ? "" : " " + login)
+                + (period == null ? "" : " " + period) + (message.isEmpty() ? "" : " " + message);
+    }
+}
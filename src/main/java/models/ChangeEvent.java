@@ -0,0 +1,66 @@
+package models;
+
+import enums.ChangeEventType;
+
+import java.time.YearMonth;
+
+/**
+ * Класс ChangeEvent представляет одно изменение в ленте изменений: подачу показаний,
+ * регистрацию пользователя или смену пароля. События неизменяемы и нумеруются смещением
+ * в порядке публикации, начиная с нуля. Пароли в события не попадают.
+ */
+public class ChangeEvent {
+    private final long offset;
+    private final ChangeEventType type;
+    private final String login;
+    private final YearMonth period;
+    private final Readings readings;
+    private final long timestamp;
+
+    /**
+     * @param offset    Смещение события в ленте.
+     * @param type      Вид изменения.
+     * @param login     Логин пользователя.
+     * @param period    Период поданных показаний или null для событий пользователей.
+     * @param readings  Поданные показания или null для событий пользователей.
+     * @param timestamp Время публикации в миллисекундах.
+     */
+    public ChangeEvent(long offset, ChangeEventType type, String login, YearMonth period,
+                       Readings readings, long timestamp) {
+        this.offset = offset;
+        this.type = type;
+        this.login = login;
+        this.period = period;
+        this.readings = readings;
+        this.timestamp = timestamp;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public ChangeEventType getType() {
+        return type;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public YearMonth getPeriod() {
+        return period;
+    }
+
+    public Readings getReadings() {
+        return readings;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + offset + " " + type + " " + login + (period == null ? "" : " " + period);
+    }
+}
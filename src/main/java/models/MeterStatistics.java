@@ -0,0 +1,63 @@
+package models;
+
+/**
+ * Класс MeterStatistics представляет сводную статистику по одному типу показаний за период:
+ * количество значений, сумму, минимум, максимум и процентили.
+ */
+public class MeterStatistics {
+    private final long count;
+    private final double total;
+    private final double min;
+    private final double max;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+
+    public MeterStatistics(long count, double total, double min, double max, double p50, double p90, double p99) {
+        this.count = count;
+        this.total = total;
+        this.min = min;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    @Override
+    public String toString() {
+        return "Количество: " + count + ", сумма: " + total + ", среднее: " + getAverage()
+                + ", мин: " + min + ", макс: " + max + ", p50: " + p50 + ", p90: " + p90 + ", p99: " + p99;
+    }
+}
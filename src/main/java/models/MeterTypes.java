@@ -0,0 +1,80 @@
+package models;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Назначение типам показаний компактных числовых идентификаторов.
+ * Каждому названию типа при первом обращении назначается следующий по порядку идентификатор, начиная с нуля,
+ * и в дальнейшем он не меняется. Идентификаторы плотные, поэтому по ним индексируются массивы значений в Readings.
+ * Идентификаторы действуют в пределах процесса и не сохраняются на диск.
+ * Назначение идентификатора не означает, что тип разрешен для подачи: это определяет MeterTypeRegistry.
+ * Идентификаторы назначаются только при регистрации типа и при чтении ранее принятых данных;
+ * названия, пришедшие от клиента, разрешаются через find, чтобы неизвестные типы не попадали в реестр.
+ */
+public final class MeterTypes {
+    private static final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[8];
+    private static volatile int count;
+
+    private MeterTypes() {
+    }
+
+    /**
+     * Возвращает идентификатор типа, назначая его при первом обращении.
+     * Не вызывается для непроверенных названий: для них используется find.
+     *
+     * @param name Название типа показаний.
+     * @return Идентификатор, назначенный типу.
+     */
+    public static int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : assign(name);
+    }
+
+    /**
+     * @param name Название типа показаний.
+     * @return Идентификатор типа или -1, если идентификатор ему еще не назначен.
+     */
+    public static int find(Object name) {
+        Integer id = name == null ? null : ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id Идентификатор типа показаний.
+     * @return Название типа.
+     * @throws IndexOutOfBoundsException Если идентификатор не назначен.
+     */
+    public static String nameOf(int id) {
+        if (id >= count) {
+            throw new IndexOutOfBoundsException(id);
+        }
+        return names[id];
+    }
+
+    /**
+     * @return Количество назначенных идентификаторов; все идентификаторы меньше этого значения.
+     */
+    public static int count() {
+        return count;
+    }
+
+    private static synchronized int assign(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int next = count;
+        String[] current = names;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, next * 2);
+        }
+        current[next] = name;
+        names = current;
+        count = next + 1;
+        ids.put(name, next);
+        return next;
+    }
+}
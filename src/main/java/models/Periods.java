@@ -0,0 +1,88 @@
+package models;
+
+import java.time.DateTimeException;
+import java.time.YearMonth;
+
+/**
+ * Преобразование периода (год и месяц) в компактный номер месяца от начала эпохи и обратно.
+ * Номер сохраняет порядок периодов, поэтому подходит для хранения в примитивных массивах и двоичного поиска.
+ * Допустимы периоды с MIN_YEAR по MAX_YEAR год: периоды, пришедшие извне, проверяются методами of, parse и check.
+ */
+public final class Periods {
+    private static final int MONTHS_IN_YEAR = 12;
+
+    /**
+     * Самый ранний допустимый год.
+     */
+    public static final int MIN_YEAR = 1;
+
+    /**
+     * Самый поздний допустимый год.
+     */
+    public static final int MAX_YEAR = 9999;
+
+    /**
+     * Самый ранний допустимый период; служит началом постраничного обхода истории.
+     */
+    public static final YearMonth MIN = YearMonth.of(MIN_YEAR, 1);
+
+    /**
+     * Самый поздний допустимый период.
+     */
+    public static final YearMonth MAX = YearMonth.of(MAX_YEAR, MONTHS_IN_YEAR);
+
+    private Periods() {
+    }
+
+    /**
+     * @param year  Год.
+     * @param month Номер месяца от 1 до 12.
+     * @return Период.
+     * @throws DateTimeException Если год вне допустимого диапазона или номер месяца некорректен.
+     */
+    public static YearMonth of(int year, int month) {
+        return check(YearMonth.of(year, month));
+    }
+
+    /**
+     * @param text Период в формате ГГГГ-ММ.
+     * @return Период.
+     * @throws DateTimeException Если текст не является периодом или год вне допустимого диапазона.
+     */
+    public static YearMonth parse(CharSequence text) {
+        return check(YearMonth.parse(text));
+    }
+
+    /**
+     * @param period Период.
+     * @return Тот же период.
+     * @throws DateTimeException Если год периода вне допустимого диапазона.
+     */
+    public static YearMonth check(YearMonth period) {
+        if (period.getYear() < MIN_YEAR || period.getYear() > MAX_YEAR) {
+            throw new DateTimeException("Год должен быть от " + MIN_YEAR + " до " + MAX_YEAR + ": " + period.getYear());
+        }
+        return period;
+    }
+
+    /**
+     * @param period Период.
+     * @return Номер месяца, в котором лежит период: год * 12 + (месяц - 1).
+     * @throws IllegalArgumentException Если год периода вне допустимого диапазона.
+     */
+    public static int toKey(YearMonth period) {
+        int year = period.getYear();
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            throw new IllegalArgumentException("Год вне допустимого диапазона: " + year);
+        }
+        return year * MONTHS_IN_YEAR + period.getMonthValue() - 1;
+    }
+
+    /**
+     * @param key Номер месяца, полученный методом toKey.
+     * @return Период, соответствующий номеру.
+     */
+    public static YearMonth fromKey(int key) {
+        return YearMonth.of(Math.floorDiv(key, MONTHS_IN_YEAR), Math.floorMod(key, MONTHS_IN_YEAR) + 1);
+    }
+}
@@ -1,29 +1,193 @@
 package models;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Класс Readings представляет собой контейнер для хранения показаний различных типов.
- * Каждое показание представлено в виде пары ключ-значение, где ключ - это тип показания, а значение - это числовое значение показания.
+ * Значения хранятся в массиве double[], индексированном идентификатором типа показаний из MeterTypes,
+ * а наличие показания отмечается битом в long[]. Для обхода без создания объектов служит nextMeter.
+ * Метод get возвращает неизменяемое представление показаний в виде пар тип-значение.
  */
 public class Readings {
-    private final Map<String, Double> readings = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 16;
+    private static final double[] NO_VALUES = new double[0];
+    private static final long[] NO_BITS = new long[0];
 
+    private double[] values = NO_VALUES;
+    private long[] present = NO_BITS;
+    private int size;
+    private Map<String, Double> view;
+
+    /**
+     * Добавляет или заменяет показание, назначая типу идентификатор при необходимости.
+     * Используется для уже принятых данных; показания от клиента разбираются через MeterTypes.find.
+     *
+     * @param type Название типа показаний.
+     * @param value Значение показания.
+     */
     public void add(String type, double value) {
-        readings.put(type, value);
+        add(MeterTypes.idOf(type), value);
     }
 
+    /**
+     * Добавляет или заменяет показание.
+     *
+     * @param meter Идентификатор типа показаний.
+     * @param value Значение показания.
+     */
+    public void add(int meter, double value) {
+        if (meter >= values.length) {
+            int capacity = Math.min(MeterTypes.count(), Math.max(values.length * 2, INITIAL_CAPACITY));
+            values = Arrays.copyOf(values, Math.max(meter + 1, capacity));
+        }
+        int word = meter >>> 6;
+        if (word >= present.length) {
+            present = Arrays.copyOf(present, word + 1);
+        }
+        if ((present[word] & (1L << meter)) == 0) {
+            present[word] |= 1L << meter;
+            size++;
+        }
+        values[meter] = value;
+    }
+
+    /**
+     * @param meter Идентификатор типа показаний.
+     * @return true, если показание этого типа есть.
+     */
+    public boolean has(int meter) {
+        int word = meter >>> 6;
+        return meter >= 0 && word < present.length && (present[word] & (1L << meter)) != 0;
+    }
+
+    /**
+     * @param meter Идентификатор типа показаний.
+     * @return Значение показания или NaN, если показания этого типа нет.
+     */
+    public double getValue(int meter) {
+        return has(meter) ? values[meter] : Double.NaN;
+    }
+
+    /**
+     * Возвращает идентификатор следующего имеющегося показания. Обход всех показаний:
+     * {@code for (int m = readings.nextMeter(0); m >= 0; m = readings.nextMeter(m + 1))}.
+     *
+     * @param from Идентификатор, с которого начинается поиск.
+     * @return Наименьший идентификатор не меньше from, для которого есть показание, или -1.
+     */
+    public int nextMeter(int from) {
+        int word = from >>> 6;
+        if (word >= present.length) {
+            return -1;
+        }
+        long bits = present[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == present.length) {
+                return -1;
+            }
+            bits = present[word];
+        }
+    }
+
+    /**
+     * @return Количество показаний.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return Неизменяемое представление показаний: тип показаний - значение, в порядке идентификаторов типов.
+     */
     public Map<String, Double> get() {
-        return readings;
+        if (view == null) {
+            view = new View();
+        }
+        return view;
+    }
+
+    /**
+     * Дописывает показания в том же виде, что и toString, без создания промежуточной строки.
+     *
+     * @param sb Буфер, в который дописываются показания.
+     * @return Тот же буфер.
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("Показания: ");
+        for (int meter = nextMeter(0); meter >= 0; meter = nextMeter(meter + 1)) {
+            sb.append(MeterTypes.nameOf(meter)).append("=").append(values[meter]).append(", ");
+        }
+        return sb;
     }
 
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder("Показания: ");
-        for (Map.Entry<String, Double> entry : readings.entrySet()) {
-            sb.append(entry.getKey()).append("=").append(entry.getValue()).append(", ");
+        return appendTo(new StringBuilder(16 + size * 24)).toString();
+    }
+
+    /**
+     * Представление показаний в виде Map без копирования значений.
+     */
+    private final class View extends AbstractMap<String, Double> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return has(MeterTypes.find(key));
+        }
+
+        @Override
+        public Double get(Object key) {
+            int meter = MeterTypes.find(key);
+            return has(meter) ? values[meter] : null;
+        }
+
+        @Override
+        public Set<Entry<String, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Entry<String, Double>> iterator() {
+                    return new Iterator<>() {
+                        private int next = nextMeter(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next >= 0;
+                        }
+
+                        @Override
+                        public Entry<String, Double> next() {
+                            if (next < 0) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Double> entry = new SimpleImmutableEntry<>(MeterTypes.nameOf(next), values[next]);
+                            next = nextMeter(next + 1);
+                            return entry;
+                        }
+                    };
+                }
+            };
         }
-        return sb.toString();
     }
-}
\ No newline at end of file
+}
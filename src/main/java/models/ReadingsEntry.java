@@ -0,0 +1,30 @@
+package models;
+
+import java.time.YearMonth;
+
+/**
+ * Класс ReadingsEntry представляет одну подачу показаний в пакете: пользователя, период и показания.
+ */
+public class ReadingsEntry {
+    private final User user;
+    private final YearMonth period;
+    private final Readings readings;
+
+    public ReadingsEntry(User user, YearMonth period, Readings readings) {
+        this.user = user;
+        this.period = period;
+        this.readings = readings;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public YearMonth getPeriod() {
+        return period;
+    }
+
+    public Readings getReadings() {
+        return readings;
+    }
+}
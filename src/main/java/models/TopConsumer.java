@@ -0,0 +1,27 @@
+package models;
+
+/**
+ * Класс TopConsumer представляет пользователя в рейтинге потребления: логин и значение показания.
+ */
+public class TopConsumer {
+    private final String login;
+    private final double value;
+
+    public TopConsumer(String login, double value) {
+        this.login = login;
+        this.value = value;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return login + ": " + value;
+    }
+}
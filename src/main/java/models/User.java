@@ -2,11 +2,11 @@ package models;
 
 import enums.Role;
 
-import java.util.Objects;
-
 /**
  * Класс User представляет пользователя в системе.
  * У пользователя есть логин, пароль и роль.
+ * Пользователь идентифицируется неизменяемым логином: пароль может меняться, поэтому не участвует
+ * в equals и hashCode.
  */
 public class User {
     private final String login;
@@ -40,11 +40,11 @@ public class User {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         User user = (User) o;
-        return Objects.equals(login, user.login) && Objects.equals(password, user.password) && role == user.role;
+        return login.equals(user.login);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(login, password, role);
+        return login.hashCode();
     }
 }
@@ -0,0 +1,79 @@
+package persistence;
+
+import repositories.MeterTypeRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Реализация интерфейса MeterTypeRegistry, которая сохраняет зарегистрированные типы показаний в отдельный файл
+ * (по названию типа в строке) перед подтверждением. Типы регистрируются редко и не попадают в снимки,
+ * поэтому файл не зависит от журнала и не удаляется при его очистке.
+ * Хранение и проверка типов делегируются обернутому реестру.
+ */
+class FileMeterTypeRegistry implements MeterTypeRegistry {
+    static final String FILE_NAME = "meter-types.txt";
+
+    private final MeterTypeRegistry delegate;
+    private final Path file;
+
+    private FileMeterTypeRegistry(MeterTypeRegistry delegate, Path file) {
+        this.delegate = delegate;
+        this.file = file;
+    }
+
+    /**
+     * Регистрирует в реестре типы, сохраненные в каталоге, и возвращает обертку, сохраняющую новые типы.
+     *
+     * @param directory Каталог хранилища.
+     * @param delegate  Реестр, в котором хранятся типы.
+     * @return Сохраняющая обертка реестра.
+     * @throws IOException Если файл типов не может быть прочитан.
+     */
+    static FileMeterTypeRegistry load(Path directory, MeterTypeRegistry delegate) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            for (String name : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!name.isEmpty()) {
+                    delegate.register(name);
+                }
+            }
+        }
+        return new FileMeterTypeRegistry(delegate, file);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Возвращает управление после записи нового типа на диск.
+     */
+    public synchronized int register(String name) {
+        if (!delegate.getMeterTypes().contains(name)) {
+            try {
+                Files.writeString(file, name + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return delegate.register(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isRegistered(int meter) {
+        return delegate.isRegistered(meter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getMeterTypes() {
+        return delegate.getMeterTypes();
+    }
+}
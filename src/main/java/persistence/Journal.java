@@ -0,0 +1,496 @@
+package persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал предзаписи (write-ahead log) с групповой фиксацией.
+ * Журнал состоит из сегментов "journal-&lt;номер первой записи&gt;.log", в которые записи только дописываются.
+ * Каждая запись получает возрастающий номер (LSN) и хранится в кадре "длина, CRC32, LSN, событие".
+ * Записи копятся в общем буфере, а фоновый поток пишет накопленную пачку и вызывает fsync один раз на пачку,
+ * передает зафиксированные кадры подписчикам CommitListener, например для отправки на реплики,
+ * и после этого будит всех ожидающих.
+ */
+public class Journal implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_FRAME = 1 << 24;
+
+    private final Path directory;
+    private final long commitDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingAvailable = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32();
+    private final List<CommitListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream();
+    private long nextLsn;
+    private long pendingLastLsn = -1;
+    private long durableLsn = -1;
+    private long syncCount;
+    private boolean closed;
+    private IOException failure;
+    private FileChannel channel;
+    private final Thread committer;
+
+    /**
+     * Открывает журнал в указанном каталоге и начинает новый сегмент.
+     *
+     * @param directory       Каталог журнала.
+     * @param nextLsn         Номер, который получит следующая запись.
+     * @param commitDelayNanos Время, в течение которого поток фиксации ждет новые записи, чтобы увеличить пачку.
+     * @throws IOException Если сегмент не может быть создан.
+     */
+    public Journal(Path directory, long nextLsn, long commitDelayNanos) throws IOException {
+        this.directory = directory;
+        this.nextLsn = nextLsn;
+        this.durableLsn = nextLsn - 1;
+        this.commitDelayNanos = commitDelayNanos;
+        Files.createDirectories(directory);
+        this.channel = openSegment(nextLsn);
+        this.committer = new Thread(this::commitLoop, "journal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Ставит запись в очередь на фиксацию, не дожидаясь fsync.
+     *
+     * @param record Событие для записи.
+     * @return Номер (LSN), присвоенный записи.
+     */
+    public long enqueue(JournalRecord record) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Журнал закрыт");
+            }
+            long lsn = nextLsn++;
+            try (DataOutputStream out = new DataOutputStream(body)) {
+                out.writeLong(lsn);
+                record.writeTo(out);
+            }
+            byte[] bytes = body.toByteArray();
+            crc.reset();
+            crc.update(bytes);
+            writeInt(pending, bytes.length);
+            writeInt(pending, (int) crc.getValue());
+            pending.write(bytes);
+            pendingLastLsn = lsn;
+            pendingAvailable.signal();
+            return lsn;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ожидает, пока запись с указанным номером и все предыдущие записи не будут сброшены на диск.
+     *
+     * @param lsn Номер записи.
+     * @throws UncheckedIOException Если запись в журнал завершилась ошибкой.
+     */
+    public void awaitDurable(long lsn) {
+        lock.lock();
+        try {
+            while (durableLsn < lsn && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Записывает событие и ожидает его фиксации на диске.
+     *
+     * @param record Событие для записи.
+     * @return Номер (LSN), присвоенный записи.
+     */
+    public long append(JournalRecord record) {
+        long lsn = enqueue(record);
+        awaitDurable(lsn);
+        return lsn;
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает новый.
+     * Все записи с номером меньше возвращенного к моменту возврата уже получили номер.
+     *
+     * @return Номер первой записи нового сегмента.
+     * @throws IOException Если новый сегмент не может быть создан.
+     */
+    public long roll() throws IOException {
+        ioLock.lock();
+        try {
+            long boundary;
+            lock.lock();
+            try {
+                boundary = nextLsn;
+            } finally {
+                lock.unlock();
+            }
+            FileChannel previous = channel;
+            channel = openSegment(boundary);
+            previous.force(false);
+            previous.close();
+            return boundary;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет сегменты, все записи которых имеют номер меньше указанного.
+     *
+     * @param lsn Номер, начиная с которого записи должны сохраниться.
+     * @throws IOException Если сегмент не может быть удален.
+     */
+    public void deleteSegmentsBefore(long lsn) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (segmentStart(segments.get(i + 1)) <= lsn) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    /**
+     * Подписывает получателя на зафиксированные пачки записей.
+     * Получатель вызывается потоком фиксации после fsync, поэтому должен работать быстро и не блокироваться.
+     *
+     * @param listener Получатель зафиксированных пачек.
+     */
+    public void addCommitListener(CommitListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return Номер последней записи, сброшенной на диск, или номер, предшествующий первой записи журнала.
+     */
+    public long getDurableLsn() {
+        lock.lock();
+        try {
+            return durableLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество выполненных вызовов fsync.
+     *
+     * @return Количество fsync.
+     */
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Дожидается фиксации всех поставленных записей и закрывает журнал.
+     */
+    public void close() {
+        lock.lock();
+        long last;
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            last = nextLsn - 1;
+            pendingAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(last);
+        try {
+            committer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Читает записи всех сегментов каталога по порядку.
+     * Чтение сегмента прекращается на первой неполной или поврежденной записи (оборванный хвост после сбоя).
+     *
+     * @param directory Каталог журнала.
+     * @param fromLsn   Записи с меньшим номером пропускаются.
+     * @param consumer  Получатель прочитанных записей.
+     * @return Статистика чтения: количество примененных записей и прочитанных байт.
+     * @throws IOException Если сегмент не может быть прочитан.
+     */
+    public static ReplayResult replay(Path directory, long fromLsn, Consumer<JournalRecord> consumer) throws IOException {
+        long records = 0;
+        long bytes = 0;
+        long[] lastLsn = {fromLsn - 1};
+        for (Path segment : segments(directory)) {
+            bytes += Files.size(segment);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+                records += readFrames(in, fromLsn, (lsn, record) -> {
+                    consumer.accept(record);
+                    lastLsn[0] = Math.max(lastLsn[0], lsn);
+                });
+            }
+        }
+        return new ReplayResult(records, bytes, lastLsn[0]);
+    }
+
+    /**
+     * Читает кадры записей из потока до его конца или до первого неполного или поврежденного кадра.
+     * Кадр с неположительной длиной или длиной больше MAX_FRAME считается поврежденным.
+     *
+     * @param in       Поток кадров в формате сегмента журнала.
+     * @param fromLsn  Записи с меньшим номером пропускаются.
+     * @param consumer Получатель номеров и прочитанных записей.
+     * @return Количество переданных получателю записей.
+     * @throws IOException Если поток не может быть прочитан.
+     */
+    static long readFrames(DataInputStream in, long fromLsn, FrameConsumer consumer) throws IOException {
+        return readFrames(in, fromLsn, consumer, new long[1]);
+    }
+
+    /**
+     * @param validBytes В первый элемент записывается длина прочитанных целых кадров в байтах.
+     */
+    private static long readFrames(DataInputStream in, long fromLsn, FrameConsumer consumer,
+                                   long[] validBytes) throws IOException {
+        long records = 0;
+        CRC32 checksum = new CRC32();
+        try {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_FRAME) {
+                    break;
+                }
+                int expectedCrc = in.readInt();
+                byte[] body = new byte[length];
+                in.readFully(body);
+                checksum.reset();
+                checksum.update(body);
+                if ((int) checksum.getValue() != expectedCrc) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                long lsn = record.readLong();
+                if (lsn >= fromLsn) {
+                    consumer.accept(lsn, JournalRecord.readFrom(record));
+                    records++;
+                }
+                validBytes[0] += 2L * Integer.BYTES + length;
+            }
+        } catch (EOFException e) {
+            // оборванная запись в конце сегмента
+        }
+        return records;
+    }
+
+    /**
+     * Получатель зафиксированных пачек записей.
+     */
+    @FunctionalInterface
+    public interface CommitListener {
+        /**
+         * @param firstLsn Номер первой записи пачки.
+         * @param lastLsn  Номер последней записи пачки.
+         * @param frames   Кадры записей пачки в формате сегмента журнала.
+         */
+        void committed(long firstLsn, long lastLsn, byte[] frames);
+    }
+
+    /**
+     * Получатель записей, прочитанных из кадров.
+     */
+    @FunctionalInterface
+    interface FrameConsumer {
+        void accept(long lsn, JournalRecord record) throws IOException;
+    }
+
+    /**
+     * Результат чтения журнала.
+     */
+    public static final class ReplayResult {
+        private final long records;
+        private final long bytes;
+        private final long lastLsn;
+
+        ReplayResult(long records, long bytes, long lastLsn) {
+            this.records = records;
+            this.bytes = bytes;
+            this.lastLsn = lastLsn;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getLastLsn() {
+            return lastLsn;
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchFirstLsn;
+            long batchLastLsn;
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    pendingAvailable.awaitUninterruptibly();
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                if (commitDelayNanos > 0 && !closed) {
+                    pendingAvailable.awaitNanos(commitDelayNanos);
+                }
+                batch = pending;
+                batchFirstLsn = durableLsn + 1;
+                batchLastLsn = pendingLastLsn;
+                pending = spare;
+                spare = batch;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            byte[] frames = batch.toByteArray();
+            ioLock.lock();
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(frames);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                ioLock.unlock();
+            }
+            if (error == null) {
+                // Подписчики получают пачку до того, как будут разбужены ожидающие, поэтому к возврату
+                // из записи она уже передана, например, источнику репликации
+                for (CommitListener listener : listeners) {
+                    listener.committed(batchFirstLsn, batchLastLsn, frames);
+                }
+            }
+            lock.lock();
+            try {
+                batch.reset();
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableLsn = batchLastLsn;
+                    syncCount++;
+                }
+                durable.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Открывает сегмент для дописывания. Если сегмент с таким именем уже есть (его записи не прочитались
+     * при восстановлении, например, потому что оборван первый же кадр), он обрезается до последнего целого кадра:
+     * иначе новые записи оказались бы за оборванным кадром и не читались бы при следующем восстановлении.
+     */
+    private FileChannel openSegment(long firstLsn) throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        FileChannel opened = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            long valid = validLength(segment);
+            if (opened.size() > valid) {
+                opened.truncate(valid);
+                opened.force(true);
+            }
+            opened.position(valid);
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        return opened;
+    }
+
+    private static long validLength(Path segment) throws IOException {
+        long[] validBytes = new long[1];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            readFrames(in, Long.MIN_VALUE, (lsn, record) -> { }, validBytes);
+        }
+        return validBytes[0];
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,163 @@
+package persistence;
+
+import enums.Role;
+import models.Periods;
+import models.Readings;
+import models.User;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Запись журнала изменений: добавление пользователя, смена пароля, подача или удаление показаний.
+ * Умеет сериализовать себя в компактный двоичный вид и восстанавливаться из него.
+ */
+public final class JournalRecord {
+
+    /**
+     * Тип события, записанного в журнал.
+     */
+    public enum Type {
+        ADD_USER, CHANGE_PASSWORD, ADD_READINGS, REMOVE_READINGS
+    }
+
+    private final Type type;
+    private final String login;
+    private final String password;
+    private final Role role;
+    private final YearMonth period;
+    private final Readings readings;
+
+    private JournalRecord(Type type, String login, String password, Role role, YearMonth period, Readings readings) {
+        this.type = type;
+        this.login = login;
+        this.password = password;
+        this.role = role;
+        this.period = period;
+        this.readings = readings;
+    }
+
+    public static JournalRecord addUser(User user) {
+        return new JournalRecord(Type.ADD_USER, user.getLogin(), user.getPassword(), user.getRole(), null, null);
+    }
+
+    public static JournalRecord changePassword(User user) {
+        return new JournalRecord(Type.CHANGE_PASSWORD, user.getLogin(), user.getPassword(), null, null, null);
+    }
+
+    public static JournalRecord addReadings(User user, YearMonth period, Readings readings) {
+        return new JournalRecord(Type.ADD_READINGS, user.getLogin(), null, null, period, readings);
+    }
+
+    public static JournalRecord removeReadings(User user) {
+        return new JournalRecord(Type.REMOVE_READINGS, user.getLogin(), null, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public YearMonth getPeriod() {
+        return period;
+    }
+
+    public Readings getReadings() {
+        return readings;
+    }
+
+    /**
+     * Записывает событие в двоичном виде.
+     *
+     * @param out Поток, в который записывается событие.
+     * @throws IOException Если запись не удалась.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeUTF(login);
+        switch (type) {
+            case ADD_USER -> {
+                out.writeUTF(password);
+                out.writeByte(role.ordinal());
+            }
+            case CHANGE_PASSWORD -> out.writeUTF(password);
+            case ADD_READINGS -> {
+                out.writeInt(Periods.toKey(period));
+                writeReadings(out, readings);
+            }
+        }
+    }
+
+    /**
+     * Читает событие, записанное методом writeTo.
+     *
+     * @param in Поток, из которого читается событие.
+     * @return Прочитанное событие.
+     * @throws IOException Если чтение не удалось или данные повреждены.
+     */
+    public static JournalRecord readFrom(DataInput in) throws IOException {
+        Type type = Type.values()[in.readUnsignedByte()];
+        String login = in.readUTF();
+        return switch (type) {
+            case ADD_USER -> new JournalRecord(type, login, in.readUTF(), Role.values()[in.readUnsignedByte()], null, null);
+            case CHANGE_PASSWORD -> new JournalRecord(type, login, in.readUTF(), null, null, null);
+            case ADD_READINGS -> new JournalRecord(type, login, null, null, Periods.fromKey(in.readInt()), readReadings(in));
+            case REMOVE_READINGS -> new JournalRecord(type, login, null, null, null, null);
+        };
+    }
+
+    /**
+     * Применяет событие к репозиториям: при восстановлении из журнала и на репликах.
+     * Повторное применение события не меняет результат, поэтому события, уже вошедшие в снимок,
+     * можно проигрывать повторно.
+     *
+     * @param users    Репозиторий пользователей.
+     * @param readings Репозиторий показаний.
+     */
+    void applyTo(UserRepository users, ReadingsRepository readings) {
+        switch (type) {
+            case ADD_USER -> users.addUser(new User(login, password, role));
+            case CHANGE_PASSWORD -> users.getUser(login).ifPresent(user -> {
+                user.setPassword(password);
+                users.updateUser(user);
+            });
+            case ADD_READINGS -> users.getUser(login)
+                    .ifPresent(user -> readings.addReadings(user, period, this.readings));
+            case REMOVE_READINGS -> users.getUser(login).ifPresent(readings::removeAllReadings);
+        }
+    }
+
+    static void writeReadings(DataOutput out, Readings readings) throws IOException {
+        Map<String, Double> values = readings.get();
+        out.writeShort(values.size());
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+    }
+
+    static Readings readReadings(DataInput in) throws IOException {
+        Readings readings = new Readings();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            readings.add(in.readUTF(), in.readDouble());
+        }
+        return readings;
+    }
+}
@@ -0,0 +1,153 @@
+package persistence;
+
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import repositories.ReadingsRepository;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+
+/**
+ * Реализация интерфейса ReadingsRepository, которая записывает подачу и удаление показаний в журнал
+ * перед подтверждением.
+ * Хранение и чтение делегируются обернутому репозиторию.
+ */
+class JournaledReadingsRepository implements ReadingsRepository {
+    private final ReadingsRepository delegate;
+    private final Journal journal;
+    private final StripedLock locks;
+
+    JournaledReadingsRepository(ReadingsRepository delegate, Journal journal, StripedLock locks) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.locks = locks;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Возвращает управление после фиксации записи в журнале.
+     */
+    public void addReadings(User user, YearMonth period, Readings readings) {
+        long lsn;
+        synchronized (locks.forKey(user.getLogin())) {
+            delegate.addReadings(user, period, readings);
+            lsn = journal.enqueue(JournalRecord.addReadings(user, period, readings));
+        }
+        journal.awaitDurable(lsn);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Если показания добавлены, возвращает управление после фиксации записи в журнале.
+     */
+    public boolean addReadingsIfAbsent(User user, YearMonth period, Readings readings) {
+        long lsn;
+        synchronized (locks.forKey(user.getLogin())) {
+            if (!delegate.addReadingsIfAbsent(user, period, readings)) {
+                return false;
+            }
+            lsn = journal.enqueue(JournalRecord.addReadings(user, period, readings));
+        }
+        journal.awaitDurable(lsn);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Если показания удалены, возвращает управление после фиксации записи в журнале.
+     */
+    public boolean removeAllReadings(User user) {
+        long lsn;
+        synchronized (locks.forKey(user.getLogin())) {
+            if (!delegate.removeAllReadings(user)) {
+                return false;
+            }
+            lsn = journal.enqueue(JournalRecord.removeReadings(user));
+        }
+        journal.awaitDurable(lsn);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map<YearMonth, Readings>> getAllReadings(User user) {
+        return delegate.getAllReadings(user);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        return delegate.getReadingsByMonth(user, period);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        return delegate.getLastReadings(user);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        return delegate.getLatestReadings(user, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        return delegate.getReadingsBetween(user, from, to);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        return delegate.getReadings(user, from, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getPreviousReadings(User user, YearMonth period) {
+        return delegate.getPreviousReadings(user, period);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getNextReadings(User user, YearMonth period) {
+        return delegate.getNextReadings(user, period);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Все записи пакета ставятся в очередь журнала, после чего ожидается фиксация последней из них,
+     * поэтому пакет требует одной синхронизации с диском вместо синхронизации на каждую запись.
+     */
+    public boolean[] addReadingsBatch(List<ReadingsEntry> batch) {
+        boolean[] added = new boolean[batch.size()];
+        long lastLsn = -1;
+        for (int i = 0; i < added.length; i++) {
+            ReadingsEntry entry = batch.get(i);
+            synchronized (locks.forKey(entry.getUser().getLogin())) {
+                added[i] = delegate.addReadingsIfAbsent(entry.getUser(), entry.getPeriod(), entry.getReadings());
+                if (added[i]) {
+                    lastLsn = journal.enqueue(JournalRecord.addReadings(entry.getUser(), entry.getPeriod(), entry.getReadings()));
+                }
+            }
+        }
+        if (lastLsn >= 0) {
+            journal.awaitDurable(lastLsn);
+        }
+        return added;
+    }
+}
@@ -0,0 +1,92 @@
+package persistence;
+
+import models.User;
+import repositories.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Реализация интерфейса UserRepository, которая записывает изменения в журнал перед подтверждением.
+ * Хранение и чтение делегируются обернутому репозиторию.
+ */
+class JournaledUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final Journal journal;
+    private final StripedLock locks;
+
+    JournaledUserRepository(UserRepository delegate, Journal journal, StripedLock locks) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.locks = locks;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Возвращает управление после фиксации записи в журнале.
+     */
+    public void addUser(User user) {
+        long lsn;
+        synchronized (locks.forKey(user.getLogin())) {
+            delegate.addUser(user);
+            lsn = journal.enqueue(JournalRecord.addUser(user));
+        }
+        journal.awaitDurable(lsn);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Возвращает управление после фиксации записи в журнале.
+     */
+    public void updateUser(User user) {
+        long lsn;
+        synchronized (locks.forKey(user.getLogin())) {
+            delegate.updateUser(user);
+            lsn = journal.enqueue(JournalRecord.changePassword(user));
+        }
+        journal.awaitDurable(lsn);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<User> getUser(String login) {
+        return delegate.getUser(login);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getAllLogins() {
+        return delegate.getAllLogins();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getLogins(String afterLogin, int limit) {
+        return delegate.getLogins(afterLogin, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<String> logins() {
+        return delegate.logins();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> findLoginsByPrefix(String prefix, int limit) {
+        return delegate.findLoginsByPrefix(prefix, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> findSimilarLogins(String login, int maxDistance, int limit) {
+        return delegate.findSimilarLogins(login, maxDistance, limit);
+    }
+}
@@ -0,0 +1,639 @@
+package persistence;
+
+import models.Periods;
+import models.Readings;
+import models.User;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.AbstractMap;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Реализация интерфейса ReadingsRepository поверх снимка показаний фиксированного формата,
+ * отображенного в память только для чтения через FileChannel.map.
+ * При открытии читаются лишь заголовок и таблица типов показаний, поэтому запуск занимает миллисекунды
+ * независимо от объема данных. Запросы обслуживаются прямо из отображенной области,
+ * а новые показания попадают в дельту в куче, которая перекрывает снимок.
+ * <p>
+ * Формат файла: заголовок, таблица типов показаний, строки показаний, индекс пользователей, логины.
+ * Строка показаний имеет фиксированный размер: период (int, номер месяца от начала эпохи), выравнивание (int), маска наличия (long)
+ * и по одному double на каждый тип показаний. Строки одного пользователя лежат подряд и упорядочены по периоду.
+ * Запись индекса (24 байта): хеш логина, длина логина, смещение логина, номер первой строки, количество строк.
+ * Индекс упорядочен по хешу и байтам логина, что позволяет искать пользователя двоичным поиском.
+ */
+public class MappedReadingsRepository implements ReadingsRepository, AutoCloseable {
+    private static final int MAGIC = 0x4D524453;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 80;
+    private static final int INDEX_ENTRY_SIZE = 24;
+    private static final int ROW_HEADER_SIZE = 16;
+    private static final Comparator<byte[]> KEY_ORDER = Arrays::compareUnsigned;
+
+    private final FileChannel channel;
+    private final ReadingsRepository delta;
+    private final String[] meterNames;
+    private final int rowSize;
+    private final int rowsPerChunk;
+    private final long userCount;
+    private final MappedByteBuffer[] rowChunks;
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer logins;
+    private final ConcurrentMap<String, YearMonth> deltaLatest = new ConcurrentHashMap<>();
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    private MappedReadingsRepository(FileChannel channel, ReadingsRepository delta) throws IOException {
+        this.channel = channel;
+        this.delta = delta;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Неизвестный формат снимка показаний");
+        }
+        int meterCount = header.getInt();
+        rowSize = header.getInt();
+        userCount = header.getLong();
+        long rowCount = header.getLong();
+        long metersOffset = header.getLong();
+        long rowsOffset = header.getLong();
+        long indexOffset = header.getLong();
+        long loginsOffset = header.getLong();
+        long loginsLength = header.getLong();
+
+        ByteBuffer meters = channel.map(FileChannel.MapMode.READ_ONLY, metersOffset, rowsOffset - metersOffset);
+        meterNames = new String[meterCount];
+        for (int i = 0; i < meterCount; i++) {
+            byte[] name = new byte[meters.getShort() & 0xFFFF];
+            meters.get(name);
+            meterNames[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        rowsPerChunk = Integer.MAX_VALUE / rowSize;
+        int chunks = (int) ((rowCount + rowsPerChunk - 1) / rowsPerChunk);
+        rowChunks = new MappedByteBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            long first = (long) i * rowsPerChunk;
+            long rows = Math.min(rowsPerChunk, rowCount - first);
+            rowChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, rowsOffset + first * rowSize, rows * rowSize);
+        }
+        index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, checkedSize(userCount * INDEX_ENTRY_SIZE));
+        logins = channel.map(FileChannel.MapMode.READ_ONLY, loginsOffset, checkedSize(loginsLength));
+    }
+
+    /**
+     * Открывает снимок показаний и отображает его в память.
+     *
+     * @param file  Файл снимка, записанный методом write.
+     * @param delta Репозиторий для показаний, поданных после создания снимка.
+     * @return Репозиторий, обслуживающий запросы из снимка и дельты.
+     * @throws IOException Если файл не может быть открыт или имеет неверный формат.
+     */
+    public static MappedReadingsRepository open(Path file, ReadingsRepository delta) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedReadingsRepository(channel, delta);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Записывает показания всех пользователей в файл снимка.
+     * Во время записи в репозитории не должны появляться новые типы показаний.
+     *
+     * @param file     Файл снимка. Пишется во временный файл и атомарно переименовывается.
+     * @param users    Репозиторий пользователей, из которого берутся логины.
+     * @param readings Репозиторий показаний, который нужно сохранить.
+     * @throws IOException Если запись не удалась.
+     */
+    public static void write(Path file, UserRepository users, ReadingsRepository readings) throws IOException {
+        List<User> sorted = new ArrayList<>();
+        List<byte[]> keys = new ArrayList<>();
+        Map<String, Integer> meterIds = new HashMap<>();
+        List<String> meterNames = new ArrayList<>();
+        for (String login : users.getAllLogins()) {
+            Optional<User> user = users.getUser(login);
+            Optional<Map<YearMonth, Readings>> history = user.flatMap(readings::getAllReadings);
+            if (history.isEmpty()) {
+                continue;
+            }
+            sorted.add(user.get());
+            for (Readings value : history.get().values()) {
+                for (String type : value.get().keySet()) {
+                    if (meterIds.putIfAbsent(type, meterNames.size()) == null) {
+                        meterNames.add(type);
+                    }
+                }
+            }
+        }
+        if (meterNames.size() > Long.SIZE) {
+            throw new IllegalStateException("Превышено количество типов показаний: " + Long.SIZE);
+        }
+        Integer[] order = new Integer[sorted.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            keys.add(sortKey(sorted.get(i).getLogin()));
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> sorted.get(i).getLogin().hashCode())
+                .thenComparing(i -> keys.get(i), KEY_ORDER));
+
+        int meterCount = meterNames.size();
+        int rowSize = ROW_HEADER_SIZE + Double.BYTES * meterCount;
+        long metersLength = 0;
+        for (String name : meterNames) {
+            metersLength += Short.BYTES + name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        long rowsOffset = HEADER_SIZE + metersLength;
+        long[] firstRows = new long[order.length];
+        int[] rowCounts = new int[order.length];
+        long rowCount = 0;
+        long loginsLength = 0;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.write(new byte[HEADER_SIZE]);
+            for (String name : meterNames) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            for (int i = 0; i < order.length; i++) {
+                User user = sorted.get(order[i]);
+                Map<YearMonth, Readings> history = new TreeMap<>(readings.getAllReadings(user).orElse(Map.of()));
+                firstRows[i] = rowCount;
+                rowCounts[i] = history.size();
+                for (Map.Entry<YearMonth, Readings> entry : history.entrySet()) {
+                    writeRow(out, Periods.toKey(entry.getKey()), entry.getValue(), meterIds, meterCount);
+                }
+                rowCount += history.size();
+                loginsLength += keys.get(order[i]).length;
+            }
+            long indexOffset = rowsOffset + rowCount * rowSize;
+            long loginOffset = 0;
+            for (int i = 0; i < order.length; i++) {
+                String login = sorted.get(order[i]).getLogin();
+                int length = keys.get(order[i]).length;
+                out.writeInt(login.hashCode());
+                out.writeInt(length);
+                out.writeInt((int) loginOffset);
+                out.writeInt((int) (firstRows[i] >>> 32));
+                out.writeInt((int) firstRows[i]);
+                out.writeInt(rowCounts[i]);
+                loginOffset += length;
+            }
+            for (Integer i : order) {
+                out.write(keys.get(i));
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(meterCount).putInt(rowSize)
+                    .putLong(order.length).putLong(rowCount)
+                    .putLong(HEADER_SIZE).putLong(rowsOffset).putLong(indexOffset)
+                    .putLong(indexOffset + (long) order.length * INDEX_ENTRY_SIZE).putLong(loginsLength);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Показания записываются в дельту и перекрывают показания снимка за тот же период.
+     */
+    public void addReadings(User user, YearMonth period, Readings readings) {
+        delta.addReadings(user, period, readings);
+        updateLatest(user, period);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Учитывает как показания снимка, так и показания дельты.
+     */
+    public boolean addReadingsIfAbsent(User user, YearMonth period, Readings readings) {
+        long entry = findUser(user.getLogin());
+        if (entry >= 0 && findRow(entry, Periods.toKey(period)) >= 0) {
+            return false;
+        }
+        if (!delta.addReadingsIfAbsent(user, period, readings)) {
+            return false;
+        }
+        updateLatest(user, period);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Если после создания снимка пользователь не подавал показаний, возвращает ленивое представление
+     * над отображенной областью, иначе - объединение снимка и дельты, упорядоченное по периодам.
+     */
+    public Optional<Map<YearMonth, Readings>> getAllReadings(User user) {
+        long entry = findUser(user.getLogin());
+        Optional<Map<YearMonth, Readings>> recent = delta.getAllReadings(user);
+        if (entry < 0) {
+            return recent;
+        }
+        MappedUserView mapped = new MappedUserView(entry);
+        if (recent.isEmpty()) {
+            return Optional.of(mapped);
+        }
+        Map<YearMonth, Readings> merged = new TreeMap<>(mapped);
+        merged.putAll(recent.get());
+        return Optional.of(merged);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        Optional<Readings> recent = delta.getReadingsByMonth(user, period);
+        if (recent.isPresent()) {
+            return recent;
+        }
+        long entry = findUser(user.getLogin());
+        if (entry < 0) {
+            return Optional.empty();
+        }
+        long row = findRow(entry, Periods.toKey(period));
+        return row < 0 ? Optional.empty() : Optional.of(materialize(row));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Последняя строка пользователя в снимке сравнивается с последним периодом, поданным в дельту.
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        YearMonth recent = deltaLatest.get(user.getLogin());
+        long entry = findUser(user.getLogin());
+        if (entry >= 0 && rowCount(entry) > 0) {
+            long lastRow = firstRow(entry) + rowCount(entry) - 1;
+            if (recent == null || period(lastRow) > Periods.toKey(recent)) {
+                return Optional.of(materialize(lastRow));
+            }
+        }
+        return recent == null ? Optional.empty() : delta.getReadingsByMonth(user, recent);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Берет последние count строк пользователя из снимка и последние count периодов дельты.
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        TreeMap<YearMonth, Readings> result = new TreeMap<>();
+        long entry = findUser(user.getLogin());
+        if (entry >= 0) {
+            long first = firstRow(entry);
+            int rows = rowCount(entry);
+            for (int i = Math.max(0, rows - Math.max(0, count)); i < rows; i++) {
+                result.put(Periods.fromKey(period(first + i)), materialize(first + i));
+            }
+        }
+        result.putAll(delta.getLatestReadings(user, count));
+        while (result.size() > Math.max(0, count)) {
+            result.pollFirstEntry();
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Начало диапазона в снимке находится двоичным поиском по строкам пользователя, показания дельты
+     * перекрывают показания снимка за тот же период.
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        TreeMap<YearMonth, Readings> result = new TreeMap<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        long entry = findUser(user.getLogin());
+        if (entry >= 0) {
+            long first = firstRow(entry);
+            int rows = rowCount(entry);
+            int last = Periods.toKey(to);
+            for (int i = lowerBound(entry, Periods.toKey(from)); i < rows && period(first + i) <= last; i++) {
+                result.put(Periods.fromKey(period(first + i)), materialize(first + i));
+            }
+        }
+        result.putAll(delta.getReadingsBetween(user, from, to));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Ближайшая строка снимка сравнивается с ближайшим периодом дельты.
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getPreviousReadings(User user, YearMonth period) {
+        Optional<Map.Entry<YearMonth, Readings>> recent = delta.getPreviousReadings(user, period);
+        long entry = findUser(user.getLogin());
+        if (entry < 0) {
+            return recent;
+        }
+        int position = lowerBound(entry, Periods.toKey(period)) - 1;
+        if (position < 0) {
+            return recent;
+        }
+        long row = firstRow(entry) + position;
+        if (recent.isPresent() && Periods.toKey(recent.get().getKey()) >= period(row)) {
+            return recent;
+        }
+        return Optional.of(new SimpleImmutableEntry<>(Periods.fromKey(period(row)), materialize(row)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Ближайшая строка снимка сравнивается с ближайшим периодом дельты.
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getNextReadings(User user, YearMonth period) {
+        Optional<Map.Entry<YearMonth, Readings>> recent = delta.getNextReadings(user, period);
+        long entry = findUser(user.getLogin());
+        if (entry < 0) {
+            return recent;
+        }
+        int position = lowerBound(entry, Periods.toKey(period) + 1);
+        if (position >= rowCount(entry)) {
+            return recent;
+        }
+        long row = firstRow(entry) + position;
+        if (recent.isPresent() && Periods.toKey(recent.get().getKey()) <= period(row)) {
+            return recent;
+        }
+        return Optional.of(new SimpleImmutableEntry<>(Periods.fromKey(period(row)), materialize(row)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Снимок не изменяется: логин пользователя запоминается, и его строки снимка больше не читаются.
+     */
+    public boolean removeAllReadings(User user) {
+        long entry = findUser(user.getLogin());
+        boolean mapped = entry >= 0 && rowCount(entry) > 0;
+        removed.add(user.getLogin());
+        deltaLatest.remove(user.getLogin());
+        return delta.removeAllReadings(user) || mapped;
+    }
+
+    /**
+     * Закрывает файл снимка. Отображенная область освобождается сборщиком мусора.
+     *
+     * @throws IOException Если файл не может быть закрыт.
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void updateLatest(User user, YearMonth period) {
+        deltaLatest.merge(user.getLogin(), period, (current, added) -> added.compareTo(current) > 0 ? added : current);
+    }
+
+    /**
+     * Ищет пользователя в индексе двоичным поиском.
+     *
+     * @return Смещение записи индекса или -1, если пользователя нет в снимке или его показания удалены.
+     */
+    private long findUser(String login) {
+        if (!removed.isEmpty() && removed.contains(login)) {
+            return -1;
+        }
+        int hash = login.hashCode();
+        byte[] key = null;
+        long low = 0;
+        long high = userCount - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int offset = (int) (middle * INDEX_ENTRY_SIZE);
+            int compare = Integer.compare(index.getInt(offset), hash);
+            if (compare == 0) {
+                if (key == null) {
+                    key = sortKey(login);
+                }
+                compare = compareLogin(offset, key);
+            }
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private int compareLogin(int entry, byte[] key) {
+        int length = index.getInt(entry + 4);
+        int offset = index.getInt(entry + 8);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int compare = Integer.compare(logins.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private long firstRow(long entry) {
+        return ((long) index.getInt((int) entry + 12) << 32) | (index.getInt((int) entry + 16) & 0xFFFFFFFFL);
+    }
+
+    private int rowCount(long entry) {
+        return index.getInt((int) entry + 20);
+    }
+
+    /**
+     * Ищет строку пользователя с указанным периодом двоичным поиском.
+     *
+     * @return Номер строки или -1, если строки нет.
+     */
+    private long findRow(long entry, int period) {
+        long first = firstRow(entry);
+        int low = 0;
+        int high = rowCount(entry) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = Integer.compare(period(first + middle), period);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return first + middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ищет позицию первой строки пользователя, период которой не меньше указанного.
+     *
+     * @return Позиция строки относительно первой строки пользователя.
+     */
+    private int lowerBound(long entry, int period) {
+        long first = firstRow(entry);
+        int low = 0;
+        int high = rowCount(entry);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (period(first + middle) < period) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int period(long row) {
+        return rowChunks[(int) (row / rowsPerChunk)].getInt((int) (row % rowsPerChunk) * rowSize);
+    }
+
+    private Readings materialize(long row) {
+        MappedByteBuffer chunk = rowChunks[(int) (row / rowsPerChunk)];
+        int offset = (int) (row % rowsPerChunk) * rowSize;
+        long mask = chunk.getLong(offset + 8);
+        Readings readings = new Readings();
+        while (mask != 0) {
+            int meter = Long.numberOfTrailingZeros(mask);
+            readings.add(meterNames[meter], chunk.getDouble(offset + ROW_HEADER_SIZE + meter * Double.BYTES));
+            mask &= mask - 1;
+        }
+        return readings;
+    }
+
+    private static void writeRow(DataOutputStream out, int period, Readings readings,
+                                 Map<String, Integer> meterIds, int meterCount) throws IOException {
+        double[] values = new double[meterCount];
+        long mask = 0;
+        for (Map.Entry<String, Double> entry : readings.get().entrySet()) {
+            Integer meter = meterIds.get(entry.getKey());
+            if (meter == null) {
+                throw new IllegalStateException("Тип показаний появился во время записи снимка: " + entry.getKey());
+            }
+            values[meter] = entry.getValue();
+            mask |= 1L << meter;
+        }
+        out.writeInt(period);
+        out.writeInt(0);
+        out.writeLong(mask);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static byte[] sortKey(String login) {
+        return login.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long checkedSize(long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Область снимка превышает 2 ГБ");
+        }
+        return size;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Неожиданный конец файла снимка");
+            }
+        }
+    }
+
+    /**
+     * Ленивое представление показаний одного пользователя из отображенной области.
+     */
+    private class MappedUserView extends AbstractMap<YearMonth, Readings> {
+        private final long entry;
+
+        private MappedUserView(long entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public int size() {
+            return rowCount(entry);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof YearMonth period && findRow(entry, Periods.toKey(period)) >= 0;
+        }
+
+        @Override
+        public Readings get(Object key) {
+            if (!(key instanceof YearMonth period)) {
+                return null;
+            }
+            long row = findRow(entry, Periods.toKey(period));
+            return row < 0 ? null : materialize(row);
+        }
+
+        @Override
+        public Set<Entry<YearMonth, Readings>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<YearMonth, Readings>> iterator() {
+                    long first = firstRow(entry);
+                    int count = rowCount(entry);
+                    return new Iterator<>() {
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < count;
+                        }
+
+                        @Override
+                        public Entry<YearMonth, Readings> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            long row = first + position++;
+                            return new SimpleImmutableEntry<>(Periods.fromKey(period(row)), materialize(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return rowCount(entry);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package persistence;
+
+import repositories.MeterTypeRegistry;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import repositories.impl.MeterTypeRegistryImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Слой долговременного хранения под интерфейсами репозиториев.
+ * При запуске загружает последний снимок и проигрывает поверх него хвост журнала,
+ * после чего выдает обертки репозиториев, которые записывают каждое изменение в журнал с групповой фиксацией.
+ * Периодические снимки позволяют удалять старые сегменты журнала.
+ * Зарегистрированные типы показаний хранятся отдельно от снимков и журнала, см. FileMeterTypeRegistry.
+ * Для снимков во время работы обернутые репозитории должны быть потокобезопасными.
+ * Зафиксированные записи журнала можно отправлять репликам для чтения (startReplication).
+ */
+public class PersistenceManager implements AutoCloseable {
+    private static final int LOCK_STRIPES = 256;
+    private static final long COMMIT_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long REPLICATION_BACKLOG_BYTES = 64L << 20;
+
+    private final Path directory;
+    private final UserRepository users;
+    private final ReadingsRepository readings;
+    private final MeterTypeRegistry meterTypes;
+    private final Object snapshotLock = new Object();
+    private Journal journal;
+    private UserRepository journaledUsers;
+    private ReadingsRepository journaledReadings;
+    private MeterTypeRegistry storedMeterTypes;
+    private ScheduledExecutorService scheduler;
+    private ReplicationSource replication;
+
+    /**
+     * @param directory Каталог со снимками и журналом.
+     * @param users     Репозиторий пользователей, в котором хранится состояние.
+     * @param readings  Репозиторий показаний, в котором хранится состояние.
+     */
+    public PersistenceManager(Path directory, UserRepository users, ReadingsRepository readings) {
+        this(directory, users, readings, new MeterTypeRegistryImpl());
+    }
+
+    /**
+     * @param directory  Каталог со снимками и журналом.
+     * @param users      Репозиторий пользователей, в котором хранится состояние.
+     * @param readings   Репозиторий показаний, в котором хранится состояние.
+     * @param meterTypes Реестр типов показаний, в котором хранятся зарегистрированные типы.
+     */
+    public PersistenceManager(Path directory, UserRepository users, ReadingsRepository readings,
+                              MeterTypeRegistry meterTypes) {
+        this.directory = directory;
+        this.users = users;
+        this.readings = readings;
+        this.meterTypes = meterTypes;
+    }
+
+    /**
+     * Восстанавливает состояние из последнего снимка и журнала и открывает журнал для новых записей.
+     *
+     * @return Отчет о восстановлении.
+     * @throws IOException Если снимок или журнал не могут быть прочитаны.
+     */
+    public RecoveryReport recover() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        storedMeterTypes = FileMeterTypeRegistry.load(directory, meterTypes);
+        Optional<Snapshot.Loaded> snapshot = Snapshot.loadLatest(directory, users, readings);
+        long fromLsn = snapshot.map(s -> s.lsn).orElse(0L);
+        Journal.ReplayResult replay = Journal.replay(directory, fromLsn, record -> record.applyTo(users, readings));
+        journal = new Journal(directory, replay.getLastLsn() + 1, COMMIT_DELAY_NANOS);
+        StripedLock locks = new StripedLock(LOCK_STRIPES);
+        journaledUsers = new JournaledUserRepository(users, journal, locks);
+        journaledReadings = new JournaledReadingsRepository(readings, journal, locks);
+        return new RecoveryReport(
+                snapshot.map(s -> s.users).orElse(0L),
+                snapshot.map(s -> s.readings).orElse(0L),
+                snapshot.map(s -> s.bytes).orElse(0L),
+                replay.getRecords(), replay.getBytes(), System.nanoTime() - start);
+    }
+
+    /**
+     * Возвращает репозиторий пользователей, изменения в котором записываются в журнал.
+     *
+     * @return Журналируемый репозиторий пользователей.
+     * @throws IllegalStateException Если восстановление еще не выполнено.
+     */
+    public UserRepository getUserRepository() {
+        if (journaledUsers == null) {
+            throw new IllegalStateException("Состояние еще не восстановлено");
+        }
+        return journaledUsers;
+    }
+
+    /**
+     * Возвращает репозиторий показаний, изменения в котором записываются в журнал.
+     *
+     * @return Журналируемый репозиторий показаний.
+     * @throws IllegalStateException Если восстановление еще не выполнено.
+     */
+    public ReadingsRepository getReadingsRepository() {
+        if (journaledReadings == null) {
+            throw new IllegalStateException("Состояние еще не восстановлено");
+        }
+        return journaledReadings;
+    }
+
+    /**
+     * Возвращает реестр типов показаний, новые типы в котором сохраняются на диск.
+     *
+     * @return Сохраняемый реестр типов показаний.
+     * @throws IllegalStateException Если восстановление еще не выполнено.
+     */
+    public MeterTypeRegistry getMeterTypeRegistry() {
+        if (storedMeterTypes == null) {
+            throw new IllegalStateException("Состояние еще не восстановлено");
+        }
+        return storedMeterTypes;
+    }
+
+    /**
+     * Начинает отправлять журнал репликам, см. ReplicationSource. Повторный вызов возвращает уже запущенный источник.
+     *
+     * @param address Адрес, на котором принимаются подключения реплик; порт 0 - любой свободный.
+     * @return Источник репликации.
+     * @throws IOException           Если адрес не может быть занят.
+     * @throws IllegalStateException Если восстановление еще не выполнено.
+     */
+    public synchronized ReplicationSource startReplication(InetSocketAddress address) throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("Состояние еще не восстановлено");
+        }
+        if (replication == null) {
+            replication = new ReplicationSource(journal, users, readings, address, REPLICATION_BACKLOG_BYTES);
+        }
+        return replication;
+    }
+
+    /**
+     * Начинает новый сегмент журнала, записывает снимок текущего состояния
+     * и удаляет предыдущие снимки и сегменты журнала, которые им покрываются.
+     *
+     * @throws IOException Если снимок не может быть записан.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long lsn = journal.roll();
+            Path snapshot = Snapshot.write(directory, lsn, users, readings);
+            Snapshot.deleteAllExcept(directory, snapshot);
+            journal.deleteSegmentsBefore(lsn);
+        }
+    }
+
+    /**
+     * Запускает периодическое создание снимков в фоновом потоке.
+     *
+     * @param period Интервал между снимками.
+     */
+    public synchronized void scheduleSnapshots(Duration period) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                System.err.println("Snapshot Error " + e.getMessage());
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает периодические снимки, записывает финальный снимок и закрывает журнал.
+     */
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (replication != null) {
+            replication.close();
+        }
+        if (journal != null) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                journal.close();
+            }
+        }
+    }
+
+    Journal journal() {
+        return journal;
+    }
+}
@@ -0,0 +1,55 @@
+package persistence;
+
+/**
+ * Отчет о восстановлении состояния при запуске: что было загружено из снимка,
+ * сколько записей журнала проиграно поверх него и сколько времени это заняло.
+ */
+public final class RecoveryReport {
+    private final long snapshotUsers;
+    private final long snapshotReadings;
+    private final long snapshotBytes;
+    private final long journalRecords;
+    private final long journalBytes;
+    private final long elapsedNanos;
+
+    RecoveryReport(long snapshotUsers, long snapshotReadings, long snapshotBytes,
+                   long journalRecords, long journalBytes, long elapsedNanos) {
+        this.snapshotUsers = snapshotUsers;
+        this.snapshotReadings = snapshotReadings;
+        this.snapshotBytes = snapshotBytes;
+        this.journalRecords = journalRecords;
+        this.journalBytes = journalBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getSnapshotUsers() {
+        return snapshotUsers;
+    }
+
+    public long getSnapshotReadings() {
+        return snapshotReadings;
+    }
+
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    public long getJournalRecords() {
+        return journalRecords;
+    }
+
+    public long getJournalBytes() {
+        return journalBytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Восстановление заняло %.1f мс: снимок - %d пользователей, %d показаний (%d байт), "
+                        + "журнал - %d записей (%d байт)",
+                elapsedNanos / 1_000_000.0, snapshotUsers, snapshotReadings, snapshotBytes, journalRecords, journalBytes);
+    }
+}
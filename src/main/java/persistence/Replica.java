@@ -0,0 +1,232 @@
+package persistence;
+
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+
+/**
+ * Реплика для чтения: подключается к ReplicationSource основного узла и применяет его журнал
+ * к собственным репозиториям. Репозитории реплики изменяются только потоком репликации,
+ * запросы на чтение к ним можно направлять параллельно, поэтому репозитории должны быть потокобезопасными.
+ * <p>
+ * Реплика помнит номер последней примененной записи и при разрыве соединения переподключается,
+ * запрашивая записи начиная со следующей. Отставание оценивается двумя величинами: количеством
+ * зафиксированных на основном узле, но еще не примененных записей, и устареванием - временем,
+ * прошедшим с момента, по состоянию на который реплика содержит все зафиксированные записи.
+ * Устаревание вычисляется по часам основного узла и реплики и точно, когда они работают на одной машине.
+ */
+public class Replica implements AutoCloseable {
+    private static final long RECONNECT_DELAY_MILLIS = 500;
+    private static final int READ_TIMEOUT_MILLIS = (int) (ReplicationSource.HEARTBEAT_MILLIS * 20);
+
+    private final InetSocketAddress primary;
+    private final UserRepository users;
+    private final ReadingsRepository readings;
+    private final Object progress = new Object();
+    private volatile long appliedLsn = -1;
+    private volatile long primaryLsn = -1;
+    private volatile long freshAsOf;
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private volatile Socket socket;
+    private Thread follower;
+
+    /**
+     * @param primary  Адрес источника репликации основного узла.
+     * @param users    Репозиторий пользователей реплики.
+     * @param readings Репозиторий показаний реплики.
+     */
+    public Replica(InetSocketAddress primary, UserRepository users, ReadingsRepository readings) {
+        this.primary = primary;
+        this.users = users;
+        this.readings = readings;
+    }
+
+    /**
+     * Запускает фоновый поток, который следует за основным узлом. Повторный вызов ничего не делает.
+     */
+    public synchronized void start() {
+        if (follower != null) {
+            return;
+        }
+        follower = new Thread(this::followLoop, "replica-" + primary.getPort());
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    /**
+     * @return Репозиторий пользователей реплики, только для чтения.
+     */
+    public UserRepository getUserRepository() {
+        return users;
+    }
+
+    /**
+     * @return Репозиторий показаний реплики, только для чтения.
+     */
+    public ReadingsRepository getReadingsRepository() {
+        return readings;
+    }
+
+    /**
+     * @return Номер последней примененной записи журнала основного узла.
+     */
+    public long getAppliedLsn() {
+        return appliedLsn;
+    }
+
+    /**
+     * @return Количество записей, зафиксированных на основном узле по последним сведениям, но еще не примененных.
+     */
+    public long getLagRecords() {
+        return Math.max(0, primaryLsn - appliedLsn);
+    }
+
+    /**
+     * @return Время в миллисекундах, прошедшее с момента, по состоянию на который реплика содержит
+     * все зафиксированные записи, или Long.MAX_VALUE, если реплика еще ни разу не догнала основной узел.
+     */
+    public long getStalenessMillis() {
+        long asOf = freshAsOf;
+        return asOf == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - asOf);
+    }
+
+    /**
+     * @return true, если соединение с основным узлом установлено.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Ожидает применения записи с указанным номером.
+     *
+     * @param lsn     Номер записи.
+     * @param timeout Максимальное время ожидания.
+     * @return true, если запись применена, или false, если время ожидания истекло.
+     * @throws InterruptedException Если ожидание прервано.
+     */
+    public boolean awaitLsn(long lsn, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progress) {
+            while (appliedLsn < lsn) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                progress.wait(Math.max(1, remaining / 1_000_000));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Останавливает следование за основным узлом.
+     */
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = follower;
+        }
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                System.err.println("Replication Error " + e.getMessage());
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void followLoop() {
+        while (!closed) {
+            try (Socket current = new Socket()) {
+                socket = current;
+                current.connect(primary, READ_TIMEOUT_MILLIS);
+                current.setSoTimeout(READ_TIMEOUT_MILLIS);
+                connected = true;
+                follow(current);
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Replication Error " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void follow(Socket current) throws IOException {
+        DataOutputStream out = new DataOutputStream(current.getOutputStream());
+        out.writeLong(appliedLsn + 1);
+        out.flush();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(current.getInputStream(), 1 << 16));
+        while (!closed) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationSource.STATE -> {
+                    long stateLsn = in.readLong();
+                    while (in.readBoolean()) {
+                        JournalRecord.readFrom(in).applyTo(users, readings);
+                    }
+                    primaryLsn = Math.max(primaryLsn, stateLsn);
+                    advance(stateLsn);
+                }
+                case ReplicationSource.FRAMES -> {
+                    long lastLsn = in.readLong();
+                    long committedAt = in.readLong();
+                    byte[] frames = new byte[in.readInt()];
+                    in.readFully(frames);
+                    primaryLsn = Math.max(primaryLsn, lastLsn);
+                    Journal.readFrames(new DataInputStream(new ByteArrayInputStream(frames)), appliedLsn + 1,
+                            (lsn, record) -> record.applyTo(users, readings));
+                    advance(lastLsn);
+                    if (appliedLsn >= primaryLsn) {
+                        freshAsOf = committedAt;
+                    }
+                }
+                case ReplicationSource.HEARTBEAT -> {
+                    long lastLsn = in.readLong();
+                    long sentAt = in.readLong();
+                    primaryLsn = Math.max(primaryLsn, lastLsn);
+                    if (appliedLsn >= lastLsn) {
+                        freshAsOf = sentAt;
+                    }
+                }
+                default -> throw new IOException("Неизвестное сообщение репликации: " + type);
+            }
+        }
+    }
+
+    private void advance(long lsn) {
+        synchronized (progress) {
+            if (lsn > appliedLsn) {
+                appliedLsn = lsn;
+            }
+            progress.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package persistence;
+
+import models.Readings;
+import models.User;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Источник репликации на основном узле: отправляет репликам зафиксированные записи журнала по TCP.
+ * <p>
+ * Последние зафиксированные пачки кадров журнала хранятся в памяти в пределах backlogCapacity байт.
+ * Реплика при подключении присылает номер первой нужной ей записи. Если эта запись еще есть в памяти,
+ * реплика получает пачки начиная с нее; иначе сначала получает текущее состояние репозиториев
+ * (пользователей и их показания), а затем записи, зафиксированные после начала его отправки.
+ * Записи, которые уже вошли в отправленное состояние, применяются повторно без изменения результата.
+ * Если реплика отстала настолько, что нужные ей пачки вытеснены из памяти, соединение закрывается,
+ * и реплика при повторном подключении получает состояние заново.
+ * <p>
+ * Когда новых записей нет, раз в HEARTBEAT_MILLIS отправляется сообщение с номером последней зафиксированной
+ * записи и временем основного узла, по которому реплика оценивает свое отставание.
+ * На реплики попадают только записи, уже сброшенные на диск основного узла.
+ */
+public class ReplicationSource implements AutoCloseable {
+    static final byte FRAMES = 1;
+    static final byte STATE = 2;
+    static final byte HEARTBEAT = 3;
+    static final long HEARTBEAT_MILLIS = 100;
+
+    private final UserRepository users;
+    private final ReadingsRepository readings;
+    private final long backlogCapacity;
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final ArrayDeque<Batch> backlog = new ArrayDeque<>();
+    private long backlogBytes;
+    private long backlogStart;
+    private long lastLsn;
+    private volatile boolean closed;
+
+    /**
+     * Начинает принимать подключения реплик.
+     *
+     * @param journal         Журнал основного узла.
+     * @param users           Репозиторий пользователей, состояние которого отправляется новым репликам.
+     * @param readings        Репозиторий показаний, состояние которого отправляется новым репликам.
+     * @param address         Адрес, на котором принимаются подключения; порт 0 - любой свободный.
+     * @param backlogCapacity Объем последних пачек журнала в байтах, хранимых для отстающих реплик.
+     * @throws IOException Если адрес не может быть занят.
+     */
+    ReplicationSource(Journal journal, UserRepository users, ReadingsRepository readings,
+                      InetSocketAddress address, long backlogCapacity) throws IOException {
+        this.users = users;
+        this.readings = readings;
+        this.backlogCapacity = backlogCapacity;
+        server = new ServerSocket();
+        server.bind(address);
+        synchronized (this) {
+            journal.addCommitListener(this::committed);
+            lastLsn = journal.getDurableLsn();
+            backlogStart = lastLsn + 1;
+        }
+        acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return Адрес, на котором принимаются подключения реплик.
+     */
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    /**
+     * @return Количество подключенных реплик.
+     */
+    public int getReplicaCount() {
+        return connections.size();
+    }
+
+    /**
+     * @return Номер последней зафиксированной записи журнала.
+     */
+    public synchronized long getLastLsn() {
+        return lastLsn;
+    }
+
+    /**
+     * Прекращает прием подключений и закрывает соединения с репликами.
+     */
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException e) {
+            System.err.println("Replication Error " + e.getMessage());
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Replication Error " + e.getMessage());
+            }
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private synchronized void committed(long batchFirstLsn, long batchLastLsn, byte[] frames) {
+        if (batchLastLsn <= lastLsn) {
+            return;
+        }
+        if (batchFirstLsn > lastLsn + 1) {
+            // Пачка, зафиксированная во время подписки на журнал, не получена: реплики, которым
+            // нужны ее записи, получат состояние заново
+            backlog.clear();
+            backlogBytes = 0;
+            backlogStart = batchFirstLsn;
+        }
+        backlog.addLast(new Batch(batchFirstLsn, batchLastLsn, frames, System.currentTimeMillis()));
+        backlogBytes += frames.length;
+        lastLsn = batchLastLsn;
+        while (backlogBytes > backlogCapacity && backlog.size() > 1) {
+            Batch evicted = backlog.removeFirst();
+            backlogBytes -= evicted.frames.length;
+            backlogStart = evicted.lastLsn + 1;
+        }
+        notifyAll();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                connections.add(socket);
+                Thread session = new Thread(() -> serve(socket), "replication-" + socket.getRemoteSocketAddress());
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Replication Error " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            long next = in.readLong();
+            if (!inBacklog(next)) {
+                next = sendState(out);
+            }
+            while (!closed) {
+                Batch batch = awaitBatch(next);
+                if (batch == null) {
+                    out.writeByte(HEARTBEAT);
+                    out.writeLong(getLastLsn());
+                    out.writeLong(System.currentTimeMillis());
+                } else {
+                    out.writeByte(FRAMES);
+                    out.writeLong(batch.lastLsn);
+                    out.writeLong(batch.committedAt);
+                    out.writeInt(batch.frames.length);
+                    out.write(batch.frames);
+                    next = batch.lastLsn + 1;
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Replication Error " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private synchronized boolean inBacklog(long lsn) {
+        return lsn >= backlogStart && lsn <= lastLsn + 1;
+    }
+
+    /**
+     * Отправляет текущее состояние репозиториев.
+     *
+     * @return Номер первой записи, которую нужно отправить после состояния.
+     */
+    private long sendState(DataOutputStream out) throws IOException {
+        long from;
+        synchronized (this) {
+            from = lastLsn + 1;
+        }
+        out.writeByte(STATE);
+        out.writeLong(from - 1);
+        for (String login : users.getAllLogins()) {
+            User user = users.getUser(login).orElse(null);
+            if (user == null) {
+                continue;
+            }
+            out.writeBoolean(true);
+            JournalRecord.addUser(user).writeTo(out);
+            Map<YearMonth, Readings> history = readings.getAllReadings(user).orElse(Map.of());
+            for (Map.Entry<YearMonth, Readings> entry : history.entrySet()) {
+                out.writeBoolean(true);
+                JournalRecord.addReadings(user, entry.getKey(), entry.getValue()).writeTo(out);
+            }
+        }
+        out.writeBoolean(false);
+        return from;
+    }
+
+    /**
+     * Ожидает пачку, содержащую запись с указанным номером.
+     *
+     * @return Пачка или null, если за HEARTBEAT_MILLIS новых записей не появилось.
+     * @throws IOException Если пачка уже вытеснена из памяти.
+     */
+    private synchronized Batch awaitBatch(long next) throws IOException, InterruptedException {
+        if (lastLsn < next && !closed) {
+            wait(HEARTBEAT_MILLIS);
+        }
+        if (next < backlogStart) {
+            throw new IOException("Реплика отстала больше, чем хранится записей журнала");
+        }
+        if (lastLsn < next) {
+            return null;
+        }
+        Iterator<Batch> batches = backlog.descendingIterator();
+        while (batches.hasNext()) {
+            Batch batch = batches.next();
+            if (batch.firstLsn <= next) {
+                return batch;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Зафиксированная пачка кадров журнала и время ее фиксации.
+     */
+    private static final class Batch {
+        private final long firstLsn;
+        private final long lastLsn;
+        private final byte[] frames;
+        private final long committedAt;
+
+        private Batch(long firstLsn, long lastLsn, byte[] frames, long committedAt) {
+            this.firstLsn = firstLsn;
+            this.lastLsn = lastLsn;
+            this.frames = frames;
+            this.committedAt = committedAt;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package persistence;
+
+import enums.Role;
+import models.Periods;
+import models.Readings;
+import models.User;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Компактный снимок состояния репозиториев.
+ * Файл "snapshot-&lt;LSN&gt;.bin" содержит всех пользователей и их показания, а также номер записи журнала,
+ * начиная с которой журнал нужно проиграть поверх снимка. Файл завершается контрольной суммой CRC32.
+ * Снимок сначала пишется во временный файл и затем атомарно переименовывается.
+ */
+final class Snapshot {
+    private static final int MAGIC = 0x4D534E50;
+    private static final int VERSION = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private Snapshot() {
+    }
+
+    /**
+     * Записывает снимок репозиториев.
+     *
+     * @return Путь к записанному снимку.
+     */
+    static Path write(Path directory, long lsn, UserRepository users, ReadingsRepository readings) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, lsn, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        List<String> logins = users.getAllLogins();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream raw = Channels.newOutputStream(channel);
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            out.writeInt(logins.size());
+            for (String login : logins) {
+                User user = users.getUser(login).orElseThrow();
+                out.writeUTF(user.getLogin());
+                out.writeUTF(user.getPassword());
+                out.writeByte(user.getRole().ordinal());
+                Map<YearMonth, Readings> history = readings.getAllReadings(user).orElse(Map.of());
+                List<Map.Entry<YearMonth, Readings>> entries = new ArrayList<>(history.entrySet());
+                out.writeInt(entries.size());
+                for (Map.Entry<YearMonth, Readings> entry : entries) {
+                    out.writeInt(Periods.toKey(entry.getKey()));
+                    JournalRecord.writeReadings(out, entry.getValue());
+                }
+            }
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * Загружает последний целый снимок каталога в репозитории.
+     *
+     * @return Номер записи журнала, с которой нужно продолжить проигрывание, если снимок найден.
+     */
+    static Optional<Loaded> loadLatest(Path directory, UserRepository users, ReadingsRepository readings) throws IOException {
+        List<Path> snapshots = list(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Optional<Loaded> loaded = load(snapshots.get(i), users, readings);
+            if (loaded.isPresent()) {
+                return loaded;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Удаляет все снимки, кроме указанного.
+     */
+    static void deleteAllExcept(Path directory, Path keep) throws IOException {
+        for (Path snapshot : list(directory)) {
+            if (!snapshot.equals(keep)) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    private static Optional<Loaded> load(Path file, UserRepository users, ReadingsRepository readings) throws IOException {
+        if (!verify(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            in.readInt();
+            in.readInt();
+            long lsn = in.readLong();
+            int userCount = in.readInt();
+            long readingsCount = 0;
+            for (int i = 0; i < userCount; i++) {
+                User user = new User(in.readUTF(), in.readUTF(), Role.values()[in.readUnsignedByte()]);
+                users.addUser(user);
+                int entries = in.readInt();
+                for (int j = 0; j < entries; j++) {
+                    YearMonth period = Periods.fromKey(in.readInt());
+                    readings.addReadings(user, period, JournalRecord.readReadings(in));
+                }
+                readingsCount += entries;
+            }
+            return Optional.of(new Loaded(lsn, userCount, readingsCount, Files.size(file)));
+        }
+    }
+
+    private static boolean verify(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size < Integer.BYTES * 3 + Long.BYTES * 2) {
+            return false;
+        }
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), new CRC32());
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            in.skipNBytes(size - Integer.BYTES * 2 - Long.BYTES);
+            long expected = checked.getChecksum().getValue();
+            return in.readLong() == expected;
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(snapshots::add);
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+
+    /**
+     * Сведения о загруженном снимке.
+     */
+    static final class Loaded {
+        final long lsn;
+        final long users;
+        final long readings;
+        final long bytes;
+
+        Loaded(long lsn, long users, long readings, long bytes) {
+            this.lsn = lsn;
+            this.users = users;
+            this.readings = readings;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package persistence;
+
+/**
+ * Набор мониторов, распределенных по хешу ключа.
+ * Гарантирует, что изменение данных одного пользователя и его запись в журнал выполняются в одном порядке,
+ * не блокируя при этом изменения других пользователей.
+ */
+final class StripedLock {
+    private final Object[] stripes;
+
+    StripedLock(int count) {
+        int size = Integer.highestOneBit(Math.max(1, count - 1)) << 1;
+        stripes = new Object[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    Object forKey(Object key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
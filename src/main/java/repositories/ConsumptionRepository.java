@@ -0,0 +1,33 @@
+package repositories;
+
+import models.Readings;
+import models.User;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Интерфейс для хранения потребления пользователей.
+ * Потребление за период - это разница показаний счетчиков за этот период и за предыдущий период подачи.
+ * Значения вычисляются при подаче показаний, поэтому чтение не требует обхода истории.
+ */
+public interface ConsumptionRepository {
+
+    /**
+     * Сохраняет потребление пользователя за период, заменяя ранее сохраненное.
+     *
+     * @param user        Пользователь, для которого сохраняется потребление.
+     * @param period      Период (год и месяц).
+     * @param consumption Потребление по каждому типу показаний.
+     */
+    void saveConsumption(User user, YearMonth period, Readings consumption);
+
+    /**
+     * Возвращает потребление пользователя за период.
+     *
+     * @param user   Пользователь, для которого запрашивается потребление.
+     * @param period Период (год и месяц).
+     * @return Optional, содержащий потребление, или пустой Optional, если потребление за период не вычислено.
+     */
+    Optional<Readings> getConsumption(User user, YearMonth period);
+}
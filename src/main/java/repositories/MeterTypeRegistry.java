@@ -0,0 +1,31 @@
+package repositories;
+
+import java.util.List;
+
+/**
+ * Интерфейс для работы с перечнем типов показаний, которые разрешено подавать.
+ * Перечень открыт: администратор может зарегистрировать новый тип во время работы приложения.
+ * Типы идентифицируются плотными числовыми идентификаторами из MeterTypes.
+ */
+public interface MeterTypeRegistry {
+    /**
+     * Регистрирует тип показаний. Повторная регистрация того же типа ничего не меняет.
+     *
+     * @param name Название типа показаний.
+     * @return Идентификатор типа.
+     */
+    int register(String name);
+
+    /**
+     * @param meter Идентификатор типа показаний.
+     * @return true, если тип зарегистрирован.
+     */
+    boolean isRegistered(int meter);
+
+    /**
+     * Получает названия всех зарегистрированных типов в порядке регистрации.
+     *
+     * @return Список названий типов показаний.
+     */
+    List<String> getMeterTypes();
+}
@@ -1,44 +1,161 @@
 package repositories;
 
 import models.Readings;
+import models.ReadingsEntry;
 import models.User;
 
-import java.time.Month;
+import java.time.YearMonth;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * Интерфейс для работы с показаниями пользователей.
- * Позволяет добавлять показания для определенного пользователя и месяца, получать все показания для пользователя,
- * а также получать показания для пользователя за определенный месяц.
+ * Показания хранятся как временной ряд: ключом служит период (год и месяц), показания каждого пользователя
+ * упорядочены по периоду. Позволяет добавлять показания за период, получать всю историю, показания за период,
+ * последние показания, а также выполнять запросы по диапазону периодов.
  */
 public interface ReadingsRepository {
 
     /**
-     * Добавляет показания для указанного пользователя и месяца.
+     * Добавляет показания для указанного пользователя и периода.
      *
      * @param user     Пользователь, для которого добавляются показания.
-     * @param month    Месяц, для которого добавляются показания.
+     * @param period   Период (год и месяц), для которого добавляются показания.
      * @param readings Показания, которые нужно добавить.
      */
-    void addReadings(User user, Month month, Readings readings);
+    void addReadings(User user, YearMonth period, Readings readings);
+
+    /**
+     * Атомарно добавляет показания для указанного пользователя и периода, только если за этот период
+     * показаний еще нет.
+     *
+     * @param user     Пользователь, для которого добавляются показания.
+     * @param period   Период (год и месяц), для которого добавляются показания.
+     * @param readings Показания, которые нужно добавить.
+     * @return true, если показания добавлены, или false, если за этот период показания уже были поданы.
+     */
+    boolean addReadingsIfAbsent(User user, YearMonth period, Readings readings);
 
     /**
      * Возвращает все показания для указанного пользователя.
      *
      * @param user Пользователь, для которого запрашиваются показания.
-     * @return Карта показаний, где ключ - это месяц, а значение - показания за этот месяц.
+     * @return Карта показаний, упорядоченная по периоду, где ключ - это период, а значение - показания за него.
      * Возвращает пустой Optional, если показания для пользователя отсутствуют.
      */
-    Optional<Map<Month, Readings>> getAllReadings(User user);
+    Optional<Map<YearMonth, Readings>> getAllReadings(User user);
 
     /**
-     * Возвращает показания для указанного пользователя и месяца.
+     * Возвращает показания для указанного пользователя и периода.
+     *
+     * @param user   Пользователь, для которого запрашиваются показания.
+     * @param period Период (год и месяц), для которого запрашиваются показания.
+     * @return Optional, содержащий показания за указанный период,
+     * или пустой Optional, если показания для пользователя и периода отсутствуют.
+     */
+    Optional<Readings> getReadingsByMonth(User user, YearMonth period);
+
+    /**
+     * Возвращает показания за последний по календарю период, за который пользователь подавал показания,
+     * независимо от порядка подачи. Реализации поддерживают индекс последнего периода и отвечают за O(1).
+     *
+     * @param user Пользователь, для которого запрашиваются показания.
+     * @return Optional, содержащий последние показания,
+     * или пустой Optional, если пользователь еще не подавал показаний.
+     */
+    Optional<Readings> getLastReadings(User user);
+
+    /**
+     * Возвращает показания за последние count периодов, за которые пользователь подавал показания.
      *
      * @param user  Пользователь, для которого запрашиваются показания.
-     * @param month Месяц, для которого запрашиваются показания.
-     * @return Optional, содержащий показания за указанный месяц,
-     * или пустой Optional, если показания для пользователя и месяца отсутствуют.
+     * @param count Максимальное количество периодов.
+     * @return Карта показаний, упорядоченная по периоду; пустая, если показаний нет.
+     */
+    SortedMap<YearMonth, Readings> getLatestReadings(User user, int count);
+
+    /**
+     * Возвращает показания за периоды с from по to включительно.
+     * Поиск границ выполняется двоичным поиском или по списку с пропусками, без полного обхода истории.
+     *
+     * @param user Пользователь, для которого запрашиваются показания.
+     * @param from Первый период диапазона.
+     * @param to   Последний период диапазона.
+     * @return Карта показаний, упорядоченная по периоду; пустая, если показаний в диапазоне нет.
+     */
+    SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to);
+
+    /**
+     * Возвращает показания за ближайший период до указанного, за который пользователь подавал показания.
+     *
+     * @param user   Пользователь, для которого запрашиваются показания.
+     * @param period Период, до которого ищутся показания (не включая его).
+     * @return Optional, содержащий период и показания за него, или пустой Optional, если более ранних показаний нет.
+     */
+    Optional<Map.Entry<YearMonth, Readings>> getPreviousReadings(User user, YearMonth period);
+
+    /**
+     * Возвращает показания за ближайший период после указанного, за который пользователь подавал показания.
+     *
+     * @param user   Пользователь, для которого запрашиваются показания.
+     * @param period Период, после которого ищутся показания (не включая его).
+     * @return Optional, содержащий период и показания за него, или пустой Optional, если более поздних показаний нет.
+     */
+    Optional<Map.Entry<YearMonth, Readings>> getNextReadings(User user, YearMonth period);
+
+    /**
+     * Возвращает страницу истории: показания не более чем за limit периодов, начиная с from включительно.
+     * Следующая страница запрашивается с периода, следующего за последним периодом предыдущей страницы.
+     * Реализация по умолчанию переходит от периода к периоду через getNextReadings и не обходит остальную историю.
+     *
+     * @param user  Пользователь, для которого запрашиваются показания.
+     * @param from  Первый период страницы.
+     * @param limit Максимальное количество периодов на странице.
+     * @return Карта показаний, упорядоченная по периоду; пустая, если показаний начиная с from нет.
+     */
+    default SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        TreeMap<YearMonth, Readings> page = new TreeMap<>();
+        if (limit > 0) {
+            getReadingsByMonth(user, from).ifPresent(readings -> page.put(from, readings));
+        }
+        Optional<Map.Entry<YearMonth, Readings>> next = getNextReadings(user, from);
+        while (page.size() < limit && next.isPresent()) {
+            page.put(next.get().getKey(), next.get().getValue());
+            next = getNextReadings(user, next.get().getKey());
+        }
+        return page;
+    }
+
+    /**
+     * Добавляет пакет показаний. Для каждой записи действует семантика addReadingsIfAbsent.
+     * Реализации могут выполнять пакет эффективнее, чем поштучное добавление,
+     * например, фиксируя весь пакет в журнале одной синхронизацией с диском.
+     *
+     * @param batch Записи показаний в порядке добавления.
+     * @return Массив той же длины, что и пакет: true, если запись добавлена, или false,
+     * если за этот период показания уже были поданы.
+     */
+    default boolean[] addReadingsBatch(List<ReadingsEntry> batch) {
+        boolean[] added = new boolean[batch.size()];
+        for (int i = 0; i < added.length; i++) {
+            ReadingsEntry entry = batch.get(i);
+            added[i] = addReadingsIfAbsent(entry.getUser(), entry.getPeriod(), entry.getReadings());
+        }
+        return added;
+    }
+
+    /**
+     * Удаляет все показания пользователя. Нужно, например, при переносе пользователя в другой экземпляр хранилища.
+     * Реализация по умолчанию удаление не поддерживает.
+     *
+     * @param user Пользователь, показания которого удаляются.
+     * @return true, если у пользователя были показания.
+     * @throws UnsupportedOperationException Если хранилище не поддерживает удаление.
      */
-    Optional<Readings> getReadingsByMonth(User user, Month month);
-}
\ No newline at end of file
+    default boolean removeAllReadings(User user) {
+        throw new UnsupportedOperationException("Хранилище не поддерживает удаление показаний");
+    }
+}
@@ -4,10 +4,12 @@ import models.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс для работы с базой пользователей.
- * Позволяет добавлять новых пользователей, получать пользователя, а также получать логины всех пользователей
+ * Позволяет добавлять новых пользователей, получать пользователя, получать логины всех пользователей
+ * целиком, постранично или потоком, а также искать логины по префиксу и похожие логины.
  */
 public interface UserRepository {
     /**
@@ -17,6 +19,13 @@ public interface UserRepository {
      */
     void addUser(User user);
 
+    /**
+     * Сохраняет изменения данных уже добавленного пользователя (например, после смены пароля).
+     *
+     * @param user Пользователь, данные которого изменились.
+     */
+    void updateUser(User user);
+
     /**
      * Получает пользователя из репозитория по логину.
      *
@@ -31,5 +40,42 @@ public interface UserRepository {
      * @return Список всех логинов пользователей.
      */
     List<String> getAllLogins();
-}
 
+    /**
+     * Получает страницу логинов в порядке возрастания. Следующая страница запрашивается
+     * с последним логином предыдущей страницы в качестве курсора.
+     *
+     * @param afterLogin Логин, после которого начинается страница, или null для первой страницы.
+     * @param limit      Максимальное количество логинов на странице.
+     * @return Логины, большие afterLogin, не более limit штук.
+     */
+    List<String> getLogins(String afterLogin, int limit);
+
+    /**
+     * Возвращает логины всех пользователей в порядке возрастания в виде ленивого потока,
+     * не копируя их в промежуточную коллекцию.
+     *
+     * @return Поток логинов.
+     */
+    Stream<String> logins();
+
+    /**
+     * Находит логины, начинающиеся с заданного префикса.
+     *
+     * @param prefix Префикс логина.
+     * @param limit  Максимальное количество результатов.
+     * @return Логины с префиксом prefix, не более limit штук в порядке возрастания.
+     */
+    List<String> findLoginsByPrefix(String prefix, int limit);
+
+    /**
+     * Находит логины, похожие на заданный: отличающиеся не более чем на maxDistance вставок, удалений
+     * и замен символов.
+     *
+     * @param login       Логин, для которого ищутся похожие.
+     * @param maxDistance Максимальное расстояние редактирования.
+     * @param limit       Максимальное количество результатов.
+     * @return Ближайшие логины, не более limit штук, упорядоченные по расстоянию, затем по логину.
+     */
+    List<String> findSimilarLogins(String login, int maxDistance, int limit);
+}
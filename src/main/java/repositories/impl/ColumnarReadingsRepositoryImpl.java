@@ -0,0 +1,429 @@
+package repositories.impl;
+
+import models.Periods;
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import repositories.ReadingsRepository;
+
+import java.time.YearMonth;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Колоночная реализация интерфейса ReadingsRepository.
+ * Вместо отдельной HashMap на каждую подачу показаний хранит значения в примитивных колонках:
+ * типы показаний интернируются в словарь и получают номер, каждая подача показаний - это строка,
+ * значение показания лежит в массиве double[] своего типа, а наличие показания отмечается битом в long[].
+ * Для каждого пользователя (по порядковому номеру) хранится отсортированный список периодов и номеров строк.
+ * Порядковый номер назначается пользователю в этом репозитории при первой подаче показаний.
+ * Карты, возвращаемые getAllReadings, являются ленивыми представлениями над колонками.
+ * Не потокобезопасна, как и ReadingsRepositoryImpl.
+ */
+public class ColumnarReadingsRepositoryImpl implements ReadingsRepository {
+    private static final int MAX_METER_TYPES = Long.SIZE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final UserIds userOrdinals = new UserIds();
+    private int userCount;
+    private int[][] userPeriods = new int[INITIAL_CAPACITY][];
+    private int[][] userRows = new int[INITIAL_CAPACITY][];
+    private int[] userSizes = new int[INITIAL_CAPACITY];
+
+    private final Map<String, Integer> meterIds = new HashMap<>();
+    private String[] meterNames = new String[0];
+
+    private double[][] columns = new double[0][];
+    private long[] presence = new long[INITIAL_CAPACITY];
+    private int rowCount;
+    private long readingsCount;
+
+    /**
+     * {@inheritDoc}
+     * Если за указанный период показания уже есть, перезаписывает строку на месте.
+     *
+     * @throws IllegalStateException Если количество различных типов показаний превышает 64.
+     */
+    public void addReadings(User user, YearMonth period, Readings readings) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0) {
+            ordinal = newUser(user);
+        }
+        int key = Periods.toKey(period);
+        int position = Arrays.binarySearch(userPeriods[ordinal], 0, userSizes[ordinal], key);
+        int row;
+        if (position >= 0) {
+            row = userRows[ordinal][position];
+            readingsCount -= Long.bitCount(presence[row]);
+            presence[row] = 0;
+        } else {
+            row = newRow();
+            insertPeriod(ordinal, -position - 1, key, row);
+        }
+        for (Map.Entry<String, Double> entry : readings.get().entrySet()) {
+            int meter = meterId(entry.getKey());
+            columns[meter][row] = entry.getValue();
+            presence[row] |= 1L << meter;
+        }
+        readingsCount += Long.bitCount(presence[row]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean addReadingsIfAbsent(User user, YearMonth period, Readings readings) {
+        if (getReadingsByMonth(user, period).isPresent()) {
+            return false;
+        }
+        addReadings(user, period, readings);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Возвращаемая карта - ленивое представление над колонками, упорядоченное по периодам.
+     * Объект Readings создается при каждом обращении к значению.
+     */
+    public Optional<Map<YearMonth, Readings>> getAllReadings(User user) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0 || userSizes[ordinal] == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new UserReadingsView(ordinal));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0) {
+            return Optional.empty();
+        }
+        int position = Arrays.binarySearch(userPeriods[ordinal], 0, userSizes[ordinal], Periods.toKey(period));
+        if (position < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(materialize(userRows[ordinal][position]));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Периоды пользователя хранятся отсортированными, поэтому последний период - последний элемент массива.
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0 || userSizes[ordinal] == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(materialize(userRows[ordinal][userSizes[ordinal] - 1]));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Берет хвост отсортированного массива периодов пользователя.
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0) {
+            return new TreeMap<>();
+        }
+        int size = userSizes[ordinal];
+        return slice(ordinal, Math.max(0, size - Math.max(0, count)), size);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Границы диапазона находятся двоичным поиском по отсортированному массиву периодов пользователя.
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0 || from.isAfter(to)) {
+            return new TreeMap<>();
+        }
+        int start = lowerBound(ordinal, Periods.toKey(from));
+        int end = lowerBound(ordinal, Periods.toKey(to) + 1);
+        return slice(ordinal, start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Начало страницы находится двоичным поиском по отсортированному массиву периодов пользователя.
+     */
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0) {
+            return new TreeMap<>();
+        }
+        int start = lowerBound(ordinal, Periods.toKey(from));
+        return slice(ordinal, start, (int) Math.min(userSizes[ordinal], (long) start + limit));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getPreviousReadings(User user, YearMonth period) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0) {
+            return Optional.empty();
+        }
+        return entryAt(ordinal, lowerBound(ordinal, Periods.toKey(period)) - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getNextReadings(User user, YearMonth period) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0) {
+            return Optional.empty();
+        }
+        return entryAt(ordinal, lowerBound(ordinal, Periods.toKey(period) + 1));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Перед добавлением колонки расширяются сразу на весь пакет, а не по мере заполнения.
+     */
+    public boolean[] addReadingsBatch(List<ReadingsEntry> batch) {
+        ensureRowCapacity(rowCount + batch.size());
+        return ReadingsRepository.super.addReadingsBatch(batch);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Строки удаленных показаний очищаются, но не переиспользуются; порядковый номер остается за пользователем.
+     */
+    public boolean removeAllReadings(User user) {
+        int ordinal = ordinalOf(user);
+        if (ordinal < 0 || userSizes[ordinal] == 0) {
+            return false;
+        }
+        for (int i = 0; i < userSizes[ordinal]; i++) {
+            int row = userRows[ordinal][i];
+            readingsCount -= Long.bitCount(presence[row]);
+            presence[row] = 0;
+        }
+        userPeriods[ordinal] = new int[2];
+        userRows[ordinal] = new int[2];
+        userSizes[ordinal] = 0;
+        return true;
+    }
+
+    /**
+     * Возвращает количество хранимых значений показаний (одно значение - один тип показаний за один период).
+     *
+     * @return Количество значений показаний.
+     */
+    public long getReadingsCount() {
+        return readingsCount;
+    }
+
+    /**
+     * Оценивает объем памяти, занимаемый колонками и индексами хранилища, в байтах.
+     * Учитываются заголовки и полная емкость массивов, служебные карты словарей оцениваются приблизительно.
+     *
+     * @return Оценка занимаемой памяти в байтах.
+     */
+    public long estimateMemoryUsage() {
+        long bytes = arrayBytes(presence.length, Long.BYTES) + arrayBytes(userSizes.length, Integer.BYTES);
+        for (double[] column : columns) {
+            bytes += arrayBytes(column.length, Double.BYTES);
+        }
+        for (int i = 0; i < userCount; i++) {
+            bytes += arrayBytes(userPeriods[i].length, Integer.BYTES) + arrayBytes(userRows[i].length, Integer.BYTES);
+        }
+        bytes += arrayBytes(userPeriods.length, 4) + arrayBytes(userRows.length, 4);
+        return bytes;
+    }
+
+    /**
+     * Возвращает среднее количество байт на одно значение показаний.
+     *
+     * @return Байт на одно значение показаний или 0, если показаний нет.
+     */
+    public double getBytesPerReading() {
+        return readingsCount == 0 ? 0 : (double) estimateMemoryUsage() / readingsCount;
+    }
+
+    /**
+     * @return Порядковый номер пользователя или -1, если он еще не подавал показаний.
+     */
+    private int ordinalOf(User user) {
+        return userOrdinals.find(user);
+    }
+
+    private int newUser(User user) {
+        int ordinal = userOrdinals.assign(user);
+        userCount++;
+        if (ordinal == userSizes.length) {
+            int capacity = grow(ordinal);
+            userPeriods = Arrays.copyOf(userPeriods, capacity);
+            userRows = Arrays.copyOf(userRows, capacity);
+            userSizes = Arrays.copyOf(userSizes, capacity);
+        }
+        userPeriods[ordinal] = new int[2];
+        userRows[ordinal] = new int[2];
+        return ordinal;
+    }
+
+    private void insertPeriod(int ordinal, int position, int period, int row) {
+        int size = userSizes[ordinal];
+        if (size == userPeriods[ordinal].length) {
+            int capacity = size + Math.max(2, size >> 1);
+            userPeriods[ordinal] = Arrays.copyOf(userPeriods[ordinal], capacity);
+            userRows[ordinal] = Arrays.copyOf(userRows[ordinal], capacity);
+        }
+        System.arraycopy(userPeriods[ordinal], position, userPeriods[ordinal], position + 1, size - position);
+        System.arraycopy(userRows[ordinal], position, userRows[ordinal], position + 1, size - position);
+        userPeriods[ordinal][position] = period;
+        userRows[ordinal][position] = row;
+        userSizes[ordinal] = size + 1;
+    }
+
+    private int newRow() {
+        ensureRowCapacity(rowCount + 1);
+        return rowCount++;
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rows > presence.length) {
+            int capacity = Math.max(rows, grow(presence.length));
+            presence = Arrays.copyOf(presence, capacity);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+    }
+
+    private int meterId(String type) {
+        Integer id = meterIds.get(type);
+        if (id != null) {
+            return id;
+        }
+        int newId = meterNames.length;
+        if (newId == MAX_METER_TYPES) {
+            throw new IllegalStateException("Превышено количество типов показаний: " + MAX_METER_TYPES);
+        }
+        meterNames = Arrays.copyOf(meterNames, newId + 1);
+        meterNames[newId] = type;
+        columns = Arrays.copyOf(columns, newId + 1);
+        columns[newId] = new double[presence.length];
+        meterIds.put(type, newId);
+        return newId;
+    }
+
+    private Readings materialize(int row) {
+        Readings readings = new Readings();
+        long mask = presence[row];
+        while (mask != 0) {
+            int meter = Long.numberOfTrailingZeros(mask);
+            readings.add(meterNames[meter], columns[meter][row]);
+            mask &= mask - 1;
+        }
+        return readings;
+    }
+
+    private int lowerBound(int ordinal, int key) {
+        int position = Arrays.binarySearch(userPeriods[ordinal], 0, userSizes[ordinal], key);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private Optional<Map.Entry<YearMonth, Readings>> entryAt(int ordinal, int position) {
+        if (position < 0 || position >= userSizes[ordinal]) {
+            return Optional.empty();
+        }
+        return Optional.of(new AbstractMap.SimpleImmutableEntry<>(
+                Periods.fromKey(userPeriods[ordinal][position]), materialize(userRows[ordinal][position])));
+    }
+
+    private SortedMap<YearMonth, Readings> slice(int ordinal, int start, int end) {
+        TreeMap<YearMonth, Readings> result = new TreeMap<>();
+        for (int i = start; i < end; i++) {
+            result.put(Periods.fromKey(userPeriods[ordinal][i]), materialize(userRows[ordinal][i]));
+        }
+        return result;
+    }
+
+    private static int grow(int size) {
+        return Math.max(INITIAL_CAPACITY, size + (size >> 1));
+    }
+
+    private static long arrayBytes(int length, int elementSize) {
+        return 16 + (long) length * elementSize;
+    }
+
+    /**
+     * Ленивое представление показаний одного пользователя в виде карты "период - показания".
+     */
+    private class UserReadingsView extends AbstractMap<YearMonth, Readings> {
+        private final int ordinal;
+
+        private UserReadingsView(int ordinal) {
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public int size() {
+            return userSizes[ordinal];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof YearMonth period
+                    && Arrays.binarySearch(userPeriods[ordinal], 0, userSizes[ordinal], Periods.toKey(period)) >= 0;
+        }
+
+        @Override
+        public Readings get(Object key) {
+            if (!(key instanceof YearMonth period)) {
+                return null;
+            }
+            int position = Arrays.binarySearch(userPeriods[ordinal], 0, userSizes[ordinal], Periods.toKey(period));
+            return position < 0 ? null : materialize(userRows[ordinal][position]);
+        }
+
+        @Override
+        public Set<Entry<YearMonth, Readings>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<YearMonth, Readings>> iterator() {
+                    return new Iterator<>() {
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < userSizes[ordinal];
+                        }
+
+                        @Override
+                        public Entry<YearMonth, Readings> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            YearMonth period = Periods.fromKey(userPeriods[ordinal][position]);
+                            Readings readings = materialize(userRows[ordinal][position]);
+                            position++;
+                            return new SimpleImmutableEntry<>(period, readings);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return userSizes[ordinal];
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package repositories.impl;
+
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import repositories.ReadingsRepository;
+
+import java.time.YearMonth;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Потокобезопасная реализация интерфейса ReadingsRepository.
+ * Пользователи хранятся в ConcurrentHashMap по логину (блокировки разбиты по корзинам таблицы),
+ * показания каждого пользователя - в неблокирующей ConcurrentSkipListMap, упорядоченной по периоду.
+ * Глобальной блокировки нет, подача показаний разными пользователями не конкурирует между собой.
+ * Для каждого пользователя поддерживается ссылка на показания за последний период, обновляемая через CAS.
+ */
+public class ConcurrentReadingsRepositoryImpl implements ReadingsRepository {
+    private final ConcurrentMap<String, UserReadings> usersReadings = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addReadings(User user, YearMonth period, Readings readings) {
+        UserReadings userReadings = readingsOf(user);
+        userReadings.readings.put(period, readings);
+        userReadings.updateLatest(period, readings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean addReadingsIfAbsent(User user, YearMonth period, Readings readings) {
+        UserReadings userReadings = readingsOf(user);
+        if (userReadings.readings.putIfAbsent(period, readings) != null) {
+            return false;
+        }
+        userReadings.updateLatest(period, readings);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Возвращает неизменяемое представление, упорядоченное по периоду, со слабо согласованной итерацией.
+     */
+    public Optional<Map<YearMonth, Readings>> getAllReadings(User user) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        return userReadings == null ? Optional.empty() : Optional.of(Collections.unmodifiableMap(userReadings.readings));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        return userReadings == null ? Optional.empty() : Optional.ofNullable(userReadings.readings.get(period));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        if (userReadings == null) {
+            return Optional.empty();
+        }
+        Map.Entry<YearMonth, Readings> latest = userReadings.latest.get();
+        return latest == null ? Optional.empty() : Optional.of(latest.getValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Обходит список с пропусками с конца, поэтому стоимость зависит от count, а не от длины истории.
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        TreeMap<YearMonth, Readings> result = new TreeMap<>();
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        if (userReadings != null) {
+            var iterator = userReadings.readings.descendingMap().entrySet().iterator();
+            for (int i = 0; i < count && iterator.hasNext(); i++) {
+                var entry = iterator.next();
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Возвращает неизменяемое представление диапазона списка с пропусками.
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        if (userReadings == null || from.isAfter(to)) {
+            return Collections.emptySortedMap();
+        }
+        return Collections.unmodifiableSortedMap(userReadings.readings.subMap(from, true, to, true));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Копирует не более limit элементов из хвоста списка с пропусками.
+     */
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        TreeMap<YearMonth, Readings> page = new TreeMap<>();
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        if (userReadings != null) {
+            for (var entry : userReadings.readings.tailMap(from, true).entrySet()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return page;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getPreviousReadings(User user, YearMonth period) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        return userReadings == null ? Optional.empty() : Optional.ofNullable(userReadings.readings.lowerEntry(period));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getNextReadings(User user, YearMonth period) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        return userReadings == null ? Optional.empty() : Optional.ofNullable(userReadings.readings.higherEntry(period));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Подряд идущие записи одного пользователя используют один поиск в таблице пользователей.
+     */
+    public boolean[] addReadingsBatch(List<ReadingsEntry> batch) {
+        boolean[] added = new boolean[batch.size()];
+        UserReadings userReadings = null;
+        User user = null;
+        for (int i = 0; i < added.length; i++) {
+            ReadingsEntry entry = batch.get(i);
+            if (entry.getUser() != user) {
+                user = entry.getUser();
+                userReadings = readingsOf(user);
+            }
+            added[i] = userReadings.readings.putIfAbsent(entry.getPeriod(), entry.getReadings()) == null;
+            if (added[i]) {
+                userReadings.updateLatest(entry.getPeriod(), entry.getReadings());
+            }
+        }
+        return added;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean removeAllReadings(User user) {
+        UserReadings removed = usersReadings.remove(user.getLogin());
+        return removed != null && !removed.readings.isEmpty();
+    }
+
+    private UserReadings readingsOf(User user) {
+        return usersReadings.computeIfAbsent(user.getLogin(), k -> new UserReadings());
+    }
+
+    /**
+     * Показания одного пользователя и ссылка на показания за последний период.
+     */
+    private static final class UserReadings {
+        private final ConcurrentSkipListMap<YearMonth, Readings> readings = new ConcurrentSkipListMap<>();
+        private final AtomicReference<Map.Entry<YearMonth, Readings>> latest = new AtomicReference<>();
+
+        private void updateLatest(YearMonth period, Readings value) {
+            Map.Entry<YearMonth, Readings> candidate = new AbstractMap.SimpleImmutableEntry<>(period, value);
+            while (true) {
+                Map.Entry<YearMonth, Readings> current = latest.get();
+                if (current != null && current.getKey().compareTo(period) > 0) {
+                    return;
+                }
+                if (latest.compareAndSet(current, candidate)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package repositories.impl;
+
+import enums.Role;
+import models.User;
+import repositories.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Потокобезопасная реализация интерфейса UserRepository.
+ * Хранит пользователей в ConcurrentHashMap, поэтому чтение не блокируется,
+ * а запись блокирует только одну корзину таблицы.
+ * Для постраничного обхода логины дополнительно хранятся в упорядоченном ConcurrentSkipListSet,
+ * поэтому поиск пользователя по логину не платит за упорядоченность. По этому же множеству
+ * LoginIndex выполняет поиск по префиксу и поиск похожих логинов, так что индекс обновляется вместе с addUser.
+ */
+public class ConcurrentUserRepositoryImpl implements UserRepository {
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> sortedLogins = new ConcurrentSkipListSet<>();
+    private final LoginIndex index = new LoginIndex(sortedLogins);
+
+    {
+        addUser(new User("login", "pass", Role.USER));
+        addUser(new User("admin", "admin", Role.ADMIN));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addUser(User user) {
+        if (users.put(user.getLogin(), user) == null) {
+            sortedLogins.add(user.getLogin());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void updateUser(User user) {
+        users.put(user.getLogin(), user);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<User> getUser(String login) {
+        return Optional.ofNullable(users.get(login));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Список формируется по слабо согласованному снимку ключей.
+     */
+    public List<String> getAllLogins() {
+        return new ArrayList<>(users.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getLogins(String afterLogin, int limit) {
+        return index.page(afterLogin, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Поток слабо согласован: логины, добавленные во время обхода, могут в него не попасть.
+     */
+    public Stream<String> logins() {
+        return sortedLogins.stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> findLoginsByPrefix(String prefix, int limit) {
+        return index.findByPrefix(prefix, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> findSimilarLogins(String login, int maxDistance, int limit) {
+        return index.findSimilar(login, maxDistance, limit);
+    }
+}
@@ -0,0 +1,136 @@
+package repositories.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Неизменяемое кольцо согласованного хеширования.
+ * Каждый узел представлен на кольце virtualNodes точками, ключ принадлежит узлу первой точки по часовой стрелке
+ * от хеша ключа. Точки хранятся в отсортированном массиве, а старшие биты хеша индексируют таблицу начальных
+ * позиций, поэтому поиск владельца - обращение к таблице и проверка одной-двух точек вместо двоичного поиска
+ * с плохо предсказуемыми переходами.
+ * При добавлении узла ему переходит примерно 1/N ключей, остальные ключи остаются на прежних узлах.
+ */
+public final class ConsistentHashRing {
+    private static final int BUCKET_BITS = 12;
+
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final long[] points;
+    private final int[] owners;
+    private final int[] buckets;
+
+    /**
+     * @param nodes        Имена узлов.
+     * @param virtualNodes Количество точек каждого узла на кольце.
+     */
+    public ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Кольцо должно содержать хотя бы один узел");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Количество точек узла должно быть положительным");
+        }
+        if (nodes.stream().distinct().count() != nodes.size()) {
+            throw new IllegalArgumentException("Имена узлов повторяются: " + nodes);
+        }
+        this.nodes = List.copyOf(nodes);
+        this.virtualNodes = virtualNodes;
+        List<Point> ring = new ArrayList<>(nodes.size() * virtualNodes);
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.add(new Point(hash(nodes.get(node) + "#" + i), node));
+            }
+        }
+        Collections.sort(ring);
+        points = new long[ring.size()];
+        owners = new int[ring.size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = ring.get(i).hash;
+            owners[i] = ring.get(i).node;
+        }
+        buckets = new int[(1 << BUCKET_BITS) + 1];
+        int index = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            while (index < points.length && bucket(points[index]) < bucket) {
+                index++;
+            }
+            buckets[bucket] = index;
+        }
+    }
+
+    /**
+     * @param node Имя добавляемого узла.
+     * @return Новое кольцо с добавленным узлом; текущее кольцо не изменяется.
+     */
+    public ConsistentHashRing withNode(String node) {
+        List<String> extended = new ArrayList<>(nodes);
+        extended.add(node);
+        return new ConsistentHashRing(extended, virtualNodes);
+    }
+
+    /**
+     * @param key Ключ, например логин пользователя.
+     * @return Имя узла, которому принадлежит ключ.
+     */
+    public String nodeFor(String key) {
+        return nodes.get(indexFor(key));
+    }
+
+    /**
+     * @param key Ключ, например логин пользователя.
+     * @return Номер узла, которому принадлежит ключ, в списке getNodes().
+     */
+    public int indexFor(String key) {
+        long hash = hash(key);
+        int index = buckets[bucket(hash)];
+        while (index < points.length && points[index] < hash) {
+            index++;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @return Имена узлов в порядке добавления.
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Номер интервала кольца: хеши упорядочены как числа со знаком, поэтому старший бит инвертируется.
+     */
+    private static int bucket(long hash) {
+        return (int) ((hash ^ Long.MIN_VALUE) >>> (Long.SIZE - BUCKET_BITS));
+    }
+
+    /**
+     * Хеш строки, кешируемый в самой строке, перемешанный финализатором MurmurHash3, чтобы близкие строки
+     * (логины и имена точек с последовательными номерами) равномерно распределялись по кольцу.
+     * Повторные запросы по одному логину не обходят его символы.
+     */
+    static long hash(String key) {
+        long h = key.hashCode() * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Point implements Comparable<Point> {
+        private final long hash;
+        private final int node;
+
+        private Point(long hash, int node) {
+            this.hash = hash;
+            this.node = node;
+        }
+
+        public int compareTo(Point other) {
+            return Long.compare(hash, other.hash);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package repositories.impl;
+
+import models.Readings;
+import models.User;
+import repositories.ConsumptionRepository;
+
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Потокобезопасная реализация интерфейса ConsumptionRepository.
+ * Хранит потребление в ConcurrentHashMap по логину и периоду, поэтому чтение выполняется за O(1).
+ */
+public class ConsumptionRepositoryImpl implements ConsumptionRepository {
+    private final ConcurrentMap<String, ConcurrentMap<YearMonth, Readings>> usersConsumption = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void saveConsumption(User user, YearMonth period, Readings consumption) {
+        usersConsumption.computeIfAbsent(user.getLogin(), k -> new ConcurrentHashMap<>()).put(period, consumption);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getConsumption(User user, YearMonth period) {
+        ConcurrentMap<YearMonth, Readings> consumption = usersConsumption.get(user.getLogin());
+        return consumption == null ? Optional.empty() : Optional.ofNullable(consumption.get(period));
+    }
+}
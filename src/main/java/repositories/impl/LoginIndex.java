@@ -0,0 +1,215 @@
+package repositories.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+
+/**
+ * Поиск по упорядоченному множеству логинов: страницы по курсору, поиск по префиксу
+ * и поиск похожих логинов с ограниченным расстоянием Левенштейна.
+ * <p>
+ * Отдельное дерево префиксов не строится: упорядоченное множество само является его плоским представлением,
+ * так как логины с общим префиксом лежат подряд. Поиск по префиксу - это переход к первому логину не меньше префикса
+ * и обход, пока логины начинаются с него. Поиск похожих логинов обходит множество как дерево префиксов, переходя
+ * к продолжениям префикса поиском ceiling, и не заходит в префиксы, расстояние от которых до искомого логина
+ * уже больше допустимого.
+ * Множество не копируется, поэтому изменения в нем сразу видны поиску.
+ */
+public final class LoginIndex {
+    private final NavigableSet<String> logins;
+
+    /**
+     * @param logins Упорядоченное множество логинов, по которому выполняется поиск.
+     */
+    public LoginIndex(NavigableSet<String> logins) {
+        this.logins = logins;
+    }
+
+    /**
+     * @param afterLogin Логин, после которого начинается страница, или null для первой страницы.
+     * @param limit      Максимальное количество логинов на странице.
+     * @return Логины, большие afterLogin, не более limit штук в порядке возрастания.
+     */
+    public List<String> page(String afterLogin, int limit) {
+        var tail = afterLogin == null ? logins : logins.tailSet(afterLogin, false);
+        return tail.stream().limit(limit).toList();
+    }
+
+    /**
+     * @param prefix Префикс логина.
+     * @param limit  Максимальное количество результатов.
+     * @return Логины, начинающиеся с prefix, не более limit штук в порядке возрастания;
+     * пустой список, если limit не положителен.
+     */
+    public List<String> findByPrefix(String prefix, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (String login : logins.tailSet(prefix, true)) {
+            if (result.size() == limit || !login.startsWith(prefix)) {
+                break;
+            }
+            result.add(login);
+        }
+        return result;
+    }
+
+    /**
+     * Находит логины, отличающиеся от заданного не более чем на maxDistance вставок, удалений и замен символов.
+     *
+     * @param login       Искомый логин.
+     * @param maxDistance Максимальное расстояние Левенштейна.
+     * @param limit       Максимальное количество результатов.
+     * @return Ближайшие логины, не более limit штук, упорядоченные по расстоянию, затем по логину;
+     * пустой список, если limit не положителен или maxDistance отрицательно.
+     */
+    public List<String> findSimilar(String login, int maxDistance, int limit) {
+        if (limit <= 0 || maxDistance < 0) {
+            return List.of();
+        }
+        Search search = new Search(login, maxDistance, limit);
+        String first = logins.isEmpty() ? null : logins.first();
+        if (first != null) {
+            search.visit("", first);
+        }
+        return search.result();
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    /**
+     * Обход множества логинов как дерева префиксов с построчным вычислением таблицы расстояний.
+     * Узел - префикс, для которого известен наименьший логин с этим префиксом. Пока расстояние префикса
+     * допускает еще одну ошибку, перебираются все имеющиеся продолжения префикса, иначе продолжить префикс
+     * без новой ошибки можно только символами искомого логина около текущей позиции, и ищутся только они.
+     */
+    private final class Search {
+        private final String login;
+        private final int maxDistance;
+        private final int limit;
+        private final int[][] rows;
+        private final PriorityQueue<Match> best = new PriorityQueue<>(Comparator.reverseOrder());
+
+        private Search(String login, int maxDistance, int limit) {
+            this.login = login;
+            this.maxDistance = maxDistance;
+            this.limit = limit;
+            rows = new int[login.length() + maxDistance + 1][login.length() + 1];
+            for (int i = 0; i <= login.length(); i++) {
+                rows[0][i] = i;
+            }
+        }
+
+        /**
+         * @param prefix Префикс, строка расстояний для которого записана в rows[prefix.length()].
+         * @param first  Наименьший логин, начинающийся с prefix.
+         */
+        private void visit(String prefix, String first) {
+            int depth = prefix.length();
+            int[] row = rows[depth];
+            if (first.length() == depth) {
+                offer(first, row[login.length()]);
+            }
+            if (depth + 1 == rows.length) {
+                return;
+            }
+            int bound = bound();
+            if (min(row) < bound) {
+                String child = first.length() == depth ? logins.higher(first) : first;
+                while (child != null && child.startsWith(prefix)) {
+                    char c = child.charAt(depth);
+                    descend(prefix, c, child);
+                    if (c == Character.MAX_VALUE) {
+                        break;
+                    }
+                    child = logins.ceiling(prefix + (char) (c + 1));
+                }
+                return;
+            }
+            char[] chars = new char[login.length()];
+            int count = 0;
+            for (int i = 0; i < login.length(); i++) {
+                if (row[i] <= bound) {
+                    chars[count++] = login.charAt(i);
+                }
+            }
+            Arrays.sort(chars, 0, count);
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && chars[i] == chars[i - 1]) {
+                    continue;
+                }
+                String extended = prefix + chars[i];
+                String child = logins.ceiling(extended);
+                if (child != null && child.startsWith(extended)) {
+                    descend(prefix, chars[i], child);
+                }
+            }
+        }
+
+        private void descend(String prefix, char c, String child) {
+            int depth = prefix.length();
+            int[] previous = rows[depth];
+            int[] row = rows[depth + 1];
+            row[0] = previous[0] + 1;
+            for (int i = 1; i < row.length; i++) {
+                int substitution = previous[i - 1] + (login.charAt(i - 1) == c ? 0 : 1);
+                row[i] = Math.min(substitution, Math.min(previous[i], row[i - 1]) + 1);
+            }
+            if (min(row) <= bound()) {
+                visit(prefix + c, child);
+            }
+        }
+
+        /**
+         * @return Наибольшее расстояние, при котором логин еще может попасть в результат.
+         */
+        private int bound() {
+            return best.size() == limit ? Math.min(maxDistance, best.peek().distance) : maxDistance;
+        }
+
+        private void offer(String candidate, int distance) {
+            if (distance > maxDistance) {
+                return;
+            }
+            Match match = new Match(candidate, distance);
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (match.compareTo(best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        private List<String> result() {
+            List<Match> sorted = new ArrayList<>(best);
+            sorted.sort(null);
+            return sorted.stream().map(match -> match.login).toList();
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        private final String login;
+        private final int distance;
+
+        private Match(String login, int distance) {
+            this.login = login;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            int byDistance = Integer.compare(distance, other.distance);
+            return byDistance != 0 ? byDistance : login.compareTo(other.login);
+        }
+    }
+}
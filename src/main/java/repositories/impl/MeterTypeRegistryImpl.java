@@ -0,0 +1,51 @@
+package repositories.impl;
+
+import models.MeterTypes;
+import repositories.MeterTypeRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Потокобезопасная реализация интерфейса MeterTypeRegistry в памяти.
+ * Зарегистрированные типы отмечаются битами в long[], индексированном идентификатором типа, поэтому проверка типа
+ * при подаче показаний - одно чтение volatile-поля и битовая операция. Регистрация происходит редко
+ * и заменяет массив копией под блокировкой.
+ */
+public class MeterTypeRegistryImpl implements MeterTypeRegistry {
+    private volatile long[] registered = new long[0];
+    private volatile List<String> names = List.of();
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized int register(String name) {
+        int meter = MeterTypes.idOf(name);
+        if (isRegistered(meter)) {
+            return meter;
+        }
+        long[] grown = Arrays.copyOf(registered, Math.max(registered.length, (meter >>> 6) + 1));
+        grown[meter >>> 6] |= 1L << meter;
+        String[] added = names.toArray(new String[names.size() + 1]);
+        added[names.size()] = name;
+        names = List.of(added);
+        registered = grown;
+        return meter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isRegistered(int meter) {
+        long[] current = registered;
+        int word = meter >>> 6;
+        return meter >= 0 && word < current.length && (current[word] & (1L << meter)) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getMeterTypes() {
+        return names;
+    }
+}
@@ -4,44 +4,159 @@ import models.Readings;
 import models.User;
 import repositories.ReadingsRepository;
 
-import java.time.Month;
+import java.time.YearMonth;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * Реализация интерфейса ReadingsRepository.
- * Хранит показания всех пользователей.
+ * Хранит показания всех пользователей, показания каждого пользователя упорядочены по периоду.
+ * Пользователи хранятся в HashMap по логину, поэтому смена пароля не влияет на доступ к показаниям.
+ * Вместе с показаниями пользователя хранится его последний период, так что любой запрос - один поиск по логину.
  */
 public class ReadingsRepositoryImpl implements ReadingsRepository {
-    private final Map<User, Map<Month, Readings>> usersReadings = new HashMap<>();
+    private final Map<String, UserReadings> usersReadings = new HashMap<>();
 
     /**
      * {@inheritDoc}
-     * Если пользователь еще не подавал показания, создает новую карту LinkedHashMap показаний для него.
+     * Если пользователь еще не подавал показания, создает новую карту TreeMap показаний для него.
      */
-    public void addReadings(User user, Month month, Readings readings) {
-        var readingsMap = usersReadings.computeIfAbsent(user, k -> new LinkedHashMap<>());
-        readingsMap.put(month, readings);
+    public void addReadings(User user, YearMonth period, Readings readings) {
+        UserReadings userReadings = usersReadings.computeIfAbsent(user.getLogin(), k -> new UserReadings());
+        userReadings.readings.put(period, readings);
+        userReadings.updateLatest(period);
     }
 
     /**
      * {@inheritDoc}
      */
-    public Optional<Map<Month, Readings>> getAllReadings(User user) {
-        return Optional.ofNullable(usersReadings.get(user));
+    public boolean addReadingsIfAbsent(User user, YearMonth period, Readings readings) {
+        UserReadings userReadings = usersReadings.computeIfAbsent(user.getLogin(), k -> new UserReadings());
+        if (userReadings.readings.putIfAbsent(period, readings) != null) {
+            return false;
+        }
+        userReadings.updateLatest(period);
+        return true;
     }
 
     /**
      * {@inheritDoc}
      */
-    public Optional<Readings> getReadingsByMonth(User user, Month month) {
-        var readingsMap = usersReadings.get(user);
+    public Optional<Map<YearMonth, Readings>> getAllReadings(User user) {
+        return Optional.ofNullable(readingsOf(user));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        var readingsMap = readingsOf(user);
         if (readingsMap != null) {
-            return Optional.ofNullable(readingsMap.get(month));
+            return Optional.ofNullable(readingsMap.get(period));
         } else {
             return Optional.empty();
         }
     }
+
+    /**
+     * {@inheritDoc}
+     * Последний период хранится вместе с показаниями пользователя и обновляется при добавлении показаний.
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        return userReadings == null || userReadings.latest == null ? Optional.empty()
+                : Optional.ofNullable(userReadings.readings.get(userReadings.latest));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        TreeMap<YearMonth, Readings> result = new TreeMap<>();
+        var readingsMap = readingsOf(user);
+        if (readingsMap != null) {
+            var iterator = readingsMap.descendingMap().entrySet().iterator();
+            for (int i = 0; i < count && iterator.hasNext(); i++) {
+                var entry = iterator.next();
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        var readingsMap = readingsOf(user);
+        if (readingsMap == null || from.isAfter(to)) {
+            return Collections.emptySortedMap();
+        }
+        return new TreeMap<>(readingsMap.subMap(from, true, to, true));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getPreviousReadings(User user, YearMonth period) {
+        var readingsMap = readingsOf(user);
+        return readingsMap == null ? Optional.empty() : Optional.ofNullable(readingsMap.lowerEntry(period));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getNextReadings(User user, YearMonth period) {
+        var readingsMap = readingsOf(user);
+        return readingsMap == null ? Optional.empty() : Optional.ofNullable(readingsMap.higherEntry(period));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Копирует не более limit элементов из хвоста TreeMap.
+     */
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        TreeMap<YearMonth, Readings> page = new TreeMap<>();
+        var readingsMap = readingsOf(user);
+        if (readingsMap != null) {
+            for (var entry : readingsMap.tailMap(from, true).entrySet()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return page;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean removeAllReadings(User user) {
+        UserReadings removed = usersReadings.remove(user.getLogin());
+        return removed != null && !removed.readings.isEmpty();
+    }
+
+    private TreeMap<YearMonth, Readings> readingsOf(User user) {
+        UserReadings userReadings = usersReadings.get(user.getLogin());
+        return userReadings == null ? null : userReadings.readings;
+    }
+
+    /**
+     * Показания одного пользователя и его последний период.
+     */
+    private static final class UserReadings {
+        private final TreeMap<YearMonth, Readings> readings = new TreeMap<>();
+        private YearMonth latest;
+
+        private void updateLatest(YearMonth period) {
+            if (latest == null || period.isAfter(latest)) {
+                latest = period;
+            }
+        }
+    }
 }
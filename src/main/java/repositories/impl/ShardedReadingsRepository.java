@@ -0,0 +1,419 @@
+package repositories.impl;
+
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import repositories.ReadingsRepository;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Реализация интерфейса ReadingsRepository, распределяющая пользователей между несколькими хранилищами (шардами)
+ * согласованным хешированием логина. Каждый шард - самостоятельный ReadingsRepository, например
+ * ConcurrentReadingsRepositoryImpl или хранилище с журналом на отдельном диске, поэтому история пользователя
+ * целиком находится в одном шарде и запросы по пользователю выполняются одним обращением к его шарду.
+ * <p>
+ * Запросы по всем пользователям выполняются методом scatter: запрос параллельно выполняется на каждом шарде
+ * в пуле ForkJoinPool, а частичные результаты собираются в список.
+ * <p>
+ * Шард можно добавить без остановки подачи показаний (addShard). Новый узел получает примерно 1/N пользователей,
+ * их история копируется в новый шард и удаляется из прежнего, поэтому прежние шарды должны поддерживать
+ * removeAllReadings. Пока идет перенос, пользователь, которого еще не перенесли, обслуживается прежним шардом,
+ * а перенесенный пользователь и пользователь без показаний - новым. Подача выполняется под блокировкой чтения
+ * полосы пользователя, чтение - без блокировки с проверкой штампа, перенос пользователя - под блокировкой записи,
+ * поэтому запрос не видит пользователя в середине переноса. Шарды должны быть потокобезопасными. Запросы по всем пользователям во время переноса согласованы слабо.
+ */
+public class ShardedReadingsRepository implements ReadingsRepository {
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+    private static final int STRIPES = 64;
+
+    private final ForkJoinPool pool;
+    private final StampedLock[] locks = new StampedLock[STRIPES];
+    private volatile Topology topology;
+
+    /**
+     * @param shards Шарды по именам узлов.
+     */
+    public ShardedReadingsRepository(Map<String, ReadingsRepository> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param shards       Шарды по именам узлов.
+     * @param virtualNodes Количество точек каждого узла на кольце согласованного хеширования.
+     * @param pool         Пул, в котором выполняются запросы по всем шардам.
+     */
+    public ShardedReadingsRepository(Map<String, ReadingsRepository> shards, int virtualNodes, ForkJoinPool pool) {
+        this.pool = pool;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+        Map<String, Shard> nodes = new LinkedHashMap<>();
+        shards.forEach((name, repository) -> nodes.put(name, new Shard(repository)));
+        topology = new Topology(new ConsistentHashRing(List.copyOf(shards.keySet()), virtualNodes), null, nodes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addReadings(User user, YearMonth period, Readings readings) {
+        write(user, repository -> {
+            repository.addReadings(user, period, readings);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean addReadingsIfAbsent(User user, YearMonth period, Readings readings) {
+        return write(user, repository -> repository.addReadingsIfAbsent(user, period, readings));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map<YearMonth, Readings>> getAllReadings(User user) {
+        return read(user, repository -> repository.getAllReadings(user));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        return read(user, repository -> repository.getReadingsByMonth(user, period));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        return read(user, repository -> repository.getLastReadings(user));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        return read(user, repository -> repository.getLatestReadings(user, count));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        return read(user, repository -> repository.getReadingsBetween(user, from, to));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getPreviousReadings(User user, YearMonth period) {
+        return read(user, repository -> repository.getPreviousReadings(user, period));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Map.Entry<YearMonth, Readings>> getNextReadings(User user, YearMonth period) {
+        return read(user, repository -> repository.getNextReadings(user, period));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Страница целиком читается из шарда пользователя.
+     */
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        return read(user, repository -> repository.getReadings(user, from, limit));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean removeAllReadings(User user) {
+        StampedLock lock = locks[stripe(user)];
+        long stamp = lock.readLock();
+        try {
+            Shard shard = route(user);
+            shard.users.remove(user.getLogin());
+            return shard.repository.removeAllReadings(user);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Записи группируются по шардам, и каждый шард получает свою часть одним вызовом addReadingsBatch.
+     */
+    public boolean[] addReadingsBatch(List<ReadingsEntry> batch) {
+        long stripes = 0;
+        for (ReadingsEntry entry : batch) {
+            stripes |= 1L << stripe(entry.getUser());
+        }
+        long[] stamps = new long[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            if ((stripes & (1L << i)) != 0) {
+                stamps[i] = locks[i].readLock();
+            }
+        }
+        try {
+            Map<Shard, List<Integer>> positions = new IdentityHashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                User user = batch.get(i).getUser();
+                Shard shard = route(user);
+                shard.users.putIfAbsent(user.getLogin(), user);
+                positions.computeIfAbsent(shard, key -> new ArrayList<>()).add(i);
+            }
+            boolean[] added = new boolean[batch.size()];
+            positions.forEach((shard, indexes) -> {
+                List<ReadingsEntry> part = new ArrayList<>(indexes.size());
+                for (int index : indexes) {
+                    part.add(batch.get(index));
+                }
+                boolean[] partAdded = shard.repository.addReadingsBatch(part);
+                for (int i = 0; i < partAdded.length; i++) {
+                    added[indexes.get(i)] = partAdded[i];
+                }
+            });
+            return added;
+        } finally {
+            for (int i = 0; i < STRIPES; i++) {
+                if ((stripes & (1L << i)) != 0) {
+                    locks[i].unlockRead(stamps[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Выполняет запрос на всех шардах параллельно и собирает частичные результаты.
+     * Запрос получает хранилище шарда и пользователей, показания которых в нем хранятся.
+     *
+     * @param query Запрос к одному шарду.
+     * @param <R>   Тип частичного результата.
+     * @return Частичные результаты шардов в порядке добавления узлов.
+     */
+    public <R> List<R> scatter(BiFunction<ReadingsRepository, Collection<User>, R> query) {
+        List<ForkJoinTask<R>> tasks = new ArrayList<>();
+        for (Shard shard : topology.shards.values()) {
+            Collection<User> users = Collections.unmodifiableCollection(shard.users.values());
+            tasks.add(pool.submit(() -> query.apply(shard.repository, users)));
+        }
+        List<R> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<R> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * @param login Логин пользователя.
+     * @return Имя узла, которому принадлежит пользователь после завершения переносов.
+     */
+    public String getNode(String login) {
+        Topology current = topology;
+        return (current.next == null ? current.ring : current.next).nodeFor(login);
+    }
+
+    /**
+     * @return Количество пользователей с показаниями в каждом шарде, в порядке добавления узлов.
+     */
+    public Map<String, Integer> getShardSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        topology.shards.forEach((name, shard) -> sizes.put(name, shard.users.size()));
+        return sizes;
+    }
+
+    /**
+     * Добавляет шард и переносит в него пользователей, которые по новому кольцу принадлежат ему.
+     * Подача и чтение показаний во время переноса продолжаются; одновременно выполняется только одно добавление.
+     * Если перенос не удался, пользователи нового шарда возвращаются в прежние шарды и восстанавливается
+     * прежняя топология.
+     *
+     * @param name       Имя нового узла.
+     * @param repository Хранилище нового шарда.
+     * @return Количество перенесенных пользователей.
+     * @throws RuntimeException Исключение хранилища, из-за которого перенос не удался.
+     */
+    public synchronized int addShard(String name, ReadingsRepository repository) {
+        Topology current = topology;
+        if (current.shards.containsKey(name)) {
+            throw new IllegalArgumentException("Узел " + name + " уже добавлен");
+        }
+        Shard added = new Shard(repository);
+        Map<String, Shard> shards = new LinkedHashMap<>(current.shards);
+        shards.put(name, added);
+        ConsistentHashRing next = current.ring.withNode(name);
+        topology = new Topology(current.ring, next, shards);
+        awaitInFlight();
+        int moved = 0;
+        User migrating = null;
+        try {
+            for (Shard shard : current.shards.values()) {
+                for (User user : shard.users.values()) {
+                    if (name.equals(next.nodeFor(user.getLogin()))) {
+                        migrating = user;
+                        migrate(user, shard, added);
+                        moved++;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            rollback(current, added, migrating, e);
+            throw e;
+        }
+        topology = new Topology(next, null, shards);
+        return moved;
+    }
+
+    /**
+     * Возвращает в прежние шарды пользователей нового шарда (перенесенных и подавших первые показания
+     * во время переноса) и восстанавливает прежнюю топологию. Показания пользователя, на котором перенос
+     * прервался, могли частично скопироваться в новый шард, поэтому они тоже возвращаются; показания,
+     * уже имеющиеся в прежнем шарде, не перезаписываются. Если вернуть пользователей не удалось,
+     * топология остается в состоянии переноса, чтобы ни один пользователь не потерял показания.
+     */
+    private void rollback(Topology previous, Shard added, User interrupted, RuntimeException failure) {
+        try {
+            List<User> users = new ArrayList<>(added.users.values());
+            if (interrupted != null && !added.users.containsKey(interrupted.getLogin())) {
+                users.add(interrupted);
+            }
+            for (User user : users) {
+                migrate(user, added, previous.owners[previous.ring.indexFor(user.getLogin())]);
+            }
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+            return;
+        }
+        topology = new Topology(previous.ring, null, new LinkedHashMap<>(previous.shards));
+    }
+
+    /**
+     * Дожидается завершения запросов, начатых до смены топологии: после этого новые пользователи
+     * уже направляются по новому кольцу и не могут появиться в прежнем шарде во время обхода.
+     */
+    private void awaitInFlight() {
+        for (StampedLock lock : locks) {
+            lock.unlockWrite(lock.writeLock());
+        }
+    }
+
+    private void migrate(User user, Shard from, Shard to) {
+        StampedLock lock = locks[stripe(user)];
+        long stamp = lock.writeLock();
+        try {
+            Optional<Map<YearMonth, Readings>> history = from.repository.getAllReadings(user);
+            if (history.isPresent()) {
+                List<ReadingsEntry> entries = new ArrayList<>(history.get().size());
+                history.get().forEach((period, readings) -> entries.add(new ReadingsEntry(user, period, readings)));
+                to.repository.addReadingsBatch(entries);
+            }
+            from.repository.removeAllReadings(user);
+            to.users.put(user.getLogin(), user);
+            from.users.remove(user.getLogin());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Чтение выполняется без блокировки с проверкой штампа StampedLock и повторяется под блокировкой чтения,
+     * только если в это время переносился пользователь той же полосы.
+     */
+    private <R> R read(User user, Function<ReadingsRepository, R> call) {
+        StampedLock lock = locks[stripe(user)];
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            R result = call.apply(route(user).repository);
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return call.apply(route(user).repository);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <R> R write(User user, Function<ReadingsRepository, R> call) {
+        StampedLock lock = locks[stripe(user)];
+        long stamp = lock.readLock();
+        try {
+            Shard shard = route(user);
+            shard.users.putIfAbsent(user.getLogin(), user);
+            return call.apply(shard.repository);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Выбирает шард пользователя. Во время переноса пользователь остается в прежнем шарде,
+     * пока его показания не перенесены; пользователь без показаний сразу направляется в новый шард.
+     */
+    private Shard route(User user) {
+        Topology current = topology;
+        Shard owner = current.owners[current.ring.indexFor(user.getLogin())];
+        if (current.next == null) {
+            return owner;
+        }
+        Shard target = current.targets[current.next.indexFor(user.getLogin())];
+        return target == owner || !owner.users.containsKey(user.getLogin()) ? target : owner;
+    }
+
+    private static int stripe(User user) {
+        int hash = user.getLogin().hashCode();
+        return (hash ^ hash >>> 16) & (STRIPES - 1);
+    }
+
+    /**
+     * Хранилище одного шарда и пользователи, показания которых в нем хранятся.
+     */
+    private static final class Shard {
+        private final ReadingsRepository repository;
+        private final Map<String, User> users = new ConcurrentHashMap<>();
+
+        private Shard(ReadingsRepository repository) {
+            this.repository = repository;
+        }
+    }
+
+    /**
+     * Текущее кольцо, кольцо, к которому идет перенос (null, если переноса нет), и шарды по именам узлов.
+     * Шарды также разложены в массивы по номерам узлов колец, чтобы выбор шарда не искал имя в карте.
+     */
+    private static final class Topology {
+        private final ConsistentHashRing ring;
+        private final ConsistentHashRing next;
+        private final Map<String, Shard> shards;
+        private final Shard[] owners;
+        private final Shard[] targets;
+
+        private Topology(ConsistentHashRing ring, ConsistentHashRing next, Map<String, Shard> shards) {
+            this.ring = ring;
+            this.next = next;
+            this.shards = Collections.unmodifiableMap(shards);
+            owners = ring.getNodes().stream().map(shards::get).toArray(Shard[]::new);
+            targets = next == null ? null : next.getNodes().stream().map(shards::get).toArray(Shard[]::new);
+        }
+    }
+}
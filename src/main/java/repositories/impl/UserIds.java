@@ -0,0 +1,37 @@
+package repositories.impl;
+
+import models.User;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Назначение пользователям компактных числовых идентификаторов в пределах одного хранилища.
+ * Логину назначается следующий по порядку идентификатор, начиная с нуля, когда хранилище впервые сохраняет
+ * данные пользователя, и в дальнейшем он не меняется. Чтение не назначает идентификаторов, поэтому
+ * идентификаторы плотные в пределах пользователей хранилища и подходят для индексации примитивных массивов.
+ * Идентификаторы не сохраняются на диск.
+ */
+final class UserIds {
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param user Пользователь.
+     * @return Идентификатор пользователя или -1, если он еще не назначен.
+     */
+    int find(User user) {
+        Integer id = ids.get(user.getLogin());
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param user Пользователь.
+     * @return Идентификатор пользователя, назначенный при первом вызове для его логина.
+     */
+    int assign(User user) {
+        Integer id = ids.get(user.getLogin());
+        return id != null ? id : ids.computeIfAbsent(user.getLogin(), k -> next.getAndIncrement());
+    }
+}
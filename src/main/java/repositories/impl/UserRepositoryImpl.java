@@ -5,13 +5,16 @@ import models.User;
 import repositories.UserRepository;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * Реализация интерфейса UserRepository.
- * Хранит пользователей и их данные.
+ * Хранит пользователей и их данные в TreeMap, упорядоченной по логину, для постраничного обхода
+ * и поиска логинов по префиксу и похожих логинов.
  */
 public class UserRepositoryImpl implements UserRepository {
-    private final Map<String, User> users = new HashMap<>();
+    private final NavigableMap<String, User> users = new TreeMap<>();
+    private final LoginIndex index = new LoginIndex(users.navigableKeySet());
 
     {
         users.put("login", new User("login", "pass", Role.USER));
@@ -25,6 +28,13 @@ public class UserRepositoryImpl implements UserRepository {
         users.put(user.getLogin(), user);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void updateUser(User user) {
+        users.put(user.getLogin(), user);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -42,4 +52,32 @@ public class UserRepositoryImpl implements UserRepository {
         }
         return allLogins;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getLogins(String afterLogin, int limit) {
+        return index.page(afterLogin, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<String> logins() {
+        return users.keySet().stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> findLoginsByPrefix(String prefix, int limit) {
+        return index.findByPrefix(prefix, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> findSimilarLogins(String login, int maxDistance, int limit) {
+        return index.findSimilar(login, maxDistance, limit);
+    }
 }
@@ -0,0 +1,109 @@
+package security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кеш недавно проверенных учетных данных.
+ * Позволяет не пересчитывать медленный хеш пароля при повторных входах с теми же учетными данными.
+ * <p>
+ * Пароли не хранятся: ключом служит HMAC-SHA256 от логина, пароля и сохраненного хеша пароля
+ * на случайном ключе процесса. Поскольку в ключ входит сохраненный хеш, смена пароля
+ * автоматически делает прежние записи недействительными. Кеш ограничен по размеру
+ * (вытесняются давно не использованные записи) и по времени жизни записей.
+ */
+public class CredentialCache {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final int capacity;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final SecretKeySpec key;
+    private final LinkedHashMap<String, Long> entries;
+
+    public CredentialCache(int capacity, Duration ttl) {
+        this(capacity, ttl, Clock.systemUTC());
+    }
+
+    public CredentialCache(int capacity, Duration ttl, Clock clock) {
+        this.capacity = capacity;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > CredentialCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Проверяет, были ли эти учетные данные недавно успешно проверены.
+     *
+     * @param login    Логин.
+     * @param password Пароль.
+     * @param stored   Сохраненный хеш пароля пользователя.
+     * @return true, если запись есть в кеше и не просрочена.
+     */
+    public boolean contains(String login, String password, String stored) {
+        String entry = entryKey(login, password, stored);
+        long now = clock.millis();
+        synchronized (entries) {
+            Long expiresAt = entries.get(entry);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt < now) {
+                entries.remove(entry);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Запоминает успешно проверенные учетные данные.
+     *
+     * @param login    Логин.
+     * @param password Пароль.
+     * @param stored   Сохраненный хеш пароля пользователя.
+     */
+    public void put(String login, String password, String stored) {
+        String entry = entryKey(login, password, stored);
+        long expiresAt = clock.millis() + ttlMillis;
+        synchronized (entries) {
+            entries.put(entry, expiresAt);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private String entryKey(String login, String password, String stored) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(login.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(stored.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Алгоритм " + ALGORITHM + " недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package security;
+
+/**
+ * Интерфейс PasswordHasher определяет хеширование и проверку паролей пользователей.
+ */
+public interface PasswordHasher {
+
+    /**
+     * Вычисляет хеш пароля со случайной солью.
+     *
+     * @param password Пароль.
+     * @return Хеш в виде строки, содержащей параметры алгоритма и соль.
+     */
+    String hash(String password);
+
+    /**
+     * Проверяет пароль по сохраненному значению.
+     * Сохраненное значение может быть паролем в открытом виде, записанным до перехода на хеширование.
+     *
+     * @param password Проверяемый пароль.
+     * @param stored   Сохраненный хеш или пароль в открытом виде.
+     * @return true, если пароль совпадает.
+     */
+    boolean verify(String password, String stored);
+
+    /**
+     * Проверяет, нужно ли пересчитать сохраненное значение: пароль хранится в открытом виде
+     * или захеширован с устаревшими параметрами.
+     *
+     * @param stored Сохраненный хеш или пароль в открытом виде.
+     * @return true, если после успешной проверки пароль нужно захешировать заново.
+     */
+    boolean needsRehash(String stored);
+}
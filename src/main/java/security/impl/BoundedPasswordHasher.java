@@ -0,0 +1,101 @@
+package security.impl;
+
+import exceptions.ServiceUnavailableException;
+import security.PasswordHasher;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Реализация интерфейса PasswordHasher, выполняющая хеширование и проверку паролей другого PasswordHasher
+ * в отдельном пуле потоков фиксированного размера с ограниченной очередью.
+ * <p>
+ * Медленное хеширование занимает не больше заданного числа ядер, поэтому всплеск попыток входа
+ * не отнимает процессор у подачи и чтения показаний. Когда очередь заполнена, попытка отклоняется
+ * сразу, а не ждет в очереди неограниченно.
+ */
+public class BoundedPasswordHasher implements PasswordHasher, AutoCloseable {
+    private final PasswordHasher delegate;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param delegate      PasswordHasher, выполняющий хеширование.
+     * @param threads       Количество потоков хеширования.
+     * @param queueCapacity Максимальное количество операций, ожидающих выполнения.
+     */
+    public BoundedPasswordHasher(PasswordHasher delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ServiceUnavailableException Если очередь хеширования заполнена.
+     */
+    public String hash(String password) {
+        return run(() -> delegate.hash(password));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ServiceUnavailableException Если очередь хеширования заполнена.
+     */
+    public boolean verify(String password, String stored) {
+        return run(() -> delegate.verify(password, stored));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Выполняется в вызывающем потоке, так как не требует хеширования.
+     */
+    public boolean needsRehash(String stored) {
+        return delegate.needsRehash(stored);
+    }
+
+    /**
+     * @return Количество операций, ожидающих свободного потока хеширования.
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Слишком много одновременных попыток входа, повторите попытку позже");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Проверка пароля прервана");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package services;
+
+import models.MeterStatistics;
+import models.TopConsumer;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Интерфейс для получения сводной статистики по показаниям всех пользователей.
+ * Предоставляет итоги, средние значения и процентили по типам показаний за период,
+ * статистику по диапазону периодов и рейтинг пользователей с наибольшими показаниями.
+ */
+public interface AggregationService {
+
+    /**
+     * Возвращает статистику по всем типам показаний за период.
+     *
+     * @param period Период (год и месяц).
+     * @return Карта, где ключ - тип показаний, а значение - статистика по нему; пустая, если показаний нет.
+     */
+    Map<String, MeterStatistics> getStatistics(YearMonth period);
+
+    /**
+     * Возвращает статистику по одному типу показаний за каждый период диапазона.
+     *
+     * @param meterType Тип показаний.
+     * @param from      Первый период диапазона.
+     * @param to        Последний период диапазона.
+     * @return Карта статистики, упорядоченная по периоду; периоды без показаний пропускаются.
+     */
+    SortedMap<YearMonth, MeterStatistics> getStatistics(String meterType, YearMonth from, YearMonth to);
+
+    /**
+     * Возвращает пользователей с наибольшими показаниями указанного типа за период.
+     *
+     * @param period    Период (год и месяц).
+     * @param meterType Тип показаний.
+     * @param limit     Максимальное количество пользователей.
+     * @return Список пользователей по убыванию показаний.
+     */
+    List<TopConsumer> getTopConsumers(YearMonth period, String meterType, int limit);
+
+    /**
+     * Вычисляет точную статистику за период полным параллельным обходом показаний всех пользователей.
+     * Предназначен для разовых запросов и сверки, стоимость пропорциональна количеству пользователей.
+     *
+     * @param period Период (год и месяц).
+     * @return Карта, где ключ - тип показаний, а значение - статистика по нему.
+     */
+    Map<String, MeterStatistics> computeStatistics(YearMonth period);
+
+    /**
+     * Пересчитывает накопленную статистику по всем показаниям хранилища.
+     * Вызывается после восстановления данных, до начала подачи показаний.
+     */
+    void rebuild();
+}
@@ -0,0 +1,35 @@
+package services;
+
+import models.Anomaly;
+import models.User;
+
+import java.util.List;
+
+/**
+ * Интерфейс для просмотра подозрительных подач показаний администратором.
+ * Подозрительные подачи отмечаются при подаче показаний по накопленной статистике потребления пользователя.
+ */
+public interface AnomalyService {
+
+    /**
+     * Возвращает последние отмеченные подачи всех пользователей.
+     *
+     * @param limit Максимальное количество записей.
+     * @return Отмеченные подачи, начиная с последней.
+     */
+    List<Anomaly> getAnomalies(int limit);
+
+    /**
+     * Возвращает отмеченные подачи пользователя из числа хранимых последних записей.
+     *
+     * @param user Пользователь.
+     * @return Отмеченные подачи пользователя, начиная с последней.
+     */
+    List<Anomaly> getAnomalies(User user);
+
+    /**
+     * Пересчитывает статистику потребления по всей истории показаний хранилища.
+     * Вызывается после восстановления данных, до начала подачи показаний.
+     */
+    void rebuild();
+}
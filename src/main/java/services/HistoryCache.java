@@ -0,0 +1,186 @@
+package services;
+
+import models.Readings;
+import models.User;
+
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кеш отформатированной истории показаний пользователей.
+ * История запрашивается гораздо чаще, чем меняется, поэтому строка истории сохраняется после первого построения.
+ * Показания за период позже последнего в истории дописываются в конец строки, а подача за более ранний период
+ * удаляет запись, и история строится заново при следующем запросе.
+ * <p>
+ * Размер кеша ограничен суммарной длиной строк в символах; при превышении вытесняются
+ * давно не использованные записи. Ведется статистика попаданий, промахов и вытеснений.
+ * Согласованность записи пользователя с репозиторием обеспечивает вызывающий код:
+ * построение, дописывание и удаление записи одного пользователя должны быть упорядочены с изменением его показаний.
+ */
+public class HistoryCache {
+    private final long capacity;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long length;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity Максимальная суммарная длина строк истории в символах.
+     */
+    public HistoryCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Форматирует историю показаний: по строке "Период:Показания" на каждый период в порядке итерации карты.
+     *
+     * @param history Показания по периодам.
+     * @return Строка истории.
+     */
+    public static String render(Map<YearMonth, Readings> history) {
+        StringBuilder sb = new StringBuilder(history.size() * 64);
+        history.forEach((period, readings) -> appendLine(sb, period, readings));
+        return sb.toString();
+    }
+
+    /**
+     * @param user Пользователь.
+     * @return Сохраненная история пользователя или null, если ее нет в кеше.
+     */
+    public String get(User user) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(user.getLogin());
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.history;
+    }
+
+    /**
+     * Сохраняет построенную историю пользователя. История длиннее емкости кеша не сохраняется.
+     *
+     * @param user    Пользователь.
+     * @param last    Последний период истории.
+     * @param history Строка истории, построенная методом render.
+     */
+    public void put(User user, YearMonth last, String history) {
+        synchronized (entries) {
+            store(user.getLogin(), new Entry(history, last));
+        }
+    }
+
+    /**
+     * Учитывает новые показания пользователя: дописывает их к сохраненной истории,
+     * если период позже последнего в ней, иначе удаляет запись пользователя.
+     *
+     * @param user     Пользователь.
+     * @param period   Период новых показаний.
+     * @param readings Новые показания.
+     */
+    public void append(User user, YearMonth period, Readings readings) {
+        synchronized (entries) {
+            Entry entry = entries.get(user.getLogin());
+            if (entry == null) {
+                return;
+            }
+            if (period.isAfter(entry.last)) {
+                StringBuilder sb = new StringBuilder(entry.history.length() + 64).append(entry.history);
+                store(user.getLogin(), new Entry(appendLine(sb, period, readings).toString(), period));
+                appends.increment();
+            } else {
+                remove(user.getLogin());
+            }
+        }
+    }
+
+    /**
+     * Удаляет сохраненную историю пользователя.
+     *
+     * @param user Пользователь.
+     */
+    public void invalidate(User user) {
+        synchronized (entries) {
+            remove(user.getLogin());
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getAppends() {
+        return appends.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Количество сохраненных историй.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return Суммарная длина сохраненных историй в символах.
+     */
+    public long length() {
+        synchronized (entries) {
+            return length;
+        }
+    }
+
+    private void store(String login, Entry entry) {
+        remove(login);
+        if (entry.history.length() > capacity) {
+            return;
+        }
+        entries.put(login, entry);
+        length += entry.history.length();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (length > capacity) {
+            length -= eldest.next().history.length();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(String login) {
+        Entry removed = entries.remove(login);
+        if (removed != null) {
+            length -= removed.history.length();
+        }
+    }
+
+    private static StringBuilder appendLine(StringBuilder sb, YearMonth period, Readings readings) {
+        sb.append(period).append(":");
+        return readings.appendTo(sb).append("\n");
+    }
+
+    private static final class Entry {
+        private final String history;
+        private final YearMonth last;
+
+        private Entry(String history, YearMonth last) {
+            this.history = history;
+            this.last = last;
+        }
+    }
+}
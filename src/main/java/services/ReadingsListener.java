@@ -0,0 +1,24 @@
+package services;
+
+import models.Readings;
+import models.User;
+
+import java.time.YearMonth;
+
+/**
+ * Слушатель подачи показаний.
+ * Вызывается сервисом показаний после того, как показания успешно приняты и сохранены,
+ * под блокировкой пользователя: подачи одного пользователя передаются в порядке их сохранения.
+ */
+@FunctionalInterface
+public interface ReadingsListener {
+
+    /**
+     * Обрабатывает принятые показания.
+     *
+     * @param user     Пользователь, подавший показания.
+     * @param period   Период (год и месяц), за который поданы показания.
+     * @param readings Принятые показания.
+     */
+    void onReadingsAdded(User user, YearMonth period, Readings readings);
+}
@@ -1,37 +1,90 @@
 package services;
 
+import exceptions.ValidationException;
 import models.Readings;
+import models.ReadingsEntry;
 import models.User;
 
-import java.time.Month;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс для работы с показаниями.
  * Предоставляет такие методы, как добавление показаний, вывод всех показаний,
- * получение последних показаний и получение показаний за указанный месяц.
+ * получение последних показаний, получение показаний за указанный период и за диапазон периодов,
+ * получение истории постранично или потоком, а также получение потребления за период.
  */
 public interface ReadingsService {
 
     /**
-     * Добавляет показания для указанного пользователя и месяца.
+     * Добавляет показания для указанного пользователя и периода.
      *
      * @param user     Пользователь, для которого добавляются показания.
-     * @param month    Месяц, для которого добавляются показания.
+     * @param period   Период (год и месяц), для которого добавляются показания.
      * @param readings Показания, который нужно добавить
+     * @return true, если показания добавлены, и false, если за этот период показания уже были поданы.
      */
-    void addReadings(User user, Month month, Readings readings);
+    boolean addReadings(User user, YearMonth period, Readings readings);
+
+    /**
+     * Добавляет пакет показаний, например при импорте из файла.
+     * Каждая запись проверяется и сохраняется так же, как в addReadings, в порядке следования в пакете,
+     * но отклонение одной записи не прерывает обработку остальных.
+     *
+     * @param entries Показания, которые нужно добавить.
+     * @return Массив той же длины, что и entries: null для добавленной записи
+     * или причина, по которой запись отклонена.
+     */
+    String[] addReadingsBatch(List<ReadingsEntry> entries);
 
     /**
      * Возвращает все показания для указанного пользователя в виде строки.
      *
      * @param user Пользователь, для которого выводятся показания.
-     * @return Строка, содержащая все показания пользователя в формате "Месяц: Показания".
+     * @return Строка, содержащая все показания пользователя в формате "Период: Показания", упорядоченные по периоду.
      */
     String getAllReadings(User user);
 
+    /**
+     * Записывает все показания пользователя в том же формате, что и getAllReadings,
+     * не собирая историю в одну строку.
+     *
+     * @param user Пользователь, для которого выводятся показания.
+     * @param out  Приемник, в который записываются показания.
+     * @throws IOException Если запись не удалась.
+     */
+    void writeAllReadings(User user, Writer out) throws IOException;
+
+    /**
+     * Возвращает страницу истории показаний пользователя.
+     *
+     * @param user  Пользователь, для которого запрашиваются показания.
+     * @param from  Первый период страницы.
+     * @param limit Максимальное количество периодов на странице.
+     * @return Показания не более чем за limit периодов начиная с from, упорядоченные по периоду.
+     * @throws ValidationException Если размер страницы не положителен.
+     */
+    SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit);
+
+    /**
+     * Возвращает всю историю показаний пользователя в виде ленивого потока,
+     * который читает историю из репозитория постранично.
+     *
+     * @param user Пользователь, для которого запрашиваются показания.
+     * @return Поток пар период-показания, упорядоченный по периоду.
+     */
+    Stream<Map.Entry<YearMonth, Readings>> streamReadings(User user);
+
     /**
      * Получает последние показания для указанного пользователя.
+     * Последними считаются показания за самый поздний по календарю период.
      *
      * @param user Пользователь, для которого запрашиваются показания.
      * @return Optional, содержащий показания пользователя,
@@ -40,12 +93,49 @@ public interface ReadingsService {
     Optional<Readings> getLastReadings(User user);
 
     /**
-     * Возвращает показания для указанного пользователя и месяца.
+     * Возвращает показания для указанного пользователя и периода.
+     *
+     * @param user   Пользователь, для которого запрашиваются показания.
+     * @param period Период (год и месяц), для которого запрашиваются показания.
+     * @return Optional, содержащий показания пользователя за указанный период,
+     * или пустой Optional, если показания для пользователя и периода отсутствуют.
+     */
+    Optional<Readings> getReadingsByMonth(User user, YearMonth period);
+
+    /**
+     * Возвращает показания пользователя за последние count периодов, за которые он подавал показания.
      *
      * @param user  Пользователь, для которого запрашиваются показания.
-     * @param month Месяц, для которого запрашиваются показания.
-     * @return Optional, содержащий показания пользователя за указанный месяц,
-     * или пустой Optional, если показания для пользователя и месяца отсутствуют.
+     * @param count Количество периодов.
+     * @return Карта показаний, упорядоченная по периоду; пустая, если показаний нет.
+     */
+    SortedMap<YearMonth, Readings> getLatestReadings(User user, int count);
+
+    /**
+     * Возвращает показания пользователя за периоды с from по to включительно.
+     *
+     * @param user Пользователь, для которого запрашиваются показания.
+     * @param from Первый период диапазона.
+     * @param to   Последний период диапазона.
+     * @return Карта показаний, упорядоченная по периоду; пустая, если показаний за диапазон нет.
+     */
+    SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to);
+
+    /**
+     * Возвращает потребление пользователя за период: разницу показаний счетчиков с предыдущим периодом подачи.
+     *
+     * @param user   Пользователь, для которого запрашивается потребление.
+     * @param period Период (год и месяц).
+     * @return Optional, содержащий потребление по каждому типу показаний, или пустой Optional,
+     * если за период или за предшествующие периоды показания не подавались.
+     */
+    Optional<Readings> getConsumption(User user, YearMonth period);
+
+    /**
+     * Вычисляет потребление по всей истории указанных пользователей и сбрасывает сохраненную историю их показаний.
+     * Вызывается после восстановления данных или пакетного импорта показаний.
+     *
+     * @param users Пользователи, для которых вычисляется потребление.
      */
-    Optional<Readings> getReadingsByMonth(User user, Month month);
+    void rebuildConsumption(Collection<User> users);
 }
@@ -0,0 +1,24 @@
+package services;
+
+import models.User;
+
+/**
+ * Слушатель изменений учетных записей.
+ * Вызывается сервисом пользователей после того, как изменение успешно сохранено.
+ */
+public interface UserListener {
+
+    /**
+     * Обрабатывает регистрацию нового пользователя.
+     *
+     * @param user Зарегистрированный пользователь.
+     */
+    void onUserRegistered(User user);
+
+    /**
+     * Обрабатывает смену пароля пользователем.
+     *
+     * @param user Пользователь, сменивший пароль.
+     */
+    void onPasswordChanged(User user);
+}
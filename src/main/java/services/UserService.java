@@ -1,9 +1,11 @@
 package services;
 
+import exceptions.ValidationException;
 import models.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс для работы с пользователями.
@@ -53,4 +55,33 @@ public interface UserService {
      * @return Список всех логинов пользователей.
      */
     List<String> getAllLogins();
+
+    /**
+     * Получает страницу логинов пользователей в порядке возрастания.
+     *
+     * @param afterLogin Последний логин предыдущей страницы или null для первой страницы.
+     * @param limit      Максимальное количество логинов на странице.
+     * @return Логины, большие afterLogin, не более limit штук.
+     * @throws ValidationException Если размер страницы не положителен.
+     */
+    List<String> getLogins(String afterLogin, int limit);
+
+    /**
+     * Возвращает логины всех пользователей в порядке возрастания в виде ленивого потока
+     * для вывода без построения полного списка.
+     *
+     * @return Поток логинов.
+     */
+    Stream<String> streamLogins();
+
+    /**
+     * Ищет логины пользователей для выбора в панели администратора: сначала логины, начинающиеся с запроса,
+     * затем, если их меньше limit, похожие на запрос логины с небольшим числом опечаток.
+     *
+     * @param query Начало логина или логин с опечатками.
+     * @param limit Максимальное количество результатов.
+     * @return Найденные логины без повторов.
+     * @throws ValidationException Если количество результатов не положительно.
+     */
+    List<String> searchLogins(String query, int limit);
 }
@@ -0,0 +1,343 @@
+package services.impl;
+
+import logger.Logger;
+import logger.impl.AsyncLoggerImpl;
+import models.MeterStatistics;
+import models.Readings;
+import models.TopConsumer;
+import models.User;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import services.AggregationService;
+import services.ReadingsListener;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Реализация интерфейса AggregationService.
+ * Подписывается на подачу показаний через ReadingsListener и поддерживает накопители для каждой пары
+ * "период - тип показаний": количество, сумму, минимум, максимум, логарифмическую гистограмму для процентилей
+ * и ограниченную кучу пользователей с наибольшими показаниями. Поэтому запросы стоят O(количества периодов)
+ * и не зависят от количества пользователей.
+ * <p>
+ * Процентили по гистограмме приблизительные: относительная погрешность не превышает половины процента.
+ * Для точных разовых запросов предусмотрен полный параллельный обход хранилища в пуле ForkJoinPool.
+ */
+public class AggregationServiceImpl implements AggregationService, ReadingsListener {
+    private static final int TOP_CAPACITY = 100;
+    private static final int SCAN_THRESHOLD = 512;
+    private static final double BUCKET_BASE = 1.01;
+    private static final double LOG_BUCKET_BASE = Math.log(BUCKET_BASE);
+    private static final Comparator<TopConsumer> BY_VALUE = Comparator.comparingDouble(TopConsumer::getValue);
+    private static final Logger logger = AsyncLoggerImpl.getInstance();
+
+    private final UserRepository userRepository;
+    private final ReadingsRepository readingsRepository;
+    private final ForkJoinPool pool;
+    private final ConcurrentSkipListMap<YearMonth, ConcurrentMap<String, MeterAccumulator>> aggregates =
+            new ConcurrentSkipListMap<>();
+
+    public AggregationServiceImpl(UserRepository userRepository, ReadingsRepository readingsRepository) {
+        this(userRepository, readingsRepository, ForkJoinPool.commonPool());
+    }
+
+    public AggregationServiceImpl(UserRepository userRepository, ReadingsRepository readingsRepository, ForkJoinPool pool) {
+        this.userRepository = userRepository;
+        this.readingsRepository = readingsRepository;
+        this.pool = pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Добавляет каждое значение показаний в накопитель своего периода и типа.
+     */
+    public void onReadingsAdded(User user, YearMonth period, Readings readings) {
+        ConcurrentMap<String, MeterAccumulator> meters = aggregates.computeIfAbsent(period, k -> new ConcurrentHashMap<>());
+        for (Map.Entry<String, Double> entry : readings.get().entrySet()) {
+            meters.computeIfAbsent(entry.getKey(), k -> new MeterAccumulator()).add(user.getLogin(), entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String, MeterStatistics> getStatistics(YearMonth period) {
+        ConcurrentMap<String, MeterAccumulator> meters = aggregates.get(period);
+        Map<String, MeterStatistics> result = new TreeMap<>();
+        if (meters != null) {
+            meters.forEach((type, accumulator) -> result.put(type, accumulator.snapshot()));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, MeterStatistics> getStatistics(String meterType, YearMonth from, YearMonth to) {
+        SortedMap<YearMonth, MeterStatistics> result = new TreeMap<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        aggregates.subMap(from, true, to, true).forEach((period, meters) -> {
+            MeterAccumulator accumulator = meters.get(meterType);
+            if (accumulator != null) {
+                result.put(period, accumulator.snapshot());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Рейтинг до 100 пользователей берется из накопителя, более длинный вычисляется полным обходом хранилища.
+     */
+    public List<TopConsumer> getTopConsumers(YearMonth period, String meterType, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (limit > TOP_CAPACITY) {
+            Partial partial = scan(period, limit).get(meterType);
+            return partial == null ? List.of() : partial.top.sorted(limit);
+        }
+        ConcurrentMap<String, MeterAccumulator> meters = aggregates.get(period);
+        MeterAccumulator accumulator = meters == null ? null : meters.get(meterType);
+        return accumulator == null ? List.of() : accumulator.top(limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Процентили вычисляются по отсортированным значениям методом ближайшего ранга.
+     */
+    public Map<String, MeterStatistics> computeStatistics(YearMonth period) {
+        Map<String, MeterStatistics> result = new TreeMap<>();
+        scan(period, 0).forEach((type, partial) -> result.put(type, partial.statistics()));
+        logger.info("Вычислена статистика за " + period + " полным обходом показаний");
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Обходит историю всех пользователей параллельно в пуле ForkJoinPool.
+     */
+    public void rebuild() {
+        aggregates.clear();
+        List<String> logins = userRepository.getAllLogins();
+        pool.submit(() -> logins.parallelStream().forEach(login -> userRepository.getUser(login)
+                .ifPresent(user -> readingsRepository.getAllReadings(user)
+                        .ifPresent(history -> history.forEach((period, readings) -> onReadingsAdded(user, period, readings))))))
+                .join();
+        logger.info("Статистика показаний пересчитана для " + logins.size() + " пользователей");
+    }
+
+    private Map<String, Partial> scan(YearMonth period, int topLimit) {
+        List<String> logins = userRepository.getAllLogins();
+        return pool.invoke(new ScanTask(logins, 0, logins.size(), period, topLimit));
+    }
+
+    private static int bucketOf(double value) {
+        return (int) Math.floor(Math.log(value) / LOG_BUCKET_BASE);
+    }
+
+    private static double exactPercentile(double[] sorted, int size, double quantile) {
+        int rank = (int) Math.max(1, Math.ceil(quantile * size));
+        return sorted[rank - 1];
+    }
+
+    /**
+     * Ограниченная куча пользователей с наибольшими показаниями.
+     */
+    private static final class TopHeap {
+        private final int capacity;
+        private final PriorityQueue<TopConsumer> heap = new PriorityQueue<>(BY_VALUE);
+
+        private TopHeap(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void offer(TopConsumer consumer) {
+            if (heap.size() < capacity) {
+                heap.add(consumer);
+            } else if (capacity > 0 && consumer.getValue() > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(consumer);
+            }
+        }
+
+        private List<TopConsumer> sorted(int limit) {
+            List<TopConsumer> result = new ArrayList<>(heap);
+            result.sort(BY_VALUE.reversed());
+            return result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+        }
+    }
+
+    /**
+     * Накопитель статистики по одному типу показаний за один период.
+     * Гистограмма хранит количество значений в логарифмических корзинах с основанием 1.01,
+     * нулевые значения считаются отдельно.
+     */
+    private static final class MeterAccumulator {
+        private long count;
+        private double total;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private long zeroCount;
+        private long[] buckets;
+        private int offset;
+        private final TopHeap top = new TopHeap(TOP_CAPACITY);
+
+        private synchronized void add(String login, double value) {
+            count++;
+            total += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            if (value > 0) {
+                record(bucketOf(value));
+            } else {
+                zeroCount++;
+            }
+            top.offer(new TopConsumer(login, value));
+        }
+
+        private void record(int bucket) {
+            if (buckets == null) {
+                buckets = new long[1];
+                offset = bucket;
+            } else if (bucket < offset) {
+                long[] grown = new long[buckets.length + offset - bucket];
+                System.arraycopy(buckets, 0, grown, offset - bucket, buckets.length);
+                buckets = grown;
+                offset = bucket;
+            } else if (bucket >= offset + buckets.length) {
+                buckets = Arrays.copyOf(buckets, bucket - offset + 1);
+            }
+            buckets[bucket - offset]++;
+        }
+
+        private double percentile(double quantile) {
+            long rank = (long) Math.max(1, Math.ceil(quantile * count));
+            long seen = zeroCount;
+            if (seen >= rank) {
+                return 0;
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    double middle = Math.pow(BUCKET_BASE, offset + i + 0.5);
+                    return Math.min(max, Math.max(min, middle));
+                }
+            }
+            return max;
+        }
+
+        private synchronized MeterStatistics snapshot() {
+            return new MeterStatistics(count, total, min, max, percentile(0.5), percentile(0.9), percentile(0.99));
+        }
+
+        private synchronized List<TopConsumer> top(int limit) {
+            return top.sorted(limit);
+        }
+    }
+
+    /**
+     * Точная частичная статистика по одному типу показаний, собранная при обходе части пользователей.
+     */
+    private static final class Partial {
+        private double[] values = new double[16];
+        private int size;
+        private double total;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private final TopHeap top;
+
+        private Partial(int topLimit) {
+            top = new TopHeap(topLimit);
+        }
+
+        private void add(String login, double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            total += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            top.offer(new TopConsumer(login, value));
+        }
+
+        private Partial merge(Partial other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+            total += other.total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            other.top.heap.forEach(top::offer);
+            return this;
+        }
+
+        private MeterStatistics statistics() {
+            double[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return new MeterStatistics(size, total, min, max,
+                    exactPercentile(sorted, size, 0.5), exactPercentile(sorted, size, 0.9), exactPercentile(sorted, size, 0.99));
+        }
+    }
+
+    /**
+     * Задача параллельного обхода показаний пользователей за период.
+     * Делит список логинов пополам, пока часть не станет меньше порога, и объединяет частичные результаты.
+     */
+    private final class ScanTask extends RecursiveTask<Map<String, Partial>> {
+        private final List<String> logins;
+        private final int from;
+        private final int to;
+        private final YearMonth period;
+        private final int topLimit;
+
+        private ScanTask(List<String> logins, int from, int to, YearMonth period, int topLimit) {
+            this.logins = logins;
+            this.from = from;
+            this.to = to;
+            this.period = period;
+            this.topLimit = topLimit;
+        }
+
+        @Override
+        protected Map<String, Partial> compute() {
+            if (to - from <= SCAN_THRESHOLD) {
+                Map<String, Partial> result = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    String login = logins.get(i);
+                    userRepository.getUser(login)
+                            .flatMap(user -> readingsRepository.getReadingsByMonth(user, period))
+                            .ifPresent(readings -> readings.get().forEach((type, value) ->
+                                    result.computeIfAbsent(type, k -> new Partial(topLimit)).add(login, value)));
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(logins, from, middle, period, topLimit);
+            left.fork();
+            Map<String, Partial> right = new ScanTask(logins, middle, to, period, topLimit).compute();
+            Map<String, Partial> merged = left.join();
+            right.forEach((type, partial) -> merged.merge(type, partial, Partial::merge));
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package services.impl;
+
+import enums.AnomalyType;
+import logger.Logger;
+import logger.impl.AsyncLoggerImpl;
+import models.Anomaly;
+import models.MeterTypes;
+import models.Periods;
+import models.Readings;
+import models.User;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import services.AnomalyService;
+import services.ReadingsListener;
+import validators.SubmissionValidator;
+
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Реализация интерфейса AnomalyService, подключаемая к сервису показаний как стадия проверки SubmissionValidator
+ * и как слушатель ReadingsListener.
+ * <p>
+ * Для каждого пользователя и типа показаний хранится последнее показание и потоковая статистика месячного
+ * потребления по алгоритму Уэлфорда: количество, среднее и сумма квадратов отклонений. Память на пару
+ * пользователь-тип постоянна, а проверка подачи не читает историю из репозитория. Потребление за пропущенные
+ * месяцы делится поровну между ними. Когда накоплено не меньше minSamples значений, потребление, отличающееся
+ * от среднего больше чем на threshold стандартных отклонений, отмечается как подозрительное. Стандартное
+ * отклонение ограничено снизу десятой долей среднего, чтобы у пользователей с почти постоянным потреблением
+ * не отмечались небольшие колебания.
+ * <p>
+ * Стадия проверки только оценивает подачу по накопленной статистике и пишет подозрительные значения в лог,
+ * не изменяя статистику: подача еще может быть отклонена следующими стадиями или оказаться повторной.
+ * Статистика обновляется и отметки сохраняются слушателем, после того как показания сохранены.
+ * Отмеченные значения не входят в статистику, иначе один выброс расширил бы допустимый диапазон и скрыл следующий.
+ * Подача не отклоняется, отметки хранятся в ограниченном списке последних записей. Показания за период раньше
+ * последнего учтенного не проверяются и не меняют статистику.
+ * Статистика пользователя защищена его собственной блокировкой, а пересчет статистики (rebuild) не выполняется
+ * одновременно с оценкой и учетом подач.
+ */
+public class AnomalyServiceImpl implements AnomalyService, SubmissionValidator, ReadingsListener {
+    private static final double DEFAULT_THRESHOLD = 4.0;
+    private static final int DEFAULT_MIN_SAMPLES = 3;
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final double MIN_RELATIVE_DEVIATION = 0.1;
+    private static final double MIN_DEVIATION = 1e-9;
+    private static final Logger logger = AsyncLoggerImpl.getInstance();
+
+    private final UserRepository userRepository;
+    private final ReadingsRepository readingsRepository;
+    private final double threshold;
+    private final int minSamples;
+    private final int capacity;
+    private final ConcurrentMap<String, UserStatistics> statistics = new ConcurrentHashMap<>();
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final Deque<Anomaly> recent = new ArrayDeque<>();
+    private final LongAdder flagged = new LongAdder();
+
+    public AnomalyServiceImpl(UserRepository userRepository, ReadingsRepository readingsRepository) {
+        this(userRepository, readingsRepository, DEFAULT_THRESHOLD, DEFAULT_MIN_SAMPLES, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param userRepository     Репозиторий пользователей, нужен для пересчета статистики.
+     * @param readingsRepository Репозиторий показаний, нужен для пересчета статистики.
+     * @param threshold          Отклонение от среднего в стандартных отклонениях, начиная с которого подача отмечается.
+     * @param minSamples         Количество значений потребления, после которого начинается проверка.
+     * @param capacity           Количество хранимых последних отметок.
+     */
+    public AnomalyServiceImpl(UserRepository userRepository, ReadingsRepository readingsRepository,
+                              double threshold, int minSamples, int capacity) {
+        this.userRepository = userRepository;
+        this.readingsRepository = readingsRepository;
+        this.threshold = threshold;
+        this.minSamples = minSamples;
+        this.capacity = capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Подача никогда не отклоняется: подозрительные значения только пишутся в лог, статистика не изменяется.
+     */
+    public void validate(User user, YearMonth period, Readings readings) {
+        List<Anomaly> found;
+        rebuildLock.readLock().lock();
+        try {
+            UserStatistics userStatistics = statistics.get(user.getLogin());
+            found = userStatistics == null ? List.of() : userStatistics.score(user, period, readings);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+        for (Anomaly anomaly : found) {
+            logger.info("Подозрительная подача показаний: " + anomaly);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Учитывает сохраненные показания в статистике и сохраняет отметки подозрительных значений.
+     */
+    public void onReadingsAdded(User user, YearMonth period, Readings readings) {
+        rebuildLock.readLock().lock();
+        try {
+            inspect(user, period, readings);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Anomaly> getAnomalies(int limit) {
+        synchronized (recent) {
+            return recent.stream().limit(limit).toList();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Anomaly> getAnomalies(User user) {
+        synchronized (recent) {
+            return recent.stream().filter(anomaly -> anomaly.getLogin().equals(user.getLogin())).toList();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Подозрительные подачи в истории отмечаются заново.
+     */
+    public void rebuild() {
+        List<String> logins;
+        rebuildLock.writeLock().lock();
+        try {
+            statistics.clear();
+            synchronized (recent) {
+                recent.clear();
+            }
+            logins = userRepository.getAllLogins();
+            for (String login : logins) {
+                userRepository.getUser(login).ifPresent(user -> readingsRepository.getAllReadings(user)
+                        .ifPresent(history -> history.forEach((period, readings) -> inspect(user, period, readings))));
+            }
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        logger.info("Статистика потребления для поиска подозрительных подач пересчитана для "
+                + logins.size() + " пользователей");
+    }
+
+    /**
+     * @return Количество отмеченных значений с момента запуска.
+     */
+    public long getFlaggedCount() {
+        return flagged.sum();
+    }
+
+    private void inspect(User user, YearMonth period, Readings readings) {
+        for (Anomaly anomaly : statistics.computeIfAbsent(user.getLogin(), login -> new UserStatistics())
+                .observe(user, period, readings)) {
+            record(anomaly);
+        }
+    }
+
+    private void record(Anomaly anomaly) {
+        flagged.increment();
+        synchronized (recent) {
+            recent.addFirst(anomaly);
+            if (recent.size() > capacity) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Статистика всех типов показаний одного пользователя по номерам типов.
+     */
+    private final class UserStatistics {
+        private Series[] series = new Series[0];
+
+        /**
+         * Оценивает показания, не изменяя статистику.
+         */
+        private synchronized List<Anomaly> score(User user, YearMonth period, Readings readings) {
+            int key = Periods.toKey(period);
+            List<Anomaly> found = List.of();
+            for (int meter = readings.nextMeter(0); meter >= 0 && meter < series.length;
+                 meter = readings.nextMeter(meter + 1)) {
+                Anomaly anomaly = series[meter] == null ? null
+                        : series[meter].score(user, period, key, meter, readings.getValue(meter));
+                if (anomaly != null) {
+                    if (found.isEmpty()) {
+                        found = new ArrayList<>();
+                    }
+                    found.add(anomaly);
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Учитывает показания в статистике.
+         *
+         * @return Подозрительные значения, не вошедшие в статистику.
+         */
+        private synchronized List<Anomaly> observe(User user, YearMonth period, Readings readings) {
+            int last = readings.nextMeter(0);
+            for (int meter = last; meter >= 0; meter = readings.nextMeter(meter + 1)) {
+                last = meter;
+            }
+            if (series.length <= last) {
+                series = Arrays.copyOf(series, last + 1);
+            }
+            int key = Periods.toKey(period);
+            List<Anomaly> found = List.of();
+            for (int meter = readings.nextMeter(0); meter >= 0; meter = readings.nextMeter(meter + 1)) {
+                if (series[meter] == null) {
+                    series[meter] = new Series(key, readings.getValue(meter));
+                    continue;
+                }
+                Anomaly anomaly = series[meter].observe(user, period, key, meter, readings.getValue(meter));
+                if (anomaly != null) {
+                    if (found.isEmpty()) {
+                        found = new ArrayList<>();
+                    }
+                    found.add(anomaly);
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Последнее показание и статистика месячного потребления одного типа показаний пользователя.
+     */
+    private final class Series {
+        private int lastPeriod;
+        private double lastValue;
+        private long count;
+        private double mean;
+        private double squares;
+
+        private Series(int period, double value) {
+            this.lastPeriod = period;
+            this.lastValue = value;
+        }
+
+        /**
+         * Возвращает отметку, если потребление до нового показания подозрительно. Статистика не изменяется.
+         */
+        private Anomaly score(User user, YearMonth period, int key, int meter, double value) {
+            if (key <= lastPeriod || count < minSamples) {
+                return null;
+            }
+            double consumption = (value - lastValue) / (key - lastPeriod);
+            double deviation = Math.max(Math.sqrt(squares / (count - 1)),
+                    Math.max(MIN_RELATIVE_DEVIATION * Math.abs(mean), MIN_DEVIATION));
+            double score = (consumption - mean) / deviation;
+            if (Math.abs(score) <= threshold) {
+                return null;
+            }
+            AnomalyType type = score > 0 ? AnomalyType.SPIKE : consumption == 0 ? AnomalyType.STALL : AnomalyType.DROP;
+            return new Anomaly(user.getLogin(), period, MeterTypes.nameOf(meter), type, consumption, mean, score);
+        }
+
+        /**
+         * Учитывает новое показание и возвращает отметку, если потребление подозрительно.
+         */
+        private Anomaly observe(User user, YearMonth period, int key, int meter, double value) {
+            if (key <= lastPeriod) {
+                return null;
+            }
+            Anomaly anomaly = score(user, period, key, meter, value);
+            double consumption = (value - lastValue) / (key - lastPeriod);
+            lastPeriod = key;
+            lastValue = value;
+            if (anomaly != null) {
+                return anomaly;
+            }
+            count++;
+            double delta = consumption - mean;
+            mean += delta / count;
+            squares += delta * (consumption - mean);
+            return null;
+        }
+    }
+}
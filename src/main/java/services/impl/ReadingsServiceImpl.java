@@ -2,99 +2,374 @@ package services.impl;
 
 import exceptions.ValidationException;
 import logger.Logger;
-import logger.impl.LoggerImpl;
+import logger.impl.AsyncLoggerImpl;
+import models.Periods;
 import models.Readings;
+import models.ReadingsEntry;
 import models.User;
+import repositories.ConsumptionRepository;
 import repositories.ReadingsRepository;
+import repositories.impl.ConsumptionRepositoryImpl;
+import services.HistoryCache;
+import services.ReadingsListener;
 import services.ReadingsService;
+import validators.SubmissionValidator;
 import validators.Validator;
 
-import java.time.Month;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 /**
  * Реализация интерфейса ReadingsService.
  * Использует ReadingsRepository для хранения данных показаний и Validator для проверки данных показаний.
+ * При подаче показаний вычисляет потребление по каждому типу показаний как разницу с предыдущим периодом
+ * и сохраняет его в ConsumptionRepository. Подача показаний одного пользователя сериализуется,
+ * чтобы соседние периоды и потребление оставались согласованными.
+ * Перед сохранением подача проходит подключенные стадии проверки SubmissionValidator,
+ * после успешной подачи показаний оповещаются зарегистрированные слушатели ReadingsListener.
+ * Отформатированная история показаний хранится в HistoryCache; построение и обновление истории пользователя
+ * выполняются под той же блокировкой, что и подача его показаний.
  */
 public class ReadingsServiceImpl implements ReadingsService {
     private final ReadingsRepository repository;
     private final Validator<Readings> validator;
-    private static final Logger logger = LoggerImpl.getInstance();
+    private final ConsumptionRepository consumptionRepository;
+    private final HistoryCache historyCache;
+    private final Object[] userLocks = new Object[LOCK_STRIPES];
+    private final List<ReadingsListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<SubmissionValidator> submissionValidators = new CopyOnWriteArrayList<>();
+    private static final int LOCK_STRIPES = 64;
+    private static final long HISTORY_CACHE_CAPACITY = 16L << 20;
+    private static final int HISTORY_PAGE_SIZE = 256;
+    private static final String ALREADY_SUBMITTED = "За этот месяц уже были поданы показания";
+    private static final Logger logger = AsyncLoggerImpl.getInstance();
 
     public ReadingsServiceImpl(ReadingsRepository repository, Validator<Readings> validator) {
+        this(repository, validator, new ConsumptionRepositoryImpl());
+    }
+
+    public ReadingsServiceImpl(ReadingsRepository repository, Validator<Readings> validator,
+                               ConsumptionRepository consumptionRepository) {
+        this(repository, validator, consumptionRepository, new HistoryCache(HISTORY_CACHE_CAPACITY));
+    }
+
+    public ReadingsServiceImpl(ReadingsRepository repository, Validator<Readings> validator,
+                               ConsumptionRepository consumptionRepository, HistoryCache historyCache) {
         this.repository = repository;
         this.validator = validator;
+        this.consumptionRepository = consumptionRepository;
+        this.historyCache = historyCache;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * @return Кеш истории показаний со статистикой попаданий.
+     */
+    public HistoryCache getHistoryCache() {
+        return historyCache;
+    }
+
+    /**
+     * Регистрирует слушателя, который будет оповещаться о каждой успешной подаче показаний.
+     * Слушатели вызываются под блокировкой пользователя, поэтому получают подачи одного пользователя
+     * в том порядке, в котором они сохранены; слушатель не должен выполнять долгих операций.
+     *
+     * @param listener Слушатель подачи показаний.
+     */
+    public void addListener(ReadingsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Подключает дополнительную стадию проверки подачи показаний. Стадии вызываются в порядке подключения.
+     *
+     * @param validator Стадия проверки.
+     */
+    public void addValidator(SubmissionValidator validator) {
+        submissionValidators.add(validator);
     }
 
     /**
      * {@inheritDoc}
-     * Если за данный месяц уже были поданы показания, выводит сообщение об этом.
+     * Проверка наличия показаний за период и их добавление выполняются репозиторием атомарно.
+     * Показания проверяются на возрастание относительно соседних периодов и подключенными стадиями проверки,
+     * после добавления сохраняется потребление за этот период и пересчитывается потребление за следующий период.
+     * Если за данный период уже были поданы показания, выводит сообщение об этом.
      *
-     * @throws ValidationException Если показания не прошли валидацию.
+     * @throws ValidationException Если показания не прошли валидацию, меньше показаний за предыдущий период
+     *                             или отклонены стадией проверки.
      */
-    public void addReadings(User user, Month month, Readings readings) throws ValidationException {
+    public boolean addReadings(User user, YearMonth period, Readings readings) throws ValidationException {
         validator.validate(readings);
-        Optional<Map<Month, Readings>> allReadings = repository.getAllReadings(user);
-        if (allReadings.isPresent() && allReadings.get().containsKey(month)) {
-            System.out.println("За этот месяц уже были поданы показания");
-        } else {
-            repository.addReadings(user, month, readings);
+        boolean added = add(user, period, readings);
+        if (added) {
             System.out.println("Данные успешно внесены");
-            logger.info("Пользователь " + user.getLogin() + " подал показания за " + month);
+            logger.info("Пользователь " + user.getLogin() + " подал показания за " + period);
+        } else {
+            System.out.println(ALREADY_SUBMITTED);
         }
+        return added;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Каждая запись сохраняется под блокировкой своего пользователя, с пересчетом потребления
+     * и оповещением слушателей, как при обычной подаче. Сообщения о каждой записи не выводятся.
+     */
+    public String[] addReadingsBatch(List<ReadingsEntry> entries) {
+        String[] rejections = new String[entries.size()];
+        int added = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            ReadingsEntry entry = entries.get(i);
+            try {
+                validator.validate(entry.getReadings());
+                if (add(entry.getUser(), entry.getPeriod(), entry.getReadings())) {
+                    added++;
+                } else {
+                    rejections[i] = ALREADY_SUBMITTED;
+                }
+            } catch (ValidationException e) {
+                rejections[i] = e.getMessage();
+            }
+        }
+        logger.info("Пакетно добавлены показания: " + added + " из " + entries.size());
+        return rejections;
     }
 
 
     /**
      * {@inheritDoc}
+     * История берется из кеша, а при промахе строится по репозиторию и сохраняется в кеш.
      * Если показания отсутствуют, выводит сообщение об этом.
      */
     public String getAllReadings(User user) {
-        StringBuilder sb = new StringBuilder();
-        Optional<Map<Month, Readings>> readingsMap = repository.getAllReadings(user);
-        if (readingsMap.isPresent()) {
-            readingsMap.get().forEach(((month, readings) -> sb.append(month).append(":").append(readings).append("\n")));
-            logger.info("Пользователь " + user.getLogin() + " получил историю подачи показаний.");
+        String history = historyCache.get(user);
+        if (history == null) {
+            synchronized (lockFor(user)) {
+                Optional<Map<YearMonth, Readings>> readingsMap = repository.getAllReadings(user);
+                if (readingsMap.isEmpty() || readingsMap.get().isEmpty()) {
+                    return "Показаний не найдено.";
+                }
+                history = HistoryCache.render(readingsMap.get());
+                historyCache.put(user, last(readingsMap.get()), history);
+            }
+        }
+        logger.info("Пользователь " + user.getLogin() + " получил историю подачи показаний.");
+        return history;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Сохраненная в кеше история записывается целиком, иначе история читается из репозитория постранично,
+     * и в памяти одновременно находится не более одной страницы. В кеш такая история не сохраняется.
+     */
+    public void writeAllReadings(User user, Writer out) throws IOException {
+        String history = historyCache.get(user);
+        if (history != null) {
+            out.write(history);
         } else {
-            sb.append("Показаний не найдено.\n");
+            Iterator<SortedMap<YearMonth, Readings>> pages = pages(user).iterator();
+            if (!pages.hasNext()) {
+                out.write("Показаний не найдено.");
+                return;
+            }
+            while (pages.hasNext()) {
+                out.write(HistoryCache.render(pages.next()));
+            }
         }
-        return sb.toString();
+        logger.info("Пользователь " + user.getLogin() + " получил историю подачи показаний.");
     }
 
     /**
      * {@inheritDoc}
-     * Последние показания определяются, как последнее значение в LinkedHashMap показаний, полученных от репозитория.
      */
-    public Optional<Readings> getLastReadings(User user) {
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        return repository.getReadings(user, from, limit);
+    }
 
-        Optional<Map<Month, Readings>> allReadingsMap = repository.getAllReadings(user);
-        Optional<Readings> lastReadings = Optional.empty();
+    /**
+     * {@inheritDoc}
+     * Поток слабо согласован: показания, поданные во время обхода, могут в него не попасть.
+     */
+    public Stream<Map.Entry<YearMonth, Readings>> streamReadings(User user) {
+        return pages(user).flatMap(page -> page.entrySet().stream());
+    }
 
-        if (allReadingsMap.isPresent()) {
-            for (var entry : allReadingsMap.get().entrySet()) {
-                lastReadings = Optional.ofNullable(entry.getValue());
-            }
+    /**
+     * {@inheritDoc}
+     * Последние показания определяются по календарю, а не по порядку подачи,
+     * и берутся из индекса последнего периода репозитория без обхода истории.
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        Optional<Readings> lastReadings = repository.getLastReadings(user);
+        if (lastReadings.isPresent()) {
             logger.info("Пользователь " + user.getLogin() + " получил актуальные показания.");
         } else {
             System.out.println("Вы не подавали никаких показаний");
         }
-
         return lastReadings;
     }
 
     /**
      * {@inheritDoc}
-     * Если показания за данный месяц отсутствуют, выводит сообщение об этом.
+     * Если показания за данный период отсутствуют, выводит сообщение об этом.
      */
-    public Optional<Readings> getReadingsByMonth(User user, Month month) {
-        Optional<Readings> readings = repository.getReadingsByMonth(user, month);
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        Optional<Readings> readings = repository.getReadingsByMonth(user, period);
         readings.ifPresentOrElse(
                 r -> {
-                    logger.info("Пользователь " + user.getLogin() + " получил показания за " + month);
+                    logger.info("Пользователь " + user.getLogin() + " получил показания за " + period);
                 },
                 () -> System.out.println("Вы не подавали показаний за этот месяц.")
         );
         return readings;
     }
+
+    /**
+     * {@inheritDoc}
+     * Если показаний нет, выводит сообщение об этом.
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        SortedMap<YearMonth, Readings> readings = repository.getLatestReadings(user, count);
+        if (readings.isEmpty()) {
+            System.out.println("Вы не подавали никаких показаний");
+        } else {
+            logger.info("Пользователь " + user.getLogin() + " получил показания за последние " + count + " периодов.");
+        }
+        return readings;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Если показания за диапазон отсутствуют, выводит сообщение об этом.
+     *
+     * @throws ValidationException Если начало диапазона позже его конца.
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) throws ValidationException {
+        if (from.isAfter(to)) {
+            throw new ValidationException("Начало периода не может быть позже его конца.");
+        }
+        SortedMap<YearMonth, Readings> readings = repository.getReadingsBetween(user, from, to);
+        if (readings.isEmpty()) {
+            System.out.println("Вы не подавали показаний за этот период.");
+        } else {
+            logger.info("Пользователь " + user.getLogin() + " получил показания с " + from + " по " + to);
+        }
+        return readings;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Потребление вычисляется при подаче показаний, поэтому запрос не обходит историю.
+     * Если потребление за данный период отсутствует, выводит сообщение об этом.
+     */
+    public Optional<Readings> getConsumption(User user, YearMonth period) {
+        Optional<Readings> consumption = consumptionRepository.getConsumption(user, period);
+        consumption.ifPresentOrElse(
+                c -> logger.info("Пользователь " + user.getLogin() + " получил потребление за " + period),
+                () -> System.out.println("Нет данных о потреблении за этот месяц.")
+        );
+        return consumption;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rebuildConsumption(Collection<User> users) {
+        for (User user : users) {
+            historyCache.invalidate(user);
+            repository.getAllReadings(user).ifPresent(history -> {
+                Readings previous = null;
+                for (Map.Entry<YearMonth, Readings> entry : history.entrySet()) {
+                    if (previous != null) {
+                        consumptionRepository.saveConsumption(user, entry.getKey(), difference(previous, entry.getValue()));
+                    }
+                    previous = entry.getValue();
+                }
+            });
+        }
+    }
+
+    private boolean add(User user, YearMonth period, Readings readings) {
+        synchronized (lockFor(user)) {
+            boolean added = repository.getReadingsByMonth(user, period).isEmpty()
+                    && addWithConsumption(user, period, readings);
+            if (added) {
+                historyCache.append(user, period, readings);
+                listeners.forEach(listener -> listener.onReadingsAdded(user, period, readings));
+            }
+            return added;
+        }
+    }
+
+    private boolean addWithConsumption(User user, YearMonth period, Readings readings) {
+        Optional<Map.Entry<YearMonth, Readings>> previous = repository.getPreviousReadings(user, period);
+        Optional<Map.Entry<YearMonth, Readings>> next = repository.getNextReadings(user, period);
+        previous.ifPresent(entry -> validator.validateProgression(entry.getValue(), readings));
+        next.ifPresent(entry -> validator.validateProgression(readings, entry.getValue()));
+        for (SubmissionValidator submissionValidator : submissionValidators) {
+            submissionValidator.validate(user, period, readings);
+        }
+        if (!repository.addReadingsIfAbsent(user, period, readings)) {
+            return false;
+        }
+        previous.ifPresent(entry -> consumptionRepository.saveConsumption(user, period, difference(entry.getValue(), readings)));
+        next.ifPresent(entry -> consumptionRepository.saveConsumption(user, entry.getKey(), difference(readings, entry.getValue())));
+        return true;
+    }
+
+    /**
+     * Ленивый поток страниц истории пользователя: следующая страница читается, когда обработана предыдущая.
+     */
+    private Stream<SortedMap<YearMonth, Readings>> pages(User user) {
+        return Stream.iterate(repository.getReadings(user, Periods.MIN, HISTORY_PAGE_SIZE),
+                page -> !page.isEmpty(),
+                page -> page.size() < HISTORY_PAGE_SIZE || !page.lastKey().isBefore(Periods.MAX)
+                        ? Collections.emptySortedMap()
+                        : repository.getReadings(user, page.lastKey().plusMonths(1), HISTORY_PAGE_SIZE));
+    }
+
+    private static YearMonth last(Map<YearMonth, Readings> history) {
+        if (history instanceof SortedMap<YearMonth, Readings> sorted) {
+            return sorted.lastKey();
+        }
+        YearMonth last = null;
+        for (YearMonth period : history.keySet()) {
+            last = period;
+        }
+        return last;
+    }
+
+    private Object lockFor(User user) {
+        int hash = user.getLogin().hashCode();
+        return userLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Вычисляет разницу показаний по типам, которые есть в обоих периодах.
+     */
+    private static Readings difference(Readings previous, Readings current) {
+        Readings consumption = new Readings();
+        for (int meter = current.nextMeter(0); meter >= 0; meter = current.nextMeter(meter + 1)) {
+            if (previous.has(meter)) {
+                consumption.add(meter, current.getValue(meter) - previous.getValue(meter));
+            }
+        }
+        return consumption;
+    }
 }
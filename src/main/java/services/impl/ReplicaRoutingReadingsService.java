@@ -0,0 +1,179 @@
+package services.impl;
+
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import services.ReadingsService;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Реализация интерфейса ReadingsService, направляющая запросы на чтение истории показаний на реплики.
+ * Подача показаний и запросы потребления выполняются основным сервисом. Запрос на чтение получает
+ * следующая по кругу реплика, устаревание которой не превышает maxStaleness; если таких нет,
+ * запрос выполняет основной сервис. Поэтому ответ может не содержать показаний, поданных
+ * за последние maxStaleness, в том числе только что поданных тем же пользователем.
+ */
+public class ReplicaRoutingReadingsService implements ReadingsService {
+    private final ReadingsService primary;
+    private final List<ReadReplica> replicas;
+    private final long maxStalenessMillis;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    /**
+     * @param primary      Сервис основного узла.
+     * @param replicas     Сервисы реплик и их устаревание.
+     * @param maxStaleness Максимальное устаревание реплики, на которую направляется запрос.
+     */
+    public ReplicaRoutingReadingsService(ReadingsService primary, List<ReadReplica> replicas, Duration maxStaleness) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxStalenessMillis = maxStaleness.toMillis();
+    }
+
+    /**
+     * @return Количество запросов на чтение, выполненных репликами.
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * @return Количество запросов на чтение, выполненных основным сервисом, потому что все реплики устарели.
+     */
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean addReadings(User user, YearMonth period, Readings readings) {
+        return primary.addReadings(user, period, readings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String[] addReadingsBatch(List<ReadingsEntry> entries) {
+        return primary.addReadingsBatch(entries);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getAllReadings(User user) {
+        return route().getAllReadings(user);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void writeAllReadings(User user, Writer out) throws IOException {
+        route().writeAllReadings(user, out);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadings(User user, YearMonth from, int limit) {
+        return route().getReadings(user, from, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<Map.Entry<YearMonth, Readings>> streamReadings(User user) {
+        return route().streamReadings(user);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getLastReadings(User user) {
+        return route().getLastReadings(user);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Optional<Readings> getReadingsByMonth(User user, YearMonth period) {
+        return route().getReadingsByMonth(user, period);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getLatestReadings(User user, int count) {
+        return route().getLatestReadings(user, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SortedMap<YearMonth, Readings> getReadingsBetween(User user, YearMonth from, YearMonth to) {
+        return route().getReadingsBetween(user, from, to);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Потребление хранится только на основном узле.
+     */
+    public Optional<Readings> getConsumption(User user, YearMonth period) {
+        return primary.getConsumption(user, period);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rebuildConsumption(Collection<User> users) {
+        primary.rebuildConsumption(users);
+    }
+
+    private ReadingsService route() {
+        int size = replicas.size();
+        if (size > 0) {
+            int start = Math.floorMod(cursor.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                ReadReplica replica = replicas.get((start + i) % size);
+                if (replica.staleness.getAsLong() <= maxStalenessMillis) {
+                    replicaReads.increment();
+                    return replica.service;
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary;
+    }
+
+    /**
+     * Сервис показаний реплики и источник ее текущего устаревания в миллисекундах.
+     */
+    public static final class ReadReplica {
+        private final ReadingsService service;
+        private final LongSupplier staleness;
+
+        /**
+         * @param service   Сервис показаний поверх репозитория реплики.
+         * @param staleness Текущее устаревание реплики в миллисекундах.
+         */
+        public ReadReplica(ReadingsService service, LongSupplier staleness) {
+            this.service = service;
+            this.staleness = staleness;
+        }
+    }
+}
@@ -3,27 +3,64 @@ package services.impl;
 import enums.Role;
 import exceptions.ValidationException;
 import logger.Logger;
-import logger.impl.LoggerImpl;
+import logger.impl.AsyncLoggerImpl;
 import models.User;
 import repositories.UserRepository;
+import security.CredentialCache;
+import security.PasswordHasher;
+import security.impl.BoundedPasswordHasher;
+import security.impl.Pbkdf2PasswordHasher;
+import services.UserListener;
 import services.UserService;
 import validators.Validator;
 
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 /**
  * Реализация интерфейса UserService.
  * Использует UserRepository для хранения данных пользователей и Validator для проверки данных пользователей.
+ * <p>
+ * Пароли хранятся в виде солевого хеша PasswordHasher. Пароли в открытом виде, сохраненные до перехода
+ * на хеширование, принимаются и хешируются при первом успешном входе. Успешно проверенные учетные данные
+ * запоминаются в CredentialCache, поэтому повторный вход с теми же данными не пересчитывает хеш.
+ * После регистрации и смены пароля оповещаются зарегистрированные слушатели UserListener.
  */
 public class UserServiceImpl implements UserService {
     private final UserRepository repository;
     private final Validator<User> validator;
-    private final static Logger logger = LoggerImpl.getInstance();
+    private final PasswordHasher hasher;
+    private final CredentialCache credentials;
+    private final List<UserListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile String dummyHash;
+    private final static Logger logger = AsyncLoggerImpl.getInstance();
 
     public UserServiceImpl(UserRepository repository, Validator<User> validator) {
+        this(repository, validator, new BoundedPasswordHasher(new Pbkdf2PasswordHasher(),
+                        Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 256),
+                new CredentialCache(10_000, Duration.ofMinutes(15)));
+    }
+
+    public UserServiceImpl(UserRepository repository, Validator<User> validator,
+                           PasswordHasher hasher, CredentialCache credentials) {
         this.repository = repository;
         this.validator = validator;
+        this.hasher = hasher;
+        this.credentials = credentials;
+    }
+
+    /**
+     * Регистрирует слушателя, которого сервис оповещает о регистрации пользователей и смене паролей.
+     *
+     * @param listener Слушатель изменений учетных записей.
+     */
+    public void addListener(UserListener listener) {
+        listeners.add(listener);
     }
 
     /**
@@ -32,17 +69,17 @@ public class UserServiceImpl implements UserService {
      * @throws ValidationException Если старый пароль или новый пароль не прошли валидацию.
      */
     public void changePassword(User user, String oldPassword, String newPassword) {
-        if (oldPassword.isEmpty() || !oldPassword.equals(user.getPassword())) {
+        if (oldPassword.isEmpty() || !verify(user, oldPassword)) {
             throw new ValidationException("Неверный старый пароль");
         }
         if (newPassword.isEmpty()) {
             throw new ValidationException("Неверное значение");
         }
-        user.setPassword(newPassword);
-        if (user.getPassword().equals(newPassword)) {
-            System.out.println("Пароль успешно сменен.");
-            logger.info("Пользователь " + user.getLogin() + " сменил пароль.");
-        }
+        user.setPassword(hasher.hash(newPassword));
+        repository.updateUser(user);
+        System.out.println("Пароль успешно сменен.");
+        logger.info("Пользователь " + user.getLogin() + " сменил пароль.");
+        listeners.forEach(listener -> listener.onPasswordChanged(user));
     }
 
     /**
@@ -54,11 +91,12 @@ public class UserServiceImpl implements UserService {
     public void registerUser(String login, String password) throws ValidationException {
         Optional<User> user = repository.getUser(login);
         if (user.isEmpty()) {
-            user = Optional.of(new User(login, password, Role.USER));
-            validator.validate(user.get());
-            repository.addUser(user.get());
+            validator.validate(new User(login, password, Role.USER));
+            User registered = new User(login, hasher.hash(password), Role.USER);
+            repository.addUser(registered);
             System.out.println("Вы успешно зарегистрировались.\n");
             logger.info("Пользователь " + login + " успешно зарегистрировался.");
+            listeners.forEach(listener -> listener.onUserRegistered(registered));
         } else {
             System.out.println("Такой логин уже существует.\n");
         }
@@ -87,13 +125,61 @@ public class UserServiceImpl implements UserService {
         return repository.getAllLogins();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getLogins(String afterLogin, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        return repository.getLogins(afterLogin, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<String> streamLogins() {
+        return repository.logins();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Сначала ищутся логины с одной опечаткой; логины с двумя опечатками ищутся, только если с одной
+     * ничего не найдено и запрос длиннее 4 символов, так как такой поиск обходит гораздо больше префиксов.
+     */
+    public List<String> searchLogins(String query, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Количество результатов должно быть положительным");
+        }
+        List<String> found = repository.findLoginsByPrefix(query, limit);
+        if (found.size() == limit) {
+            return found;
+        }
+        Set<String> result = new LinkedHashSet<>(found);
+        int maxDistance = query.length() <= 4 ? 1 : 2;
+        for (int distance = 1; distance <= maxDistance && result.size() == found.size(); distance++) {
+            for (String login : repository.findSimilarLogins(query, distance, limit)) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(login);
+            }
+        }
+        return List.copyOf(result);
+    }
+
     /**
      * {@inheritDoc}
      * Если пользователь с таким логином не найден или заданный пароль не совпадает, выводит сообщение об этом.
+     *
+     * @throws exceptions.ServiceUnavailableException Если пул хеширования паролей перегружен.
      */
     public Optional<User> getUser(String login, String password) {
         Optional<User> user = repository.getUser(login);
-        if (user.isPresent() && user.get().getPassword().equals(password)) {
+        if (user.isEmpty()) {
+            hasher.verify(password, dummyHash());
+        }
+        if (user.isPresent() && verify(user.get(), password)) {
             logger.info("Пользователь " + login + " прошел аутентификацию. ");
             return user;
         } else {
@@ -101,4 +187,38 @@ public class UserServiceImpl implements UserService {
             return Optional.empty();
         }
     }
+
+    /**
+     * Возвращает хеш, с которым сверяется пароль при входе с несуществующим логином, чтобы такой вход
+     * занимал столько же времени, сколько вход с неверным паролем, и не выдавал, какие логины существуют.
+     */
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = hasher.hash("dummy-password");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Проверяет пароль пользователя, сначала по кешу проверенных учетных данных, затем по хешу.
+     * Пароль в открытом виде или хеш с устаревшими параметрами после успешной проверки хешируется заново.
+     */
+    private boolean verify(User user, String password) {
+        String stored = user.getPassword();
+        if (credentials.contains(user.getLogin(), password, stored)) {
+            return true;
+        }
+        if (!hasher.verify(password, stored)) {
+            return false;
+        }
+        if (hasher.needsRehash(stored)) {
+            user.setPassword(hasher.hash(password));
+            repository.updateUser(user);
+            logger.info("Пароль пользователя " + user.getLogin() + " захеширован заново.");
+        }
+        credentials.put(user.getLogin(), password, user.getPassword());
+        return true;
+    }
 }
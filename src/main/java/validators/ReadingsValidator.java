@@ -1,29 +1,67 @@
 package validators;
 
 import exceptions.ValidationException;
+import models.MeterTypes;
 import models.Readings;
+import repositories.MeterTypeRegistry;
 import validators.Validator;
 
-import java.util.Map;
-
 /**
  * Реализация интерфейса Validator для объектов класса Readings.
- * Проверяет, что показания не отрицательны и не пусты.
+ * Проверяет, что показания не отрицательны и не пусты, а показания счетчиков не уменьшаются от периода к периоду.
+ * Если задан реестр типов показаний, проверяет также, что все типы показаний в нем зарегистрированы.
  */
 public class ReadingsValidator implements Validator<Readings> {
+    private final MeterTypeRegistry meterTypes;
+
+    /**
+     * Создает валидатор, допускающий показания любых типов.
+     */
+    public ReadingsValidator() {
+        this(null);
+    }
+
+    /**
+     * @param meterTypes Реестр типов показаний, которые разрешено подавать.
+     */
+    public ReadingsValidator(MeterTypeRegistry meterTypes) {
+        this.meterTypes = meterTypes;
+    }
+
     /**
-     * Проверяет, что все показания не отрицательны и не пусты.
+     * Проверяет, что все показания не отрицательны и не пусты, а их типы зарегистрированы.
      *
      * @param readings Показания, которые должны быть проверены.
-     * @throws ValidationException Если показания пусты или любое из значений показаний отрицательно.
+     * @throws ValidationException Если показания пусты, любое из значений показаний отрицательно
+     *                             или тип показаний не зарегистрирован.
      */
     public void validate(Readings readings) {
-        if (readings.get().isEmpty()) {
+        if (readings.isEmpty()) {
             throw new ValidationException("Показания не могут быть пустыми");
         }
-        for (Map.Entry<String, Double> entry : readings.get().entrySet()) {
-            if (entry.getValue() < 0) {
-                throw new ValidationException("Значение не может быть отрицательным для " + entry.getKey());
+        for (int meter = readings.nextMeter(0); meter >= 0; meter = readings.nextMeter(meter + 1)) {
+            if (meterTypes != null && !meterTypes.isRegistered(meter)) {
+                throw new ValidationException("Неизвестный тип показаний " + MeterTypes.nameOf(meter));
+            }
+            if (readings.getValue(meter) < 0) {
+                throw new ValidationException("Значение не может быть отрицательным для " + MeterTypes.nameOf(meter));
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что показания счетчиков не меньше показаний за предыдущий период.
+     * Типы показаний, которых не было в предыдущем периоде, не проверяются.
+     *
+     * @param previous Показания за предыдущий период.
+     * @param current  Показания за следующий период.
+     * @throws ValidationException Если какое-либо показание меньше предыдущего.
+     */
+    @Override
+    public void validateProgression(Readings previous, Readings current) {
+        for (int meter = current.nextMeter(0); meter >= 0; meter = current.nextMeter(meter + 1)) {
+            if (previous.has(meter) && current.getValue(meter) < previous.getValue(meter)) {
+                throw new ValidationException("Показание не может быть меньше предыдущего для " + MeterTypes.nameOf(meter));
             }
         }
     }
@@ -0,0 +1,26 @@
+package validators;
+
+import exceptions.ValidationException;
+import models.Readings;
+import models.User;
+
+import java.time.YearMonth;
+
+/**
+ * Дополнительная стадия проверки подачи показаний, которой, в отличие от Validator, известны пользователь и период.
+ * Стадии подключаются к сервису показаний и вызываются под блокировкой пользователя после основной проверки
+ * и проверки возрастания показаний, непосредственно перед сохранением, в порядке подключения.
+ * Если стадия отклоняет подачу, следующие стадии ее не видят и показания не сохраняются.
+ */
+@FunctionalInterface
+public interface SubmissionValidator {
+    /**
+     * Проверяет подачу показаний.
+     *
+     * @param user     Пользователь, подающий показания.
+     * @param period   Период подачи.
+     * @param readings Подаваемые показания, уже прошедшие основную проверку.
+     * @throws ValidationException Если подачу нужно отклонить.
+     */
+    void validate(User user, YearMonth period, Readings readings) throws ValidationException;
+}
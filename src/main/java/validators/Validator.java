@@ -15,4 +15,15 @@ public interface Validator<T> {
      * @throws ValidationException если данные не проходят валидацию.
      */
     void validate(T data) throws ValidationException;
+
+    /**
+     * Проверяет, что новые данные допустимо следуют за предыдущими.
+     * По умолчанию никаких ограничений на последовательность данных нет.
+     *
+     * @param previous Предыдущие данные.
+     * @param current  Новые данные.
+     * @throws ValidationException если новые данные не могут следовать за предыдущими.
+     */
+    default void validateProgression(T previous, T current) throws ValidationException {
+    }
 }
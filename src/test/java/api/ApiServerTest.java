@@ -0,0 +1,223 @@
+package api;
+
+import enums.Role;
+import metrics.InstrumentedReadingsService;
+import metrics.InstrumentedUserService;
+import metrics.MetricsRegistry;
+import models.MeterTypes;
+import models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.UserRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import repositories.impl.MeterTypeRegistryImpl;
+import security.CredentialCache;
+import security.impl.Pbkdf2PasswordHasher;
+import services.impl.ReadingsServiceImpl;
+import services.impl.UserServiceImpl;
+import validators.ReadingsValidator;
+import validators.UserValidator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApiServerTest {
+    private static final int SESSIONS = 200;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private UserRepository users;
+    private MetricsRegistry metrics;
+    private ApiServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        users = new ConcurrentUserRepositoryImpl();
+        users.addUser(new User("user", "password", Role.USER));
+        users.addUser(new User("admin", "password", Role.ADMIN));
+        MeterTypeRegistryImpl meterTypes = new MeterTypeRegistryImpl();
+        meterTypes.register("heating");
+        meterTypes.register("water");
+        metrics = new MetricsRegistry();
+        server = new ApiServer(new InstrumentedUserService(new UserServiceImpl(users, new UserValidator(),
+                        new Pbkdf2PasswordHasher(1000), new CredentialCache(16, Duration.ofMinutes(1))), metrics),
+                new InstrumentedReadingsService(new ReadingsServiceImpl(new ConcurrentReadingsRepositoryImpl(),
+                        new ReadingsValidator(meterTypes)), metrics),
+                new SessionStore(Duration.ofMinutes(1)), metrics, new InetSocketAddress("127.0.0.1", 0), 4, 64);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Проверка подачи и получения показаний через HTTP API")
+    public void testSubmitAndRead() throws Exception {
+        String token = login("user");
+
+        HttpResponse<String> submitted = post("/api/readings", token,
+                "{\"period\":\"2024-01\",\"readings\":{\"heating\":100.5,\"water\":10}}");
+        HttpResponse<String> duplicate = post("/api/readings", token,
+                "{\"period\":\"2024-01\",\"readings\":{\"heating\":101}}");
+        post("/api/readings", token, "{\"period\":\"2024-02\",\"readings\":{\"heating\":120}}");
+
+        assertEquals(201, submitted.statusCode());
+        assertEquals(409, duplicate.statusCode());
+        HttpResponse<String> byPeriod = get("/api/readings?period=2024-01", token);
+        assertEquals(200, byPeriod.statusCode());
+        Map<String, Object> readings = Json.parseObject(byPeriod.body());
+        assertEquals(100.5, readings.get("heating"));
+        assertEquals(10.0, readings.get("water"));
+        assertEquals("{\"2024-02\":{\"heating\":120.0}}", get("/api/readings/latest", token).body());
+        assertEquals(2, Json.parseObject(get("/api/readings?from=2024-01&to=2024-12", token).body()).size());
+        assertEquals(404, get("/api/readings?period=2023-01", token).statusCode());
+    }
+
+    @Test
+    @DisplayName("Проверка ошибок авторизации и некорректных запросов")
+    public void testErrors() throws Exception {
+        String token = login("user");
+
+        assertEquals(401, post("/api/login", null, "{\"login\":\"user\",\"password\":\"wrong\"}").statusCode());
+        assertEquals(401, get("/api/readings/latest", null).statusCode());
+        assertEquals(401, get("/api/readings/latest", "unknown").statusCode());
+        assertEquals(403, get("/api/admin/users", token).statusCode());
+        assertEquals(400, post("/api/readings", token, "{\"period\":\"2024-13\",\"readings\":{\"heating\":1}}").statusCode());
+        assertEquals(400, post("/api/readings", token,
+                "{\"period\":\"+200000000-01\",\"readings\":{\"heating\":1}}").statusCode());
+        assertEquals(400, get("/api/readings?period=-0005-01", token).statusCode());
+        assertEquals(400, post("/api/readings", token, "{\"period\":\"2024-01\",\"readings\":{\"heating\":-1}}").statusCode());
+        assertEquals(400, post("/api/readings", token, "{\"period\":").statusCode());
+        int count = MeterTypes.count();
+        assertEquals(400, post("/api/readings", token,
+                "{\"period\":\"2024-01\",\"readings\":{\"api-unknown\":1}}").statusCode());
+        assertEquals(count, MeterTypes.count());
+        assertEquals(404, get("/api/unknown", token).statusCode());
+
+        assertEquals(204, post("/api/logout", token, "").statusCode());
+        assertEquals(401, get("/api/readings/latest", token).statusCode());
+    }
+
+    @Test
+    @DisplayName("Проверка просмотра пользователей и их показаний администратором")
+    public void testAdmin() throws Exception {
+        String user = login("user");
+        post("/api/readings", user, "{\"period\":\"2024-01\",\"readings\":{\"heating\":100}}");
+        String admin = login("admin");
+
+        HttpResponse<String> logins = get("/api/admin/users", admin);
+        HttpResponse<String> history = get("/api/admin/users/user/readings", admin);
+
+        assertEquals(200, logins.statusCode());
+        assertTrue(logins.body().contains("\"user\""));
+        assertEquals("{\"2024-01\":{\"heating\":100.0}}", history.body());
+        assertEquals(404, get("/api/admin/users/missing/readings", admin).statusCode());
+    }
+
+    @Test
+    @DisplayName("Проверка одновременной работы множества сессий")
+    public void testConcurrentSessions() throws Exception {
+        for (int i = 0; i < SESSIONS; i++) {
+            users.addUser(new User("user" + i, "password", Role.USER));
+        }
+        List<CompletableFuture<Integer>> responses = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            String token = login("user" + i);
+            responses.add(client.sendAsync(request("/api/readings", token)
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"period\":\"2024-01\",\"readings\":{\"heating\":" + i + "}}"))
+                            .build(), HttpResponse.BodyHandlers.discarding())
+                    .thenApply(HttpResponse::statusCode));
+        }
+
+        for (CompletableFuture<Integer> response : responses) {
+            assertEquals(201, response.get());
+        }
+        assertEquals("{\"2024-01\":{\"heating\":7.0}}", get("/api/readings/latest", login("user7")).body());
+    }
+
+    @Test
+    @DisplayName("Проверка постраничного получения логинов и истории показаний")
+    public void testPagination() throws Exception {
+        String user = login("user");
+        for (int month = 1; month <= 3; month++) {
+            post("/api/readings", user, "{\"period\":\"2024-0" + month + "\",\"readings\":{\"heating\":" + month + "}}");
+        }
+        String admin = login("admin");
+
+        HttpResponse<String> firstLogins = get("/api/admin/users?limit=2", admin);
+        HttpResponse<String> lastLogins = get("/api/admin/users?limit=2&after=login", admin);
+        HttpResponse<String> firstReadings = get("/api/readings?limit=2", user);
+        Map<String, Object> next = Json.parseObject(firstReadings.body());
+        HttpResponse<String> lastReadings = get("/api/admin/users/user/readings?limit=2&from=" + next.get("next"), admin);
+
+        assertEquals("{\"logins\":[\"admin\",\"login\"],\"next\":\"login\"}", firstLogins.body());
+        assertEquals("{\"logins\":[\"user\"],\"next\":null}", lastLogins.body());
+        assertEquals("{\"readings\":{\"2024-01\":{\"heating\":1.0},\"2024-02\":{\"heating\":2.0}},\"next\":\"2024-03\"}",
+                firstReadings.body());
+        assertEquals("{\"readings\":{\"2024-03\":{\"heating\":3.0}},\"next\":null}", lastReadings.body());
+        assertEquals("[\"admin\",\"login\",\"user\"]", get("/api/admin/users", admin).body());
+        assertEquals(400, get("/api/admin/users?limit=0", admin).statusCode());
+        assertEquals("{\"logins\":[\"login\"]}", get("/api/admin/users?search=logn", admin).body());
+        assertEquals("{\"logins\":[\"user\"]}", get("/api/admin/users?search=us&limit=1", admin).body());
+    }
+
+    @Test
+    @DisplayName("Проверка выгрузки метрик вызовов сервисов в формате Prometheus")
+    public void testMetrics() throws Exception {
+        String user = login("user");
+        post("/api/readings", user, "{\"period\":\"2024-01\",\"readings\":{\"heating\":1}}");
+        post("/api/readings", user, "{\"period\":\"2024-02\",\"readings\":{\"heating\":-1}}");
+
+        HttpResponse<String> response = get("/metrics", null);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        assertTrue(response.body().contains("# TYPE service_call_duration_seconds summary\n"));
+        assertTrue(response.body().contains(
+                "service_call_duration_seconds_count{service=\"readings\",method=\"addReadings\"} 2\n"));
+        assertTrue(response.body().contains(
+                "service_validation_failures_total{service=\"readings\",method=\"addReadings\"} 1\n"));
+        assertTrue(response.body().contains(
+                "service_call_duration_seconds_count{service=\"user\",method=\"getUser\"} 1\n"));
+        assertEquals(404, get("/metrics/other", null).statusCode());
+    }
+
+    private String login(String login) throws Exception {
+        HttpResponse<String> response = post("/api/login", null,
+                "{\"login\":" + Json.quote(login) + ",\"password\":\"password\"}");
+        assertEquals(200, response.statusCode());
+        return Json.string(Json.parseObject(response.body()), "token");
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        return client.send(request(path, token).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String token, String body) throws Exception {
+        return client.send(request(path, token).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,203 @@
+package events;
+
+import enums.ChangeEventType;
+import enums.Role;
+import models.ChangeEvent;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedTest {
+    private final User user = new User("feedLogin", "password", Role.USER);
+    private final YearMonth period = YearMonth.of(2024, 1);
+
+    @Test
+    @DisplayName("Проверка чтения событий пачками и повторного чтения со смещения")
+    public void testPollAndReplay() {
+        ChangeFeed feed = new ChangeFeed(16);
+        Readings readings = new Readings();
+        feed.onUserRegistered(user);
+        feed.onReadingsAdded(user, period, readings);
+        feed.onPasswordChanged(user);
+
+        List<ChangeEvent> events = new ArrayList<>();
+        long next = feed.poll(0, 2, events::add);
+        assertEquals(2, next);
+        next = feed.poll(next, 10, events::add);
+        assertEquals(3, next);
+        assertEquals(3, feed.poll(next, 10, events::add));
+
+        assertEquals(List.of(ChangeEventType.USER_REGISTERED, ChangeEventType.READINGS_ADDED,
+                ChangeEventType.PASSWORD_CHANGED), events.stream().map(ChangeEvent::getType).toList());
+        assertEquals("feedLogin", events.get(1).getLogin());
+        assertEquals(period, events.get(1).getPeriod());
+        assertSame(readings, events.get(1).getReadings());
+        assertNull(events.get(2).getReadings());
+
+        List<ChangeEvent> replayed = new ArrayList<>();
+        feed.poll(1, 10, replayed::add);
+        assertEquals(events.subList(1, 3), replayed);
+    }
+
+    @Test
+    @DisplayName("Проверка ошибки при чтении вытесненных событий")
+    public void testOverrun() {
+        ChangeFeed feed = new ChangeFeed(4);
+        for (int i = 0; i < 10; i++) {
+            feed.onUserRegistered(user);
+        }
+
+        assertEquals(6, feed.getFirstOffset());
+        assertEquals(10, feed.getNextOffset());
+        assertThrows(IllegalStateException.class, () -> feed.poll(0, 10, event -> { }));
+        List<ChangeEvent> events = new ArrayList<>();
+        feed.poll(feed.getFirstOffset(), 10, events::add);
+        assertEquals(List.of(6L, 7L, 8L, 9L), events.stream().map(ChangeEvent::getOffset).toList());
+    }
+
+    @Test
+    @DisplayName("Проверка доставки подписчику только запрошенного количества событий")
+    public void testSubscriberDemand() throws Exception {
+        ChangeFeed feed = new ChangeFeed(64);
+        for (int i = 0; i < 5; i++) {
+            feed.onUserRegistered(user);
+        }
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        feed.subscribe(subscriber, 1);
+
+        assertTrue(subscriber.awaitEvents(2));
+        Thread.sleep(50);
+        assertFalse(subscriber.awaitEvents(3, 0));
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        feed.onPasswordChanged(user);
+        assertTrue(subscriber.awaitEvents(5));
+        feed.close();
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), offsets(subscriber));
+        assertEquals(ChangeEventType.PASSWORD_CHANGED, subscriber.events.get(4).getType());
+        assertNull(subscriber.error.get());
+        assertEquals(-1, feed.publish(ChangeEventType.USER_REGISTERED, "late", null, null));
+    }
+
+    @Test
+    @DisplayName("Проверка доставки по порядку без пропусков при нескольких производителях")
+    public void testConcurrentPublishers() throws Exception {
+        ChangeFeed feed = new ChangeFeed(1 << 16);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        feed.subscribe(subscriber);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    feed.onReadingsAdded(user, period, null);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        feed.close();
+
+        assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        List<Long> offsets = offsets(subscriber);
+        assertEquals(40_000, offsets.size());
+        for (int i = 0; i < offsets.size(); i++) {
+            assertEquals(i, offsets.get(i));
+        }
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Проверка ошибок подписки: неположительный запрос и отставание больше емкости ленты")
+    public void testSubscriptionErrors() throws Exception {
+        ChangeFeed feed = new ChangeFeed(4);
+        RecordingSubscriber invalid = new RecordingSubscriber(0);
+        feed.subscribe(invalid);
+        assertTrue(invalid.subscribed.await(5, TimeUnit.SECONDS));
+        invalid.subscription.request(0);
+        assertTrue(invalid.completed.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, invalid.error.get());
+
+        for (int i = 0; i < 10; i++) {
+            feed.onUserRegistered(user);
+        }
+        RecordingSubscriber lagging = new RecordingSubscriber(Long.MAX_VALUE);
+        feed.subscribe(lagging, 0);
+        assertTrue(lagging.completed.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, lagging.error.get());
+        assertTrue(lagging.events.isEmpty());
+    }
+
+    private static List<Long> offsets(RecordingSubscriber subscriber) {
+        return subscriber.events.stream().map(ChangeEvent::getOffset).toList();
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<ChangeEvent> {
+        private final long initialDemand;
+        private final List<ChangeEvent> events = new ArrayList<>();
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile Flow.Subscription subscription;
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+            subscribed.countDown();
+        }
+
+        public void onNext(ChangeEvent event) {
+            synchronized (events) {
+                events.add(event);
+                events.notifyAll();
+            }
+        }
+
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            completed.countDown();
+        }
+
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        private boolean awaitEvents(int count) throws InterruptedException {
+            return awaitEvents(count, 5_000);
+        }
+
+        private boolean awaitEvents(int count, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            synchronized (events) {
+                while (events.size() < count) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    events.wait(remaining);
+                }
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package importer;
+
+import enums.ImportFormat;
+import enums.Role;
+import exceptions.ValidationException;
+import models.MeterTypes;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import repositories.impl.MeterTypeRegistryImpl;
+import services.impl.ReadingsServiceImpl;
+import validators.ReadingsValidator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadingsImporterTest {
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final int USERS = 50;
+    private static final int PERIODS = 60;
+
+    private UserRepository users;
+    private ReadingsRepository readings;
+    private ReadingsServiceImpl service;
+    private ReadingsImporter importer;
+
+    @BeforeEach
+    public void setUp() {
+        users = new ConcurrentUserRepositoryImpl();
+        readings = new ConcurrentReadingsRepositoryImpl();
+        MeterTypeRegistryImpl meterTypes = new MeterTypeRegistryImpl();
+        meterTypes.register("heating");
+        meterTypes.register("water");
+        meterTypes.register("hot \"water\"");
+        service = new ReadingsServiceImpl(readings, new ReadingsValidator(meterTypes));
+        importer = new ReadingsImporter(users, service, 4);
+        users.addUser(new User("first", "password", Role.USER));
+        users.addUser(new User("second", "password", Role.USER));
+    }
+
+    @Test
+    @DisplayName("Проверка импорта показаний из CSV")
+    public void testImportCsv() throws IOException {
+        ImportReport report = importCsv("""
+                login,period,heating,water
+                first,2024-01,100.5,10
+                second,2024-01,200,
+                first,2024-02,101.25,11
+                """, new ArrayList<>());
+
+        assertEquals(3, report.getRows());
+        assertEquals(3, report.getAccepted());
+        assertEquals(0, report.getRejected());
+        Readings first = readings.getReadingsByMonth(user("first"), YearMonth.of(2024, 2)).orElseThrow();
+        assertEquals(101.25, first.get().get("heating"));
+        assertEquals(11.0, first.get().get("water"));
+        Readings second = readings.getReadingsByMonth(user("second"), JANUARY).orElseThrow();
+        assertFalse(second.get().containsKey("water"));
+    }
+
+    @Test
+    @DisplayName("Проверка оповещения слушателей и расчета потребления при импорте")
+    public void testImportNotifiesListeners() throws IOException {
+        List<YearMonth> added = new ArrayList<>();
+        service.addListener((user, period, submitted) -> added.add(period));
+
+        importCsv("""
+                login,period,heating
+                first,2024-01,100
+                first,2024-02,130
+                first,2024-02,140
+                """, new ArrayList<>());
+
+        assertEquals(List.of(JANUARY, YearMonth.of(2024, 2)), added);
+        assertEquals(30.0, service.getConsumption(user("first"), YearMonth.of(2024, 2)).orElseThrow().get().get("heating"));
+    }
+
+    @Test
+    @DisplayName("Проверка импорта показаний из JSONL")
+    public void testImportJsonl() throws IOException {
+        String content = """
+                {"login":"first","period":"2024-01","readings":{"heating":100.5,"water":1e1}}
+                {"readings":{"hot \\"water\\"":3},"period":"2024-01","login":"second"}
+
+                """;
+
+        ImportReport report = importer.importStream(stream(content), ImportFormat.JSONL, rejection -> {
+        });
+
+        assertEquals(2, report.getAccepted());
+        assertEquals(10.0, readings.getReadingsByMonth(user("first"), JANUARY).orElseThrow().get().get("water"));
+        assertEquals(3.0, readings.getReadingsByMonth(user("second"), JANUARY).orElseThrow().get().get("hot \"water\""));
+    }
+
+    @Test
+    @DisplayName("Проверка отклонения некорректных строк с указанием номера строки")
+    public void testRejections() throws IOException {
+        readings.addReadings(user("second"), JANUARY, readings(500));
+        List<ImportReport.Rejection> rejected = new ArrayList<>();
+
+        ImportReport report = importCsv("""
+                login,period,heating
+                unknown,2024-01,1
+                first,2024-01,-1
+                first,2024-13,1
+                first,2024-01,abc
+                first,2024-01,10
+                first,2024-01,20
+                first,2024-02,5
+                second,2024-01,600
+                second,2024-02,400
+                first,2024-03,15,1
+                """, rejected);
+
+        assertEquals(10, report.getRows());
+        assertEquals(1, report.getAccepted());
+        assertEquals(9, report.getRejected());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 7L, 8L, 9L, 10L, 11L),
+                rejected.stream().map(ImportReport.Rejection::getLine).toList());
+        assertEquals(rejected, report.getRejections());
+        assertEquals(500.0, readings.getReadingsByMonth(user("second"), JANUARY).orElseThrow().get().get("heating"));
+        assertTrue(readings.getReadingsByMonth(user("first"), YearMonth.of(2024, 2)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка отклонения неизвестных типов показаний без их регистрации")
+    public void testUnknownMeterType() throws IOException {
+        int count = MeterTypes.count();
+        List<ImportReport.Rejection> rejected = new ArrayList<>();
+
+        ImportReport csv = importCsv("""
+                login,period,heating,import-unknown-csv
+                first,2024-01,1,
+                first,2024-02,1,2
+                """, rejected);
+        ImportReport jsonl = importer.importStream(stream("""
+                {"login":"second","period":"2024-01","readings":{"import-unknown-jsonl":1}}
+                """), ImportFormat.JSONL, rejected::add);
+
+        assertEquals(1, csv.getAccepted());
+        assertEquals(1, csv.getRejected());
+        assertEquals(0, jsonl.getAccepted());
+        assertEquals(1, jsonl.getRejected());
+        assertEquals(count, MeterTypes.count());
+        assertEquals(-1, MeterTypes.find("import-unknown-csv"));
+        assertEquals(-1, MeterTypes.find("import-unknown-jsonl"));
+    }
+
+    @Test
+    @DisplayName("Проверка импорта файла из нескольких пакетов")
+    public void testImportLargeFile(@TempDir Path directory) throws IOException {
+        for (int i = 2; i < USERS; i++) {
+            users.addUser(new User("user" + i, "password", Role.USER));
+        }
+        StringBuilder content = new StringBuilder("login,period,heating,water\n");
+        for (int month = 0; month < PERIODS; month++) {
+            YearMonth period = JANUARY.plusMonths(month);
+            for (int i = 2; i < USERS; i++) {
+                content.append("user").append(i).append(',').append(period).append(',')
+                        .append(month * 10 + i).append('.').append(i % 10).append(',').append(month).append('\n');
+            }
+        }
+        Path file = directory.resolve("readings.csv");
+        Files.writeString(file, content);
+
+        ImportReport report = importer.importFile(file, ReadingsImporter.formatOf(file));
+
+        assertEquals((long) (USERS - 2) * PERIODS, report.getRows());
+        assertEquals(report.getRows(), report.getAccepted());
+        User last = user("user" + (USERS - 1));
+        assertEquals(PERIODS, readings.getAllReadings(last).orElseThrow().size());
+        assertEquals((PERIODS - 1) * 10 + USERS - 1 + 0.9,
+                readings.getReadingsByMonth(last, JANUARY.plusMonths(PERIODS - 1)).orElseThrow().get().get("heating"));
+    }
+
+    @Test
+    @DisplayName("Проверка определения формата по расширению файла")
+    public void testFormatOf() {
+        assertEquals(ImportFormat.CSV, ReadingsImporter.formatOf(Path.of("readings.CSV")));
+        assertEquals(ImportFormat.JSONL, ReadingsImporter.formatOf(Path.of("readings.ndjson")));
+        assertThrows(ValidationException.class, () -> ReadingsImporter.formatOf(Path.of("readings.xml")));
+    }
+
+    @Test
+    @DisplayName("Проверка отказа при некорректном заголовке CSV")
+    public void testInvalidHeader() {
+        assertThrows(IOException.class, () -> importCsv("period,login,heating\n", new ArrayList<>()));
+    }
+
+    private ImportReport importCsv(String content, List<ImportReport.Rejection> rejected) throws IOException {
+        return importer.importStream(stream(content), ImportFormat.CSV, rejected::add);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private User user(String login) {
+        return users.getUser(login).orElseThrow();
+    }
+
+    private static Readings readings(double heating) {
+        Readings result = new Readings();
+        result.add("heating", heating);
+        return result;
+    }
+}
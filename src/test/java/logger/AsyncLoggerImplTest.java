@@ -0,0 +1,141 @@
+package logger;
+
+import enums.OverflowPolicy;
+import logger.impl.AsyncLoggerImpl;
+import logger.impl.LoggerImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLoggerImplTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Проверка записи сообщения в формате LoggerImpl")
+    public void testInfo() throws Exception {
+        Path file = directory.resolve("logs.log");
+        AsyncLoggerImpl logger = new AsyncLoggerImpl(file);
+
+        logger.info("Пользователь test подал показания");
+        logger.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).matches("\\[.+:\\d{2}\\.\\d{2}\\.\\d{2}\\.\\d+] INFO : Пользователь test подал показания"));
+    }
+
+    @Test
+    @DisplayName("Проверка отсутствия потерь сообщений при политике BLOCK и нескольких потоках")
+    public void testConcurrentLoggingWithBlockPolicy() throws Exception {
+        Path file = directory.resolve("logs.log");
+        AsyncLoggerImpl logger = new AsyncLoggerImpl(file, 16, OverflowPolicy.BLOCK, 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    logger.info("thread " + thread + " message " + i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        logger.flush();
+        assertEquals(0, logger.getQueueDepth());
+        logger.close();
+
+        assertEquals(20000, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+        assertEquals(0, logger.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Проверка политики DROP при переполнении буфера")
+    public void testDropPolicy() throws Exception {
+        Path file = directory.resolve("logs.log");
+        AsyncLoggerImpl logger = new AsyncLoggerImpl(file, 4, OverflowPolicy.DROP, 1);
+
+        for (int i = 0; i < 100000; i++) {
+            logger.info("message " + i);
+        }
+        logger.close();
+
+        long lines = Files.readAllLines(file, StandardCharsets.UTF_8).size();
+        assertEquals(100000, lines + logger.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Проверка записи всех принятых сообщений при закрытии во время записи из нескольких потоков")
+    public void testCloseWhileLogging() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            Path file = directory.resolve("race" + round + ".log");
+            AsyncLoggerImpl logger = new AsyncLoggerImpl(file, 64, OverflowPolicy.BLOCK, 1);
+            AtomicBoolean stop = new AtomicBoolean();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    while (!stop.get()) {
+                        logger.info("message");
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            Thread.sleep(2);
+            logger.close();
+            stop.set(true);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(0, logger.getQueueDepth());
+            assertEquals(0, logger.getDroppedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка записи через LoggerImpl с ротацией файла")
+    public void testLoggerImplTarget() throws Exception {
+        Path file = directory.resolve("logs.log");
+        AsyncLoggerImpl logger = new AsyncLoggerImpl(
+                new LoggerImpl(file, 1024, Duration.ofDays(1), 100, Duration.ofDays(30)), 16, OverflowPolicy.BLOCK, 1);
+
+        for (int i = 0; i < 100; i++) {
+            logger.info("message " + i);
+            if (i % 10 == 9) {
+                logger.flush();
+            }
+        }
+        logger.close();
+
+        List<String> lines = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path archive : files.filter(path -> path.toString().endsWith(".log.gz")).sorted().toList()) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+                    lines.addAll(new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList());
+                }
+            }
+        }
+        assertFalse(lines.isEmpty(), "файл не архивировался");
+        lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertEquals(100, lines.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(lines.get(i).endsWith("] INFO : message " + i), lines.get(i));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package logger;
+
+import enums.AuditAction;
+import enums.Role;
+import logger.impl.AuditLogReader;
+import logger.impl.AuditLoggerImpl;
+import models.AuditRecord;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuditLoggerImplTest {
+    private static final Instant EPOCH = Instant.EPOCH;
+    private static final Instant FAR_FUTURE = Instant.parse("3000-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Проверка записи и чтения структурированных записей и сообщений")
+    public void testRecords() {
+        try (AuditLoggerImpl audit = new AuditLoggerImpl(directory)) {
+            User user = new User("auditLogin", "password", Role.USER);
+            audit.onUserRegistered(user);
+            audit.onReadingsAdded(user, YearMonth.of(2024, 3), new Readings());
+            audit.onPasswordChanged(user);
+            audit.info("Приложение запущено");
+            audit.audit(AuditAction.READINGS_SUBMITTED, "otherLogin", YearMonth.of(2024, 3));
+
+            List<AuditRecord> all = audit.query(EPOCH, FAR_FUTURE, 100);
+            assertEquals(List.of(AuditAction.USER_REGISTERED, AuditAction.READINGS_SUBMITTED,
+                    AuditAction.PASSWORD_CHANGED, AuditAction.MESSAGE, AuditAction.READINGS_SUBMITTED),
+                    all.stream().map(AuditRecord::getAction).toList());
+            assertEquals("Приложение запущено", all.get(3).getMessage());
+            assertEquals("", all.get(3).getLogin());
+            assertEquals(YearMonth.of(2024, 3), all.get(1).getPeriod());
+            assertNull(all.get(0).getPeriod());
+
+            List<AuditRecord> user1 = audit.queryUser("auditLogin", EPOCH, FAR_FUTURE, 100);
+            assertEquals(3, user1.size());
+            assertTrue(user1.stream().allMatch(record -> record.getLogin().equals("auditLogin")));
+            assertEquals(2, audit.queryUser("auditLogin", EPOCH, FAR_FUTURE, 2).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка ротации сегментов и чтения журнала после повторного открытия")
+    public void testRotationAndReopen() throws Exception {
+        try (AuditLoggerImpl audit = new AuditLoggerImpl(directory, 64 * 1024)) {
+            for (int i = 0; i < 10_000; i++) {
+                audit.audit(AuditAction.READINGS_SUBMITTED, "user" + i, YearMonth.of(2024, 1 + i % 12));
+            }
+        }
+        try (AuditLoggerImpl audit = new AuditLoggerImpl(directory, 64 * 1024)) {
+            audit.audit(AuditAction.USER_REGISTERED, "afterReopen", null);
+            audit.flush();
+        }
+
+        long segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+        assertTrue(segments > 2, "segments " + segments);
+        List<AuditRecord> records = new AuditLogReader(directory).query(EPOCH, FAR_FUTURE, 20_000);
+        assertEquals(10_001, records.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("user" + i, records.get(i).getLogin());
+        }
+        assertEquals("afterReopen", records.get(10_000).getLogin());
+    }
+
+    @Test
+    @DisplayName("Проверка чтения по индексу только нужных блоков при запросах по пользователю и времени")
+    public void testSparseIndex() throws Exception {
+        try (AuditLoggerImpl audit = new AuditLoggerImpl(directory)) {
+            for (int user = 0; user < 100; user++) {
+                for (int i = 0; i < 20; i++) {
+                    audit.audit(AuditAction.READINGS_SUBMITTED, "user" + user, YearMonth.of(2024, 1 + i % 12));
+                }
+            }
+            audit.flush();
+            Thread.sleep(5);
+            Instant middle = Instant.now();
+            Thread.sleep(5);
+            audit.audit(AuditAction.PASSWORD_CHANGED, "user42", null);
+            audit.flush();
+
+            AuditLogReader reader = audit.getReader();
+            assertEquals(2001, reader.query(EPOCH, FAR_FUTURE, 10_000).size());
+            long totalBlocks = reader.getBlocksRead();
+
+            long before = reader.getBlocksRead();
+            List<AuditRecord> user42 = reader.queryUser("user42", EPOCH, FAR_FUTURE, 100);
+            assertEquals(21, user42.size());
+            assertTrue(reader.getBlocksRead() - before < totalBlocks / 2,
+                    "blocks " + (reader.getBlocksRead() - before) + " of " + totalBlocks);
+
+            before = reader.getBlocksRead();
+            List<AuditRecord> recent = reader.query(middle, FAR_FUTURE, 100);
+            assertEquals(1, recent.size());
+            assertEquals(AuditAction.PASSWORD_CHANGED, recent.get(0).getAction());
+            assertEquals(1, reader.getBlocksRead() - before);
+        }
+    }
+}
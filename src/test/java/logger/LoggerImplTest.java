@@ -0,0 +1,112 @@
+package logger;
+
+import logger.impl.LoggerImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoggerImplTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Проверка ротации по размеру и сжатия архивов без потери сообщений")
+    public void testSizeRotation() throws Exception {
+        Path file = directory.resolve("logs.log");
+        LoggerImpl logger = new LoggerImpl(file, 1024, Duration.ofDays(1), 100, Duration.ofDays(30));
+        for (int i = 0; i < 100; i++) {
+            logger.info("Пользователь user" + i + " подал показания");
+        }
+        logger.close();
+
+        assertTrue(files(".log").isEmpty(), "несжатые архивы " + files(".log"));
+        List<Path> archives = files(".log.gz");
+        assertTrue(archives.size() > 5, "архивы " + archives);
+        List<String> lines = new ArrayList<>();
+        for (Path archive : archives) {
+            assertTrue(Files.size(archive) <= 1024);
+            lines.addAll(gunzip(archive));
+        }
+        lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertTrue(Files.size(file) <= 1024);
+        assertEquals(100, lines.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(lines.get(i).endsWith("] INFO : Пользователь user" + i + " подал показания"), lines.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка хранения ограниченного количества архивов")
+    public void testRetention() throws Exception {
+        Path file = directory.resolve("logs.log");
+        LoggerImpl logger = new LoggerImpl(file, 256, Duration.ofDays(1), 2, Duration.ofDays(30));
+        for (int i = 0; i < 100; i++) {
+            logger.info("message " + i);
+        }
+        logger.close();
+
+        List<Path> archives = files(".log.gz");
+        assertEquals(2, archives.size());
+        List<String> lines = gunzip(archives.get(1));
+        lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertTrue(lines.get(lines.size() - 1).endsWith("message 99"));
+    }
+
+    @Test
+    @DisplayName("Проверка ротации по времени и сжатия архивов, оставшихся от прошлого запуска")
+    public void testTimeRotationAndRecovery() throws Exception {
+        Path file = directory.resolve("logs.log");
+        Files.writeString(directory.resolve("logs-20240101-000000-000.log"), "old line\n");
+        LoggerImpl logger = new LoggerImpl(file, 1 << 20, Duration.ofMillis(50), 10, Duration.ofDays(30));
+        logger.info("first");
+        Thread.sleep(100);
+        logger.info("second");
+        logger.close();
+
+        List<Path> archives = files(".log.gz");
+        assertEquals(2, archives.size());
+        assertEquals(List.of("old line"), gunzip(archives.get(0)));
+        assertTrue(gunzip(archives.get(1)).get(0).endsWith("first"));
+        assertTrue(Files.readString(file).endsWith("second\n"));
+    }
+
+    @Test
+    @DisplayName("Проверка удаления недописанных при сжатии файлов при запуске и после ошибки сжатия")
+    public void testPartialArchivesRemoved() throws Exception {
+        Path file = directory.resolve("logs.log");
+        Files.writeString(directory.resolve("logs-20240101-000000-000.log"), "old line\n");
+        Files.writeString(directory.resolve("logs-20240101-000000-000.log.gz.tmp"), "partial");
+        Files.createDirectory(directory.resolve("logs-20240102-000000-000.log"));
+        LoggerImpl logger = new LoggerImpl(file, 1 << 20, Duration.ofDays(1), 10, Duration.ofDays(30));
+        logger.close();
+
+        assertEquals(List.of(), files(".tmp"));
+        assertEquals(List.of("old line"), gunzip(directory.resolve("logs-20240101-000000-000.log.gz")));
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("logs-")
+                    && path.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    private static List<String> gunzip(Path archive) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            return new ArrayList<>(new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package metrics;
+
+import enums.Role;
+import exceptions.ValidationException;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import services.ReadingsService;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InstrumentedReadingsServiceTest {
+    private final User user = new User("user", "password", Role.USER);
+    private ReadingsService delegate;
+    private MetricsRegistry metrics;
+    private InstrumentedReadingsService service;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(ReadingsService.class);
+        metrics = new MetricsRegistry();
+        service = new InstrumentedReadingsService(delegate, metrics);
+    }
+
+    @Test
+    @DisplayName("Проверка учета длительности вызова и передачи результата")
+    public void testRecordsCall() {
+        Readings readings = new Readings();
+        when(delegate.getLastReadings(user)).thenReturn(Optional.of(readings));
+
+        assertSame(readings, service.getLastReadings(user).orElseThrow());
+        assertEquals(1, histogram("getLastReadings").getCount());
+        assertEquals(0, histogram("addReadings").getCount());
+    }
+
+    @Test
+    @DisplayName("Проверка раздельного учета ошибок проверки данных и прочих ошибок")
+    public void testRecordsFailures() {
+        YearMonth period = YearMonth.of(2024, 1);
+        Readings readings = new Readings();
+        when(delegate.addReadings(user, period, readings))
+                .thenThrow(new ValidationException("Показания не могут быть пустыми"))
+                .thenThrow(new IllegalStateException());
+
+        assertThrows(ValidationException.class, () -> service.addReadings(user, period, readings));
+        assertThrows(IllegalStateException.class, () -> service.addReadings(user, period, readings));
+
+        String labels = "service=\"readings\",method=\"addReadings\"";
+        assertEquals(1, metrics.counter("service_validation_failures_total", labels, "").sum());
+        assertEquals(1, metrics.counter("service_errors_total", labels, "").sum());
+        assertEquals(2, histogram("addReadings").getCount());
+    }
+
+    private LatencyHistogram histogram(String method) {
+        return metrics.histogram("service_call_duration_seconds",
+                "service=\"readings\",method=\"" + method + "\"", "");
+    }
+}
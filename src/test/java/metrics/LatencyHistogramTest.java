@@ -0,0 +1,51 @@
+package metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Проверка, что граница корзины не меньше значения и отличается от него не более чем на 1/32")
+    public void testBucketPrecision() {
+        for (long value = 0; value < 1L << 43; value = value * 3 / 2 + 1) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucket(value));
+
+            assertTrue(upper >= value, "value " + value);
+            assertTrue(upper - value <= value / 32, "value " + value);
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка квантилей, суммы, количества и максимума")
+    public void testQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        long[] quantiles = histogram.getQuantiles(0.5, 0.99, 1.0);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500_000L, histogram.getSum());
+        assertEquals(1_000_000L, histogram.getMax());
+        assertEquals(500_000, quantiles[0], 500_000 / 32.0);
+        assertEquals(990_000, quantiles[1], 990_000 / 32.0);
+        assertEquals(1_000_000L, quantiles[2]);
+    }
+
+    @Test
+    @DisplayName("Проверка пустой гистограммы и отрицательных значений")
+    public void testEmptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getQuantile(0.5));
+
+        histogram.record(-5);
+
+        assertEquals(0, histogram.getQuantile(0.5));
+        assertEquals(1, histogram.getCount());
+    }
+}
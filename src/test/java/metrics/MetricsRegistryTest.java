@@ -0,0 +1,72 @@
+package metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    @Test
+    @DisplayName("Проверка выгрузки счетчиков и значений в формате Prometheus")
+    public void testCountersAndGauges() {
+        LongAdder first = metrics.counter("requests_total", "method=\"a\"", "Запросы");
+        LongAdder second = metrics.counter("requests_total", "method=\"b\"", "Запросы");
+        AtomicLong depth = new AtomicLong(7);
+        metrics.gauge("queue_depth", "", "Глубина очереди", depth::get);
+        first.add(3);
+        second.increment();
+
+        assertSame(first, metrics.counter("requests_total", "method=\"a\"", "Запросы"));
+        assertEquals("""
+                # HELP queue_depth Глубина очереди
+                # TYPE queue_depth gauge
+                queue_depth 7
+                # HELP requests_total Запросы
+                # TYPE requests_total counter
+                requests_total{method="a"} 3
+                requests_total{method="b"} 1
+                """, metrics.toPrometheus());
+    }
+
+    @Test
+    @DisplayName("Проверка выгрузки гистограммы как summary в секундах")
+    public void testHistogram() {
+        LatencyHistogram histogram = metrics.histogram("call_duration_seconds", "method=\"a\"", "Длительность");
+        histogram.record(2_000_000_000L);
+
+        String text = metrics.toPrometheus();
+
+        assertTrue(text.contains("# TYPE call_duration_seconds summary\n"));
+        assertTrue(text.contains("call_duration_seconds{method=\"a\",quantile=\"0.5\"} 2.0\n"));
+        assertTrue(text.contains("call_duration_seconds_sum{method=\"a\"} 2.0\n"));
+        assertTrue(text.contains("call_duration_seconds_count{method=\"a\"} 1\n"));
+    }
+
+    @Test
+    @DisplayName("Проверка, что имя метрики нельзя зарегистрировать с другим типом")
+    public void testTypeConflict() {
+        metrics.counter("value", "", "Значение");
+
+        assertThrows(IllegalArgumentException.class, () -> metrics.gauge("value", "", "Значение", () -> 1));
+    }
+
+    @Test
+    @DisplayName("Проверка записи метрик в файл")
+    public void testDump(@TempDir Path directory) throws IOException {
+        metrics.counter("requests_total", "", "Запросы").increment();
+        Path file = directory.resolve("metrics.prom");
+
+        new MetricsDumper(metrics, file).dump();
+
+        assertEquals(metrics.toPrometheus(), Files.readString(file));
+    }
+}
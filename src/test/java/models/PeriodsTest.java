@@ -0,0 +1,37 @@
+package models;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PeriodsTest {
+
+    @Test
+    @DisplayName("Проверка сохранения порядка и обратного преобразования номера месяца")
+    public void testKeyRoundTrip() {
+        YearMonth december = YearMonth.of(2023, 12);
+        YearMonth january = YearMonth.of(2024, 1);
+
+        assertEquals(Periods.toKey(december) + 1, Periods.toKey(january));
+        assertEquals(january, Periods.fromKey(Periods.toKey(january)));
+        assertEquals(Periods.MIN, Periods.fromKey(Periods.toKey(Periods.MIN)));
+        assertEquals(Periods.MAX, Periods.fromKey(Periods.toKey(Periods.MAX)));
+    }
+
+    @Test
+    @DisplayName("Проверка отказа для года вне допустимого диапазона")
+    public void testYearOutOfRange() {
+        YearMonth overflowing = YearMonth.of(200_000_000, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> Periods.toKey(overflowing));
+        assertThrows(IllegalArgumentException.class, () -> Periods.toKey(YearMonth.of(0, 12)));
+        assertThrows(DateTimeException.class, () -> Periods.of(200_000_000, 1));
+        assertThrows(DateTimeException.class, () -> Periods.parse("+10000-01"));
+        assertThrows(DateTimeException.class, () -> Periods.parse("0000-01"));
+        assertEquals(YearMonth.of(9999, 12), Periods.parse("9999-12"));
+    }
+}
@@ -0,0 +1,153 @@
+package persistence;
+
+import enums.Role;
+import models.Periods;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedReadingsRepositoryTest {
+    @TempDir
+    Path directory;
+    private UserRepository users;
+    private User user;
+    private MappedReadingsRepository repository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        users = new ConcurrentUserRepositoryImpl();
+        ReadingsRepository source = new ConcurrentReadingsRepositoryImpl();
+        for (int i = 0; i < 500; i++) {
+            User current = new User("user" + i, "password", Role.USER);
+            users.addUser(current);
+            source.addReadings(current, YearMonth.of(2024, 3), readings(i, 3));
+            source.addReadings(current, YearMonth.of(2024, 1), readings(i, 1));
+        }
+        user = users.getUser("user42").orElseThrow();
+        Path file = directory.resolve("readings.snapshot");
+        MappedReadingsRepository.write(file, users, source);
+        repository = MappedReadingsRepository.open(file, new ConcurrentReadingsRepositoryImpl());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний по месяцам из снимка")
+    public void testGetReadingsByMonth() {
+        Readings result = repository.getReadingsByMonth(user, YearMonth.of(2024, 3)).orElseThrow();
+
+        assertEquals(42.0, result.get().get("heating"));
+        assertEquals(3.0, result.get().get("water"));
+        assertFalse(repository.getReadingsByMonth(user, YearMonth.of(2024, 2)).isPresent());
+        assertFalse(repository.getAllReadings(new User("unknown", "password", Role.USER)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка получения всех показаний из снимка, упорядоченных по месяцам")
+    public void testGetAllReadings() {
+        Map<YearMonth, Readings> result = repository.getAllReadings(user).orElseThrow();
+
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 3)), List.copyOf(result.keySet()));
+        assertEquals(1.0, result.get(YearMonth.of(2024, 1)).get().get("water"));
+    }
+
+    @Test
+    @DisplayName("Проверка записи новых показаний в дельту")
+    public void testAddReadingsToDelta() {
+        assertFalse(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 3), readings(0, 0)));
+        assertTrue(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 2), readings(42, 2)));
+
+        Map<YearMonth, Readings> result = repository.getAllReadings(user).orElseThrow();
+
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2), YearMonth.of(2024, 3)), List.copyOf(result.keySet()));
+        assertEquals(2.0, repository.getReadingsByMonth(user, YearMonth.of(2024, 2)).orElseThrow().get().get("water"));
+        assertEquals(3.0, repository.getLastReadings(user).orElseThrow().get().get("water"));
+
+        repository.addReadingsIfAbsent(user, YearMonth.of(2024, 12), readings(42, 12));
+        assertEquals(12.0, repository.getLastReadings(user).orElseThrow().get().get("water"));
+    }
+
+    @Test
+    @DisplayName("Проверка запросов по диапазону поверх снимка и дельты")
+    public void testRangeQueriesOverSnapshotAndDelta() {
+        repository.addReadings(user, YearMonth.of(2025, 1), readings(42, 13));
+        repository.addReadings(user, YearMonth.of(2024, 3), readings(42, 30));
+
+        Map<YearMonth, Readings> between = repository.getReadingsBetween(user, YearMonth.of(2024, 2), YearMonth.of(2025, 1));
+        Map<YearMonth, Readings> latest = repository.getLatestReadings(user, 2);
+
+        assertEquals(List.of(YearMonth.of(2024, 3), YearMonth.of(2025, 1)), List.copyOf(between.keySet()));
+        assertEquals(30.0, between.get(YearMonth.of(2024, 3)).get().get("water"));
+        assertEquals(List.of(YearMonth.of(2024, 3), YearMonth.of(2025, 1)), List.copyOf(latest.keySet()));
+        assertEquals(13.0, repository.getLastReadings(user).orElseThrow().get().get("water"));
+    }
+
+    @Test
+    @DisplayName("Проверка получения соседних периодов из снимка и дельты")
+    public void testNeighbourReadings() {
+        repository.addReadings(user, YearMonth.of(2024, 2), readings(42, 2));
+
+        assertEquals(YearMonth.of(2024, 2), repository.getPreviousReadings(user, YearMonth.of(2024, 3)).orElseThrow().getKey());
+        assertEquals(YearMonth.of(2024, 1), repository.getPreviousReadings(user, YearMonth.of(2024, 2)).orElseThrow().getKey());
+        assertEquals(YearMonth.of(2024, 3), repository.getNextReadings(user, YearMonth.of(2024, 2)).orElseThrow().getKey());
+        assertFalse(repository.getNextReadings(user, YearMonth.of(2024, 3)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка постраничного получения истории поверх снимка и дельты")
+    public void testReadingsPages() {
+        repository.addReadings(user, YearMonth.of(2024, 2), readings(42, 2));
+        repository.addReadings(user, YearMonth.of(2025, 1), readings(42, 13));
+
+        Map<YearMonth, Readings> first = repository.getReadings(user, Periods.MIN, 2);
+        Map<YearMonth, Readings> second = repository.getReadings(user, YearMonth.of(2024, 3), 2);
+
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)), List.copyOf(first.keySet()));
+        assertEquals(List.of(YearMonth.of(2024, 3), YearMonth.of(2025, 1)), List.copyOf(second.keySet()));
+        assertEquals(2.0, first.get(YearMonth.of(2024, 2)).get().get("water"));
+        assertTrue(repository.getReadings(user, YearMonth.of(2025, 2), 2).isEmpty());
+    }
+
+
+    @Test
+    @DisplayName("Проверка удаления показаний пользователя из снимка и дельты")
+    public void testRemoveAllReadings() {
+        repository.addReadings(user, YearMonth.of(2024, 5), readings(42, 5));
+
+        assertTrue(repository.removeAllReadings(user));
+
+        assertTrue(repository.getAllReadings(user).isEmpty());
+        assertTrue(repository.getLastReadings(user).isEmpty());
+        assertTrue(repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).isEmpty());
+        assertFalse(repository.removeAllReadings(user));
+        assertTrue(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings(7, 1)));
+        assertEquals(1, repository.getAllReadings(user).orElseThrow().size());
+        assertTrue(repository.getAllReadings(users.getUser("user43").orElseThrow()).isPresent());
+    }
+
+    private static Readings readings(double heating, double water) {
+        Readings readings = new Readings();
+        readings.add("heating", heating);
+        readings.add("water", water);
+        return readings;
+    }
+}
@@ -0,0 +1,253 @@
+package persistence;
+
+import enums.Role;
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repositories.MeterTypeRegistry;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import repositories.impl.MeterTypeRegistryImpl;
+import repositories.impl.ShardedReadingsRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistenceManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Проверка восстановления пользователей, паролей и показаний из журнала")
+    public void testRecoverFromJournal() throws IOException {
+        PersistenceManager first = open();
+        first.getUserRepository().addUser(new User("testLogin", "testPassword", Role.USER));
+        User user = first.getUserRepository().getUser("testLogin").orElseThrow();
+        first.getReadingsRepository().addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings(100.0));
+        user.setPassword("newPassword");
+        first.getUserRepository().updateUser(user);
+        crash(first);
+
+        UserRepository users = new ConcurrentUserRepositoryImpl();
+        ReadingsRepository readings = new ConcurrentReadingsRepositoryImpl();
+        PersistenceManager second = new PersistenceManager(directory, users, readings);
+        RecoveryReport report = second.recover();
+
+        assertEquals(3, report.getJournalRecords());
+        User restored = users.getUser("testLogin").orElseThrow();
+        assertEquals("newPassword", restored.getPassword());
+        assertEquals(100.0, readings.getReadingsByMonth(restored, YearMonth.of(2024, 1)).orElseThrow().get().get("heating"));
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Проверка восстановления из снимка и хвоста журнала")
+    public void testRecoverFromSnapshotAndJournalTail() throws IOException {
+        PersistenceManager first = open();
+        first.getUserRepository().addUser(new User("testLogin", "testPassword", Role.USER));
+        User user = first.getUserRepository().getUser("testLogin").orElseThrow();
+        first.getReadingsRepository().addReadings(user, YearMonth.of(2024, 1), readings(1.0));
+        first.snapshot();
+        first.getReadingsRepository().addReadings(user, YearMonth.of(2024, 2), readings(2.0));
+        crash(first);
+
+        UserRepository users = new ConcurrentUserRepositoryImpl();
+        ReadingsRepository readings = new ConcurrentReadingsRepositoryImpl();
+        RecoveryReport report = new PersistenceManager(directory, users, readings).recover();
+
+        assertEquals(1, report.getJournalRecords());
+        assertTrue(report.getSnapshotUsers() >= 1);
+        User restored = users.getUser("testLogin").orElseThrow();
+        assertEquals(2, readings.getAllReadings(restored).orElseThrow().size());
+    }
+
+    @Test
+    @DisplayName("Проверка отбрасывания оборванной записи в конце журнала")
+    public void testTornTailIsIgnored() throws IOException {
+        PersistenceManager first = open();
+        first.getUserRepository().addUser(new User("testLogin", "testPassword", Role.USER));
+        crash(first);
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(f -> f.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        UserRepository users = new ConcurrentUserRepositoryImpl();
+        RecoveryReport report = new PersistenceManager(directory, users, new ConcurrentReadingsRepositoryImpl()).recover();
+
+        assertEquals(1, report.getJournalRecords());
+        assertTrue(users.getUser("testLogin").isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка сохранения записей, сделанных после восстановления с оборванным первым кадром сегмента")
+    public void testWritesAfterTornTailSurviveRestart() throws IOException {
+        PersistenceManager first = open();
+        first.getUserRepository().addUser(new User("lostLogin", "testPassword", Role.USER));
+        crash(first);
+        Path segment = directory.resolve(String.format("journal-%020d.log", 0));
+        byte[] torn = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(torn, 6));
+
+        PersistenceManager second = new PersistenceManager(directory, new ConcurrentUserRepositoryImpl(),
+                new ConcurrentReadingsRepositoryImpl());
+        assertEquals(0, second.recover().getJournalRecords());
+        second.getUserRepository().addUser(new User("afterTorn", "testPassword", Role.USER));
+        crash(second);
+
+        UserRepository users = new ConcurrentUserRepositoryImpl();
+        RecoveryReport report = new PersistenceManager(directory, users, new ConcurrentReadingsRepositoryImpl()).recover();
+
+        assertEquals(1, report.getJournalRecords());
+        assertTrue(users.getUser("afterTorn").isPresent());
+        assertTrue(users.getUser("lostLogin").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка обработки кадра с некорректной длиной как оборванного хвоста")
+    public void testInvalidFrameLengthIsTornTail() throws IOException {
+        PersistenceManager first = open();
+        first.getUserRepository().addUser(new User("testLogin", "testPassword", Role.USER));
+        crash(first);
+        Path segment = directory.resolve(String.format("journal-%020d.log", 0));
+        Files.write(segment, new byte[]{-1, -1, -1, -2, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+        Files.write(segment, new byte[]{127, -1, -1, -1, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        UserRepository users = new ConcurrentUserRepositoryImpl();
+        RecoveryReport report = new PersistenceManager(directory, users, new ConcurrentReadingsRepositoryImpl()).recover();
+
+        assertEquals(1, report.getJournalRecords());
+        assertTrue(users.getUser("testLogin").isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка групповой фиксации при конкурентной записи")
+    public void testGroupCommit() throws Exception {
+        PersistenceManager manager = open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int index = i;
+            futures.add(executor.submit(() ->
+                    manager.getUserRepository().addUser(new User("user" + index, "password", Role.USER))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Journal journal = journalOf(manager);
+
+        assertTrue(journal.getSyncCount() < 2000);
+        crash(manager);
+        UserRepository users = new ConcurrentUserRepositoryImpl();
+        new PersistenceManager(directory, users, new ConcurrentReadingsRepositoryImpl()).recover();
+        assertTrue(users.getUser("user1999").isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка сохранения зарегистрированных типов показаний между запусками")
+    public void testMeterTypesSurviveRestart() throws IOException {
+        PersistenceManager first = open();
+        first.getMeterTypeRegistry().register("Электричество");
+        first.getMeterTypeRegistry().register("Газ");
+        first.getMeterTypeRegistry().register("Электричество");
+        first.snapshot();
+        crash(first);
+
+        MeterTypeRegistry meterTypes = new MeterTypeRegistryImpl();
+        PersistenceManager second = new PersistenceManager(directory, new ConcurrentUserRepositoryImpl(),
+                new ConcurrentReadingsRepositoryImpl(), meterTypes);
+        second.recover();
+
+        assertEquals(List.of("Электричество", "Газ"), meterTypes.getMeterTypes());
+        assertEquals(meterTypes.getMeterTypes(), second.getMeterTypeRegistry().getMeterTypes());
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Проверка сохранения после перезапуска переноса пользователей между журналируемыми шардами")
+    public void testRebalanceJournaledShards() throws IOException {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(new User("shardUser" + i, "password", Role.USER));
+        }
+        List<PersistenceManager> managers = new ArrayList<>();
+        Map<String, ReadingsRepository> shards = new LinkedHashMap<>();
+        for (int node = 0; node < 4; node++) {
+            PersistenceManager manager = open(directory.resolve("node-" + node));
+            for (User user : users) {
+                manager.getUserRepository().addUser(user);
+            }
+            managers.add(manager);
+            if (node < 3) {
+                shards.put("node-" + node, manager.getReadingsRepository());
+            }
+        }
+        ShardedReadingsRepository sharded = new ShardedReadingsRepository(shards);
+        List<ReadingsEntry> batch = new ArrayList<>();
+        for (User user : users) {
+            for (int month = 1; month <= 3; month++) {
+                batch.add(new ReadingsEntry(user, YearMonth.of(2024, month), readings(month)));
+            }
+        }
+        sharded.addReadingsBatch(batch);
+
+        int moved = sharded.addShard("node-3", managers.get(3).getReadingsRepository());
+        managers.forEach(PersistenceManagerTest::crash);
+
+        assertTrue(moved > 0);
+        for (int node = 0; node < 4; node++) {
+            ReadingsRepository readings = new ConcurrentReadingsRepositoryImpl();
+            new PersistenceManager(directory.resolve("node-" + node), new ConcurrentUserRepositoryImpl(), readings)
+                    .recover();
+            for (User user : users) {
+                boolean owned = sharded.getNode(user.getLogin()).equals("node-" + node);
+                assertEquals(owned ? 3 : 0, readings.getAllReadings(user).map(Map::size).orElse(0), user.getLogin());
+            }
+        }
+    }
+
+    private PersistenceManager open() throws IOException {
+        return open(directory);
+    }
+
+    private static PersistenceManager open(Path directory) throws IOException {
+        PersistenceManager manager = new PersistenceManager(directory,
+                new ConcurrentUserRepositoryImpl(), new ConcurrentReadingsRepositoryImpl());
+        manager.recover();
+        return manager;
+    }
+
+    private static void crash(PersistenceManager manager) {
+        journalOf(manager).close();
+    }
+
+    private static Journal journalOf(PersistenceManager manager) {
+        return manager.journal();
+    }
+
+    private static Readings readings(double heating) {
+        Readings readings = new Readings();
+        readings.add("heating", heating);
+        return readings;
+    }
+}
@@ -0,0 +1,132 @@
+package persistence;
+
+import enums.Role;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path directory;
+
+    private PersistenceManager primary;
+    private final List<Replica> replicas = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        replicas.forEach(Replica::close);
+        primary.close();
+    }
+
+    @Test
+    @DisplayName("Проверка применения пользователей, паролей и показаний на реплике через loopback")
+    public void testFollowPrimary() throws Exception {
+        primary = open();
+        ReplicationSource source = primary.startReplication(loopback());
+        Replica replica = replica(source);
+
+        primary.getUserRepository().addUser(new User("replicaLogin", "password", Role.USER));
+        User user = primary.getUserRepository().getUser("replicaLogin").orElseThrow();
+        for (int month = 1; month <= 12; month++) {
+            primary.getReadingsRepository().addReadingsIfAbsent(user, YearMonth.of(2024, month), readings(month));
+        }
+        user.setPassword("newPassword");
+        primary.getUserRepository().updateUser(user);
+
+        assertTrue(replica.awaitLsn(source.getLastLsn(), TIMEOUT));
+        User replicated = replica.getUserRepository().getUser("replicaLogin").orElseThrow();
+        assertEquals("newPassword", replicated.getPassword());
+        assertEquals(12, replica.getReadingsRepository().getAllReadings(replicated).orElseThrow().size());
+        assertEquals(12.0, replica.getReadingsRepository().getLastReadings(replicated).orElseThrow().get().get("heating"));
+        assertEquals(0, replica.getLagRecords());
+        assertTrue(replica.isConnected());
+        assertEquals(1, source.getReplicaCount());
+    }
+
+    @Test
+    @DisplayName("Проверка получения состояния репликой, подключившейся после записи журнала")
+    public void testStateTransfer() throws Exception {
+        primary = open();
+        for (int i = 0; i < 100; i++) {
+            primary.getUserRepository().addUser(new User("stateLogin" + i, "password", Role.USER));
+            User user = primary.getUserRepository().getUser("stateLogin" + i).orElseThrow();
+            primary.getReadingsRepository().addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings(i));
+        }
+        ReplicationSource source = primary.startReplication(loopback());
+        Replica replica = replica(source);
+        assertTrue(replica.awaitLsn(source.getLastLsn(), TIMEOUT));
+
+        User late = new User("stateLogin100", "password", Role.USER);
+        primary.getUserRepository().addUser(late);
+        primary.getReadingsRepository().addReadingsIfAbsent(late, YearMonth.of(2024, 1), readings(100));
+        assertTrue(replica.awaitLsn(source.getLastLsn(), TIMEOUT));
+
+        for (int i = 0; i <= 100; i++) {
+            User user = replica.getUserRepository().getUser("stateLogin" + i).orElseThrow();
+            assertEquals((double) i, replica.getReadingsRepository()
+                    .getReadingsByMonth(user, YearMonth.of(2024, 1)).orElseThrow().get().get("heating"));
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка устаревания реплики, догнавшей основной узел")
+    public void testStaleness() throws Exception {
+        primary = open();
+        ReplicationSource source = primary.startReplication(loopback());
+        Replica replica = replica(source);
+        primary.getUserRepository().addUser(new User("staleLogin", "password", Role.USER));
+        assertTrue(replica.awaitLsn(source.getLastLsn(), TIMEOUT));
+
+        Thread.sleep(3 * ReplicationSource.HEARTBEAT_MILLIS);
+
+        assertTrue(replica.getStalenessMillis() < 10 * ReplicationSource.HEARTBEAT_MILLIS,
+                "staleness " + replica.getStalenessMillis());
+        replica.close();
+        Thread.sleep(3 * ReplicationSource.HEARTBEAT_MILLIS);
+        assertTrue(replica.getStalenessMillis() >= 3 * ReplicationSource.HEARTBEAT_MILLIS);
+        assertFalse(replica.isConnected());
+    }
+
+    private PersistenceManager open() throws IOException {
+        PersistenceManager manager = new PersistenceManager(directory,
+                new ConcurrentUserRepositoryImpl(), new ConcurrentReadingsRepositoryImpl());
+        manager.recover();
+        return manager;
+    }
+
+    private Replica replica(ReplicationSource source) {
+        Replica replica = new Replica(source.getAddress(),
+                new ConcurrentUserRepositoryImpl(), new ConcurrentReadingsRepositoryImpl());
+        replicas.add(replica);
+        replica.start();
+        return replica;
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static Readings readings(double heating) {
+        Readings readings = new Readings();
+        readings.add("heating", heating);
+        return readings;
+    }
+}
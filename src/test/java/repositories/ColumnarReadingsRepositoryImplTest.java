@@ -0,0 +1,173 @@
+package repositories;
+
+import enums.Role;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.impl.ColumnarReadingsRepositoryImpl;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarReadingsRepositoryImplTest {
+    private User user;
+    private Readings readings;
+    private ColumnarReadingsRepositoryImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new ColumnarReadingsRepositoryImpl();
+        user = new User("testLogin", "testPassword", Role.USER);
+        readings = new Readings();
+        readings.add("heating", 100.0);
+        readings.add("hotWater", 200.0);
+    }
+
+    @Test
+    @DisplayName("Проверка добавления показаний")
+    public void testAddReadings() {
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        Optional<Map<YearMonth, Readings>> result = repository.getAllReadings(user);
+
+        assertTrue(result.isPresent());
+        assertTrue(result.get().containsKey(YearMonth.of(2024, 1)));
+        assertEquals(readings.get(), result.get().get(YearMonth.of(2024, 1)).get());
+    }
+
+    @Test
+    @DisplayName("Проверка доступности истории показаний после смены пароля")
+    public void testReadingsSurvivePasswordChange() {
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        user.setPassword("newPassword");
+
+        assertTrue(repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).isPresent());
+        assertTrue(repository.getLastReadings(user).isPresent());
+        assertTrue(repository.getReadingsByMonth(new User("testLogin", "otherPassword", Role.USER),
+                YearMonth.of(2024, 1)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка получения всех показаний, когда их нет")
+    public void testGetAllReadingsWhenNonePresent() {
+        assertFalse(repository.getAllReadings(user).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний по месяцам")
+    public void testGetReadingsByMonth() {
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        Optional<Readings> result = repository.getReadingsByMonth(user, YearMonth.of(2024, 1));
+
+        assertTrue(result.isPresent());
+        assertEquals(readings.get(), result.get().get());
+        assertFalse(repository.getReadingsByMonth(user, YearMonth.of(2024, 3)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка упорядоченности ленивого представления по месяцам")
+    public void testViewIsOrderedByMonth() {
+        repository.addReadings(user, YearMonth.of(2024, 3), readings);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+        Map<YearMonth, Readings> view = repository.getAllReadings(user).orElseThrow();
+
+        repository.addReadings(user, YearMonth.of(2024, 2), readings);
+
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2), YearMonth.of(2024, 3)), List.copyOf(view.keySet()));
+    }
+
+    @Test
+    @DisplayName("Проверка получения последних показаний при подаче не по порядку")
+    public void testGetLastReadingsOutOfOrder() {
+        Readings march = new Readings();
+        march.add("coldWater", 3.0);
+        repository.addReadings(user, YearMonth.of(2024, 3), march);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        assertEquals(march.get(), repository.getLastReadings(user).orElseThrow().get());
+    }
+
+    @Test
+    @DisplayName("Проверка перезаписи показаний и подсчета памяти")
+    public void testOverwriteAndMemoryReport() {
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+        Readings single = new Readings();
+        single.add("coldWater", 5.0);
+
+        repository.addReadings(user, YearMonth.of(2024, 1), single);
+
+        assertEquals(single.get(), repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).orElseThrow().get());
+        assertEquals(1, repository.getReadingsCount());
+        assertTrue(repository.getBytesPerReading() > 0);
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний за диапазон через границу года")
+    public void testRangeQueriesAcrossYears() {
+        repository.addReadings(user, YearMonth.of(2025, 1), readings);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+        repository.addReadings(user, YearMonth.of(2024, 12), readings);
+
+        assertEquals(List.of(YearMonth.of(2024, 12), YearMonth.of(2025, 1)),
+                List.copyOf(repository.getReadingsBetween(user, YearMonth.of(2024, 2), YearMonth.of(2025, 6)).keySet()));
+        assertEquals(List.of(YearMonth.of(2025, 1)), List.copyOf(repository.getLatestReadings(user, 1).keySet()));
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 12), YearMonth.of(2025, 1)),
+                List.copyOf(repository.getAllReadings(user).orElseThrow().keySet()));
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний за соседние периоды")
+    public void testNeighbourReadings() {
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+        repository.addReadings(user, YearMonth.of(2025, 1), readings);
+
+        assertEquals(YearMonth.of(2024, 1), repository.getPreviousReadings(user, YearMonth.of(2025, 1)).orElseThrow().getKey());
+        assertEquals(YearMonth.of(2025, 1), repository.getNextReadings(user, YearMonth.of(2024, 1)).orElseThrow().getKey());
+        assertFalse(repository.getPreviousReadings(user, YearMonth.of(2024, 1)).isPresent());
+        assertFalse(repository.getNextReadings(user, YearMonth.of(2025, 6)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка постраничного получения истории")
+    public void testReadingsPages() {
+        for (int month = 1; month <= 5; month++) {
+            repository.addReadings(user, YearMonth.of(2024, month), readings);
+        }
+
+        Map<YearMonth, Readings> first = repository.getReadings(user, YearMonth.of(2023, 1), 3);
+        Map<YearMonth, Readings> second = repository.getReadings(user, YearMonth.of(2024, 4), 3);
+
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2), YearMonth.of(2024, 3)), List.copyOf(first.keySet()));
+        assertEquals(List.of(YearMonth.of(2024, 4), YearMonth.of(2024, 5)), List.copyOf(second.keySet()));
+        assertEquals(readings.get(), second.get(YearMonth.of(2024, 5)).get());
+        assertEquals(5, repository.getReadings(user, YearMonth.of(2024, 1), Integer.MAX_VALUE).size());
+        assertTrue(repository.getReadings(new User("other", "password", Role.USER), YearMonth.of(2024, 1), 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка удаления всех показаний пользователя")
+    public void testRemoveAllReadings() {
+        User other = new User("otherLogin", "testPassword", Role.USER);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+        repository.addReadings(user, YearMonth.of(2024, 2), readings);
+        repository.addReadings(other, YearMonth.of(2024, 1), readings);
+
+        assertTrue(repository.removeAllReadings(user));
+
+        assertTrue(repository.getAllReadings(user).isEmpty());
+        assertTrue(repository.getLastReadings(user).isEmpty());
+        assertEquals(2, repository.getReadingsCount());
+        assertFalse(repository.removeAllReadings(user));
+        repository.addReadings(user, YearMonth.of(2024, 3), readings);
+        assertEquals(List.of(YearMonth.of(2024, 3)), List.copyOf(repository.getAllReadings(user).orElseThrow().keySet()));
+        assertEquals(1, repository.getAllReadings(other).orElseThrow().size());
+    }
+}
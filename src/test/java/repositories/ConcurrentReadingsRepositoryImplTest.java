@@ -0,0 +1,146 @@
+package repositories;
+
+import enums.Role;
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentReadingsRepositoryImplTest {
+    private static final int THREADS = 8;
+    private static final int USERS = 200;
+    private static final int PERIODS = 24;
+
+    private User user;
+    private Readings readings;
+    private ConcurrentReadingsRepositoryImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new ConcurrentReadingsRepositoryImpl();
+        user = new User("testLogin", "testPassword", Role.USER);
+        readings = new Readings();
+    }
+
+    @Test
+    @DisplayName("Проверка добавления показаний")
+    public void testAddReadings() {
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        Optional<Map<YearMonth, Readings>> result = repository.getAllReadings(user);
+
+        assertTrue(result.isPresent());
+        assertEquals(readings, result.get().get(YearMonth.of(2024, 1)));
+        assertEquals(readings, repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Проверка повторного добавления показаний за тот же месяц")
+    public void testAddReadingsIfAbsent() {
+        assertTrue(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings));
+        assertFalse(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 1), new Readings()));
+
+        assertEquals(readings, repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Проверка получения последних показаний при подаче не по порядку")
+    public void testGetLastReadingsOutOfOrder() {
+        Readings march = new Readings();
+        repository.addReadingsIfAbsent(user, YearMonth.of(2024, 3), march);
+        repository.addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings);
+
+        assertEquals(march, repository.getLastReadings(user).orElseThrow());
+        assertFalse(repository.getLastReadings(new User("other", "password", Role.USER)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка пакетного добавления показаний")
+    public void testAddReadingsBatch() {
+        User other = new User("otherLogin", "testPassword", Role.USER);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        boolean[] added = repository.addReadingsBatch(List.of(
+                new ReadingsEntry(user, YearMonth.of(2024, 1), new Readings()),
+                new ReadingsEntry(user, YearMonth.of(2024, 2), new Readings()),
+                new ReadingsEntry(other, YearMonth.of(2024, 1), new Readings()),
+                new ReadingsEntry(user, YearMonth.of(2024, 3), new Readings())));
+
+        assertArrayEquals(new boolean[]{false, true, true, true}, added);
+        assertEquals(readings, repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).orElseThrow());
+        assertEquals(YearMonth.of(2024, 3), repository.getLatestReadings(user, 1).firstKey());
+        assertTrue(repository.getReadingsByMonth(other, YearMonth.of(2024, 1)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка отсутствия потерянных и повторных подач при конкурентной записи")
+    public void testConcurrentSubmissions() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("user" + i, "password", Role.USER));
+        }
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (User current : users) {
+                    for (int p = 0; p < PERIODS; p++) {
+                        Readings submission = new Readings();
+                        submission.add("thread", thread);
+                        if (repository.addReadingsIfAbsent(current, YearMonth.of(2024, 1).plusMonths(p), submission)) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(USERS * PERIODS, accepted.get());
+        for (User current : users) {
+            Map<YearMonth, Readings> history = repository.getAllReadings(current).orElseThrow();
+            assertEquals(PERIODS, history.size());
+            history.values().forEach(r -> assertEquals(1, r.get().size()));
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний за диапазон и за последние периоды")
+    public void testRangeQueries() {
+        for (int i = 0; i < 18; i++) {
+            repository.addReadings(user, YearMonth.of(2024, 1).plusMonths(i), new Readings());
+        }
+
+        assertEquals(List.of(YearMonth.of(2024, 12), YearMonth.of(2025, 1)),
+                List.copyOf(repository.getReadingsBetween(user, YearMonth.of(2024, 12), YearMonth.of(2025, 1)).keySet()));
+        assertEquals(List.of(YearMonth.of(2025, 5), YearMonth.of(2025, 6)),
+                List.copyOf(repository.getLatestReadings(user, 2).keySet()));
+        assertThrows(UnsupportedOperationException.class,
+                () -> repository.getReadingsBetween(user, YearMonth.of(2024, 1), YearMonth.of(2024, 2)).clear());
+    }
+}
@@ -0,0 +1,172 @@
+package repositories;
+
+import enums.Role;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentUserRepositoryImplTest {
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 1000;
+
+    private ConcurrentUserRepositoryImpl repository;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new ConcurrentUserRepositoryImpl();
+        user = new User("testLogin", "testPassword", Role.USER);
+    }
+
+    @Test
+    @DisplayName("Проверка добавления пользователя и получения пользователя")
+    public void testAddUser() {
+        repository.addUser(user);
+
+        Optional<User> result = repository.getUser("testLogin");
+
+        assertTrue(result.isPresent());
+        assertEquals(user, result.get());
+    }
+
+    @Test
+    @DisplayName("Проверка конкурентной регистрации пользователей")
+    public void testConcurrentAddUser() throws Exception {
+        int initial = repository.getAllLogins().size();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < USERS_PER_THREAD; i++) {
+                    repository.addUser(new User("user" + thread + "_" + i, "password", Role.USER));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(initial + THREADS * USERS_PER_THREAD, repository.getAllLogins().size());
+        assertTrue(repository.getUser("user3_999").isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка постраничного получения логинов по курсору")
+    public void testGetLoginsPages() {
+        for (int i = 0; i < 5; i++) {
+            repository.addUser(new User("page" + i, "password", Role.USER));
+        }
+        repository.addUser(new User("page0", "newPassword", Role.USER));
+
+        List<String> first = repository.getLogins("page", 2);
+        List<String> second = repository.getLogins(first.get(1), 2);
+        List<String> all = repository.logins().toList();
+
+        assertEquals(List.of("page0", "page1"), first);
+        assertEquals(List.of("page2", "page3"), second);
+        assertEquals(repository.getAllLogins().size(), all.size());
+        assertEquals(all.stream().sorted().toList(), all);
+        assertEquals(all, repository.getLogins(null, Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Проверка поиска логинов по префиксу")
+    public void testFindLoginsByPrefix() {
+        for (String login : List.of("ivan", "ivanov", "ivanova", "igor", "iva")) {
+            repository.addUser(new User(login, "password", Role.USER));
+        }
+
+        assertEquals(List.of("iva", "ivan", "ivanov", "ivanova"), repository.findLoginsByPrefix("iva", 10));
+        assertEquals(List.of("ivanov", "ivanova"), repository.findLoginsByPrefix("ivano", 10));
+        assertEquals(List.of("iva", "ivan"), repository.findLoginsByPrefix("iva", 2));
+        assertTrue(repository.findLoginsByPrefix("petr", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка поиска похожих логинов совпадает с полным перебором")
+    public void testFindSimilarLoginsMatchesBruteForce() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            repository.addUser(new User(randomLogin(random), "password", Role.USER));
+        }
+        List<String> all = repository.logins().toList();
+
+        for (int i = 0; i < 200; i++) {
+            String query = random.nextBoolean() ? all.get(random.nextInt(all.size())) : randomLogin(random);
+            int maxDistance = 1 + random.nextInt(2);
+            List<String> expected = all.stream()
+                    .filter(login -> distance(query, login) <= maxDistance)
+                    .sorted(Comparator.comparingInt((String login) -> distance(query, login))
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(5)
+                    .toList();
+
+            assertEquals(expected, repository.findSimilarLogins(query, maxDistance, 5), query);
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка, что поиск похожих логинов видит только что добавленного пользователя")
+    public void testFindSimilarLoginsAfterAdd() {
+        assertTrue(repository.findSimilarLogins("testLogn", 1, 10).isEmpty());
+
+        repository.addUser(user);
+
+        assertEquals(List.of("testLogin"), repository.findSimilarLogins("testLogn", 1, 10));
+        assertEquals(List.of("login"), repository.findSimilarLogins("logn", 1, 10));
+    }
+
+    @Test
+    @DisplayName("Проверка поиска логинов с неположительным лимитом")
+    public void testFindLoginsWithNonPositiveLimit() {
+        repository.addUser(user);
+
+        assertTrue(repository.findSimilarLogins("testLogn", 1, 0).isEmpty());
+        assertTrue(repository.findSimilarLogins("testLogn", 1, -1).isEmpty());
+        assertTrue(repository.findSimilarLogins("testLogin", -1, 10).isEmpty());
+        assertTrue(repository.findLoginsByPrefix("test", 0).isEmpty());
+        assertTrue(repository.findLoginsByPrefix("test", -1).isEmpty());
+    }
+
+    private static String randomLogin(Random random) {
+        char[] login = new char[3 + random.nextInt(5)];
+        for (int i = 0; i < login.length; i++) {
+            login[i] = (char) ('a' + random.nextInt(4));
+        }
+        return new String(login);
+    }
+
+    private static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
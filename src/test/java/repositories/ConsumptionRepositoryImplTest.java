@@ -0,0 +1,49 @@
+package repositories;
+
+import enums.Role;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.impl.ConsumptionRepositoryImpl;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsumptionRepositoryImplTest {
+    private User user;
+    private Readings consumption;
+    private ConsumptionRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new ConsumptionRepositoryImpl();
+        user = new User("testLogin", "testPassword", Role.USER);
+        consumption = new Readings();
+        consumption.add("heating", 12.5);
+    }
+
+    @Test
+    @DisplayName("Проверка сохранения и получения потребления")
+    public void testSaveAndGetConsumption() {
+        repository.saveConsumption(user, YearMonth.of(2024, 2), consumption);
+
+        assertEquals(consumption, repository.getConsumption(user, YearMonth.of(2024, 2)).orElseThrow());
+        assertFalse(repository.getConsumption(user, YearMonth.of(2025, 2)).isPresent());
+        assertFalse(repository.getConsumption(new User("other", "password", Role.USER), YearMonth.of(2024, 2)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка замены ранее сохраненного потребления")
+    public void testSaveConsumptionReplaces() {
+        Readings recalculated = new Readings();
+        recalculated.add("heating", 3.0);
+        repository.saveConsumption(user, YearMonth.of(2024, 2), consumption);
+
+        repository.saveConsumption(user, YearMonth.of(2024, 2), recalculated);
+
+        assertEquals(recalculated, repository.getConsumption(user, YearMonth.of(2024, 2)).orElseThrow());
+    }
+}
@@ -0,0 +1,63 @@
+package repositories;
+
+import models.MeterTypes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.impl.MeterTypeRegistryImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MeterTypeRegistryImplTest {
+    private MeterTypeRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new MeterTypeRegistryImpl();
+    }
+
+    @Test
+    @DisplayName("Проверка регистрации типов показаний и назначения идентификаторов")
+    public void testRegister() {
+        int heating = registry.register("heating");
+        int water = registry.register("water");
+
+        assertEquals(heating, registry.register("heating"));
+        assertEquals(heating, MeterTypes.idOf("heating"));
+        assertEquals("water", MeterTypes.nameOf(water));
+        assertTrue(registry.isRegistered(heating));
+        assertTrue(registry.isRegistered(water));
+        assertFalse(registry.isRegistered(MeterTypes.idOf("unregisteredMeter")));
+        assertFalse(registry.isRegistered(-1));
+        assertEquals(List.of("heating", "water"), registry.getMeterTypes());
+    }
+
+    @Test
+    @DisplayName("Проверка одновременной регистрации типов показаний")
+    public void testConcurrentRegister() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    registry.register("concurrentMeter" + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100, registry.getMeterTypes().size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(registry.isRegistered(MeterTypes.idOf("concurrentMeter" + i)));
+        }
+    }
+}
@@ -8,9 +8,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import repositories.impl.ReadingsRepositoryImpl;
 
-import java.time.Month;
+import java.time.YearMonth;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,19 +31,32 @@ public class ReadingsRepositoryImplTest {
     @Test
     @DisplayName("Проверка добавления показаний")
     public void testAddReadings() {
-        repository.addReadings(user, Month.JANUARY, readings);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
 
-        Optional<Map<Month, Readings>> result = repository.getAllReadings(user);
+        Optional<Map<YearMonth, Readings>> result = repository.getAllReadings(user);
 
         assertTrue(result.isPresent());
-        assertTrue(result.get().containsKey(Month.JANUARY));
-        assertEquals(readings, result.get().get(Month.JANUARY));
+        assertTrue(result.get().containsKey(YearMonth.of(2024, 1)));
+        assertEquals(readings, result.get().get(YearMonth.of(2024, 1)));
+    }
+
+    @Test
+    @DisplayName("Проверка доступности истории показаний после смены пароля")
+    public void testReadingsSurvivePasswordChange() {
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        user.setPassword("newPassword");
+
+        assertTrue(repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).isPresent());
+        assertTrue(repository.getLastReadings(user).isPresent());
+        assertTrue(repository.getReadingsByMonth(new User("testLogin", "otherPassword", Role.USER),
+                YearMonth.of(2024, 1)).isPresent());
     }
 
     @Test
     @DisplayName("Проверка получения всех показаний, когда их нет")
     public void testGetAllReadingsWhenNonePresent() {
-        Optional<Map<Month, Readings>> result = repository.getAllReadings(user);
+        Optional<Map<YearMonth, Readings>> result = repository.getAllReadings(user);
 
         assertFalse(result.isPresent());
     }
@@ -49,9 +64,9 @@ public class ReadingsRepositoryImplTest {
     @Test
     @DisplayName("Проверка получения показаний по месяцам")
     public void testGetReadingsByMonth() {
-        repository.addReadings(user, Month.JANUARY, readings);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
 
-        Optional<Readings> result = repository.getReadingsByMonth(user, Month.JANUARY);
+        Optional<Readings> result = repository.getReadingsByMonth(user, YearMonth.of(2024, 1));
 
         assertTrue(result.isPresent());
         assertEquals(readings, result.get());
@@ -60,8 +75,64 @@ public class ReadingsRepositoryImplTest {
     @Test
     @DisplayName("Проверка получения показаний по месяцам, когда их нет")
     public void testGetReadingsByMonthWhenNonePresent() {
-        Optional<Readings> result = repository.getReadingsByMonth(user, Month.JANUARY);
+        Optional<Readings> result = repository.getReadingsByMonth(user, YearMonth.of(2024, 1));
 
         assertFalse(result.isPresent());
     }
+
+    @Test
+    @DisplayName("Проверка получения последних показаний при подаче не по порядку")
+    public void testGetLastReadingsOutOfOrder() {
+        Readings march = new Readings();
+        repository.addReadings(user, YearMonth.of(2024, 3), march);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        Optional<Readings> result = repository.getLastReadings(user);
+
+        assertTrue(result.isPresent());
+        assertEquals(march, result.get());
+    }
+
+    @Test
+    @DisplayName("Проверка хранения показаний за один месяц разных лет")
+    public void testSameMonthOfDifferentYears() {
+        Readings nextYear = new Readings();
+        repository.addReadings(user, YearMonth.of(2025, 1), nextYear);
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+
+        assertEquals(readings, repository.getReadingsByMonth(user, YearMonth.of(2024, 1)).orElseThrow());
+        assertEquals(nextYear, repository.getReadingsByMonth(user, YearMonth.of(2025, 1)).orElseThrow());
+        assertEquals(nextYear, repository.getLastReadings(user).orElseThrow());
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2025, 1)),
+                List.copyOf(repository.getAllReadings(user).orElseThrow().keySet()));
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний за диапазон и за последние периоды")
+    public void testRangeQueries() {
+        for (int i = 0; i < 24; i++) {
+            repository.addReadings(user, YearMonth.of(2023, 6).plusMonths(i), new Readings());
+        }
+
+        SortedMap<YearMonth, Readings> between = repository.getReadingsBetween(user, YearMonth.of(2024, 11), YearMonth.of(2025, 2));
+        SortedMap<YearMonth, Readings> latest = repository.getLatestReadings(user, 3);
+
+        assertEquals(List.of(YearMonth.of(2024, 11), YearMonth.of(2024, 12), YearMonth.of(2025, 1), YearMonth.of(2025, 2)),
+                List.copyOf(between.keySet()));
+        assertEquals(List.of(YearMonth.of(2025, 3), YearMonth.of(2025, 4), YearMonth.of(2025, 5)), List.copyOf(latest.keySet()));
+        assertTrue(repository.getReadingsBetween(user, YearMonth.of(2026, 1), YearMonth.of(2026, 12)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний за соседние периоды")
+    public void testNeighbourReadings() {
+        Readings march = new Readings();
+        repository.addReadings(user, YearMonth.of(2024, 1), readings);
+        repository.addReadings(user, YearMonth.of(2024, 3), march);
+
+        assertEquals(YearMonth.of(2024, 1), repository.getPreviousReadings(user, YearMonth.of(2024, 3)).orElseThrow().getKey());
+        assertEquals(march, repository.getNextReadings(user, YearMonth.of(2024, 2)).orElseThrow().getValue());
+        assertFalse(repository.getPreviousReadings(user, YearMonth.of(2024, 1)).isPresent());
+        assertFalse(repository.getNextReadings(user, YearMonth.of(2024, 3)).isPresent());
+    }
 }
@@ -0,0 +1,225 @@
+package repositories;
+
+import enums.Role;
+import models.Readings;
+import models.ReadingsEntry;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConsistentHashRing;
+import repositories.impl.ShardedReadingsRepository;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedReadingsRepositoryTest {
+    private static final int USERS = 1000;
+    private static final int PERIODS = 12;
+    private static final YearMonth START = YearMonth.of(2024, 1);
+
+    private Map<String, ReadingsRepository> shards;
+    private ShardedReadingsRepository repository;
+    private List<User> users;
+
+    @BeforeEach
+    public void setUp() {
+        shards = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            shards.put("node-" + i, new ConcurrentReadingsRepositoryImpl());
+        }
+        repository = new ShardedReadingsRepository(shards);
+        users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("shardUser" + i, "password", Role.USER));
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка хранения истории пользователя только в его шарде")
+    public void testRouting() {
+        for (User user : users) {
+            repository.addReadings(user, START, readings(1));
+        }
+
+        for (User user : users) {
+            String node = repository.getNode(user.getLogin());
+            shards.forEach((name, shard) ->
+                    assertEquals(name.equals(node), shard.getLastReadings(user).isPresent(), user.getLogin()));
+            assertEquals(1.0, repository.getLastReadings(user).orElseThrow().get().get("Отопление"));
+        }
+        assertEquals(USERS, repository.getShardSizes().values().stream().mapToInt(Integer::intValue).sum());
+        repository.getShardSizes().values().forEach(size -> assertTrue(size > USERS / 6, "size " + size));
+    }
+
+    @Test
+    @DisplayName("Проверка пакетного добавления показаний в несколько шардов")
+    public void testAddReadingsBatch() {
+        List<ReadingsEntry> batch = new ArrayList<>();
+        for (User user : users) {
+            batch.add(new ReadingsEntry(user, START, readings(1)));
+        }
+        batch.add(new ReadingsEntry(users.get(0), START, readings(2)));
+
+        boolean[] added = repository.addReadingsBatch(batch);
+
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(added[i]);
+        }
+        assertFalse(added[USERS]);
+        assertEquals(1.0, repository.getReadingsByMonth(users.get(0), START).orElseThrow().get().get("Отопление"));
+    }
+
+    @Test
+    @DisplayName("Проверка запроса по всем шардам")
+    public void testScatter() {
+        double expected = 0;
+        for (int i = 0; i < USERS; i++) {
+            repository.addReadings(users.get(i), START, readings(i));
+            expected += i;
+        }
+
+        List<Double> totals = repository.scatter((shard, shardUsers) -> shardUsers.stream()
+                .mapToDouble(user -> shard.getReadingsByMonth(user, START).orElseThrow().get().get("Отопление"))
+                .sum());
+
+        assertEquals(shards.size(), totals.size());
+        assertEquals(expected, totals.stream().mapToDouble(Double::doubleValue).sum(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Проверка переноса пользователей при добавлении шарда")
+    public void testAddShard() {
+        for (User user : users) {
+            for (int p = 0; p < PERIODS; p++) {
+                repository.addReadings(user, START.plusMonths(p), readings(p));
+            }
+        }
+        ConcurrentReadingsRepositoryImpl added = new ConcurrentReadingsRepositoryImpl();
+
+        int moved = repository.addShard("node-3", added);
+
+        assertTrue(moved > USERS / 8 && moved < USERS / 2, "moved " + moved);
+        assertEquals(moved, repository.getShardSizes().get("node-3"));
+        for (User user : users) {
+            boolean onNewNode = repository.getNode(user.getLogin()).equals("node-3");
+            assertEquals(onNewNode, added.getLastReadings(user).isPresent());
+            for (ReadingsRepository shard : shards.values()) {
+                assertFalse(onNewNode && shard.getLastReadings(user).isPresent());
+            }
+            assertEquals(PERIODS, repository.getAllReadings(user).orElseThrow().size());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.addShard("node-3", new ConcurrentReadingsRepositoryImpl()));
+    }
+
+    @Test
+    @DisplayName("Проверка восстановления прежней топологии, если перенос пользователей не удался")
+    public void testAddShardRollback() {
+        AtomicInteger removals = new AtomicInteger();
+        shards.put("node-0", new ConcurrentReadingsRepositoryImpl() {
+            @Override
+            public boolean removeAllReadings(User user) {
+                if (removals.incrementAndGet() == 5) {
+                    throw new UnsupportedOperationException("Хранилище не поддерживает удаление показаний");
+                }
+                return super.removeAllReadings(user);
+            }
+        });
+        repository = new ShardedReadingsRepository(shards);
+        for (User user : users) {
+            for (int p = 0; p < PERIODS; p++) {
+                repository.addReadings(user, START.plusMonths(p), readings(p));
+            }
+        }
+        ConcurrentReadingsRepositoryImpl added = new ConcurrentReadingsRepositoryImpl();
+
+        assertThrows(UnsupportedOperationException.class, () -> repository.addShard("node-3", added));
+
+        assertEquals(List.copyOf(shards.keySet()), List.copyOf(repository.getShardSizes().keySet()));
+        assertEquals(USERS, repository.getShardSizes().values().stream().mapToInt(Integer::intValue).sum());
+        for (User user : users) {
+            assertNotEquals("node-3", repository.getNode(user.getLogin()));
+            assertTrue(added.getAllReadings(user).isEmpty(), user.getLogin());
+            assertEquals(PERIODS, repository.getAllReadings(user).orElseThrow().size(), user.getLogin());
+        }
+        assertTrue(repository.addShard("node-3", new ConcurrentReadingsRepositoryImpl()) > 0);
+    }
+
+    @Test
+    @DisplayName("Проверка подачи показаний во время переноса пользователей")
+    public void testAddShardUnderLoad() throws Exception {
+        for (User user : users) {
+            repository.addReadings(user, START, readings(0));
+        }
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                started.countDown();
+                for (int p = 1; p < PERIODS; p++) {
+                    for (int i = offset; i < USERS; i += threads) {
+                        assertTrue(repository.addReadingsIfAbsent(users.get(i), START.plusMonths(p), readings(p)));
+                    }
+                }
+                return null;
+            }));
+        }
+        started.await();
+        repository.addShard("node-3", new ConcurrentReadingsRepositoryImpl());
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (User user : users) {
+            assertEquals(PERIODS, repository.getAllReadings(user).orElseThrow().size(), user.getLogin());
+        }
+        assertEquals(USERS, repository.getShardSizes().values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    @DisplayName("Проверка, что при добавлении узла ключи переходят только на новый узел")
+    public void testConsistentHashRing() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 160);
+        ConsistentHashRing extended = ring.withNode("e");
+        Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        int keys = 10_000;
+        for (int i = 0; i < keys; i++) {
+            String key = "login" + i;
+            String before = ring.nodeFor(key);
+            String after = extended.nodeFor(key);
+            if (!before.equals(after)) {
+                assertEquals("e", after);
+                moved++;
+            }
+            counts.merge(before, 1, Integer::sum);
+        }
+
+        assertTrue(moved > keys / 8 && moved < keys / 3, "moved " + moved);
+        counts.values().forEach(count -> assertTrue(Math.abs(count - keys / 4) < keys / 4 * 0.25, "count " + count));
+        assertThrows(IllegalArgumentException.class, () -> ring.withNode("a"));
+    }
+
+    private static Readings readings(double value) {
+        Readings readings = new Readings();
+        readings.add("Отопление", value);
+        return readings;
+    }
+}
@@ -50,4 +50,27 @@ public class UserRepositoryImplTest {
 
         assertTrue(result.contains("testLogin"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Проверка постраничного получения логинов по курсору")
+    public void testGetLoginsPages() {
+        repository.addUser(user);
+
+        List<String> first = repository.getLogins(null, 2);
+        List<String> second = repository.getLogins(first.get(1), 2);
+
+        assertEquals(List.of("admin", "login"), first);
+        assertEquals(List.of("testLogin"), second);
+        assertEquals(List.of("admin", "login", "testLogin"), repository.logins().toList());
+    }
+
+    @Test
+    @DisplayName("Проверка поиска логинов по префиксу и похожих логинов")
+    public void testSearchLogins() {
+        repository.addUser(user);
+
+        assertEquals(List.of("testLogin"), repository.findLoginsByPrefix("test", 10));
+        assertEquals(List.of("admin"), repository.findSimilarLogins("admn", 1, 10));
+        assertEquals(List.of("testLogin", "login"), repository.findSimilarLogins("tstLogin", 4, 10));
+    }
+}
@@ -0,0 +1,80 @@
+package security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CredentialCacheTest {
+
+    @Test
+    @DisplayName("Проверка поиска учетных данных в кеше")
+    public void testContains() {
+        CredentialCache cache = new CredentialCache(16, Duration.ofMinutes(1));
+
+        cache.put("login", "password", "hash");
+
+        assertTrue(cache.contains("login", "password", "hash"));
+        assertFalse(cache.contains("login", "other", "hash"));
+        assertFalse(cache.contains("login", "password", "newHash"));
+        assertFalse(cache.contains("other", "password", "hash"));
+    }
+
+    @Test
+    @DisplayName("Проверка истечения времени жизни записей")
+    public void testExpiry() {
+        MutableClock clock = new MutableClock();
+        CredentialCache cache = new CredentialCache(16, Duration.ofMinutes(1), clock);
+        cache.put("login", "password", "hash");
+
+        clock.advance(Duration.ofSeconds(59));
+        assertTrue(cache.contains("login", "password", "hash"));
+        clock.advance(Duration.ofSeconds(2));
+        assertFalse(cache.contains("login", "password", "hash"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Проверка вытеснения давно не использованных записей")
+    public void testCapacity() {
+        CredentialCache cache = new CredentialCache(2, Duration.ofMinutes(1));
+        cache.put("first", "password", "hash");
+        cache.put("second", "password", "hash");
+
+        assertTrue(cache.contains("first", "password", "hash"));
+        cache.put("third", "password", "hash");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("first", "password", "hash"));
+        assertFalse(cache.contains("second", "password", "hash"));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package security;
+
+import exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import security.impl.BoundedPasswordHasher;
+import security.impl.Pbkdf2PasswordHasher;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Pbkdf2PasswordHasherTest {
+    private final Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1000);
+
+    @Test
+    @DisplayName("Проверка хеширования и проверки пароля")
+    public void testHashAndVerify() {
+        String first = hasher.hash("password");
+        String second = hasher.hash("password");
+
+        assertTrue(first.startsWith("pbkdf2-sha512$1000$"));
+        assertNotEquals(first, second);
+        assertTrue(hasher.verify("password", first));
+        assertTrue(hasher.verify("password", second));
+        assertFalse(hasher.verify("Password", first));
+        assertFalse(hasher.verify("password", "pbkdf2-sha512$1000$broken"));
+    }
+
+    @Test
+    @DisplayName("Проверка пароля в открытом виде и необходимости повторного хеширования")
+    public void testLegacyAndRehash() {
+        assertTrue(hasher.verify("admin", "admin"));
+        assertFalse(hasher.verify("other", "admin"));
+        assertTrue(hasher.needsRehash("admin"));
+        assertFalse(hasher.needsRehash(hasher.hash("admin")));
+        assertTrue(new Pbkdf2PasswordHasher(2000).needsRehash(hasher.hash("admin")));
+        assertTrue(new Pbkdf2PasswordHasher(2000).verify("admin", hasher.hash("admin")));
+    }
+
+    @Test
+    @DisplayName("Проверка отказа при переполнении пула хеширования")
+    public void testBoundedPoolRejectsWhenFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher blocking = new Pbkdf2PasswordHasher(1000) {
+            @Override
+            public String hash(String password) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.hash(password);
+            }
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (BoundedPasswordHasher bounded = new BoundedPasswordHasher(blocking, 1, 1)) {
+            var running = callers.submit(() -> bounded.hash("first"));
+            started.await();
+            var queued = callers.submit(() -> bounded.hash("second"));
+            while (bounded.getQueued() == 0) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(ServiceUnavailableException.class, () -> bounded.hash("third"));
+            release.countDown();
+            assertTrue(blocking.verify("first", running.get()));
+            assertTrue(blocking.verify("second", queued.get()));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package services;
+
+import enums.Role;
+import models.MeterStatistics;
+import models.Readings;
+import models.TopConsumer;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import services.impl.AggregationServiceImpl;
+import services.impl.ReadingsServiceImpl;
+import validators.ReadingsValidator;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AggregationServiceImplTest {
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final int USERS = 2000;
+
+    private UserRepository users;
+    private ReadingsRepository readings;
+    private AggregationServiceImpl aggregation;
+    private ReadingsServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        users = new ConcurrentUserRepositoryImpl();
+        readings = new ConcurrentReadingsRepositoryImpl();
+        aggregation = new AggregationServiceImpl(users, readings);
+        service = new ReadingsServiceImpl(readings, new ReadingsValidator());
+        service.addListener(aggregation);
+    }
+
+    @Test
+    @DisplayName("Проверка накопления итогов и средних значений при подаче показаний")
+    public void testIncrementalStatistics() {
+        submit("first", JANUARY, 100.0, 10.0);
+        submit("second", JANUARY, 300.0, 30.0);
+        submit("first", YearMonth.of(2024, 2), 150.0, 15.0);
+
+        Map<String, MeterStatistics> result = aggregation.getStatistics(JANUARY);
+
+        assertEquals(2, result.get("heating").getCount());
+        assertEquals(400.0, result.get("heating").getTotal());
+        assertEquals(200.0, result.get("heating").getAverage());
+        assertEquals(100.0, result.get("heating").getMin());
+        assertEquals(300.0, result.get("heating").getMax());
+        assertEquals(20.0, result.get("water").getAverage());
+        assertTrue(aggregation.getStatistics(YearMonth.of(2023, 12)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка статистики по диапазону периодов")
+    public void testStatisticsByRange() {
+        submit("first", JANUARY, 100.0, 10.0);
+        submit("first", YearMonth.of(2024, 3), 120.0, 12.0);
+        submit("first", YearMonth.of(2025, 1), 140.0, 14.0);
+
+        SortedMap<YearMonth, MeterStatistics> result = aggregation.getStatistics("water", JANUARY, YearMonth.of(2024, 12));
+
+        assertEquals(List.of(JANUARY, YearMonth.of(2024, 3)), List.copyOf(result.keySet()));
+        assertEquals(12.0, result.get(YearMonth.of(2024, 3)).getTotal());
+    }
+
+    @Test
+    @DisplayName("Проверка рейтинга пользователей с наибольшими показаниями")
+    public void testTopConsumers() {
+        for (int i = 0; i < USERS; i++) {
+            submit("user" + i, JANUARY, i, 1.0);
+        }
+
+        List<TopConsumer> top = aggregation.getTopConsumers(JANUARY, "heating", 3);
+        List<TopConsumer> wide = aggregation.getTopConsumers(JANUARY, "heating", 150);
+
+        assertEquals(List.of("user1999", "user1998", "user1997"), top.stream().map(TopConsumer::getLogin).toList());
+        assertEquals(150, wide.size());
+        assertEquals(1850.0, wide.get(149).getValue());
+    }
+
+    @Test
+    @DisplayName("Проверка совпадения накопленной статистики с полным параллельным обходом")
+    public void testIncrementalMatchesFullScan() {
+        for (int i = 0; i < USERS; i++) {
+            submit("user" + i, JANUARY, 50 + (i * 37) % 1000, (i * 13) % 200);
+        }
+
+        Map<String, MeterStatistics> incremental = aggregation.getStatistics(JANUARY);
+        Map<String, MeterStatistics> exact = aggregation.computeStatistics(JANUARY);
+
+        for (String type : List.of("heating", "water")) {
+            assertEquals(exact.get(type).getCount(), incremental.get(type).getCount());
+            assertEquals(exact.get(type).getTotal(), incremental.get(type).getTotal(), 1e-6);
+            assertEquals(exact.get(type).getP50(), incremental.get(type).getP50(), exact.get(type).getP50() * 0.01);
+            assertEquals(exact.get(type).getP99(), incremental.get(type).getP99(), exact.get(type).getP99() * 0.01);
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка пересчета статистики по данным хранилища")
+    public void testRebuild() {
+        submit("first", JANUARY, 100.0, 10.0);
+        submit("second", JANUARY, 300.0, 30.0);
+        AggregationServiceImpl restored = new AggregationServiceImpl(users, readings);
+
+        restored.rebuild();
+
+        assertEquals(400.0, restored.getStatistics(JANUARY).get("heating").getTotal());
+        assertEquals("second", restored.getTopConsumers(JANUARY, "water", 1).get(0).getLogin());
+    }
+
+    private void submit(String login, YearMonth period, double heating, double water) {
+        User user = users.getUser(login).orElseGet(() -> {
+            User created = new User(login, "password", Role.USER);
+            users.addUser(created);
+            return created;
+        });
+        Readings submission = new Readings();
+        submission.add("heating", heating);
+        submission.add("water", water);
+        service.addReadings(user, period, submission);
+    }
+}
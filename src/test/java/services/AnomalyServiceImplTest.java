@@ -0,0 +1,131 @@
+package services;
+
+import enums.AnomalyType;
+import enums.Role;
+import models.Anomaly;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repositories.ReadingsRepository;
+import repositories.UserRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
+import repositories.impl.ConcurrentUserRepositoryImpl;
+import services.impl.AnomalyServiceImpl;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalyServiceImplTest {
+    private static final YearMonth START = YearMonth.of(2024, 1);
+
+    private final User user = new User("user", "password", Role.USER);
+    private final User other = new User("other", "password", Role.USER);
+    private UserRepository users;
+    private ReadingsRepository readings;
+    private AnomalyServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        users = new ConcurrentUserRepositoryImpl();
+        users.addUser(user);
+        users.addUser(other);
+        readings = new ConcurrentReadingsRepositoryImpl();
+        service = new AnomalyServiceImpl(users, readings);
+    }
+
+    @Test
+    @DisplayName("Проверка, что обычные колебания потребления не отмечаются")
+    public void testNormalVariation() {
+        submit(user, 0, 100, 210, 305, 400, 510, 600, 695, 800);
+
+        assertTrue(service.getAnomalies(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка отметки резкого роста потребления и исключения выброса из статистики")
+    public void testSpike() {
+        submit(user, 0, 100, 200, 300, 1300, 2300);
+
+        List<Anomaly> anomalies = service.getAnomalies(10);
+
+        assertEquals(2, anomalies.size());
+        assertEquals(AnomalyType.SPIKE, anomalies.get(0).getType());
+        assertEquals(START.plusMonths(5), anomalies.get(0).getPeriod());
+        assertEquals(START.plusMonths(4), anomalies.get(1).getPeriod());
+        assertEquals(1000, anomalies.get(1).getConsumption());
+        assertEquals(100, anomalies.get(1).getExpected(), 1e-9);
+        assertEquals(2, service.getFlaggedCount());
+    }
+
+    @Test
+    @DisplayName("Проверка отметки остановки счетчика")
+    public void testStall() {
+        submit(user, 0, 100, 200, 300, 300);
+
+        assertEquals(AnomalyType.STALL, service.getAnomalies(10).get(0).getType());
+    }
+
+    @Test
+    @DisplayName("Проверка, что потребление за пропущенные месяцы делится между ними, а проверка ждет накопления статистики")
+    public void testGapAndMinSamples() {
+        submit(user, 0, 1000, 2000);
+        service.validate(user, START.plusMonths(5), heating(2300));
+        service.onReadingsAdded(user, START.plusMonths(5), heating(2300));
+
+        assertTrue(service.getAnomalies(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка отметок по пользователю и пересчета статистики по репозиторию")
+    public void testRebuildAndFilterByUser() {
+        for (int month = 0; month < 5; month++) {
+            readings.addReadings(user, START.plusMonths(month), heating(month == 4 ? 1300 : month * 100));
+            readings.addReadings(other, START.plusMonths(month), heating(month * 100));
+        }
+
+        service.rebuild();
+        service.rebuild();
+
+        assertEquals(1, service.getAnomalies(user).size());
+        assertTrue(service.getAnomalies(other).isEmpty());
+        assertEquals(1, service.getAnomalies(10).size());
+    }
+
+    @Test
+    @DisplayName("Проверка, что стадия проверки не изменяет статистику и не сохраняет отметки")
+    public void testValidateIsReadOnly() {
+        submit(user, 0, 100, 200, 300);
+        for (int i = 0; i < 5; i++) {
+            service.validate(user, START.plusMonths(4), heating(1300));
+            service.validate(user, START.plusMonths(4), heating(350));
+        }
+
+        assertTrue(service.getAnomalies(10).isEmpty());
+        assertEquals(0, service.getFlaggedCount());
+        submit(user, START.plusMonths(4), 400);
+        assertTrue(service.getAnomalies(10).isEmpty());
+        submit(user, START.plusMonths(5), 1400);
+        assertEquals(1000, service.getAnomalies(10).get(0).getConsumption());
+    }
+
+    private void submit(User user, double... values) {
+        for (int month = 0; month < values.length; month++) {
+            submit(user, START.plusMonths(month), values[month]);
+        }
+    }
+
+    private void submit(User user, YearMonth period, double value) {
+        service.validate(user, period, heating(value));
+        service.onReadingsAdded(user, period, heating(value));
+    }
+
+    private static Readings heating(double value) {
+        Readings readings = new Readings();
+        readings.add("heating", value);
+        return readings;
+    }
+}
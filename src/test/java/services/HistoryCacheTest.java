@@ -0,0 +1,64 @@
+package services;
+
+import enums.Role;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistoryCacheTest {
+    private final User first = new User("first", "password", Role.USER);
+    private final User second = new User("second", "password", Role.USER);
+    private final User third = new User("third", "password", Role.USER);
+
+    @Test
+    @DisplayName("Проверка дописывания показаний за следующий период и сброса при подаче за прошлый")
+    public void testAppend() {
+        HistoryCache cache = new HistoryCache(1 << 20);
+        cache.put(first, YearMonth.of(2024, 2), HistoryCache.render(Map.of(YearMonth.of(2024, 2), heating(2.0))));
+
+        cache.append(first, YearMonth.of(2024, 3), heating(3.0));
+        String appended = cache.get(first);
+        cache.append(first, YearMonth.of(2024, 1), heating(1.0));
+
+        Map<YearMonth, Readings> history = new TreeMap<>();
+        history.put(YearMonth.of(2024, 2), heating(2.0));
+        history.put(YearMonth.of(2024, 3), heating(3.0));
+        assertEquals(HistoryCache.render(history), appended);
+        assertNull(cache.get(first));
+        assertEquals(0, cache.length());
+    }
+
+    @Test
+    @DisplayName("Проверка вытеснения давно не использованных историй по суммарной длине")
+    public void testEviction() {
+        HistoryCache cache = new HistoryCache(25);
+        cache.put(first, YearMonth.of(2024, 1), "0123456789");
+        cache.put(second, YearMonth.of(2024, 1), "0123456789");
+        assertNotNull(cache.get(first));
+
+        cache.put(third, YearMonth.of(2024, 1), "0123456789");
+        cache.put(second, YearMonth.of(2024, 1), "too long for this cache at all");
+
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.length());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    private static Readings heating(double value) {
+        Readings readings = new Readings();
+        readings.add("heating", value);
+        return readings;
+    }
+}
@@ -11,14 +11,23 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import repositories.ConsumptionRepository;
 import repositories.ReadingsRepository;
+import repositories.impl.ConcurrentReadingsRepositoryImpl;
 import services.impl.ReadingsServiceImpl;
+import validators.ReadingsValidator;
+import validators.SubmissionValidator;
 import validators.Validator;
 
-import java.time.Month;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.YearMonth;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +37,10 @@ public class ReadingsServiceImplTest {
     private ReadingsRepository repository;
     @Mock
     private Validator<Readings> validator;
+    @Mock
+    private ConsumptionRepository consumptionRepository;
+    @Spy
+    private HistoryCache historyCache = new HistoryCache(1 << 20);
     @InjectMocks
     private ReadingsServiceImpl service;
     private User user;
@@ -52,38 +65,54 @@ public class ReadingsServiceImplTest {
     @Test
     @DisplayName("Проверка добавления показаний, когда их еще нет")
     public void testAddReadings() throws ValidationException {
-        when(repository.getAllReadings(user)).thenReturn(Optional.empty());
-        service.addReadings(user, Month.JANUARY, readings);
+        when(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings)).thenReturn(true);
+        service.addReadings(user, YearMonth.of(2024, 1), readings);
 
         verify(validator, times(1)).validate(readings);
-        verify(repository, times(1)).addReadings(user, Month.JANUARY, readings);
+        verify(repository, times(1)).addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings);
+    }
+
+    @Test
+    @DisplayName("Проверка, что стадия проверки подачи вызывается до сохранения и может отклонить подачу")
+    public void testSubmissionValidator() {
+        YearMonth period = YearMonth.of(2024, 1);
+        SubmissionValidator stage = mock(SubmissionValidator.class);
+        doNothing().doThrow(new ValidationException("Отклонено")).when(stage).validate(user, period, readings);
+        when(repository.getReadingsByMonth(user, period)).thenReturn(Optional.empty());
+        when(repository.addReadingsIfAbsent(user, period, readings)).thenReturn(true);
+        service.addValidator(stage);
+
+        assertTrue(service.addReadings(user, period, readings));
+        assertThrows(ValidationException.class, () -> service.addReadings(user, period, readings));
+
+        verify(stage, times(2)).validate(user, period, readings);
+        verify(repository, times(1)).addReadingsIfAbsent(user, period, readings);
     }
 
     @Test
     @DisplayName("Проверка добавления показаний, когда они уже есть")
     public void testAddReadingsWhenAlreadyPresent() throws ValidationException {
-        Map<Month, Readings> readingsMap = new LinkedHashMap<>();
-        readingsMap.put(Month.JANUARY, readings);
-        when(repository.getAllReadings(user)).thenReturn(Optional.of(readingsMap));
+        when(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings)).thenReturn(false);
 
-        service.addReadings(user, Month.JANUARY, readings);
+        service.addReadings(user, YearMonth.of(2024, 1), readings);
 
         verify(validator, times(1)).validate(readings);
-        verify(repository, never()).addReadings(user, Month.JANUARY, readings);
+        verify(repository, times(1)).addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings);
+        verify(repository, never()).addReadings(user, YearMonth.of(2024, 1), readings);
     }
 
     @Test
     @DisplayName("Проверка получения всех показаний")
     public void testGetAllReadings() {
-        Map<Month, Readings> readingsMap = new LinkedHashMap<>();
-        readingsMap.put(Month.JANUARY, readings);
-        readingsMap.put(Month.FEBRUARY, readings);
+        Map<YearMonth, Readings> readingsMap = new LinkedHashMap<>();
+        readingsMap.put(YearMonth.of(2024, 1), readings);
+        readingsMap.put(YearMonth.of(2024, 2), readings);
         when(repository.getAllReadings(user)).thenReturn(Optional.of(readingsMap));
 
         String result = service.getAllReadings(user);
 
-        assertTrue(result.contains(Month.JANUARY.toString()));
-        assertTrue(result.contains(Month.FEBRUARY.toString()));
+        assertTrue(result.contains(YearMonth.of(2024, 1).toString()));
+        assertTrue(result.contains(YearMonth.of(2024, 2).toString()));
         assertTrue(result.contains(readings.toString()));
     }
 
@@ -100,9 +129,7 @@ public class ReadingsServiceImplTest {
     @Test
     @DisplayName("Проверка получения последних показаний")
     public void testGetLastReadings() {
-        Map<Month, Readings> readingsMap = new LinkedHashMap<>();
-        readingsMap.put(Month.JANUARY, readings);
-        when(repository.getAllReadings(user)).thenReturn(Optional.of(readingsMap));
+        when(repository.getLastReadings(user)).thenReturn(Optional.of(readings));
 
         Optional<Readings> result = service.getLastReadings(user);
 
@@ -113,7 +140,7 @@ public class ReadingsServiceImplTest {
     @Test
     @DisplayName("Проверка получения последних показаний, когда их нет")
     public void testGetLastReadingsWhenNonePresent() {
-        when(repository.getAllReadings(user)).thenReturn(Optional.empty());
+        when(repository.getLastReadings(user)).thenReturn(Optional.empty());
 
         Optional<Readings> result = service.getLastReadings(user);
 
@@ -123,9 +150,9 @@ public class ReadingsServiceImplTest {
     @Test
     @DisplayName("Проверка получения показаний по месяцам")
     public void testGetReadingsByMonth() {
-        when(repository.getReadingsByMonth(user, Month.JANUARY)).thenReturn(Optional.of(readings));
+        when(repository.getReadingsByMonth(user, YearMonth.of(2024, 1))).thenReturn(Optional.of(readings));
 
-        Optional<Readings> result = service.getReadingsByMonth(user, Month.JANUARY);
+        Optional<Readings> result = service.getReadingsByMonth(user, YearMonth.of(2024, 1));
 
         assertTrue(result.isPresent());
         assertEquals(readings, result.get());
@@ -134,11 +161,165 @@ public class ReadingsServiceImplTest {
     @Test
     @DisplayName("Проверка получения показаний по месяцам, когда их нет")
     public void testGetReadingsByMonthWhenNonePresent() {
-        when(repository.getReadingsByMonth(user, Month.JANUARY)).thenReturn(Optional.empty());
+        when(repository.getReadingsByMonth(user, YearMonth.of(2024, 1))).thenReturn(Optional.empty());
 
-        Optional<Readings> result = service.getReadingsByMonth(user, Month.JANUARY);
+        Optional<Readings> result = service.getReadingsByMonth(user, YearMonth.of(2024, 1));
 
         assertFalse(result.isPresent());
     }
-}
 
+    @Test
+    @DisplayName("Проверка получения показаний за диапазон периодов")
+    public void testGetReadingsBetween() {
+        SortedMap<YearMonth, Readings> range = new TreeMap<>(Map.of(YearMonth.of(2024, 12), readings, YearMonth.of(2025, 1), readings));
+        when(repository.getReadingsBetween(user, YearMonth.of(2024, 12), YearMonth.of(2025, 1))).thenReturn(range);
+
+        SortedMap<YearMonth, Readings> result = service.getReadingsBetween(user, YearMonth.of(2024, 12), YearMonth.of(2025, 1));
+
+        assertEquals(range, result);
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний за диапазон, начало которого позже конца")
+    public void testGetReadingsBetweenWithInvalidRange() {
+        assertThrows(ValidationException.class,
+                () -> service.getReadingsBetween(user, YearMonth.of(2025, 1), YearMonth.of(2024, 1)));
+        verify(repository, never()).getReadingsBetween(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Проверка получения показаний за последние периоды")
+    public void testGetLatestReadings() {
+        SortedMap<YearMonth, Readings> latest = new TreeMap<>(Map.of(YearMonth.of(2025, 1), readings));
+        when(repository.getLatestReadings(user, 1)).thenReturn(latest);
+
+        assertEquals(latest, service.getLatestReadings(user, 1));
+    }
+
+    @Test
+    @DisplayName("Проверка оповещения слушателей только о принятых показаниях")
+    public void testListenerNotifiedOnlyOnAccepted() {
+        ReadingsListener listener = mock(ReadingsListener.class);
+        service.addListener(listener);
+        when(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 1), readings)).thenReturn(true, false);
+
+        assertTrue(service.addReadings(user, YearMonth.of(2024, 1), readings));
+        assertFalse(service.addReadings(user, YearMonth.of(2024, 1), readings));
+
+        verify(listener, times(1)).onReadingsAdded(user, YearMonth.of(2024, 1), readings);
+    }
+
+    @Test
+    @DisplayName("Проверка вычисления потребления при подаче показаний")
+    public void testConsumptionComputedOnWrite() {
+        Readings previous = new Readings();
+        previous.add("heating", 60.0);
+        previous.add("hotWater", 90.0);
+        when(repository.getPreviousReadings(user, YearMonth.of(2024, 2)))
+                .thenReturn(Optional.of(Map.entry(YearMonth.of(2024, 1), previous)));
+        when(repository.addReadingsIfAbsent(user, YearMonth.of(2024, 2), readings)).thenReturn(true);
+
+        service.addReadings(user, YearMonth.of(2024, 2), readings);
+
+        verify(consumptionRepository).saveConsumption(eq(user), eq(YearMonth.of(2024, 2)),
+                argThat(c -> c.get().equals(Map.of("heating", 40.0, "hotWater", 10.0))));
+    }
+
+    @Test
+    @DisplayName("Проверка отклонения показаний меньше предыдущих")
+    public void testDecreasingReadingsRejected() {
+        Readings previous = new Readings();
+        previous.add("heating", 150.0);
+        when(repository.getPreviousReadings(user, YearMonth.of(2024, 2)))
+                .thenReturn(Optional.of(Map.entry(YearMonth.of(2024, 1), previous)));
+        doThrow(new ValidationException("Показание не может быть меньше предыдущего для heating"))
+                .when(validator).validateProgression(previous, readings);
+
+        assertThrows(ValidationException.class, () -> service.addReadings(user, YearMonth.of(2024, 2), readings));
+        verify(repository, never()).addReadingsIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Проверка получения потребления")
+    public void testGetConsumption() {
+        when(consumptionRepository.getConsumption(user, YearMonth.of(2024, 2))).thenReturn(Optional.of(readings));
+
+        assertEquals(readings, service.getConsumption(user, YearMonth.of(2024, 2)).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Проверка пересчета потребления следующего периода при подаче показаний не по порядку")
+    public void testConsumptionWithOutOfOrderSubmission() {
+        ReadingsServiceImpl real = new ReadingsServiceImpl(new ConcurrentReadingsRepositoryImpl(), new ReadingsValidator());
+        real.addReadings(user, YearMonth.of(2024, 1), heating(100.0));
+        real.addReadings(user, YearMonth.of(2024, 3), heating(160.0));
+        real.addReadings(user, YearMonth.of(2024, 2), heating(130.0));
+
+        assertEquals(30.0, real.getConsumption(user, YearMonth.of(2024, 2)).orElseThrow().get().get("heating"));
+        assertEquals(30.0, real.getConsumption(user, YearMonth.of(2024, 3)).orElseThrow().get().get("heating"));
+        assertFalse(real.getConsumption(user, YearMonth.of(2024, 1)).isPresent());
+        assertThrows(ValidationException.class, () -> real.addReadings(user, YearMonth.of(2024, 4), heating(150.0)));
+    }
+
+    @Test
+    @DisplayName("Проверка получения истории показаний из кеша")
+    public void testGetAllReadingsFromCache() {
+        Map<YearMonth, Readings> readingsMap = new TreeMap<>(Map.of(YearMonth.of(2024, 1), readings));
+        when(repository.getAllReadings(user)).thenReturn(Optional.of(readingsMap));
+
+        String first = service.getAllReadings(user);
+        String second = service.getAllReadings(user);
+
+        assertEquals(first, second);
+        verify(repository, times(1)).getAllReadings(user);
+        assertEquals(1, historyCache.getHits());
+        assertEquals(1, historyCache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Проверка обновления кешированной истории при подаче показаний")
+    public void testHistoryCacheFollowsSubmissions() {
+        ReadingsServiceImpl real = new ReadingsServiceImpl(new ConcurrentReadingsRepositoryImpl(), new ReadingsValidator());
+        real.addReadings(user, YearMonth.of(2024, 2), heating(100.0));
+        real.getAllReadings(user);
+
+        real.addReadings(user, YearMonth.of(2024, 3), heating(110.0));
+        String appended = real.getAllReadings(user);
+        real.addReadings(user, YearMonth.of(2024, 1), heating(90.0));
+        String rebuilt = real.getAllReadings(user);
+
+        assertEquals("2024-02:Показания: heating=100.0, \n2024-03:Показания: heating=110.0, \n", appended);
+        assertEquals("2024-01:Показания: heating=90.0, \n" + appended, rebuilt);
+        assertEquals(1, real.getHistoryCache().getAppends());
+        assertEquals(1, real.getHistoryCache().getHits());
+        assertEquals(2, real.getHistoryCache().getMisses());
+    }
+
+    private static Readings heating(double value) {
+        Readings result = new Readings();
+        result.add("heating", value);
+        return result;
+    }
+
+    @Test
+    @DisplayName("Проверка потокового вывода истории длиннее страницы")
+    public void testStreamLongHistory() throws IOException {
+        ReadingsServiceImpl real = new ReadingsServiceImpl(new ConcurrentReadingsRepositoryImpl(), new ReadingsValidator());
+        for (int i = 0; i < 600; i++) {
+            real.addReadings(user, YearMonth.of(2000, 1).plusMonths(i), heating(i));
+        }
+
+        StringWriter streamed = new StringWriter();
+        real.writeAllReadings(user, streamed);
+        String rendered = real.getAllReadings(user);
+        StringWriter cached = new StringWriter();
+        real.writeAllReadings(user, cached);
+
+        assertEquals(rendered, streamed.toString());
+        assertEquals(rendered, cached.toString());
+        assertEquals(600, real.streamReadings(user).count());
+        assertEquals(YearMonth.of(2000, 1).plusMonths(599), real.streamReadings(user).reduce((a, b) -> b).orElseThrow().getKey());
+        assertEquals(10, real.getReadings(user, YearMonth.of(2010, 1), 10).size());
+        assertThrows(ValidationException.class, () -> real.getReadings(user, YearMonth.of(2010, 1), 0));
+    }
+}
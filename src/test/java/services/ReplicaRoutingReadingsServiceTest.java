@@ -0,0 +1,82 @@
+package services;
+
+import enums.Role;
+import models.Readings;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import services.impl.ReplicaRoutingReadingsService;
+import services.impl.ReplicaRoutingReadingsService.ReadReplica;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingReadingsServiceTest {
+    private final User user = new User("routingLogin", "password", Role.USER);
+    private final YearMonth period = YearMonth.of(2024, 1);
+
+    private ReadingsService primary;
+    private ReadingsService firstReplica;
+    private ReadingsService secondReplica;
+    private AtomicLong firstStaleness;
+    private AtomicLong secondStaleness;
+    private ReplicaRoutingReadingsService service;
+
+    @BeforeEach
+    public void setUp() {
+        primary = mock(ReadingsService.class);
+        firstReplica = mock(ReadingsService.class);
+        secondReplica = mock(ReadingsService.class);
+        firstStaleness = new AtomicLong();
+        secondStaleness = new AtomicLong();
+        service = new ReplicaRoutingReadingsService(primary, List.of(
+                new ReadReplica(firstReplica, firstStaleness::get),
+                new ReadReplica(secondReplica, secondStaleness::get)), Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Проверка распределения чтения по репликам и подачи показаний на основной узел")
+    public void testRouting() {
+        Readings readings = new Readings();
+        when(firstReplica.getLastReadings(user)).thenReturn(Optional.of(readings));
+        when(secondReplica.getLastReadings(user)).thenReturn(Optional.of(readings));
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(readings, service.getLastReadings(user).orElseThrow());
+        }
+        service.addReadings(user, period, readings);
+        service.getConsumption(user, period);
+
+        verify(firstReplica, times(2)).getLastReadings(user);
+        verify(secondReplica, times(2)).getLastReadings(user);
+        verify(primary, never()).getLastReadings(user);
+        verify(primary).addReadings(user, period, readings);
+        verify(primary).getConsumption(user, period);
+        assertEquals(4, service.getReplicaReads());
+        assertEquals(0, service.getPrimaryReads());
+    }
+
+    @Test
+    @DisplayName("Проверка чтения с основного узла, когда реплики устарели")
+    public void testStaleReplicas() {
+        firstStaleness.set(5_000);
+        when(secondReplica.getReadingsByMonth(user, period)).thenReturn(Optional.empty());
+
+        service.getReadingsByMonth(user, period);
+        service.getReadingsByMonth(user, period);
+        secondStaleness.set(Long.MAX_VALUE);
+        service.getReadingsByMonth(user, period);
+
+        verify(firstReplica, never()).getReadingsByMonth(user, period);
+        verify(secondReplica, times(2)).getReadingsByMonth(user, period);
+        verify(primary).getReadingsByMonth(user, period);
+        assertEquals(1, service.getPrimaryReads());
+    }
+}
@@ -7,13 +7,18 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import repositories.UserRepository;
+import security.CredentialCache;
+import security.PasswordHasher;
+import security.impl.Pbkdf2PasswordHasher;
 import services.impl.UserServiceImpl;
 import validators.Validator;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,7 +29,7 @@ public class UserServiceImplTest {
     private UserRepository repository;
     @Mock
     private Validator<User> validator;
-    @InjectMocks
+    private PasswordHasher hasher;
     private UserServiceImpl service;
     private User user;
     private User admin;
@@ -34,6 +39,8 @@ public class UserServiceImplTest {
     @BeforeEach
     public void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
+        hasher = spy(new Pbkdf2PasswordHasher(1000));
+        service = new UserServiceImpl(repository, validator, hasher, new CredentialCache(16, Duration.ofMinutes(1)));
         user = new User("testLogin", "testPassword", Role.USER);
         admin = new User("admin", "admin", Role.ADMIN);
     }
@@ -48,7 +55,10 @@ public class UserServiceImplTest {
     public void testChangePassword() {
         service.changePassword(user, "testPassword", "newPassword");
 
-        assertEquals("newPassword", user.getPassword());
+        assertNotEquals("newPassword", user.getPassword());
+        assertTrue(hasher.verify("newPassword", user.getPassword()));
+        assertFalse(hasher.verify("testPassword", user.getPassword()));
+        verify(repository, atLeastOnce()).updateUser(user);
     }
 
     @Test
@@ -63,6 +73,24 @@ public class UserServiceImplTest {
         assertThrows(ValidationException.class, () -> service.changePassword(user, "testPassword", ""));
     }
 
+    @Test
+    @DisplayName("Проверка оповещения слушателей о регистрации и смене пароля")
+    public void testListeners() throws ValidationException {
+        UserListener listener = mock(UserListener.class);
+        service.addListener(listener);
+        when(repository.getUser("newLogin")).thenReturn(Optional.empty());
+
+        service.registerUser("newLogin", "password");
+        service.changePassword(user, "testPassword", "newPassword");
+        assertThrows(ValidationException.class, () -> service.changePassword(user, "wrongPassword", "otherPassword"));
+
+        ArgumentCaptor<User> registered = ArgumentCaptor.forClass(User.class);
+        verify(listener).onUserRegistered(registered.capture());
+        assertEquals("newLogin", registered.getValue().getLogin());
+        verify(listener).onPasswordChanged(user);
+        verifyNoMoreInteractions(listener);
+    }
+
     @Test
     @DisplayName("Проверка регистрации пользователя")
     public void testRegisterUser() throws ValidationException {
@@ -70,8 +98,12 @@ public class UserServiceImplTest {
 
         service.registerUser("testLogin", "testPassword");
 
+        ArgumentCaptor<User> added = ArgumentCaptor.forClass(User.class);
         verify(validator, times(1)).validate(user);
-        verify(repository, times(1)).addUser(user);
+        verify(repository, times(1)).addUser(added.capture());
+        assertEquals("testLogin", added.getValue().getLogin());
+        assertNotEquals("testPassword", added.getValue().getPassword());
+        assertTrue(hasher.verify("testPassword", added.getValue().getPassword()));
     }
 
     @Test
@@ -126,4 +158,74 @@ public class UserServiceImplTest {
 
         assertFalse(result.isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Проверка пароля по фиктивному хешу для несуществующего логина")
+    public void testUnknownLoginVerifiesDummyHash() {
+        when(repository.getUser("unknown")).thenReturn(Optional.empty());
+
+        assertFalse(service.getUser("unknown", "testPassword").isPresent());
+
+        verify(hasher, times(1)).verify(eq("testPassword"), anyString());
+    }
+
+    @Test
+    @DisplayName("Проверка хеширования пароля в открытом виде при первом успешном входе")
+    public void testLegacyPasswordRehashedOnLogin() {
+        when(repository.getUser("testLogin")).thenReturn(Optional.of(user));
+
+        assertTrue(service.getUser("testLogin", "testPassword").isPresent());
+
+        assertNotEquals("testPassword", user.getPassword());
+        assertFalse(hasher.needsRehash(user.getPassword()));
+        verify(repository, times(1)).updateUser(user);
+        assertTrue(service.getUser("testLogin", "testPassword").isPresent());
+        assertFalse(service.getUser("testLogin", "wrongPassword").isPresent());
+    }
+
+    @Test
+    @DisplayName("Проверка повторного входа без пересчета хеша")
+    public void testRepeatedLoginUsesCache() {
+        User hashed = new User("testLogin", hasher.hash("testPassword"), Role.USER);
+        when(repository.getUser("testLogin")).thenReturn(Optional.of(hashed));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(service.getUser("testLogin", "testPassword").isPresent());
+        }
+
+        verify(hasher, times(1)).verify("testPassword", hashed.getPassword());
+        verify(repository, never()).updateUser(any());
+    }
+
+    @Test
+    @DisplayName("Проверка поиска логинов: сначала по префиксу, затем похожие без повторов")
+    public void testSearchLogins() {
+        when(repository.findLoginsByPrefix("ivan", 3)).thenReturn(List.of("ivan", "ivanov"));
+        when(repository.findSimilarLogins("ivan", 1, 3)).thenReturn(List.of("ivan", "iван", "ivar"));
+
+        assertEquals(List.of("ivan", "ivanov", "iван"), service.searchLogins("ivan", 3));
+        verify(repository, never()).findSimilarLogins("ivan", 2, 3);
+    }
+
+    @Test
+    @DisplayName("Проверка, что логины с двумя опечатками ищутся, только если с одной ничего не найдено")
+    public void testSearchLoginsWithTwoTypos() {
+        when(repository.findLoginsByPrefix(any(), anyInt())).thenReturn(List.of());
+        when(repository.findSimilarLogins(any(), anyInt(), anyInt())).thenReturn(List.of());
+        when(repository.findSimilarLogins("tsetLogin", 2, 5)).thenReturn(List.of("testLogin"));
+
+        assertEquals(List.of("testLogin"), service.searchLogins("tsetLogin", 5));
+        assertTrue(service.searchLogins("tset", 5).isEmpty());
+        verify(repository, never()).findSimilarLogins("tset", 2, 5);
+    }
+
+    @Test
+    @DisplayName("Проверка, что при достаточном числе совпадений по префиксу похожие логины не ищутся")
+    public void testSearchLoginsByPrefixOnly() {
+        when(repository.findLoginsByPrefix("testLogin", 2)).thenReturn(List.of("testLogin", "testLogin2"));
+
+        assertEquals(List.of("testLogin", "testLogin2"), service.searchLogins("testLogin", 2));
+        verify(repository, never()).findSimilarLogins(any(), anyInt(), anyInt());
+        assertThrows(ValidationException.class, () -> service.searchLogins("test", 0));
+    }
+}
@@ -5,6 +5,8 @@ import models.Readings;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import repositories.MeterTypeRegistry;
+import repositories.impl.MeterTypeRegistryImpl;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,4 +45,36 @@ public class ReadingsValidatorTest {
 
         assertThrows(ValidationException.class, () -> validator.validate(readings));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Проверка валидации уменьшающихся показаний счетчика")
+    public void testValidateProgression() {
+        Readings previous = new Readings();
+        previous.add("heating", 100.0);
+        Readings next = new Readings();
+        next.add("heating", 120.0);
+        next.add("coldWater", 5.0);
+        Readings decreased = new Readings();
+        decreased.add("heating", 90.0);
+
+        assertDoesNotThrow(() -> validator.validateProgression(previous, next));
+        assertThrows(ValidationException.class, () -> validator.validateProgression(previous, decreased));
+    }
+
+    @Test
+    @DisplayName("Проверка валидации показаний незарегистрированного типа")
+    public void testValidateWithUnregisteredMeterType() {
+        MeterTypeRegistry registry = new MeterTypeRegistryImpl();
+        registry.register("heating");
+        ReadingsValidator restricted = new ReadingsValidator(registry);
+        Readings registered = new Readings();
+        registered.add("heating", 100.0);
+        Readings unknown = new Readings();
+        unknown.add("heating", 100.0);
+        unknown.add("electricity", 50.0);
+
+        assertDoesNotThrow(() -> restricted.validate(registered));
+        assertThrows(ValidationException.class, () -> restricted.validate(unknown));
+        assertDoesNotThrow(() -> validator.validate(unknown));
+    }
+}